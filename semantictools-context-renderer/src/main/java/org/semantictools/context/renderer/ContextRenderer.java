@@ -24,19 +24,21 @@ import java.awt.RenderingHints;
 import java.awt.Stroke;
 import java.awt.geom.Ellipse2D;
 import java.awt.geom.Rectangle2D;
-import java.awt.image.BufferedImage;
+import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
 
-import javax.imageio.ImageIO;
-
 import org.semantictools.context.renderer.model.DiagramSpec;
 import org.semantictools.context.renderer.model.Modifier;
 import org.semantictools.context.renderer.model.Node;
 import org.semantictools.context.renderer.model.Rect;
+import org.semantictools.graphics.Diagram;
+import org.semantictools.graphics.DiagramRenderService;
+import org.semantictools.graphics.ImageFormat;
 import org.semantictools.graphics.Padding;
+import org.semantictools.graphics.TextMeasurer;
 
 public class ContextRenderer {
   
@@ -44,14 +46,41 @@ public class ContextRenderer {
   private FontMetrics nameMetrics;
   private FontMetrics typeMetrics;
   private StreamFactory streamFactory;
+  private DiagramRenderService renderService;
+  private LayoutAlgorithm layoutAlgorithm = LayoutAlgorithm.GRID;
 
   public ContextRenderer(StreamFactory factory) {
+    this(factory, null);
+  }
+  
+  /**
+   * Create a ContextRenderer that delegates the painting and encoding of images 
+   * to the given service.
+   * @param factory The factory that supplies the output streams for the images.
+   * @param renderService The service that writes images, or null if images should be
+   * written synchronously.  The service is used only when the factory maps image paths to local files.
+   */
+  public ContextRenderer(StreamFactory factory, DiagramRenderService renderService) {
     this.streamFactory = factory;
+    this.renderService = renderService;
     style = new Style(true);
     
   }
   
   
+  /**
+   * Returns the algorithm used to place the nodes of a diagram.  The default is
+   * {@link LayoutAlgorithm#GRID}.
+   */
+  public LayoutAlgorithm getLayoutAlgorithm() {
+    return layoutAlgorithm;
+  }
+
+  public void setLayoutAlgorithm(LayoutAlgorithm layoutAlgorithm) {
+    this.layoutAlgorithm = layoutAlgorithm;
+  }
+
+
   public void renderGraphicalNotationFigure(DiagramSpec spec) throws IOException {
     computeLayout(spec);
     NotationPainter painter = new NotationPainter(spec);
@@ -79,7 +108,10 @@ public class ContextRenderer {
   }
 
 
-  private void computeLayout(DiagramSpec spec) {
+  /**
+   * Computes the position and size of every node in the given diagram, without painting it.
+   */
+  void computeLayout(DiagramSpec spec) {
    
     LayoutEngine engine = new LayoutEngine(spec);
     engine.computeLayout();
@@ -109,14 +141,13 @@ public class ContextRenderer {
       
       super.computeImageDimensions();
       
-      BufferedImage image = new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB);
-      Graphics2D g = image.createGraphics();
-      
-      FontMetrics metrics = g.getFontMetrics( style.getLabelFont() );
+      TextMeasurer measurer = TextMeasurer.getDefault();
+      Font font = style.getLabelFont();
+      FontMetrics metrics = measurer.getFontMetrics(font);
       ascent = metrics.getAscent()/2 - metrics.getDescent();
       
-      propertyNameBounds = metrics.getStringBounds(PROPERTY_NAME, g);
-      propertyTypeBounds = metrics.getStringBounds(PROPERTY_TYPE, g);
+      propertyNameBounds = measurer.getStringBounds(font, PROPERTY_NAME);
+      propertyTypeBounds = measurer.getStringBounds(font, PROPERTY_TYPE);
       
       int textWidth = (int)Math.max(propertyNameBounds.getWidth(), propertyTypeBounds.getWidth());
       imageWidth += ARROW_LENGTH + 2*ARROW_HEAD_LENGTH + 3*ARROW_SPACING + textWidth;
@@ -125,10 +156,10 @@ public class ContextRenderer {
     
 
 
-    public void paintImage() throws IOException {
+    protected void paintContent() {
       paintLabeledArrow(spec.getRoot().getNameRect(), propertyNameBounds, PROPERTY_NAME);
       paintLabeledArrow(spec.getRoot().getTypeRect(), propertyTypeBounds, PROPERTY_TYPE);
-      super.paintImage();
+      super.paintContent();
     }
 
     private void paintLabeledArrow(Rect targetRect, Rectangle2D labelBounds, String labelText) {
@@ -177,10 +208,10 @@ public class ContextRenderer {
     }
   }
   
-  private class Painter {
-    BufferedImage image;
+  private class Painter implements Diagram {
     Graphics2D graphics;
     DiagramSpec spec;
+    String contentHash;
     
     protected int imageWidth;
     protected int imageHeight;
@@ -199,10 +230,67 @@ public class ContextRenderer {
       this.spec = spec;
       computeImageDimensions();
       
-      image = new BufferedImage(imageWidth, imageHeight, BufferedImage.TYPE_INT_ARGB);
-      graphics = image.createGraphics();
+      StringBuilder signature = new StringBuilder();
+      signature.append(getClass().getSimpleName());
+      signature.append('|').append(imageWidth).append('x').append(imageHeight);
+      signature.append('|').append(style).append('\n');
+      sign(signature, spec.getRoot());
+      contentHash = DiagramRenderService.digest(signature.toString());
+    }
+    
+    /**
+     * Append the text, modifier and layout of the given node and its descendants 
+     * to the signature from which the content hash is computed.
+     */
+    private void sign(StringBuilder signature, Node node) {
+      signature.append(node.getNameText()).append('|');
+      signature.append(node.getTypeText()).append('|');
+      signature.append(node.getNameQualifier()).append('|');
+      signature.append(node.getModifier()).append('|');
+      signature.append(node.getBranchStyle());
+      sign(signature, node.getOutline());
+      sign(signature, node.getNameRect());
+      sign(signature, node.getTypeRect());
+      signature.append('\n');
+      if (node.getChildren() != null) {
+        signature.append("(\n");
+        for (Node child : node.getChildren()) {
+          sign(signature, child);
+        }
+        signature.append(")\n");
+      }
+    }
+    
+    private void sign(StringBuilder signature, Rect rect) {
+      signature.append('|').append(rect.getX()).append(',').append(rect.getY());
+      signature.append(',').append(rect.getWidth()).append(',').append(rect.getHeight());
+    }
+    
+    @Override
+    public String getContentHash() {
+      return contentHash;
+    }
+    
+    @Override
+    public int getWidth() {
+      return imageWidth;
+    }
+    
+    @Override
+    public int getHeight() {
+      return imageHeight;
+    }
+    
+    @Override
+    public synchronized void paint(Graphics2D g) {
+      graphics = g;
       graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
       graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+      try {
+        paintContent();
+      } finally {
+        graphics = null;
+      }
     }
     
     
@@ -226,17 +314,22 @@ public class ContextRenderer {
 
 
 
-    public void paintImage() throws IOException {
+    protected void paintContent() {
       paintNode(spec.getRoot());
-      writeFile();
-      
     }
 
-    private void writeFile() throws IOException {
+    public void paintImage() throws IOException {
+      
+      File file = (renderService == null) ? null : streamFactory.getOutputFile(spec.getImagePath());
+      if (file != null) {
+        renderService.submit(this, file, null);
+        return;
+      }
 
-      OutputStream stream = streamFactory.createOutputStream(spec.getImagePath());
+      String path = spec.getImagePath();
+      OutputStream stream = streamFactory.createOutputStream(path);
       try {
-        ImageIO.write(image, "png", stream);
+        DiagramRenderService.write(this, ImageFormat.forPath(path), contentHash, stream);
       } finally {
         stream.close();
       }
@@ -458,11 +551,9 @@ public class ContextRenderer {
     @SuppressWarnings("deprecation")
     LayoutEngine(DiagramSpec spec) {
       this.spec = spec;
-      BufferedImage image = new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB);
-      Graphics2D g = image.createGraphics();
       
-      nameMetrics = g.getFontMetrics( style.getNameFont() );
-      typeMetrics = g.getFontMetrics( style.getTypeFont() );
+      nameMetrics = TextMeasurer.getDefault().getFontMetrics( style.getNameFont() );
+      typeMetrics = TextMeasurer.getDefault().getFontMetrics( style.getTypeFont() );
       
       Padding namePad = style.getNamePadding();
       Padding typePad = style.getTypePadding();
@@ -486,6 +577,13 @@ public class ContextRenderer {
       root.setLeft(0, style.getModifierDiameter());
       
       grid.computeHorizontalSpacing(style.getHorizontalSpacing());
+      
+      if (layoutAlgorithm == LayoutAlgorithm.TIDY) {
+        TidyTreeLayout layout = new TidyTreeLayout(style.getVerticalSpacing());
+        layout.layout(root);
+        return;
+      }
+      
       grid.computeVerticalSpacing(style.getVerticalSpacing());
       
       grid.refinePlacement(style.getVerticalSpacing());
@@ -517,7 +615,8 @@ public class ContextRenderer {
     
     private void setDimensions(Rect rect, String text, int height, FontMetrics metrics, Padding padding) {
       rect.setHeight(height);
-      rect.setWidth((int)(metrics.stringWidth(text) + padding.getPadLeft() + padding.getPadRight()));
+      int textWidth = TextMeasurer.getDefault().stringWidth(metrics, text);
+      rect.setWidth((int)(textWidth + padding.getPadLeft() + padding.getPadRight()));
     }
 
     
@@ -0,0 +1,44 @@
+/*******************************************************************************
+ * Copyright 2012 Pearson Education
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package org.semantictools.context.renderer;
+
+/**
+ * Enumerates the algorithms that {@link ContextRenderer} may use to place the nodes of 
+ * a diagram.  Every algorithm places the nodes in columns, one column for each level
+ * of the tree; they differ only in how the nodes are placed vertically within a column.
+ * 
+ * @author Greg McFall
+ *
+ */
+public enum LayoutAlgorithm {
+  
+  /**
+   * Places the children of each node evenly around the parent, and then pushes down 
+   * any node that overlaps its predecessor in the same column, re-centering the ancestors
+   * after each shift.  This is the original algorithm.  Its cost grows quadratically
+   * with the number of nodes in the worst case.
+   */
+  GRID,
+  
+  /**
+   * Places the nodes with the Reingold-Tilford algorithm, as improved by Walker and
+   * by Buchheim, Junger and Leipert.  Subtrees are packed as closely as their
+   * contours allow, each parent is centered on its children, and small subtrees between
+   * two larger ones are spaced evenly.  The layout is computed in linear time.
+   */
+  TIDY
+  
+}
@@ -19,6 +19,7 @@ import java.io.File;
 
 import org.semantictools.context.renderer.model.JsonContext;
 import org.semantictools.frame.model.Frame;
+import org.semantictools.graphics.ImageFormat;
 
 import com.ibm.icu.util.StringTokenizer;
 
@@ -32,6 +33,7 @@ public class MediaTypeFileManager {
   
   private File mediaTypeDir;
   private File baseDir;
+  private ImageFormat imageFormat = ImageFormat.PNG;
   
     
   public MediaTypeFileManager(File baseDir, File mediaTypeDir) {
@@ -116,12 +118,36 @@ public class MediaTypeFileManager {
     return "sample.json";
   }
   
+  /**
+   * Returns the format of the diagrams.  The default format is PNG.
+   */
+  public ImageFormat getImageFormat() {
+    return imageFormat;
+  }
+
+  /**
+   * Sets the format of the diagrams.  The format determines the extension of
+   * the paths to the diagrams.
+   */
+  public void setImageFormat(ImageFormat imageFormat) {
+    this.imageFormat = imageFormat;
+  }
+
   public String getOverviewDiagramPath() {
-    return "images/overview.png";
+    return getImagePath("overview");
   }
   
   public String getClassDiagramPath(Frame frame) {
-    return "images/" + frame.getLocalName() + ".png";
+    return getImagePath(frame.getLocalName());
+  }
+  
+  /**
+   * Returns the path to the diagram with the given name, relative to the directory
+   * for a media type.
+   * @param name The name of the diagram, without an extension.
+   */
+  public String getImagePath(String name) {
+    return getImagesDir() + "/" + name + "." + imageFormat.getExtension();
   }
   
   public String getImagesDir() {
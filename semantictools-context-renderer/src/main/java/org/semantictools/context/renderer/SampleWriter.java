@@ -31,14 +31,13 @@ import org.codehaus.jackson.JsonGenerationException;
 import org.codehaus.jackson.JsonGenerator;
 import org.codehaus.jackson.JsonNode;
 import org.codehaus.jackson.PrettyPrinter;
-import org.codehaus.jackson.map.ObjectMapper;
 import org.codehaus.jackson.map.ObjectWriter;
-import org.codehaus.jackson.map.SerializationConfig;
 import org.codehaus.jackson.node.ArrayNode;
 import org.codehaus.jackson.node.JsonNodeFactory;
 import org.codehaus.jackson.node.ObjectNode;
 import org.semantictools.frame.api.TypeManager;
 import org.semantictools.frame.model.OntologyInfo;
+import org.semantictools.jsonld.io.LdJsonFactory;
 
 import com.hp.hpl.jena.rdf.model.Literal;
 import com.hp.hpl.jena.rdf.model.Property;
@@ -76,17 +75,13 @@ public class SampleWriter {
   public void write(File file) throws IOException {
     ObjectNode universe = createUniverse();
     
-    ObjectMapper mapper = new ObjectMapper();    
-    mapper.configure(SerializationConfig.Feature.INDENT_OUTPUT, true);
-    mapper.writeValue(file, universe);
+    ObjectWriter writer = LdJsonFactory.getObjectMapper().writerWithDefaultPrettyPrinter();
+    writer.writeValue(file, universe);
   }
   
   public void write(OutputStream output) throws IOException {
     ObjectNode universe = createUniverse();
-    ObjectMapper mapper = new ObjectMapper();  
-  
-    ObjectWriter writer = mapper.writer(new MyPrettyPrinter());
-    mapper.configure(SerializationConfig.Feature.INDENT_OUTPUT, true);
+    ObjectWriter writer = LdJsonFactory.getObjectMapper().writer(new MyPrettyPrinter());
     writer.writeValue(output, universe);
     
     
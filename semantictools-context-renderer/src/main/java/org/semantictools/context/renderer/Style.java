@@ -204,6 +204,17 @@ public class Style {
     this.typePadding = typePadding;
   }
   
+  public String toString() {
+    return "Style(boxBorderColor=" + boxBorderColor + ", nameTextColor=" + nameTextColor +
+        ", typeTextColor=" + typeTextColor + ", nameBgColor=" + nameBgColor +
+        ", typeBgColor=" + typeBgColor + ", modifierTextColor=" + modifierTextColor +
+        ", arcColor=" + arcColor + ", nameFont=" + nameFont + ", typeFont=" + typeFont +
+        ", modifierFont=" + modifierFont + ", labelFont=" + labelFont +
+        ", namePadding=" + namePadding + ", typePadding=" + typePadding +
+        ", verticalSpacing=" + verticalSpacing + ", horizontalSpacing=" + horizontalSpacing +
+        ", modifierDiameter=" + modifierDiameter + ")";
+  }
+  
   
   
   
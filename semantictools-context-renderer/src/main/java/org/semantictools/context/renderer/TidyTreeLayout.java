@@ -0,0 +1,251 @@
+/*******************************************************************************
+ * Copyright 2012 Pearson Education
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package org.semantictools.context.renderer;
+
+import java.util.List;
+
+import org.semantictools.context.renderer.model.Node;
+
+/**
+ * Computes the vertical placement of the nodes in a diagram in linear time, using
+ * the Reingold-Tilford algorithm with the improvements by Walker and by Buchheim, 
+ * Junger and Leipert.
+ * <p>
+ * The diagrams grow from left to right, so the "left" and "right" contours of the 
+ * classic algorithm are the top and bottom contours of a subtree here.  Two nodes 
+ * in the same column are separated by the height of the upper node plus the vertical 
+ * spacing.  The horizontal placement of the nodes is not changed.
+ * <p>
+ * When the layout is complete, the top of the highest node is at zero.
+ * 
+ * @author Greg McFall
+ *
+ */
+class TidyTreeLayout {
+  
+  private int spacing;
+  
+  TidyTreeLayout(int spacing) {
+    this.spacing = spacing;
+  }
+  
+  /**
+   * Sets the top of every node in the tree with the given root.
+   */
+  public void layout(Node root) {
+    Entry entry = new Entry(root, null, 0);
+    firstWalk(entry);
+    double min = secondWalk(entry, 0, Double.MAX_VALUE);
+    thirdWalk(entry, -min);
+  }
+
+  /**
+   * Computes the preliminary top of each node relative to its siblings, in post-order.
+   */
+  private void firstWalk(Entry v) {
+    Entry[] kids = v.children;
+    Entry w = v.getPreviousSibling();
+    if (kids.length == 0) {
+      v.prelim = (w == null) ? 0 : w.prelim + distance(w);
+      return;
+    }
+    
+    Entry defaultAncestor = kids[0];
+    for (Entry child : kids) {
+      firstWalk(child);
+      defaultAncestor = apportion(child, defaultAncestor);
+    }
+    executeShifts(v);
+    
+    Entry first = kids[0];
+    Entry last = kids[kids.length-1];
+    double midpoint = (first.prelim + last.prelim + last.node.getHeight())/2 - v.node.getHeight()/2.0;
+    if (w == null) {
+      v.prelim = midpoint;
+    } else {
+      v.prelim = w.prelim + distance(w);
+      v.mod = v.prelim - midpoint;
+    }
+  }
+  
+  /**
+   * Pushes the subtree rooted at v below the subtrees of its previous siblings, 
+   * by walking the bottom contour of the subtrees above and the top contour of 
+   * the subtree at v.  Returns the updated default ancestor.
+   */
+  private Entry apportion(Entry v, Entry defaultAncestor) {
+    Entry w = v.getPreviousSibling();
+    if (w == null) return defaultAncestor;
+    
+    // "i" is the inner contour and "o" the outer contour; "p" is the subtree at v,
+    // and "m" is the subtrees above it.
+    Entry vip = v;
+    Entry vop = v;
+    Entry vim = w;
+    Entry vom = v.parent.children[0];
+    double sip = vip.mod;
+    double sop = vop.mod;
+    double sim = vim.mod;
+    double som = vom.mod;
+    
+    Entry nextBottom = vim.nextBottom();
+    Entry nextTop = vip.nextTop();
+    while (nextBottom != null && nextTop != null) {
+      vim = nextBottom;
+      vip = nextTop;
+      vom = vom.nextTop();
+      vop = vop.nextBottom();
+      vop.ancestor = v;
+      double shift = (vim.prelim + sim) - (vip.prelim + sip) + distance(vim);
+      if (shift > 0) {
+        moveSubtree(ancestor(vim, v, defaultAncestor), v, shift);
+        sip += shift;
+        sop += shift;
+      }
+      sim += vim.mod;
+      sip += vip.mod;
+      som += vom.mod;
+      sop += vop.mod;
+      
+      nextBottom = vim.nextBottom();
+      nextTop = vip.nextTop();
+    }
+    if (nextBottom != null && vop.nextBottom() == null) {
+      vop.thread = nextBottom;
+      vop.mod += sim - sop;
+    }
+    if (nextTop != null && vom.nextTop() == null) {
+      vom.thread = nextTop;
+      vom.mod += sip - som;
+      defaultAncestor = v;
+    }
+    return defaultAncestor;
+  }
+  
+  private Entry ancestor(Entry vim, Entry v, Entry defaultAncestor) {
+    return vim.ancestor.parent == v.parent ? vim.ancestor : defaultAncestor;
+  }
+  
+  /**
+   * Moves the subtree at wp down by the given shift, and records the change so 
+   * that the siblings between wm and wp are spaced evenly by {@link #executeShifts(Entry)}.
+   */
+  private void moveSubtree(Entry wm, Entry wp, double shift) {
+    double change = shift / (wp.number - wm.number);
+    wp.change -= change;
+    wp.shift += shift;
+    wm.change += change;
+    wp.prelim += shift;
+    wp.mod += shift;
+  }
+  
+  private void executeShifts(Entry v) {
+    double shift = 0;
+    double change = 0;
+    Entry[] kids = v.children;
+    for (int i=kids.length-1; i>=0; i--) {
+      Entry w = kids[i];
+      w.prelim += shift;
+      w.mod += shift;
+      change += w.change;
+      shift += w.shift + change;
+    }
+  }
+  
+  /**
+   * Computes the absolute top of each node, and returns the smallest top in the subtree.
+   */
+  private double secondWalk(Entry v, double m, double min) {
+    v.prelim += m;
+    min = Math.min(min, v.prelim);
+    for (Entry child : v.children) {
+      min = secondWalk(child, m + v.mod, min);
+    }
+    return min;
+  }
+  
+  /**
+   * Translates the tree by dy, and sets the top of each node.
+   */
+  private void thirdWalk(Entry v, double dy) {
+    v.node.setTop((int) Math.floor(v.prelim + dy + 0.5));
+    for (Entry child : v.children) {
+      thirdWalk(child, dy);
+    }
+  }
+  
+  /**
+   * Returns the minimum distance from the top of the given node to the top of
+   * the node below it in the same column.
+   */
+  private double distance(Entry upper) {
+    return upper.node.getHeight() + spacing;
+  }
+  
+  /**
+   * Holds the working state of the algorithm for a single node.
+   */
+  static class Entry {
+    private static final Entry[] EMPTY = new Entry[0];
+    
+    Node node;
+    Entry parent;
+    Entry[] children;
+    Entry thread;
+    Entry ancestor;
+    int number;
+    double prelim;
+    double mod;
+    double change;
+    double shift;
+    
+    Entry(Node node, Entry parent, int number) {
+      this.node = node;
+      this.parent = parent;
+      this.number = number;
+      ancestor = this;
+      
+      List<Node> kids = node.getChildren();
+      if (kids == null || kids.isEmpty()) {
+        children = EMPTY;
+      } else {
+        children = new Entry[kids.size()];
+        for (int i=0; i<children.length; i++) {
+          children[i] = new Entry(kids.get(i), this, i);
+        }
+      }
+    }
+    
+    Entry getPreviousSibling() {
+      return (parent == null || number == 0) ? null : parent.children[number-1];
+    }
+    
+    /**
+     * Returns the next node on the top contour of the subtree.
+     */
+    Entry nextTop() {
+      return children.length > 0 ? children[0] : thread;
+    }
+    
+    /**
+     * Returns the next node on the bottom contour of the subtree.
+     */
+    Entry nextBottom() {
+      return children.length > 0 ? children[children.length-1] : thread;
+    }
+  }
+
+}
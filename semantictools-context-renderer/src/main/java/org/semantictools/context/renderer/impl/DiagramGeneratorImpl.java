@@ -20,6 +20,7 @@ import java.util.List;
 
 import org.semantictools.context.renderer.ContextRenderer;
 import org.semantictools.context.renderer.DiagramGenerator;
+import org.semantictools.context.renderer.LayoutAlgorithm;
 import org.semantictools.context.renderer.StreamFactory;
 import org.semantictools.context.renderer.model.CreateDiagramRequest;
 import org.semantictools.context.renderer.model.DiagramSpec;
@@ -27,12 +28,36 @@ import org.semantictools.context.renderer.model.JsonContext;
 import org.semantictools.context.renderer.model.Modifier;
 import org.semantictools.context.renderer.model.Node;
 import org.semantictools.context.renderer.model.TreeNode;
+import org.semantictools.graphics.DiagramRenderService;
 
 public class DiagramGeneratorImpl implements DiagramGenerator {
   private StreamFactory streamFactory;
+  private DiagramRenderService renderService;
+  private LayoutAlgorithm layoutAlgorithm = LayoutAlgorithm.GRID;
   
   public DiagramGeneratorImpl(StreamFactory streamFactory) {
+    this(streamFactory, null);
+  }
+  
+  /**
+   * Create a DiagramGeneratorImpl that hands the images to the given service.
+   * @param streamFactory The factory that supplies the output streams for the images.
+   * @param renderService The service that writes images, or null if images should be written synchronously.
+   */
+  public DiagramGeneratorImpl(StreamFactory streamFactory, DiagramRenderService renderService) {
     this.streamFactory = streamFactory;
+    this.renderService = renderService;
+  }
+  
+  /**
+   * Returns the algorithm used to place the nodes of the diagrams.
+   */
+  public LayoutAlgorithm getLayoutAlgorithm() {
+    return layoutAlgorithm;
+  }
+
+  public void setLayoutAlgorithm(LayoutAlgorithm layoutAlgorithm) {
+    this.layoutAlgorithm = layoutAlgorithm;
   }
   
 
@@ -43,7 +68,8 @@ public class DiagramGeneratorImpl implements DiagramGenerator {
     
     DiagramSpec spec = createDiagramSpec(request);
     
-    ContextRenderer renderer = new ContextRenderer(streamFactory);
+    ContextRenderer renderer = new ContextRenderer(streamFactory, renderService);
+    renderer.setLayoutAlgorithm(layoutAlgorithm);
     renderer.renderGraphicalNotationFigure(spec);
     
   }
@@ -55,7 +81,8 @@ public class DiagramGeneratorImpl implements DiagramGenerator {
 
     DiagramSpec spec = createDiagramSpec(request);
     
-    ContextRenderer renderer = new ContextRenderer(streamFactory);
+    ContextRenderer renderer = new ContextRenderer(streamFactory, renderService);
+    renderer.setLayoutAlgorithm(layoutAlgorithm);
     renderer.render(spec);
   }
   
@@ -32,9 +32,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-import org.codehaus.jackson.map.ObjectMapper;
 import org.codehaus.jackson.map.ObjectWriter;
-import org.codehaus.jackson.map.SerializationConfig;
 import org.codehaus.jackson.node.ObjectNode;
 import org.semantictools.context.renderer.DiagramGenerator;
 import org.semantictools.context.renderer.MediaTypeFileManager;
@@ -66,6 +64,7 @@ import org.semantictools.frame.model.RestCategory;
 import org.semantictools.json.JsonManager;
 import org.semantictools.json.JsonPrettyPrinter;
 import org.semantictools.json.JsonSampleGenerator;
+import org.semantictools.jsonld.io.LdJsonFactory;
 import org.semantictools.uml.api.UmlFileManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -818,7 +817,7 @@ public class ContextHtmlPrinter extends PrintEngine {
     documentPrinter.printLink(caption);
     print(".</P>");
 
-    String src = namer.getImagesDir() + "/sampleProperty.png";
+    String src = namer.getImagePath("sampleProperty");
 
     printFigure(src, caption);
 
@@ -888,7 +887,7 @@ public class ContextHtmlPrinter extends PrintEngine {
       return;
     assignNumber(caption);
 
-    String src = namer.getImagesDir() + "/uriRef.png";
+    String src = namer.getImagePath("uriRef");
     TreeNode node = treeGenerator.generateNode(field);
     CreateDiagramRequest request = new CreateDiagramRequest(context, node, src);
     // Node node = createNode(field);
@@ -929,7 +928,7 @@ public class ContextHtmlPrinter extends PrintEngine {
     if (caption == null)
       return;
 
-    String src = namer.getImagesDir() + "/snRef.png";
+    String src = namer.getImagePath("snRef");
 
     TreeNode node = null;
 
@@ -969,7 +968,7 @@ public class ContextHtmlPrinter extends PrintEngine {
     documentPrinter.printLink(caption);
     println(".</P>");
 
-    String src = namer.getImagesDir() + "/sampleObj.png";
+    String src = namer.getImagePath("sampleObj");
 
     List<Frame> graphTypes = getGraphTypes();
     TreeNode node = (graphTypes == null) ? treeGenerator.generateRoot(root, 1)
@@ -1154,7 +1153,7 @@ public class ContextHtmlPrinter extends PrintEngine {
     if (caption == null)
       return;
 
-    String src = namer.getImagesDir() + "/repeatableproperty.png";
+    String src = namer.getImagePath("repeatableproperty");
 
     // Node node = new Node();
     // node.setNameText(field.getLocalName());
@@ -1208,7 +1207,7 @@ public class ContextHtmlPrinter extends PrintEngine {
     if (caption == null)
       return;
 
-    String src = namer.getImagesDir() + "/optionalproperty.png";
+    String src = namer.getImagePath("optionalproperty");
 
     TreeNode node = null;
 
@@ -1739,9 +1738,7 @@ public class ContextHtmlPrinter extends PrintEngine {
     OutputStream out = streamFactory.createOutputStream(fileName);
     StringWriter buffer = new StringWriter();
     try {
-      ObjectMapper mapper = new ObjectMapper();
-      ObjectWriter writer = mapper.writer(new JsonPrettyPrinter());
-      mapper.configure(SerializationConfig.Feature.INDENT_OUTPUT, true);
+      ObjectWriter writer = LdJsonFactory.getObjectMapper().writer(new JsonPrettyPrinter());
       writer.writeValue(out, node);
 
       writer.writeValue(buffer, node);
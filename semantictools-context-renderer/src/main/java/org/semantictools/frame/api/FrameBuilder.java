@@ -18,6 +18,7 @@ package org.semantictools.frame.api;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -44,8 +45,10 @@ import org.xml.sax.SAXException;
 import com.hp.hpl.jena.ontology.FunctionalProperty;
 import com.hp.hpl.jena.ontology.OntClass;
 import com.hp.hpl.jena.ontology.OntModel;
+import com.hp.hpl.jena.ontology.OntModelSpec;
 import com.hp.hpl.jena.ontology.OntProperty;
 import com.hp.hpl.jena.ontology.OntResource;
+import com.hp.hpl.jena.rdf.model.Model;
 import com.hp.hpl.jena.rdf.model.ModelFactory;
 import com.hp.hpl.jena.rdf.model.RDFList;
 import com.hp.hpl.jena.rdf.model.RDFNode;
@@ -72,6 +75,7 @@ public class FrameBuilder {
   
   private TypeManager manager;
   private OntModel model;
+  private OntModelSpec ontModelSpec = OntModelSpec.OWL_MEM_RDFS_INF;
   private DatatypeReader datatypeReader;
 
   public FrameBuilder(TypeManager manager) {
@@ -87,6 +91,24 @@ public class FrameBuilder {
     this.model = model;
   }
   
+  /**
+   * Returns the specification for the OntModel that is created when ontologies
+   * are loaded from a directory.
+   */
+  public OntModelSpec getOntModelSpec() {
+    return ontModelSpec;
+  }
+
+  /**
+   * Sets the specification for the OntModel that is created when ontologies
+   * are loaded from a directory.  The default is OWL_MEM_RDFS_INF.  Use
+   * OWL_MEM to load the ontologies without a reasoner, which is much faster
+   * but exposes the asserted statements only.
+   */
+  public void setOntModelSpec(OntModelSpec ontModelSpec) {
+    this.ontModelSpec = ontModelSpec;
+  }
+  
   private static boolean isStandard(String uri) {
     for (int i=0; i<STANDARD_URI.length; i++) {
       if (uri.startsWith(STANDARD_URI[i])) return true;
@@ -780,6 +802,32 @@ public class FrameBuilder {
   }
 
 
+  /**
+   * Load the ontologies and XML Schemas at the top level of the given catalog, and
+   * build the frames.  Like {@link #loadDir(File)}, this method ignores files in subdirectories.
+   * The ontologies are copied from the graphs held by the catalog, so they are not parsed again.
+   */
+  public void load(SourceCatalog catalog) throws IOException, ParserConfigurationException, SAXException {
+    for (SourceCatalog.Source source : catalog.listTopLevelSources()) {
+      if (source.isTurtle()) {
+        addOntology(source.getModel());
+        
+      } else if (source.isXmlSchema()) {
+        readXmlSchema(source.openStream());
+      }
+    }
+    buildFrames(model);
+  }
+  
+  private void addOntology(Model graph) {
+    if (model==null) {
+      model = ModelFactory.createOntologyModel(ontModelSpec);
+    }
+    model.setNsPrefixes(graph);
+    model.add(graph);
+  }
+
+
   private void loadFile(File file) throws IOException, ParserConfigurationException, SAXException {
     String name = file.getName();
     
@@ -793,7 +841,10 @@ public class FrameBuilder {
 
 
   private void readXmlSchema(File file) throws IOException, ParserConfigurationException, SAXException {
-    FileInputStream input = new FileInputStream(file);
+    readXmlSchema(new FileInputStream(file));
+  }
+  
+  private void readXmlSchema(InputStream input) throws IOException, ParserConfigurationException, SAXException {
     try {
       datatypeReader.read(input);
     } finally {
@@ -807,7 +858,7 @@ public class FrameBuilder {
     FileInputStream input = new FileInputStream(file);
     try {
       if (model==null) {
-        model = ModelFactory.createOntologyModel();
+        model = ModelFactory.createOntologyModel(ontModelSpec);
       }
       model.read(input, null, format);
     } finally {
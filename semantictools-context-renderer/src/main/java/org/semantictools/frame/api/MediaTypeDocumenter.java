@@ -22,14 +22,21 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintWriter;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.xml.parsers.ParserConfigurationException;
 
+import org.semantictools.context.renderer.LayoutAlgorithm;
 import org.semantictools.context.renderer.MediaTypeFileManager;
 import org.semantictools.context.renderer.StreamFactory;
-import org.semantictools.context.renderer.URLRewriter;
 import org.semantictools.context.renderer.impl.DiagramGeneratorImpl;
 import org.semantictools.context.renderer.impl.FileStreamFactory;
 import org.semantictools.context.renderer.model.ContextProperties;
@@ -37,6 +44,7 @@ import org.semantictools.context.renderer.model.GlobalProperties;
 import org.semantictools.context.renderer.model.JsonContext;
 import org.semantictools.context.view.ContextHtmlPrinter;
 import org.semantictools.context.view.MediaTypeIndexPrinter;
+import org.semantictools.graphics.DiagramRenderService;
 import org.semantictools.uml.api.UmlFileManager;
 import org.semantictools.web.upload.AppspotUploadClient;
 import org.xml.sax.SAXException;
@@ -52,10 +60,12 @@ public class MediaTypeDocumenter {
   private MediaTypeFileManager fileManager;
   private GeneratorProperties generatorProperties;
   private GlobalProperties global;
-  private ContextProperties currentContext;
   private AppspotUploadClient uploadClient;
   private UmlFileManager umlFileManager;
   private boolean publish = false;
+  private int threadCount = 1;
+  private DiagramRenderService renderService;
+  private LayoutAlgorithm layoutAlgorithm = LayoutAlgorithm.GRID;
   
   
   public MediaTypeDocumenter(
@@ -100,24 +110,68 @@ public class MediaTypeDocumenter {
 
 
 
-  class MyURLRewriter implements URLRewriter {
+  /**
+   * Returns the number of threads used to produce the documentation for the media types.
+   * The default value is 1, which means that the media types are documented sequentially,
+   * on the calling thread.
+   */
+  public int getThreadCount() {
+    return threadCount;
+  }
 
-    @Override
-    public String rewrite(String url) {
-      if (generatorProperties == null || fileManager == null || currentContext==null) {
-        return url;
-      }
-      String baseURL = generatorProperties.getBaseURL();
-      String mediaType = currentContext.getMediaType();
-      
-      return fileManager.toRelativeURL(url, baseURL, mediaType);
+  /**
+   * Sets the number of threads used to produce the documentation for the media types.
+   * When the count is greater than 1, each media type is documented by an independent task,
+   * and the tasks share the TypeManager, which must not be modified while the documentation
+   * is produced.  The output is the same as in the sequential case.
+   */
+  public void setThreadCount(int threadCount) {
+    if (threadCount < 1) {
+      throw new IllegalArgumentException("threadCount must be positive: " + threadCount);
     }
-    
+    this.threadCount = threadCount;
+  }
+
+  /**
+   * Returns the service that writes the diagrams, or null if the diagrams are written
+   * synchronously, while the HTML is generated.
+   */
+  public DiagramRenderService getRenderService() {
+    return renderService;
+  }
+
+  /**
+   * Sets the service that writes the diagrams.  All the diagrams for a given media type
+   * are written before its documentation is published, and all diagrams are written before
+   * {@link #produceAllDocumentation(File, Set)} returns.
+   */
+  public void setRenderService(DiagramRenderService renderService) {
+    this.renderService = renderService;
+  }
+
+  /**
+   * Returns the algorithm used to place the nodes of the media type diagrams.
+   */
+  public LayoutAlgorithm getLayoutAlgorithm() {
+    return layoutAlgorithm;
+  }
+
+  public void setLayoutAlgorithm(LayoutAlgorithm layoutAlgorithm) {
+    this.layoutAlgorithm = layoutAlgorithm;
   }
   
   public void loadAll(File directory) throws IOException, ParserConfigurationException, SAXException, ContextPropertiesSyntaxException {
-    loadSchemas(directory);   
-    scan(directory);
+    loadAll(new SourceCatalog(directory));
+  }
+  
+  /**
+   * Load the schemas from the given catalog, plus the context.properties and generator.properties
+   * files from the directory that the catalog describes.  If the schemas were already loaded into
+   * the TypeManager from the same catalog, they are not loaded again.
+   */
+  public void loadAll(SourceCatalog catalog) throws IOException, ParserConfigurationException, SAXException, ContextPropertiesSyntaxException {
+    typeManager.load(catalog);
+    scan(catalog.getRoot());
   }
   
   private void scan(File directory) throws ContextPropertiesSyntaxException, IOException {
@@ -152,15 +206,24 @@ public class MediaTypeDocumenter {
     
   }
 
-  private void loadSchemas(File directory) throws IOException, ParserConfigurationException, SAXException {
-    typeManager.loadDir(directory);
-  }
-  
   private void loadContextProperties(File contextProperties) throws ContextPropertiesSyntaxException, IOException {
     contextManager.loadContextProperties(contextProperties);
   }
   
   public void produceAllDocumentation(File outDir) throws IOException {
+    produceAllDocumentation(outDir, null);
+  }
+  
+  /**
+   * Produce the documentation for the given media types only.  For the other media types,
+   * only the JSON-LD context is written, since it is required to publish and validate the
+   * contexts.
+   * @param outDir The directory in which the documentation is stored.
+   * @param mediaTypes The media types to be documented, or null if all media types should
+   * be documented.
+   */
+  public void produceAllDocumentation(File outDir, Set<String> mediaTypes) throws IOException {
+    List<DocumentationTask> taskList = new ArrayList<DocumentationTask>();
     List<ContextProperties> list = contextManager.listContextProperties();
     for (ContextProperties p : list) {
       String typeURI = p.getRdfTypeURI();
@@ -168,10 +231,91 @@ public class MediaTypeDocumenter {
         String ontologyURI = TypeManager.getNamespace(typeURI);
         if (global.isIgnoredOntology(ontologyURI)) continue;
       }
-      produceDocumentation(p, outDir);
+      boolean contextOnly = mediaTypes != null && !mediaTypes.contains(p.getMediaType());
+      taskList.add(new DocumentationTask(p, outDir, contextOnly));
+    }
+    
+    if (threadCount > 1 && taskList.size() > 1) {
+      runConcurrently(taskList);
+    } else {
+      for (DocumentationTask task : taskList) {
+        task.call();
+      }
     }
     copyMediaTypeStylesheet(outDir);
     updateMediaTypeIndex(outDir);
+    if (renderService != null) {
+      renderService.flush();
+    }
+  }
+  
+  /**
+   * Run the given tasks on a pool of threads, and wait for all of them to finish.
+   * If any tasks fail, the error from the first of those tasks is thrown.
+   */
+  private void runConcurrently(List<DocumentationTask> taskList) throws IOException {
+    typeManager.prepareConcurrentAccess();
+    
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(threadCount, taskList.size()));
+    try {
+      List<Future<Void>> futureList = new ArrayList<Future<Void>>();
+      for (DocumentationTask task : taskList) {
+        futureList.add(executor.submit(task));
+      }
+      Throwable error = null;
+      for (Future<Void> future : futureList) {
+        try {
+          future.get();
+        } catch (ExecutionException e) {
+          if (error == null) {
+            error = e.getCause();
+          }
+        }
+      }
+      if (error instanceof IOException) {
+        throw (IOException) error;
+      }
+      if (error instanceof RuntimeException) {
+        throw (RuntimeException) error;
+      }
+      if (error instanceof Error) {
+        throw (Error) error;
+      }
+      
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while producing media type documentation", e);
+      
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+  
+  /**
+   * A task that produces the documentation for a single media type.
+   * Each task has its own printer, diagram generator and stream factory, so that
+   * tasks for different media types can run concurrently.
+   */
+  class DocumentationTask implements Callable<Void> {
+    private ContextProperties properties;
+    private File outDir;
+    private boolean contextOnly;
+    
+    DocumentationTask(ContextProperties properties, File outDir, boolean contextOnly) {
+      this.properties = properties;
+      this.outDir = outDir;
+      this.contextOnly = contextOnly;
+    }
+
+    @Override
+    public Void call() throws IOException {
+      if (contextOnly) {
+        produceContext(properties, outDir);
+      } else {
+        produceDocumentation(properties, outDir);
+      }
+      return null;
+    }
   }
 
   private void updateMediaTypeIndex(File outDir) throws IOException {
@@ -221,31 +365,16 @@ public class MediaTypeDocumenter {
   }
     
   private void produceDocumentation(ContextProperties properties, File outDir) throws IOException {
-    currentContext = properties;
-    
     String mediaType = properties.getMediaType();
     
     File baseDir = new File(outDir, fileManager.pathToMediaTypeDir(mediaType));
-    baseDir.mkdirs();
-    
-    ContextBuilder contextBuilder = new ContextBuilder(typeManager);
-    JsonContext context = contextBuilder.createContext(properties);
-    
-    if (context != null) {
-      ContextWriter contextWriter = new ContextWriter();
-      File contextFile = new File(baseDir, fileManager.getJsonContextFileName(context));
-      properties.setContextFile(contextFile);
-      PrintWriter printWriter = new PrintWriter(new FileWriter(contextFile));
-      contextWriter.writeContext(printWriter, context);
-      printWriter.close();
-    }
-    
-
+    JsonContext context = produceContext(properties, outDir);
 
     File inputDir = properties.getSourceFile().getParentFile();
     
     StreamFactory streamFactory = new FileStreamFactory(inputDir, baseDir);
-    DiagramGeneratorImpl diagramManager = new DiagramGeneratorImpl(streamFactory);
+    DiagramGeneratorImpl diagramManager = new DiagramGeneratorImpl(streamFactory, renderService);
+    diagramManager.setLayoutAlgorithm(layoutAlgorithm);
     ContextHtmlPrinter contextPrinter = new ContextHtmlPrinter(
         global, generatorProperties, typeManager, fileManager, streamFactory, diagramManager, umlFileManager);
     contextPrinter.setIncludeOverviewDiagram(true);
@@ -253,13 +382,39 @@ public class MediaTypeDocumenter {
     contextPrinter.printHtml(context, properties);
     
     if (publish) {
-      uploadClient.upload(baseDir, properties);
+      if (renderService != null) {
+        renderService.flush();
+      }
+      synchronized (uploadClient) {
+        uploadClient.upload(baseDir, properties);
+      }
     }
     
     
   }
 
-  
+  /**
+   * Write the JSON-LD context for the given media type, and record the location of
+   * the context file in the given properties.
+   */
+  private JsonContext produceContext(ContextProperties properties, File outDir) throws IOException {
+    
+    File baseDir = new File(outDir, fileManager.pathToMediaTypeDir(properties.getMediaType()));
+    baseDir.mkdirs();
+    
+    ContextBuilder contextBuilder = new ContextBuilder(typeManager);
+    JsonContext context = contextBuilder.createContext(properties);
+    
+    if (context != null) {
+      ContextWriter contextWriter = new ContextWriter();
+      File contextFile = new File(baseDir, fileManager.getJsonContextFileName(context));
+      properties.setContextFile(contextFile);
+      PrintWriter printWriter = new PrintWriter(new FileWriter(contextFile));
+      contextWriter.writeContext(printWriter, context);
+      printWriter.close();
+    }
+    return context;
+  }
   
   
 
@@ -18,7 +18,6 @@ package org.semantictools.frame.api;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
@@ -30,9 +29,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
-import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
-
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.client.ClientProtocolException;
@@ -44,14 +40,10 @@ import org.semantictools.context.renderer.model.ContextProperties;
 import org.semantictools.context.renderer.model.OntologyEntity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.xml.sax.Attributes;
-import org.xml.sax.SAXException;
-import org.xml.sax.XMLReader;
-import org.xml.sax.helpers.DefaultHandler;
 
-import com.hp.hpl.jena.ontology.OntModel;
-import com.hp.hpl.jena.ontology.Ontology;
-import com.hp.hpl.jena.rdf.model.ModelFactory;
+import com.hp.hpl.jena.rdf.model.Resource;
+import com.hp.hpl.jena.vocabulary.OWL;
+import com.hp.hpl.jena.vocabulary.RDF;
 
 public class OntologyManager {
   private static final String PROPERTIES_FILENAME = "asset.properties";
@@ -298,35 +290,40 @@ public class OntologyManager {
   
   public void scan(File file) throws SchemaParseException {
     if (localRepository==null && ontologyServiceURI==null) return;
-    if (file.isDirectory()) {
-      for (File child : file.listFiles()) {
-        scan(child);
-      }
-    } else {
-      String fileName = file.getName();
-      if (fileName.endsWith(".xsd")) {
-        loadXsd(file);
-      } else if (fileName.endsWith(".ttl")) {
-        loadTurtle(file);
+    try {
+      scan(new SourceCatalog(file));
+    } catch (IOException oops) {
+      throw new SchemaParseException(oops);
+    }
+  }
+  
+  /**
+   * Register the ontologies and XML Schemas from the given catalog, so that they
+   * can be uploaded or published to the local repository.
+   */
+  public void scan(SourceCatalog catalog) throws SchemaParseException {
+    if (localRepository==null && ontologyServiceURI==null) return;
+    for (SourceCatalog.Source source : catalog.listSources()) {
+      if (source.isXmlSchema()) {
+        loadXsd(source);
+      } else if (source.isTurtle()) {
+        loadTurtle(source);
       }
     }
   }
 
-  private void loadTurtle(File file) throws SchemaParseException {
+  private void loadTurtle(SourceCatalog.Source source) throws SchemaParseException {
+    File file = source.getFile();
     if (file.getName().endsWith("_binding.ttl")) {
       // For now, ignore binding files.
       return;
     }
     try {
-      OntModel model = ModelFactory.createOntologyModel();
-      FileReader reader = new FileReader(file);
-      model.read(reader, null, "TURTLE");
-      
-      List<Ontology> list = model.listOntologies().toList();
+      List<Resource> list = source.getModel().listSubjectsWithProperty(RDF.type, OWL.Ontology).toList();
       if (list.isEmpty()) {
         logger.warn("Ignoring file because it contains no ontology declarations: " + file);
       } else if (list.size() == 1) {
-        Ontology onto = list.get(0);
+        Resource onto = list.get(0);
         String ontologyURI = onto.getURI();
         OntologyEntity entity = new OntologyEntity(TURTLE_FORMAT, file, ontologyURI);
         uri2OntologyEntity.put(ontologyURI, entity);
@@ -340,50 +337,17 @@ public class OntologyManager {
     
   }
 
-  private void loadXsd(File file) throws SchemaParseException {
-    try {
-      SAXParserFactory factory = SAXParserFactory.newInstance();
-      SAXParser parser = factory.newSAXParser();
-      XMLReader reader = parser.getXMLReader();
-      reader.setFeature("http://xml.org/sax/features/namespaces", true);
-      NamespaceReader handler = new NamespaceReader();
-      reader.setContentHandler(handler);
-      
-      parser.parse(file, handler);
-      
-      String namespace = handler.getTargetNamespace();
-      if (namespace == null) {
-        logger.warn("Ignoring schema since targetNamespace is not declared: " + file.getPath());
-      } else {
-        OntologyEntity entity = new OntologyEntity(XML_FORMAT, file, namespace);
-        uri2OntologyEntity.put(namespace, entity);
-      }
-    } catch (Throwable oops) {
-      throw new SchemaParseException(oops);
-    }
-    
-  }
-  
-  
-  
-  private class NamespaceReader extends DefaultHandler {
-
-    private String targetNamespace;
-    @Override
-    public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
-      if ("schema".equals(localName)) {
-        targetNamespace = attributes.getValue("targetNamespace");
-      }
-    }
-    
-    public String getTargetNamespace() {
-      return targetNamespace;
+  private void loadXsd(SourceCatalog.Source source) throws SchemaParseException {
+    File file = source.getFile();
+    String namespace = source.getTargetNamespace();
+    if (namespace == null) {
+      logger.warn("Ignoring schema since targetNamespace is not declared: " + file.getPath());
+    } else {
+      OntologyEntity entity = new OntologyEntity(XML_FORMAT, file, namespace);
+      uri2OntologyEntity.put(namespace, entity);
     }
-    
   }
   
-  
-
   public enum LdContentType {
   
     XSD("xsd"),
@@ -0,0 +1,232 @@
+/*******************************************************************************
+ * Copyright 2012 Pearson Education
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package org.semantictools.frame.api;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.rdf.model.ModelFactory;
+
+/**
+ * A catalog of the source files (Turtle ontologies, XML Schemas and JSON documents) within a 
+ * source directory. Each file is read from disk once, and each ontology is parsed into an RDF 
+ * graph at most once, no matter how many components consume the catalog.  The TypeManager, MediaTypeDocumenter, 
+ * OntologyManager and the local repository used for validation all share a single
+ * catalog when documentation is generated.
+ * <p>
+ * The graphs are parsed lazily, the first time they are requested.  Callers must not
+ * modify the graphs returned by this catalog.
+ * 
+ * @author Greg McFall
+ *
+ */
+public class SourceCatalog {
+  
+  private File root;
+  private List<Source> sourceList = new ArrayList<Source>();
+  
+  /**
+   * Create a catalog of the source files within the given directory and its subdirectories.
+   */
+  public SourceCatalog(File root) throws IOException {
+    this.root = root;
+    scan(root);
+  }
+  
+  /**
+   * Returns the directory that was scanned to produce this catalog.
+   */
+  public File getRoot() {
+    return root;
+  }
+  
+  /**
+   * Returns the source files within the root directory and its subdirectories,
+   * in the order in which they were discovered.
+   */
+  public List<Source> listSources() {
+    return Collections.unmodifiableList(sourceList);
+  }
+  
+  /**
+   * Returns the list of source files that reside directly within the root directory,
+   * excluding those in subdirectories.
+   */
+  public List<Source> listTopLevelSources() {
+    List<Source> list = new ArrayList<Source>();
+    for (Source source : sourceList) {
+      if (root.equals(source.getFile().getParentFile())) {
+        list.add(source);
+      }
+    }
+    return list;
+  }
+  
+  private void scan(File file) throws IOException {
+    if (file.isDirectory()) {
+      File[] array = file.listFiles();
+      if (array == null) return;
+      for (int i=0; i<array.length; i++) {
+        scan(array[i]);
+      }
+    } else {
+      String name = file.getName();
+      if (name.endsWith(".ttl") || name.endsWith(".xsd") || name.endsWith(".json")) {
+        sourceList.add(new Source(file, readContent(file)));
+      }
+    }
+  }
+  
+  private byte[] readContent(File file) throws IOException {
+    byte[] buffer = new byte[(int) file.length()];
+    InputStream input = new FileInputStream(file);
+    try {
+      int offset = 0;
+      int len;
+      while (offset<buffer.length && (len=input.read(buffer, offset, buffer.length-offset)) > 0) {
+        offset += len;
+      }
+    } finally {
+      input.close();
+    }
+    return buffer;
+  }
+  
+  /**
+   * A source file within a SourceCatalog.
+   */
+  public static class Source {
+    private File file;
+    private byte[] content;
+    private Model model;
+    private String targetNamespace;
+    private boolean namespaceResolved;
+    
+    Source(File file, byte[] content) {
+      this.file = file;
+      this.content = content;
+    }
+    
+    public File getFile() {
+      return file;
+    }
+    
+    /**
+     * Returns true if this source is a Turtle ontology.
+     */
+    public boolean isTurtle() {
+      return file.getName().endsWith(".ttl");
+    }
+    
+    /**
+     * Returns true if this source is an XML Schema.
+     */
+    public boolean isXmlSchema() {
+      return file.getName().endsWith(".xsd");
+    }
+    
+    /**
+     * Returns a stream from which the raw content of this source can be read.
+     */
+    public InputStream openStream() {
+      return new ByteArrayInputStream(content);
+    }
+    
+    /**
+     * Returns the RDF graph parsed from this Turtle ontology.  
+     * The graph is parsed the first time this method is called.
+     */
+    public synchronized Model getModel() {
+      if (!isTurtle()) {
+        throw new IllegalStateException("Not a Turtle file: " + file);
+      }
+      if (model == null) {
+        Model graph = ModelFactory.createDefaultModel();
+        graph.read(openStream(), null, "TURTLE");
+        model = graph;
+      }
+      return model;
+    }
+    
+    /**
+     * Returns the target namespace of this XML Schema, or null if the schema does not declare 
+     * a target namespace.  The schema is scanned the first time this method is called.
+     */
+    public synchronized String getTargetNamespace() throws SchemaParseException {
+      if (!isXmlSchema()) {
+        throw new IllegalStateException("Not an XML Schema: " + file);
+      }
+      if (!namespaceResolved) {
+        try {
+          targetNamespace = readTargetNamespace();
+        } catch (Throwable oops) {
+          throw new SchemaParseException(oops);
+        }
+        namespaceResolved = true;
+      }
+      return targetNamespace;
+    }
+    
+    private String readTargetNamespace() throws ParserConfigurationException, SAXException, IOException {
+      SAXParserFactory factory = SAXParserFactory.newInstance();
+      SAXParser parser = factory.newSAXParser();
+      XMLReader reader = parser.getXMLReader();
+      reader.setFeature("http://xml.org/sax/features/namespaces", true);
+      NamespaceReader handler = new NamespaceReader();
+      reader.setContentHandler(handler);
+      
+      parser.parse(openStream(), handler);
+      return handler.getTargetNamespace();
+    }
+    
+    public String toString() {
+      return file.getPath();
+    }
+  }
+  
+  private static class NamespaceReader extends DefaultHandler {
+
+    private String targetNamespace;
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+      if ("schema".equals(localName)) {
+        targetNamespace = attributes.getValue("targetNamespace");
+      }
+    }
+    
+    public String getTargetNamespace() {
+      return targetNamespace;
+    }
+    
+  }
+
+}
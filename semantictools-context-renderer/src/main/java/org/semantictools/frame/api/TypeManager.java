@@ -46,6 +46,7 @@ import org.semantictools.frame.model.VannVocabulary;
 import org.xml.sax.SAXException;
 
 import com.hp.hpl.jena.datatypes.xsd.impl.XMLLiteralType;
+import com.hp.hpl.jena.enhanced.EnhGraph;
 import com.hp.hpl.jena.ontology.AllValuesFromRestriction;
 import com.hp.hpl.jena.ontology.OntClass;
 import com.hp.hpl.jena.ontology.OntModel;
@@ -54,6 +55,7 @@ import com.hp.hpl.jena.ontology.Restriction;
 import com.hp.hpl.jena.rdf.model.ModelFactory;
 import com.hp.hpl.jena.rdf.model.RDFNode;
 import com.hp.hpl.jena.rdf.model.StmtIterator;
+import com.hp.hpl.jena.util.cache.Cache;
 import com.hp.hpl.jena.vocabulary.OWL2;
 import com.hp.hpl.jena.vocabulary.RDFS;
 
@@ -75,6 +77,8 @@ public class TypeManager {
   private Set<String> standardLiteralType = new HashSet<String>();
   
   private OntModel ontModel;
+  private Set<SourceCatalog> loadedCatalogs = new HashSet<SourceCatalog>();
+  private boolean concurrent = false;
   
   public TypeManager() {
     ontModel = ModelFactory.createOntologyModel();
@@ -188,6 +192,26 @@ public class TypeManager {
 
 
 
+  /**
+   * Prepare this TypeManager to be read by several threads at once, for instance while
+   * the documentation for several media types is produced concurrently.
+   * The inferences over the ontology model are computed up front, and the model's cache
+   * of resource views is made threadsafe.  Frames and datatypes that are discovered lazily
+   * are registered under this TypeManager's lock.  The ontologies must not be modified
+   * after this method is called.
+   */
+  public synchronized void prepareConcurrentAccess() {
+    if (concurrent) return;
+    ontModel.prepare();
+    if (ontModel instanceof EnhGraph) {
+      EnhGraph graph = (EnhGraph) ontModel;
+      graph.setNodeCache(new SynchronizedCache((Cache) graph.getNodeCacheControl()));
+    }
+    concurrent = true;
+  }
+
+
+
   public void loadDir(File dir) throws IOException, ParserConfigurationException, SAXException {
    
     FrameBuilder builder = new FrameBuilder(this);
@@ -195,6 +219,18 @@ public class TypeManager {
     builder.loadDir(dir);
   }
   
+  /**
+   * Load the ontologies and XML Schemas at the top level of the given catalog.
+   * Loading the same catalog a second time has no effect.
+   */
+  public void load(SourceCatalog catalog) throws IOException, ParserConfigurationException, SAXException {
+    if (!loadedCatalogs.add(catalog)) return;
+    
+    FrameBuilder builder = new FrameBuilder(this);
+    builder.setOntModel(ontModel);
+    builder.load(catalog);
+  }
+  
   public void processOntologies() {
     List<Ontology> list = ontModel.listOntologies().toList();
     for (Ontology ontology : list) {
@@ -367,16 +403,16 @@ public class TypeManager {
     return uri2Ontology.values();
   }
   
-  public void add(Frame frame) {
+  public synchronized void add(Frame frame) {
     uri2Frame.put(frame.getUri(), frame);
   }
   
-  public void add(Datatype datatype) {
+  public synchronized void add(Datatype datatype) {
     uri2Datatype.put(datatype.getUri(), datatype);
   }
   
   
-  public Datatype getDatatypeByUri(String uri) {
+  public synchronized Datatype getDatatypeByUri(String uri) {
     Datatype type = uri2Datatype.get(uri);
     if (type == null) {
       String namespace = getNamespace(uri);
@@ -411,11 +447,11 @@ public class TypeManager {
     return type;
   }
   
-  public Collection<Datatype> listDatatypes() {
-    return uri2Datatype.values();
+  public synchronized Collection<Datatype> listDatatypes() {
+    return new ArrayList<Datatype>(uri2Datatype.values());
   }
   
-  public Frame getFrameByUri(String uri) {
+  public synchronized Frame getFrameByUri(String uri) {
     return uri2Frame.get(uri);
   }
   
@@ -427,8 +463,8 @@ public class TypeManager {
     return type;
   }
   
-  public Collection<Frame> listFrames() {
-    return uri2Frame.values();
+  public synchronized Collection<Frame> listFrames() {
+    return new ArrayList<Frame>(uri2Frame.values());
   }
   
   public Collection<ListType> listListTypes() {
@@ -447,4 +483,47 @@ public class TypeManager {
     return result;
   }
 
+  /**
+   * A Cache that serializes access to another Cache.
+   */
+  private static class SynchronizedCache implements Cache {
+    private Cache delegate;
+    
+    SynchronizedCache(Cache delegate) {
+      this.delegate = delegate;
+    }
+
+    public synchronized boolean getEnabled() {
+      return delegate.getEnabled();
+    }
+
+    public synchronized boolean setEnabled(boolean enabled) {
+      return delegate.setEnabled(enabled);
+    }
+
+    public synchronized void clear() {
+      delegate.clear();
+    }
+
+    public synchronized long getGets() {
+      return delegate.getGets();
+    }
+
+    public synchronized long getPuts() {
+      return delegate.getPuts();
+    }
+
+    public synchronized long getHits() {
+      return delegate.getHits();
+    }
+
+    public synchronized Object get(Object key) {
+      return delegate.get(key);
+    }
+
+    public synchronized void put(Object key, Object value) {
+      delegate.put(key, value);
+    }
+  }
+
 }
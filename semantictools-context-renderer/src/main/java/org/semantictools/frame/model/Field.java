@@ -217,33 +217,39 @@ public class Field implements Comparable<Field> {
   public RdfType getRdfType() {
     if (rdfType == null) {
       TypeManager manager = frame.getTypeManager();
-      rdfType = manager.getFrameByUri(type.getURI());
-      
-      if (rdfType == null) {
-        rdfType = manager.getDatatypeByUri(type.getURI());
-      }
-      
-      if (rdfType == null) {
-        rdfType = manager.getListTypeByListUri(type.getURI());
-      }
-      
-      if (rdfType==null && type.getURI().startsWith(RDF.getURI())) {
-        
-        Frame f = new Frame(frame.getTypeManager(), type.as(OntClass.class));
-        frame.getTypeManager().add(f);
-        rdfType = f;
-      }
-      
-      if (rdfType==null && type.canAs(OntProperty.class)) {
-        Frame f = new Frame(manager, type.asClass());
-        manager.add(f);
-        rdfType = f;
+      synchronized (manager) {
+        rdfType = findRdfType(manager);
       }
-     
     }
     return rdfType;
   }
   
+  private RdfType findRdfType(TypeManager manager) {
+    RdfType result = manager.getFrameByUri(type.getURI());
+    
+    if (result == null) {
+      result = manager.getDatatypeByUri(type.getURI());
+    }
+    
+    if (result == null) {
+      result = manager.getListTypeByListUri(type.getURI());
+    }
+    
+    if (result==null && type.getURI().startsWith(RDF.getURI())) {
+      
+      Frame f = new Frame(manager, type.as(OntClass.class));
+      manager.add(f);
+      result = f;
+    }
+    
+    if (result==null && type.canAs(OntProperty.class)) {
+      Frame f = new Frame(manager, type.asClass());
+      manager.add(f);
+      result = f;
+    }
+    return result;
+  }
+  
   public OntResource getType() {
     return type;
   }
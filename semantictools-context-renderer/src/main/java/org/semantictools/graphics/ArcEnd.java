@@ -258,7 +258,7 @@ public class ArcEnd  implements Widget {
     }
     
     if (title != null) {
-      int textWidth = metrics.stringWidth(title);
+      int textWidth = TextMeasurer.getDefault().stringWidth(metrics, title);
       titleX = arcX - style.getPadRight() - textWidth;
       titleY = arcY - style.getPadBottom();
       width = textWidth;
@@ -267,7 +267,7 @@ public class ArcEnd  implements Widget {
     }
     
     if (subtitle != null) {
-      int textWidth = metrics.stringWidth(subtitle);
+      int textWidth = TextMeasurer.getDefault().stringWidth(metrics, subtitle);
       subtitleX = arcX - style.getPadRight() - textWidth;
       subtitleY = arcY + style.getPadTop() + metrics.getMaxAscent();
       width = Math.max(width, textWidth);
@@ -361,7 +361,7 @@ public class ArcEnd  implements Widget {
     if (title != null) {
       titleX = arcX + style.getPadLeft();
       titleY = arcY - style.getPadBottom();
-      width = metrics.stringWidth(title);
+      width = TextMeasurer.getDefault().stringWidth(metrics, title);
       top = Math.min(top, arcY - metrics.getMaxAscent() - style.getPadTop());
       
     }
@@ -369,7 +369,7 @@ public class ArcEnd  implements Widget {
     if (subtitle != null) {
       subtitleX = arcX + style.getPadLeft();
       subtitleY = arcY + style.getPadTop() + metrics.getMaxAscent();
-      width = Math.max(width, metrics.stringWidth(subtitle));
+      width = Math.max(width, TextMeasurer.getDefault().stringWidth(metrics, subtitle));
       bottom = Math.max(bottom, subtitleY + metrics.getMaxDescent() + style.getPadBottom());
       
     }
@@ -0,0 +1,54 @@
+/*******************************************************************************
+ * Copyright 2012 Pearson Education
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package org.semantictools.graphics;
+
+import java.awt.Graphics2D;
+
+/**
+ * A diagram that can be written by the {@link DiagramRenderService}.
+ * <p>
+ * Implementations compute their layout up front, so that {@link #getContentHash()}
+ * is cheap, and defer the painting to {@link #paint(Graphics2D)}, so that it can run on
+ * a worker thread.  The same painting code serves raster and vector output.
+ * 
+ * @author Greg McFall
+ *
+ */
+public interface Diagram {
+  
+  /**
+   * Returns a digest of everything that determines the appearance of this diagram,
+   * or null if the diagram must always be rendered.  Two diagrams with the same
+   * content hash must produce identical images.
+   */
+  String getContentHash();
+  
+  /**
+   * Returns the width of this diagram, in pixels.
+   */
+  int getWidth();
+  
+  /**
+   * Returns the height of this diagram, in pixels.
+   */
+  int getHeight();
+  
+  /**
+   * Paint this diagram onto the given graphics context.
+   */
+  void paint(Graphics2D graphics);
+
+}
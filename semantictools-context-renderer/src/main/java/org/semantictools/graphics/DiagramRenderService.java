@@ -0,0 +1,490 @@
+/*******************************************************************************
+ * Copyright 2012 Pearson Education
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package org.semantictools.graphics;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageOutputStream;
+
+/**
+ * Writes diagrams to image files on a pool of worker threads, so that the
+ * caller can continue to generate HTML while the images are painted and encoded.
+ * The {@link ImageFormat} of each file is determined by its extension.
+ * <p>
+ * The content hash of each diagram is stored in the image file: in a tEXt chunk of a 
+ * PNG file, or in a comment at the start of an SVG file.
+ * If the target file already holds an image with the same content hash, the
+ * diagram is not painted again.
+ * <p>
+ * Callers must invoke {@link #flush()} before they rely on the files being present,
+ * and {@link #close()} when the service is no longer needed.
+ *
+ * @author Greg McFall
+ *
+ */
+public class DiagramRenderService {
+
+  /**
+   * The keyword of the PNG tEXt chunk that holds the content hash of the diagram.
+   */
+  public static final String HASH_KEYWORD = "semantictools-hash";
+
+  private static final String PNG_FORMAT = "javax_imageio_png_1.0";
+  private static final String SVG_HASH_PREFIX = "<!-- " + HASH_KEYWORD + ": ";
+  private static final String SVG_HASH_SUFFIX = " -->";
+  private static final byte[] PNG_SIGNATURE = {(byte)137, 80, 78, 71, 13, 10, 26, 10};
+
+  private ExecutorService executor;
+  private List<Future<Void>> pending = new ArrayList<Future<Void>>();
+  private Throwable error;
+
+  private int renderCount;
+  private int skipCount;
+  private long renderTime;
+  private long checkTime;
+
+  /**
+   * Create a new DiagramRenderService.
+   * @param threadCount The number of worker threads, or zero if diagrams should be rendered
+   * synchronously, on the thread that submits them.
+   */
+  public DiagramRenderService(int threadCount) {
+    if (threadCount < 0) {
+      throw new IllegalArgumentException("threadCount must not be negative: " + threadCount);
+    }
+    if (threadCount > 0) {
+      executor = Executors.newFixedThreadPool(threadCount, new ThreadFactory() {
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+          Thread thread = new Thread(runnable, "diagram-renderer");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    }
+  }
+
+  /**
+   * Write the given diagram to the specified file, unless the file already holds
+   * a rendition of the diagram.
+   * @param diagram The diagram to be written.
+   * @param file  The PNG or SVG file where the diagram is stored.
+   * @param listener  An optional listener that is notified when the file is ready, or null.
+   */
+  public void submit(Diagram diagram, File file, Listener listener) throws IOException {
+    RenderTask task = new RenderTask(diagram, file, listener);
+    if (executor == null) {
+      task.call();
+      return;
+    }
+    Future<Void> future = executor.submit(task);
+    synchronized (this) {
+      pending.add(future);
+    }
+  }
+
+  /**
+   * Wait until all the diagrams submitted so far have been written.
+   * If any of them failed, the first error is thrown.
+   */
+  public void flush() throws IOException {
+    List<Future<Void>> list;
+    synchronized (this) {
+      list = new ArrayList<Future<Void>>(pending);
+    }
+    try {
+      for (Future<Void> future : list) {
+        try {
+          future.get();
+        } catch (ExecutionException e) {
+          synchronized (this) {
+            if (error == null) {
+              error = e.getCause();
+            }
+          }
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while rendering diagrams", e);
+    }
+    synchronized (this) {
+      Iterator<Future<Void>> sequence = pending.iterator();
+      while (sequence.hasNext()) {
+        if (sequence.next().isDone()) {
+          sequence.remove();
+        }
+      }
+    }
+    rethrow();
+  }
+
+  /**
+   * Wait for the pending diagrams, and release the worker threads.
+   */
+  public void close() throws IOException {
+    try {
+      flush();
+    } finally {
+      if (executor != null) {
+        executor.shutdownNow();
+      }
+    }
+  }
+
+  private synchronized void rethrow() throws IOException {
+    if (error instanceof IOException) {
+      throw (IOException) error;
+    }
+    if (error instanceof RuntimeException) {
+      throw (RuntimeException) error;
+    }
+    if (error instanceof Error) {
+      throw (Error) error;
+    }
+  }
+
+  /**
+   * Returns the number of diagrams that were painted and written.
+   */
+  public synchronized int getRenderCount() {
+    return renderCount;
+  }
+
+  /**
+   * Returns the number of diagrams that were skipped because the target file was up to date.
+   */
+  public synchronized int getSkipCount() {
+    return skipCount;
+  }
+
+  /**
+   * Returns the total number of milliseconds spent painting and encoding diagrams,
+   * summed over all worker threads.
+   */
+  public synchronized long getRenderMillis() {
+    return renderTime/1000000;
+  }
+
+  /**
+   * Returns the total number of milliseconds spent reading the content hash of existing files.
+   */
+  public synchronized long getCheckMillis() {
+    return checkTime/1000000;
+  }
+
+  public synchronized String toString() {
+    return "DiagramRenderService(rendered=" + renderCount + ", skipped=" + skipCount +
+        ", renderTime=" + renderTime/1000000 + "ms, checkTime=" + checkTime/1000000 + "ms)";
+  }
+
+  private synchronized void recordCheck(long time) {
+    checkTime += time;
+  }
+
+  private synchronized void recordRender(long time) {
+    renderCount++;
+    renderTime += time;
+  }
+
+  private synchronized void recordSkip() {
+    skipCount++;
+  }
+
+  /**
+   * Returns the SHA-1 digest of the given text, as a hexadecimal string.  This is a convenient
+   * way for a Diagram to compute its content hash from a textual signature.
+   */
+  public static String digest(String text) {
+    try {
+      MessageDigest md = MessageDigest.getInstance("SHA-1");
+      byte[] hash = md.digest(text.getBytes("UTF-8"));
+      StringBuilder builder = new StringBuilder();
+      for (byte b : hash) {
+        builder.append(Character.forDigit((b >> 4) & 0xf, 16));
+        builder.append(Character.forDigit(b & 0xf, 16));
+      }
+      return builder.toString();
+
+    } catch (NoSuchAlgorithmException e) {
+      throw new RuntimeException(e);
+    } catch (UnsupportedEncodingException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Paint the given diagram, and write it to the given stream in the specified format.
+   * @param diagram  The diagram to be written.
+   * @param format  The format of the image.
+   * @param contentHash  The content hash to record in the image, or null if no hash should be recorded.
+   * @param out  The stream to which the image is written.  The stream is not closed.
+   */
+  public static void write(Diagram diagram, ImageFormat format, String contentHash, OutputStream out) throws IOException {
+    switch (format) {
+    case SVG :
+      writeSvg(diagram, contentHash, out);
+      break;
+      
+    default:
+      writePng(createImage(diagram), contentHash, out);
+    }
+  }
+  
+  /**
+   * Paint the given diagram onto a new raster image.
+   */
+  public static BufferedImage createImage(Diagram diagram) {
+    BufferedImage image = new BufferedImage(diagram.getWidth(), diagram.getHeight(), BufferedImage.TYPE_INT_ARGB);
+    Graphics2D g = image.createGraphics();
+    try {
+      diagram.paint(g);
+    } finally {
+      g.dispose();
+    }
+    return image;
+  }
+  
+  private static void writeSvg(Diagram diagram, String contentHash, OutputStream out) throws IOException {
+    SvgGraphics2D g = new SvgGraphics2D(diagram.getWidth(), diagram.getHeight());
+    try {
+      diagram.paint(g);
+    } finally {
+      g.dispose();
+    }
+    Writer writer = new OutputStreamWriter(out, "UTF-8");
+    writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+    if (contentHash != null) {
+      writer.write(SVG_HASH_PREFIX + contentHash + SVG_HASH_SUFFIX + "\n");
+    }
+    g.write(writer);
+    writer.flush();
+  }
+
+  /**
+   * Encode the given image in PNG format, and record the content hash in a tEXt chunk.
+   * @param image  The image to be written.
+   * @param contentHash  The content hash of the image, or null if no hash should be recorded.
+   * @param out  The stream to which the image is written.  The stream is not closed.
+   */
+  public static void writePng(BufferedImage image, String contentHash, OutputStream out) throws IOException {
+    if (contentHash == null) {
+      ImageIO.write(image, "png", out);
+      return;
+    }
+    ImageWriter writer = ImageIO.getImageWritersByFormatName("png").next();
+    try {
+      ImageWriteParam param = writer.getDefaultWriteParam();
+      ImageTypeSpecifier type = ImageTypeSpecifier.createFromRenderedImage(image);
+      IIOMetadata metadata = writer.getDefaultImageMetadata(type, param);
+
+      IIOMetadataNode entry = new IIOMetadataNode("tEXtEntry");
+      entry.setAttribute("keyword", HASH_KEYWORD);
+      entry.setAttribute("value", contentHash);
+      IIOMetadataNode text = new IIOMetadataNode("tEXt");
+      text.appendChild(entry);
+      IIOMetadataNode root = new IIOMetadataNode(PNG_FORMAT);
+      root.appendChild(text);
+      metadata.mergeTree(PNG_FORMAT, root);
+
+      ImageOutputStream stream = ImageIO.createImageOutputStream(out);
+      try {
+        writer.setOutput(stream);
+        writer.write(null, new IIOImage(image, null, metadata), param);
+      } finally {
+        stream.close();
+      }
+    } finally {
+      writer.dispose();
+    }
+  }
+
+  /**
+   * Returns the content hash recorded in the given PNG or SVG file, or null if the file does not
+   * exist or does not contain a content hash.  Only the start of the file is read.
+   */
+  public static String readContentHash(File file) throws IOException {
+    if (!file.exists()) return null;
+    
+    return ImageFormat.forFile(file)==ImageFormat.SVG ? readSvgContentHash(file) : readPngContentHash(file);
+  }
+  
+  private static String readSvgContentHash(File file) throws IOException {
+    BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+    try {
+      // The hash comment immediately follows the XML declaration.
+      for (int i=0; i<2; i++) {
+        String line = reader.readLine();
+        if (line == null) break;
+        if (line.startsWith(SVG_HASH_PREFIX) && line.endsWith(SVG_HASH_SUFFIX)) {
+          return line.substring(SVG_HASH_PREFIX.length(), line.length() - SVG_HASH_SUFFIX.length());
+        }
+      }
+      return null;
+    } finally {
+      reader.close();
+    }
+  }
+  
+  /**
+   * Read the content hash from the chunks that precede the image data in a PNG file.
+   */
+  private static String readPngContentHash(File file) throws IOException {
+
+    DataInputStream input = new DataInputStream(new FileInputStream(file));
+    try {
+      byte[] signature = new byte[PNG_SIGNATURE.length];
+      input.readFully(signature);
+      for (int i=0; i<signature.length; i++) {
+        if (signature[i] != PNG_SIGNATURE[i]) return null;
+      }
+
+      while (true) {
+        int length = input.readInt();
+        byte[] type = new byte[4];
+        input.readFully(type);
+        String chunkType = new String(type, "ISO-8859-1");
+        if ("IDAT".equals(chunkType) || "IEND".equals(chunkType) || length < 0) {
+          return null;
+        }
+        if ("tEXt".equals(chunkType)) {
+          byte[] data = new byte[length];
+          input.readFully(data);
+          String value = readTextValue(data);
+          if (value != null) {
+            return value;
+          }
+        } else {
+          input.skipBytes(length);
+        }
+        // Skip the CRC
+        input.skipBytes(4);
+      }
+
+    } catch (EOFException e) {
+      return null;
+    } finally {
+      input.close();
+    }
+  }
+
+  /**
+   * Returns the value from the given tEXt chunk if the keyword of the chunk
+   * is {@link #HASH_KEYWORD}, and null otherwise.
+   */
+  private static String readTextValue(byte[] data) throws UnsupportedEncodingException {
+    for (int i=0; i<data.length; i++) {
+      if (data[i] == 0) {
+        String keyword = new String(data, 0, i, "ISO-8859-1");
+        return HASH_KEYWORD.equals(keyword) ? new String(data, i+1, data.length-i-1, "ISO-8859-1") : null;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * A listener that is notified when a diagram has been written, or was found to be up to date.
+   * The listener is invoked on the thread that renders the diagram.
+   */
+  public interface Listener {
+    void diagramReady(File file) throws IOException;
+  }
+
+  class RenderTask implements Callable<Void> {
+    private Diagram diagram;
+    private File file;
+    private Listener listener;
+
+    RenderTask(Diagram diagram, File file, Listener listener) {
+      this.diagram = diagram;
+      this.file = file;
+      this.listener = listener;
+    }
+
+    @Override
+    public Void call() throws IOException {
+      long start = System.nanoTime();
+      String hash = diagram.getContentHash();
+      String priorHash = (hash == null) ? null : readContentHash(file);
+      recordCheck(System.nanoTime() - start);
+
+      if (hash != null && hash.equals(priorHash)) {
+        recordSkip();
+
+      } else {
+        start = System.nanoTime();
+        File parent = file.getParentFile();
+        if (parent != null) {
+          parent.mkdirs();
+        }
+        
+        // Write to a temporary file first, so that an interrupted write does not leave
+        // behind a truncated image that carries a valid content hash.
+        File tmp = new File(file.getPath() + ".tmp");
+        OutputStream out = new FileOutputStream(tmp);
+        try {
+          write(diagram, ImageFormat.forFile(file), hash, out);
+        } finally {
+          out.close();
+        }
+        file.delete();
+        if (!tmp.renameTo(file)) {
+          tmp.delete();
+          throw new IOException("Failed to write " + file);
+        }
+        recordRender(System.nanoTime() - start);
+      }
+
+      if (listener != null) {
+        listener.diagramReady(file);
+      }
+      return null;
+    }
+  }
+
+}
@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright 2012 Pearson Education
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package org.semantictools.graphics;
+
+import java.io.File;
+
+/**
+ * The file formats in which diagrams can be written.
+ * 
+ * @author Greg McFall
+ *
+ */
+public enum ImageFormat {
+  
+  /**
+   * Portable Network Graphics, a raster format.
+   */
+  PNG("png", "image/png"),
+  
+  /**
+   * Scalable Vector Graphics, a text-based vector format.
+   */
+  SVG("svg", "image/svg+xml");
+  
+  private String extension;
+  private String contentType;
+  
+  private ImageFormat(String extension, String contentType) {
+    this.extension = extension;
+    this.contentType = contentType;
+  }
+  
+  /**
+   * Returns the file name extension for this format, without the leading period.
+   */
+  public String getExtension() {
+    return extension;
+  }
+  
+  /**
+   * Returns the media type of files in this format.
+   */
+  public String getContentType() {
+    return contentType;
+  }
+  
+  /**
+   * Returns the format of the file at the given path, as determined by its extension.
+   * Files with an unknown extension are assumed to be PNG files.
+   */
+  public static ImageFormat forPath(String path) {
+    return path.toLowerCase().endsWith("." + SVG.extension) ? SVG : PNG;
+  }
+  
+  public static ImageFormat forFile(File file) {
+    return forPath(file.getName());
+  }
+
+}
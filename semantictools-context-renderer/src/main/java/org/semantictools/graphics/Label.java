@@ -42,7 +42,7 @@ public class Label extends BaseRect implements Widget {
     int padRight = style.getPadRight();
     int padBottom = style.getPadBottom();
     
-    int textWidth = metrics.stringWidth(text);
+    int textWidth = TextMeasurer.getDefault().stringWidth(metrics, text);
     
     int height = padTop + ascent + padBottom;
     int width = padLeft + textWidth + padRight;
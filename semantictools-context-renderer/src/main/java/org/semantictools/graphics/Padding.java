@@ -34,6 +34,11 @@ public class Padding {
     
   }
   
+  public String toString() {
+    return "Padding(" + padTop + "," + padRight + "," + padBottom + "," + padLeft +
+        ", maxDescent=" + maxDescent + ")";
+  }
+  
   public int getPadTop() {
     return padTop;
   }
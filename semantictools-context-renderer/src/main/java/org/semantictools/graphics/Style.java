@@ -121,6 +121,13 @@ public class Style {
     this.borderColor = borderColor;
   }
   
+  public String toString() {
+    return "Style(color=" + color + ", bgColor=" + bgColor + ", borderColor=" + borderColor +
+        ", font=" + font + ", pad=" + padTop + "," + padRight + "," + padBottom + "," + padLeft +
+        ", margin=" + marginTop + "," + marginRight + "," + marginBottom + "," + marginLeft +
+        ", textAlign=" + textAlign + ")";
+  }
+  
   
   
 
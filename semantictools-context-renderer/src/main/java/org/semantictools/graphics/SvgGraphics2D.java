@@ -0,0 +1,702 @@
+/*******************************************************************************
+ * Copyright 2012 Pearson Education
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package org.semantictools.graphics;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Composite;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Image;
+import java.awt.Paint;
+import java.awt.Polygon;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.Stroke;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Arc2D;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.GeneralPath;
+import java.awt.geom.Line2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.RoundRectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.BufferedImageOp;
+import java.awt.image.ImageObserver;
+import java.awt.image.RenderedImage;
+import java.awt.image.renderable.RenderableImage;
+import java.io.IOException;
+import java.io.Writer;
+import java.text.AttributedCharacterIterator;
+import java.util.Map;
+
+/**
+ * A Graphics2D implementation that records the shapes and text painted onto it
+ * as an SVG document, so that widgets and diagrams can be written as vector images
+ * with the same painting code that produces raster images.
+ * <p>
+ * Lines, rectangles, polygons, ellipses, arbitrary shapes and text are supported,
+ * with solid colors, BasicStroke line widths and affine transforms.  Images,
+ * clipping, composites and XOR mode are not supported.
+ * <p>
+ * Text is measured with the metrics of a scratch raster, so layout computations
+ * give the same results as for raster output.
+ *
+ * @author Greg McFall
+ *
+ */
+public class SvgGraphics2D extends Graphics2D {
+
+  private int width;
+  private int height;
+  private StringBuilder body;
+
+  private Graphics2D scratch;
+  private AffineTransform transform = new AffineTransform();
+  private Color color = Color.black;
+  private Paint paint = Color.black;
+  private Color background = Color.white;
+  private Font font;
+  private Stroke stroke = new BasicStroke(1);
+  private Shape clip;
+
+  /**
+   * Create a new SvgGraphics2D for an image with the given dimensions.
+   */
+  public SvgGraphics2D(int width, int height) {
+    this.width = width;
+    this.height = height;
+    body = new StringBuilder();
+    BufferedImage image = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+    scratch = image.createGraphics();
+    font = scratch.getFont();
+  }
+
+  private SvgGraphics2D(SvgGraphics2D other) {
+    width = other.width;
+    height = other.height;
+    body = other.body;
+    scratch = (Graphics2D) other.scratch.create();
+    transform = new AffineTransform(other.transform);
+    color = other.color;
+    paint = other.paint;
+    background = other.background;
+    font = other.font;
+    stroke = other.stroke;
+    clip = other.clip;
+  }
+
+  /**
+   * Write the SVG element that holds everything painted so far.
+   */
+  public void write(Writer writer) throws IOException {
+    writer.write("<svg xmlns=\"http://www.w3.org/2000/svg\" version=\"1.1\"");
+    writer.write(" width=\"" + width + "\" height=\"" + height + "\"");
+    writer.write(" viewBox=\"0 0 " + width + " " + height + "\">\n");
+    writer.write(body.toString());
+    writer.write("</svg>\n");
+  }
+
+  public String toString() {
+    return "SvgGraphics2D(" + width + "x" + height + ")";
+  }
+
+  @Override
+  public Graphics create() {
+    return new SvgGraphics2D(this);
+  }
+
+  @Override
+  public void dispose() {
+    scratch.dispose();
+  }
+
+  //-------------------------------------------------------------------------
+  // Shapes
+  //-------------------------------------------------------------------------
+
+  @Override
+  public void draw(Shape shape) {
+    // Java2D strokes lines along the centers of pixels, so shift the outline by half a pixel
+    // to obtain the same crisp lines in SVG.
+    AffineTransform t = new AffineTransform(transform);
+    t.translate(0.5, 0.5);
+    String d = path(shape, t);
+    if (d.length() == 0) return;
+    body.append("<path d=\"").append(d).append("\" fill=\"none\"");
+    appendColor("stroke", color);
+    appendStroke();
+    body.append("/>\n");
+  }
+
+  @Override
+  public void fill(Shape shape) {
+    String d = path(shape, transform);
+    if (d.length() == 0) return;
+    body.append("<path d=\"").append(d).append("\"");
+    appendColor("fill", color);
+    body.append("/>\n");
+  }
+
+  @Override
+  public void drawLine(int x1, int y1, int x2, int y2) {
+    draw(new Line2D.Float(x1, y1, x2, y2));
+  }
+
+  @Override
+  public void drawRect(int x, int y, int width, int height) {
+    if (width < 0 || height < 0) return;
+    draw(new Rectangle(x, y, width, height));
+  }
+
+  @Override
+  public void fillRect(int x, int y, int width, int height) {
+    fill(new Rectangle(x, y, width, height));
+  }
+
+  @Override
+  public void clearRect(int x, int y, int width, int height) {
+    Color prior = color;
+    color = background;
+    fillRect(x, y, width, height);
+    color = prior;
+  }
+
+  @Override
+  public void drawRoundRect(int x, int y, int width, int height, int arcWidth, int arcHeight) {
+    draw(new RoundRectangle2D.Float(x, y, width, height, arcWidth, arcHeight));
+  }
+
+  @Override
+  public void fillRoundRect(int x, int y, int width, int height, int arcWidth, int arcHeight) {
+    fill(new RoundRectangle2D.Float(x, y, width, height, arcWidth, arcHeight));
+  }
+
+  @Override
+  public void drawOval(int x, int y, int width, int height) {
+    draw(new Ellipse2D.Float(x, y, width, height));
+  }
+
+  @Override
+  public void fillOval(int x, int y, int width, int height) {
+    fill(new Ellipse2D.Float(x, y, width, height));
+  }
+
+  @Override
+  public void drawArc(int x, int y, int width, int height, int startAngle, int arcAngle) {
+    draw(new Arc2D.Float(x, y, width, height, startAngle, arcAngle, Arc2D.OPEN));
+  }
+
+  @Override
+  public void fillArc(int x, int y, int width, int height, int startAngle, int arcAngle) {
+    fill(new Arc2D.Float(x, y, width, height, startAngle, arcAngle, Arc2D.PIE));
+  }
+
+  @Override
+  public void drawPolyline(int[] xPoints, int[] yPoints, int nPoints) {
+    if (nPoints < 2) return;
+    GeneralPath path = new GeneralPath();
+    path.moveTo(xPoints[0], yPoints[0]);
+    for (int i=1; i<nPoints; i++) {
+      path.lineTo(xPoints[i], yPoints[i]);
+    }
+    draw(path);
+  }
+
+  @Override
+  public void drawPolygon(int[] xPoints, int[] yPoints, int nPoints) {
+    draw(new Polygon(xPoints, yPoints, nPoints));
+  }
+
+  @Override
+  public void fillPolygon(int[] xPoints, int[] yPoints, int nPoints) {
+    fill(new Polygon(xPoints, yPoints, nPoints));
+  }
+
+  //-------------------------------------------------------------------------
+  // Text
+  //-------------------------------------------------------------------------
+
+  @Override
+  public void drawString(String text, int x, int y) {
+    drawString(text, (float) x, (float) y);
+  }
+
+  @Override
+  public void drawString(String text, float x, float y) {
+    if (text == null || text.length() == 0) return;
+
+    body.append("<text");
+    if (isTranslation(transform)) {
+      appendAttr("x", x + transform.getTranslateX());
+      appendAttr("y", y + transform.getTranslateY());
+    } else {
+      appendAttr("x", x);
+      appendAttr("y", y);
+      double[] m = new double[6];
+      transform.getMatrix(m);
+      body.append(" transform=\"matrix(");
+      for (int i=0; i<m.length; i++) {
+        if (i>0) body.append(' ');
+        body.append(format(m[i]));
+      }
+      body.append(")\"");
+    }
+    body.append(" font-family=\"").append(escape(fontFamily(font))).append("\"");
+    appendAttr("font-size", font.getSize2D());
+    if (font.isBold()) {
+      body.append(" font-weight=\"bold\"");
+    }
+    if (font.isItalic()) {
+      body.append(" font-style=\"italic\"");
+    }
+    appendColor("fill", color);
+    body.append(" xml:space=\"preserve\">");
+    body.append(escape(text));
+    body.append("</text>\n");
+  }
+
+  @Override
+  public void drawString(AttributedCharacterIterator iterator, int x, int y) {
+    drawString(iterator, (float) x, (float) y);
+  }
+
+  @Override
+  public void drawString(AttributedCharacterIterator iterator, float x, float y) {
+    StringBuilder text = new StringBuilder();
+    for (char c = iterator.first(); c != AttributedCharacterIterator.DONE; c = iterator.next()) {
+      text.append(c);
+    }
+    drawString(text.toString(), x, y);
+  }
+
+  @Override
+  public void drawGlyphVector(GlyphVector glyphs, float x, float y) {
+    fill(glyphs.getOutline(x, y));
+  }
+
+  @Override
+  public FontMetrics getFontMetrics(Font font) {
+    return scratch.getFontMetrics(font);
+  }
+
+  @Override
+  public FontRenderContext getFontRenderContext() {
+    return scratch.getFontRenderContext();
+  }
+
+  @Override
+  public Font getFont() {
+    return font;
+  }
+
+  @Override
+  public void setFont(Font font) {
+    if (font != null) {
+      this.font = font;
+      scratch.setFont(font);
+    }
+  }
+
+  //-------------------------------------------------------------------------
+  // Graphics state
+  //-------------------------------------------------------------------------
+
+  @Override
+  public Color getColor() {
+    return color;
+  }
+
+  @Override
+  public void setColor(Color color) {
+    if (color != null) {
+      this.color = color;
+      this.paint = color;
+    }
+  }
+
+  @Override
+  public Paint getPaint() {
+    return paint;
+  }
+
+  /**
+   * Sets the paint.  Only solid colors are supported; other kinds of paint are ignored.
+   */
+  @Override
+  public void setPaint(Paint paint) {
+    if (paint instanceof Color) {
+      setColor((Color) paint);
+    }
+  }
+
+  @Override
+  public Color getBackground() {
+    return background;
+  }
+
+  @Override
+  public void setBackground(Color color) {
+    background = color;
+  }
+
+  @Override
+  public Stroke getStroke() {
+    return stroke;
+  }
+
+  @Override
+  public void setStroke(Stroke stroke) {
+    this.stroke = stroke;
+  }
+
+  @Override
+  public Composite getComposite() {
+    return scratch.getComposite();
+  }
+
+  @Override
+  public void setComposite(Composite composite) {
+    scratch.setComposite(composite);
+  }
+
+  @Override
+  public void setPaintMode() {
+  }
+
+  @Override
+  public void setXORMode(Color color) {
+    throw new UnsupportedOperationException("XOR mode is not supported in SVG output");
+  }
+
+  @Override
+  public Object getRenderingHint(RenderingHints.Key key) {
+    return scratch.getRenderingHint(key);
+  }
+
+  @Override
+  public void setRenderingHint(RenderingHints.Key key, Object value) {
+    scratch.setRenderingHint(key, value);
+  }
+
+  @Override
+  public void setRenderingHints(Map<?, ?> hints) {
+    scratch.setRenderingHints(hints);
+  }
+
+  @Override
+  public void addRenderingHints(Map<?, ?> hints) {
+    scratch.addRenderingHints(hints);
+  }
+
+  @Override
+  public RenderingHints getRenderingHints() {
+    return scratch.getRenderingHints();
+  }
+
+  @Override
+  public GraphicsConfiguration getDeviceConfiguration() {
+    return scratch.getDeviceConfiguration();
+  }
+
+  //-------------------------------------------------------------------------
+  // Transforms
+  //-------------------------------------------------------------------------
+
+  @Override
+  public void translate(int x, int y) {
+    transform.translate(x, y);
+  }
+
+  @Override
+  public void translate(double x, double y) {
+    transform.translate(x, y);
+  }
+
+  @Override
+  public void rotate(double theta) {
+    transform.rotate(theta);
+  }
+
+  @Override
+  public void rotate(double theta, double x, double y) {
+    transform.rotate(theta, x, y);
+  }
+
+  @Override
+  public void scale(double sx, double sy) {
+    transform.scale(sx, sy);
+  }
+
+  @Override
+  public void shear(double shx, double shy) {
+    transform.shear(shx, shy);
+  }
+
+  @Override
+  public void transform(AffineTransform t) {
+    transform.concatenate(t);
+  }
+
+  @Override
+  public void setTransform(AffineTransform t) {
+    transform = new AffineTransform(t);
+  }
+
+  @Override
+  public AffineTransform getTransform() {
+    return new AffineTransform(transform);
+  }
+
+  //-------------------------------------------------------------------------
+  // Clipping is recorded, but not applied to the output.
+  //-------------------------------------------------------------------------
+
+  @Override
+  public void clip(Shape shape) {
+    clip = shape;
+  }
+
+  @Override
+  public Shape getClip() {
+    return clip;
+  }
+
+  @Override
+  public void setClip(Shape shape) {
+    clip = shape;
+  }
+
+  @Override
+  public void setClip(int x, int y, int width, int height) {
+    clip = new Rectangle(x, y, width, height);
+  }
+
+  @Override
+  public void clipRect(int x, int y, int width, int height) {
+    clip = new Rectangle(x, y, width, height);
+  }
+
+  @Override
+  public Rectangle getClipBounds() {
+    return clip==null ? null : clip.getBounds();
+  }
+
+  @Override
+  public boolean hit(Rectangle rect, Shape shape, boolean onStroke) {
+    if (onStroke) {
+      shape = stroke.createStrokedShape(shape);
+    }
+    return transform.createTransformedShape(shape).intersects(rect);
+  }
+
+  //-------------------------------------------------------------------------
+  // Images are not supported.
+  //-------------------------------------------------------------------------
+
+  @Override
+  public void copyArea(int x, int y, int width, int height, int dx, int dy) {
+    throw unsupportedImage();
+  }
+
+  @Override
+  public boolean drawImage(Image img, AffineTransform xform, ImageObserver obs) {
+    throw unsupportedImage();
+  }
+
+  @Override
+  public void drawImage(BufferedImage img, BufferedImageOp op, int x, int y) {
+    throw unsupportedImage();
+  }
+
+  @Override
+  public void drawRenderedImage(RenderedImage img, AffineTransform xform) {
+    throw unsupportedImage();
+  }
+
+  @Override
+  public void drawRenderableImage(RenderableImage img, AffineTransform xform) {
+    throw unsupportedImage();
+  }
+
+  @Override
+  public boolean drawImage(Image img, int x, int y, ImageObserver observer) {
+    throw unsupportedImage();
+  }
+
+  @Override
+  public boolean drawImage(Image img, int x, int y, int width, int height, ImageObserver observer) {
+    throw unsupportedImage();
+  }
+
+  @Override
+  public boolean drawImage(Image img, int x, int y, Color bgcolor, ImageObserver observer) {
+    throw unsupportedImage();
+  }
+
+  @Override
+  public boolean drawImage(Image img, int x, int y, int width, int height, Color bgcolor, ImageObserver observer) {
+    throw unsupportedImage();
+  }
+
+  @Override
+  public boolean drawImage(Image img, int dx1, int dy1, int dx2, int dy2, int sx1, int sy1, int sx2, int sy2,
+      ImageObserver observer) {
+    throw unsupportedImage();
+  }
+
+  @Override
+  public boolean drawImage(Image img, int dx1, int dy1, int dx2, int dy2, int sx1, int sy1, int sx2, int sy2,
+      Color bgcolor, ImageObserver observer) {
+    throw unsupportedImage();
+  }
+
+  private UnsupportedOperationException unsupportedImage() {
+    return new UnsupportedOperationException("Images are not supported in SVG output");
+  }
+
+  //-------------------------------------------------------------------------
+  // Output helpers
+  //-------------------------------------------------------------------------
+
+  private void appendStroke() {
+    if (stroke instanceof BasicStroke) {
+      float lineWidth = ((BasicStroke) stroke).getLineWidth();
+      if (lineWidth != 1) {
+        appendAttr("stroke-width", lineWidth);
+      }
+    }
+  }
+
+  private void appendColor(String name, Color c) {
+    body.append(' ').append(name).append("=\"#");
+    appendHex(c.getRed());
+    appendHex(c.getGreen());
+    appendHex(c.getBlue());
+    body.append('"');
+    if (c.getAlpha() < 255) {
+      appendAttr(name + "-opacity", c.getAlpha()/255.0);
+    }
+  }
+
+  private void appendHex(int value) {
+    body.append(Character.forDigit((value >> 4) & 0xf, 16));
+    body.append(Character.forDigit(value & 0xf, 16));
+  }
+
+  private void appendAttr(String name, double value) {
+    body.append(' ').append(name).append("=\"").append(format(value)).append('"');
+  }
+
+  /**
+   * Returns the SVG font family for the given font.  The name of the font is used rather than the
+   * family of the font that Java resolved it to, since the viewer may have fonts that this host lacks.
+   */
+  private static String fontFamily(Font font) {
+    String name = font.getName();
+    if (Font.DIALOG.equals(name) || Font.SANS_SERIF.equals(name)) return "sans-serif";
+    if (Font.SERIF.equals(name)) return "serif";
+    if (Font.MONOSPACED.equals(name) || Font.DIALOG_INPUT.equals(name)) return "monospace";
+    return name;
+  }
+
+  private static boolean isTranslation(AffineTransform t) {
+    int type = t.getType();
+    return type == AffineTransform.TYPE_IDENTITY || type == AffineTransform.TYPE_TRANSLATION;
+  }
+
+  /**
+   * Returns the SVG path data for the given shape, in device coordinates.
+   */
+  private static String path(Shape shape, AffineTransform t) {
+    StringBuilder d = new StringBuilder();
+    double[] c = new double[6];
+    PathIterator sequence = shape.getPathIterator(t);
+    while (!sequence.isDone()) {
+      switch (sequence.currentSegment(c)) {
+      case PathIterator.SEG_MOVETO :
+        d.append('M').append(format(c[0])).append(' ').append(format(c[1]));
+        break;
+
+      case PathIterator.SEG_LINETO :
+        d.append('L').append(format(c[0])).append(' ').append(format(c[1]));
+        break;
+
+      case PathIterator.SEG_QUADTO :
+        d.append('Q').append(format(c[0])).append(' ').append(format(c[1]));
+        d.append(' ').append(format(c[2])).append(' ').append(format(c[3]));
+        break;
+
+      case PathIterator.SEG_CUBICTO :
+        d.append('C').append(format(c[0])).append(' ').append(format(c[1]));
+        d.append(' ').append(format(c[2])).append(' ').append(format(c[3]));
+        d.append(' ').append(format(c[4])).append(' ').append(format(c[5]));
+        break;
+
+      case PathIterator.SEG_CLOSE :
+        d.append('Z');
+        break;
+      }
+      sequence.next();
+    }
+    return d.toString();
+  }
+
+  /**
+   * Format the given number with at most two decimal places, and without a trailing fraction
+   * if the number is whole.
+   */
+  static String format(double value) {
+    long hundredths = Math.round(value * 100);
+    StringBuilder builder = new StringBuilder();
+    if (hundredths < 0) {
+      builder.append('-');
+      hundredths = -hundredths;
+    }
+    builder.append(hundredths / 100);
+    int fraction = (int) (hundredths % 100);
+    if (fraction != 0) {
+      builder.append('.');
+      builder.append(fraction / 10);
+      if (fraction % 10 != 0) {
+        builder.append(fraction % 10);
+      }
+    }
+    return builder.toString();
+  }
+
+  static String escape(String text) {
+    StringBuilder builder = new StringBuilder(text.length());
+    for (int i=0; i<text.length(); i++) {
+      char c = text.charAt(i);
+      switch (c) {
+      case '&' : builder.append("&amp;"); break;
+      case '<' : builder.append("&lt;"); break;
+      case '>' : builder.append("&gt;"); break;
+      case '"' : builder.append("&quot;"); break;
+      default: builder.append(c);
+      }
+    }
+    return builder.toString();
+  }
+
+}
@@ -0,0 +1,198 @@
+/*******************************************************************************
+ * Copyright 2012 Pearson Education
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package org.semantictools.graphics;
+
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.font.FontRenderContext;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures text for diagram layout, using the FontMetrics of a TYPE_INT_ARGB image
+ * with default rendering hints.  The FontMetrics for each Font, and the width of 
+ * each string, are cached.  A TextMeasurer is safe for use by multiple threads.
+ *
+ * @author Greg McFall
+ *
+ */
+public class TextMeasurer {
+  
+  /**
+   * The default bound on the number of cached string widths.
+   */
+  public static final int DEFAULT_MAX_WIDTHS = 10000;
+  
+  private static final TextMeasurer DEFAULT = new TextMeasurer();
+  
+  private final Graphics2D graphics;
+  private final FontRenderContext fontRenderContext;
+  private final int maxWidths;
+  private final ConcurrentMap<Font, FontMetrics> metricsMap = new ConcurrentHashMap<Font, FontMetrics>();
+  private final ConcurrentMap<WidthKey, Integer> widthMap = new ConcurrentHashMap<WidthKey, Integer>();
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+  
+  /**
+   * Returns the TextMeasurer shared by all diagrams.
+   */
+  public static TextMeasurer getDefault() {
+    return DEFAULT;
+  }
+  
+  public TextMeasurer() {
+    this(DEFAULT_MAX_WIDTHS);
+  }
+
+  /**
+   * Creates a TextMeasurer that caches at most <code>maxWidths</code> string widths.
+   * When the cache is full, it is cleared and begins to fill again.
+   */
+  public TextMeasurer(int maxWidths) {
+    this.maxWidths = maxWidths;
+    BufferedImage image = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+    graphics = image.createGraphics();
+    fontRenderContext = graphics.getFontRenderContext();
+  }
+  
+  /**
+   * Returns the FontMetrics for the given font.  The same FontMetrics instance
+   * is returned for equal fonts.
+   */
+  public FontMetrics getFontMetrics(Font font) {
+    FontMetrics metrics = metricsMap.get(font);
+    if (metrics == null) {
+      synchronized (graphics) {
+        metrics = graphics.getFontMetrics(font);
+      }
+      FontMetrics prior = metricsMap.putIfAbsent(font, metrics);
+      if (prior != null) {
+        metrics = prior;
+      }
+    }
+    return metrics;
+  }
+  
+  /**
+   * Returns the FontRenderContext used to measure text.
+   */
+  public FontRenderContext getFontRenderContext() {
+    return fontRenderContext;
+  }
+  
+  /**
+   * Returns the advance width of the given text in the given font.
+   */
+  public int stringWidth(Font font, String text) {
+    return stringWidth(getFontMetrics(font), text);
+  }
+  
+  /**
+   * Returns the advance width of the given text, as computed by 
+   * <code>metrics.stringWidth(text)</code>.
+   */
+  public int stringWidth(FontMetrics metrics, String text) {
+    if (text == null || text.length()==0) {
+      return 0;
+    }
+    WidthKey key = new WidthKey(metrics, text);
+    Integer width = widthMap.get(key);
+    if (width != null) {
+      hitCount.incrementAndGet();
+      return width;
+    }
+    missCount.incrementAndGet();
+    width = metrics.stringWidth(text);
+    if (widthMap.size() >= maxWidths) {
+      widthMap.clear();
+    }
+    widthMap.put(key, width);
+    return width;
+  }
+  
+  /**
+   * Returns the logical bounds of the given text in the given font.
+   * The bounds are not cached since callers may modify the returned rectangle.
+   */
+  public Rectangle2D getStringBounds(Font font, String text) {
+    return font.getStringBounds(text, fontRenderContext);
+  }
+  
+  /**
+   * Returns the number of string widths that were answered from the cache.
+   */
+  public long getHitCount() {
+    return hitCount.get();
+  }
+  
+  /**
+   * Returns the number of string widths that had to be measured.
+   */
+  public long getMissCount() {
+    return missCount.get();
+  }
+  
+  /**
+   * Returns the number of string widths currently held in the cache.
+   */
+  public int getWidthCount() {
+    return widthMap.size();
+  }
+  
+  /**
+   * Discards all cached metrics and widths.
+   */
+  public void clear() {
+    widthMap.clear();
+    metricsMap.clear();
+  }
+  
+  public String toString() {
+    return "widths: " + widthMap.size() + ", hits: " + hitCount.get() + ", misses: " + missCount.get();
+  }
+  
+  /**
+   * Identifies a string measured with a particular FontMetrics object. 
+   * FontMetrics are compared by identity, which is sound because 
+   * {@link TextMeasurer#getFontMetrics(Font)} returns one instance per font.
+   */
+  static class WidthKey {
+    private final FontMetrics metrics;
+    private final String text;
+    private final int hash;
+    
+    WidthKey(FontMetrics metrics, String text) {
+      this.metrics = metrics;
+      this.text = text;
+      hash = 31*System.identityHashCode(metrics) + text.hashCode();
+    }
+    
+    public int hashCode() {
+      return hash;
+    }
+    
+    public boolean equals(Object other) {
+      if (!(other instanceof WidthKey)) return false;
+      WidthKey key = (WidthKey) other;
+      return metrics == key.metrics && text.equals(key.text);
+    }
+  }
+
+}
@@ -24,7 +24,6 @@ import java.util.Map;
 import java.util.Map.Entry;
 
 import org.codehaus.jackson.JsonNode;
-import org.codehaus.jackson.map.ObjectMapper;
 import org.codehaus.jackson.map.ObjectWriter;
 import org.codehaus.jackson.node.ArrayNode;
 import org.codehaus.jackson.node.JsonNodeFactory;
@@ -34,6 +33,7 @@ import org.semantictools.frame.api.TypeManager;
 import org.semantictools.frame.model.Field;
 import org.semantictools.frame.model.Frame;
 import org.semantictools.frame.model.RdfType;
+import org.semantictools.jsonld.io.LdJsonFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -55,10 +55,9 @@ public class JsonManager {
 
 
   public void add(String jsonText) {
-    ObjectMapper mapper = new ObjectMapper();
     StringReader reader = new StringReader(jsonText);
     try {
-      JsonNode node = mapper.readValue(reader, JsonNode.class);
+      JsonNode node = LdJsonFactory.getObjectMapper().readValue(reader, JsonNode.class);
       if (node instanceof ObjectNode) {
         add((ObjectNode) node);
       }
@@ -128,10 +127,8 @@ public class JsonManager {
     if (node == null) return null;
     
 
-    ObjectMapper mapper = new ObjectMapper();  
-  
     StringWriter buffer = new StringWriter();
-    ObjectWriter writer = mapper.writer(new JsonPrettyPrinter());
+    ObjectWriter writer = LdJsonFactory.getObjectMapper().writer(new JsonPrettyPrinter());
     try {
       writer.writeValue(buffer, node);
     } catch (Throwable oops){
@@ -0,0 +1,263 @@
+/*******************************************************************************
+ * Copyright 2012 Pearson Education
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package org.semantictools.publish;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import org.semantictools.web.upload.Checksum;
+
+/**
+ * Records what was built by the previous run of the DocumentationGenerator, so that
+ * an incremental run can regenerate only the outputs whose inputs have changed.
+ * <p>
+ * The manifest holds the SHA-1 hash of every file in the source directory, and for
+ * each unit of output (for example, the documentation for one media type) a digest 
+ * of the hashes of the input files on which that unit depends.  A unit is stale if
+ * its digest differs from the one recorded by the previous run, or if the previous 
+ * run did not record it, for instance because it failed.
+ * <p>
+ * The manifest is stored as a properties file.  Units are recorded as they are built,
+ * and the file is written by {@link #save()} at the end of a run.
+ * 
+ * @author Greg McFall
+ *
+ */
+public class BuildManifest {
+  
+  /**
+   * The default name of the file in which the manifest is stored.
+   */
+  public static final String FILE_NAME = "build-manifest.properties";
+  
+  private static final String INPUT = "input:";
+  private static final String UNIT = "unit:";
+  private static final String VALUE = "value:";
+  
+  private File sourceDir;
+  private File manifestFile;
+  private Properties previous = new Properties();
+  private Map<String, String> inputs = new TreeMap<String, String>();
+  private Map<String, String> units = new TreeMap<String, String>();
+  private Map<String, String> values = new TreeMap<String, String>();
+  
+  /**
+   * Create a new BuildManifest.
+   * @param sourceDir The directory that contains the source files.
+   * @param manifestFile The file in which the manifest is stored.
+   */
+  public BuildManifest(File sourceDir, File manifestFile) {
+    this.sourceDir = sourceDir;
+    this.manifestFile = manifestFile;
+  }
+  
+  /**
+   * Returns the file in which the manifest is stored.
+   */
+  public File getManifestFile() {
+    return manifestFile;
+  }
+  
+  /**
+   * Load the manifest recorded by the previous run, if any, and compute the
+   * hashes of the files that are currently in the source directory.
+   */
+  public void load() throws IOException {
+    previous.clear();
+    if (manifestFile.exists()) {
+      InputStream input = new FileInputStream(manifestFile);
+      try {
+        previous.load(input);
+      } finally {
+        input.close();
+      }
+    }
+    inputs.clear();
+    units.clear();
+    values.clear();
+    scan(sourceDir);
+  }
+  
+  private void scan(File file) throws IOException {
+    if (file.isDirectory()) {
+      File[] list = file.listFiles();
+      if (list != null) {
+        for (File child : list) {
+          scan(child);
+        }
+      }
+    } else {
+      inputs.put(path(file), sha1(file));
+    }
+  }
+  
+  /**
+   * Returns the files that are currently in the source directory.
+   */
+  public List<File> listInputs() {
+    List<File> list = new ArrayList<File>();
+    for (String path : inputs.keySet()) {
+      list.add(new File(sourceDir, path));
+    }
+    return list;
+  }
+  
+  /**
+   * Returns true if no manifest was recorded by a previous run.
+   */
+  public boolean isEmpty() {
+    return previous.isEmpty();
+  }
+  
+  /**
+   * Returns the paths, relative to the source directory, of the files that have been
+   * added, modified or removed since the previous run.
+   */
+  public List<String> listChangedInputs() {
+    List<String> list = new ArrayList<String>();
+    for (Map.Entry<String, String> entry : inputs.entrySet()) {
+      if (!entry.getValue().equals(previous.getProperty(INPUT + entry.getKey()))) {
+        list.add(entry.getKey());
+      }
+    }
+    for (String key : previous.stringPropertyNames()) {
+      if (key.startsWith(INPUT) && !inputs.containsKey(key.substring(INPUT.length()))) {
+        list.add(key.substring(INPUT.length()));
+      }
+    }
+    return list;
+  }
+  
+  /**
+   * Returns a digest of the current content of the given input files.  
+   * The digest does not depend on the order of the files.
+   */
+  public String digest(Collection<File> files) {
+    Map<String, String> sorted = new TreeMap<String, String>();
+    for (File file : files) {
+      String path = path(file);
+      String hash = inputs.get(path);
+      sorted.put(path, hash==null ? "missing" : hash);
+    }
+    StringBuilder builder = new StringBuilder();
+    for (Map.Entry<String, String> entry : sorted.entrySet()) {
+      builder.append(entry.getKey()).append('=').append(entry.getValue()).append('\n');
+    }
+    try {
+      return hex(MessageDigest.getInstance("SHA1").digest(builder.toString().getBytes("UTF-8")));
+    } catch (NoSuchAlgorithmException e) {
+      throw new RuntimeException(e);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+  
+  /**
+   * Returns true if the given unit must be built, because the digest of its inputs 
+   * differs from the digest recorded by the previous run.
+   */
+  public boolean isStale(String unit, String digest) {
+    return !digest.equals(previous.getProperty(UNIT + unit));
+  }
+  
+  /**
+   * Record that the given unit has been built (or is up to date) with inputs that
+   * have the given digest.
+   */
+  public void record(String unit, String digest) {
+    units.put(unit, digest);
+  }
+  
+  /**
+   * Returns the value recorded under the given key by the previous run, or null if 
+   * the previous run did not record such a value.
+   */
+  public String getPreviousValue(String key) {
+    return previous.getProperty(VALUE + key);
+  }
+  
+  /**
+   * Record a value that the next run can obtain from {@link #getPreviousValue(String)}.
+   */
+  public void recordValue(String key, String value) {
+    values.put(key, value);
+  }
+  
+  /**
+   * Write the manifest to its file.  Units that were not recorded during this run
+   * are omitted, so that they are rebuilt by the next run.
+   */
+  public void save() throws IOException {
+    Properties p = new Properties();
+    for (Map.Entry<String, String> entry : inputs.entrySet()) {
+      p.setProperty(INPUT + entry.getKey(), entry.getValue());
+    }
+    for (Map.Entry<String, String> entry : units.entrySet()) {
+      p.setProperty(UNIT + entry.getKey(), entry.getValue());
+    }
+    for (Map.Entry<String, String> entry : values.entrySet()) {
+      p.setProperty(VALUE + entry.getKey(), entry.getValue());
+    }
+    manifestFile.getParentFile().mkdirs();
+    OutputStream out = new FileOutputStream(manifestFile);
+    try {
+      p.store(out, "Generated by the semantictools DocumentationGenerator");
+    } finally {
+      out.close();
+    }
+  }
+  
+  /**
+   * Returns the path of the given file relative to the source directory.
+   */
+  String path(File file) {
+    String base = sourceDir.getAbsolutePath();
+    String path = file.getAbsolutePath();
+    if (path.startsWith(base)) {
+      path = path.substring(base.length());
+    }
+    return path.replace(File.separatorChar, '/');
+  }
+  
+  private String sha1(File file) throws IOException {
+    try {
+      return Checksum.sha1(file);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IOException(e);
+    }
+  }
+  
+  private String hex(byte[] bytes) {
+    StringBuilder builder = new StringBuilder();
+    for (int i=0; i<bytes.length; i++) {
+      builder.append(Integer.toString((bytes[i] & 0xff) + 0x100, 16).substring(1));
+    }
+    return builder.toString();
+  }
+
+}
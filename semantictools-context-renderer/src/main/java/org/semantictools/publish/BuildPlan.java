@@ -0,0 +1,414 @@
+/*******************************************************************************
+ * Copyright 2012 Pearson Education
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package org.semantictools.publish;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.codehaus.jackson.JsonNode;
+import org.semantictools.context.renderer.model.ContextProperties;
+import org.semantictools.jsonld.io.LdJsonFactory;
+
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.rdf.model.ModelFactory;
+import com.hp.hpl.jena.rdf.model.RDFNode;
+import com.hp.hpl.jena.rdf.model.Resource;
+import com.hp.hpl.jena.rdf.model.Statement;
+import com.hp.hpl.jena.rdf.model.StmtIterator;
+
+/**
+ * Decides which outputs of the DocumentationGenerator must be rebuilt, based on the
+ * dependencies between the source files and the outputs:
+ * <ul>
+ *   <li>The ontologies and schemas (*.ttl and *.xsd files), global.properties, and every
+ *       other file that is not in the directory of a media type or service, are global
+ *       inputs.  They are loaded into one model, which records no provenance, so a change 
+ *       to any of them rebuilds everything, including the local repository.
+ *   <li>The binding files (*_binding.ttl) are the exception.  They only annotate the classes 
+ *       and properties of the ontologies, so a media type depends on a binding file only if
+ *       its JSON-LD context mentions a resource that the binding file mentions.  When a binding
+ *       file changes, the resources that it mentions now and those that it mentioned in the 
+ *       previous run are compared with the resources mentioned by the context of each media type 
+ *       in the previous run.  The outputs that were built from the previous model can only 
+ *       differ from those built from the new model if the context refers to an annotated 
+ *       resource, because the context builder visits every class and property that the 
+ *       documentation describes.
+ *   <li>The documentation, JSON-LD context, repository assets and sample validation for a 
+ *       media type depend on the global inputs and on the files in the directory of its
+ *       context.properties file, such as the sample JSON documents.
+ *   <li>The service documentation, UML pages and index depend on the global inputs, on the
+ *       binding files, and on every context.properties and service.properties file.
+ * </ul>
+ * If there is no BuildManifest, everything is rebuilt.
+ * 
+ * @author Greg McFall
+ *
+ */
+class BuildPlan {
+  
+  private static final String GLOBAL = "global";
+  private static final String SITE = "site";
+  private static final String MEDIATYPE = "mediatype:";
+  private static final String MENTIONS = "mentions:";
+  private static final String BINDING_SUFFIX = "_binding.ttl";
+  
+  /**
+   * Namespaces whose terms are used to state the bindings, rather than being annotated by them.
+   */
+  private static final String[] VOCABULARY = {
+    "http://www.w3.org/1999/02/22-rdf-syntax-ns#",
+    "http://www.w3.org/2000/01/rdf-schema#",
+    "http://www.w3.org/2002/07/owl#",
+    "http://www.w3.org/2001/XMLSchema#",
+    "http://purl.org/semantictools/v1/vocab/bind#"
+  };
+  
+  private BuildManifest manifest;
+  private boolean full;
+  private List<File> globalInputs = new ArrayList<File>();
+  private List<File> descriptors = new ArrayList<File>();
+  private List<File> bindings = new ArrayList<File>();
+  
+  /**
+   * The resources mentioned by the binding files that changed since the previous run,
+   * or null if one of those files cannot be parsed.
+   */
+  private Set<String> changedMentions = new HashSet<String>();
+  
+  /**
+   * The decisions that have been made, keyed by media type.  Once a decision is made, it 
+   * must not change during the run, even though the outputs on which it is based are rewritten.
+   */
+  private Map<String, Boolean> staleMap = new HashMap<String, Boolean>();
+  
+  /**
+   * Create a new BuildPlan.
+   * @param manifest The manifest recorded by the previous run, or null if everything
+   * should be rebuilt.
+   * @param forceFull true if everything should be rebuilt regardless of the manifest,
+   * for instance because some output has been deleted.
+   */
+  BuildPlan(BuildManifest manifest, boolean forceFull) {
+    this.manifest = manifest;
+    if (manifest == null) {
+      full = true;
+      return;
+    }
+    
+    Set<File> unitDirs = new HashSet<File>();
+    for (File file : manifest.listInputs()) {
+      if (isDescriptor(file)) {
+        descriptors.add(file);
+        unitDirs.add(file.getParentFile());
+      }
+    }
+    for (File file : manifest.listInputs()) {
+      if (isBinding(file)) {
+        bindings.add(file);
+      } else if (isSchema(file) || !unitDirs.contains(file.getParentFile())) {
+        globalInputs.add(file);
+      }
+    }
+    full = forceFull || manifest.isStale(GLOBAL, manifest.digest(globalInputs));
+    if (!full) {
+      collectChangedMentions();
+    }
+  }
+  
+  /**
+   * Collect the resources mentioned by the binding files that have been added, modified
+   * or removed since the previous run, both in their current and in their previous form.
+   */
+  private void collectChangedMentions() {
+    Map<String, File> bindingMap = new HashMap<String, File>();
+    for (File file : bindings) {
+      bindingMap.put(manifest.path(file), file);
+    }
+    for (String path : manifest.listChangedInputs()) {
+      if (!path.endsWith(BINDING_SUFFIX)) continue;
+      
+      String previous = manifest.getPreviousValue(MENTIONS + path);
+      if (previous != null) {
+        changedMentions.addAll(split(previous));
+      }
+      File file = bindingMap.get(path);
+      if (file != null) {
+        Set<String> current = bindingMentions(file);
+        if (current == null) {
+          changedMentions = null;
+          return;
+        }
+        changedMentions.addAll(current);
+      }
+    }
+  }
+  
+  /**
+   * Returns true if everything must be rebuilt.
+   */
+  boolean isFullBuild() {
+    return full;
+  }
+  
+  /**
+   * Returns true if the outputs for the given media type must be rebuilt.
+   */
+  boolean isStale(ContextProperties context) {
+    if (full) return true;
+    String mediaType = context.getMediaType();
+    Boolean stale = staleMap.get(mediaType);
+    if (stale == null) {
+      stale = manifest.isStale(MEDIATYPE + mediaType, mediaTypeDigest(context)) || usesChangedBinding(mediaType);
+      staleMap.put(mediaType, stale);
+    }
+    return stale;
+  }
+  
+  /**
+   * Returns true if the JSON-LD context that was produced for the given media type by the 
+   * previous run mentions a resource that is annotated by a binding file that has changed.
+   */
+  private boolean usesChangedBinding(String mediaType) {
+    if (changedMentions == null) return true;
+    if (changedMentions.isEmpty()) return false;
+    
+    String previous = manifest.getPreviousValue(MENTIONS + MEDIATYPE + mediaType);
+    if (previous == null) return true;
+    
+    for (String uri : split(previous)) {
+      if (changedMentions.contains(uri)) return true;
+    }
+    return false;
+  }
+  
+  /**
+   * Returns the media types whose outputs must be rebuilt, or null if all of them
+   * must be rebuilt.
+   */
+  Set<String> listStaleMediaTypes(Collection<ContextProperties> list) {
+    if (full) return null;
+    Set<String> result = new HashSet<String>();
+    for (ContextProperties context : list) {
+      if (isStale(context)) {
+        result.add(context.getMediaType());
+      }
+    }
+    return result;
+  }
+  
+  /**
+   * Returns the elements of the given list whose outputs must be rebuilt.
+   */
+  List<ContextProperties> filter(List<ContextProperties> list) {
+    if (full) return list;
+    List<ContextProperties> result = new ArrayList<ContextProperties>();
+    for (ContextProperties context : list) {
+      if (isStale(context)) {
+        result.add(context);
+      }
+    }
+    return result;
+  }
+  
+  /**
+   * Returns true if the service documentation, UML pages and index must be rebuilt.
+   */
+  boolean isSiteStale() {
+    return full || manifest.isStale(SITE, siteDigest());
+  }
+  
+  /**
+   * Record that the outputs are up to date, and save the manifest.  The given media types
+   * are left out of the manifest, so that the next run rebuilds them and reports their
+   * problems again.
+   * @param list The media types that were built, or that were already up to date.
+   * @param invalidMediaTypes The media types whose samples failed validation.
+   */
+  void commit(Collection<ContextProperties> list, Set<String> invalidMediaTypes) throws java.io.IOException {
+    if (manifest == null) return;
+    manifest.record(GLOBAL, manifest.digest(globalInputs));
+    manifest.record(SITE, siteDigest());
+    for (ContextProperties context : list) {
+      if (!invalidMediaTypes.contains(context.getMediaType())) {
+        manifest.record(MEDIATYPE + context.getMediaType(), mediaTypeDigest(context));
+        Set<String> mentions = contextMentions(context.getContextFile());
+        if (mentions != null) {
+          manifest.recordValue(MENTIONS + MEDIATYPE + context.getMediaType(), join(mentions));
+        }
+      }
+    }
+    for (File file : bindings) {
+      Set<String> mentions = bindingMentions(file);
+      if (mentions != null) {
+        manifest.recordValue(MENTIONS + manifest.path(file), join(mentions));
+      }
+    }
+    manifest.save();
+  }
+  
+  private String siteDigest() {
+    List<File> inputs = new ArrayList<File>(globalInputs);
+    inputs.addAll(descriptors);
+    inputs.addAll(bindings);
+    return manifest.digest(inputs);
+  }
+  
+  private String mediaTypeDigest(ContextProperties context) {
+    List<File> inputs = new ArrayList<File>(globalInputs);
+    File sourceFile = context.getSourceFile();
+    if (sourceFile != null) {
+      File dir = sourceFile.getParentFile();
+      for (File file : manifest.listInputs()) {
+        if (dir.equals(file.getParentFile())) {
+          inputs.add(file);
+        }
+      }
+    }
+    return manifest.digest(inputs);
+  }
+  
+  private boolean isDescriptor(File file) {
+    String name = file.getName();
+    return "context.properties".equals(name) || "service.properties".equals(name);
+  }
+  
+  private boolean isSchema(File file) {
+    String name = file.getName();
+    return name.endsWith(".ttl") || name.endsWith(".xsd");
+  }
+  
+  private boolean isBinding(File file) {
+    return file.getName().endsWith(BINDING_SUFFIX);
+  }
+  
+  /**
+   * Returns the URIs of the resources annotated by the given binding file, or null if
+   * the file cannot be parsed.
+   */
+  private Set<String> bindingMentions(File file) {
+    Model model = ModelFactory.createDefaultModel();
+    try {
+      InputStream input = new FileInputStream(file);
+      try {
+        model.read(input, null, "TURTLE");
+      } finally {
+        input.close();
+      }
+    } catch (Exception oops) {
+      return null;
+    }
+    
+    Set<String> result = new TreeSet<String>();
+    StmtIterator sequence = model.listStatements();
+    while (sequence.hasNext()) {
+      Statement statement = sequence.next();
+      addMention(result, statement.getSubject());
+      addMention(result, statement.getObject());
+    }
+    return result;
+  }
+  
+  private void addMention(Set<String> set, RDFNode node) {
+    if (!node.isURIResource()) return;
+    String uri = ((Resource) node).getURI();
+    for (String namespace : VOCABULARY) {
+      if (uri.startsWith(namespace)) return;
+    }
+    set.add(uri);
+  }
+  
+  /**
+   * Returns the IRIs mentioned by the given JSON-LD context, with compact IRIs expanded,
+   * or null if the context cannot be read.  For each namespace, the IRI of the ontology 
+   * (the namespace without its trailing delimiter) is included too.
+   */
+  private Set<String> contextMentions(File contextFile) {
+    if (contextFile == null || !contextFile.exists()) return null;
+    
+    JsonNode context;
+    try {
+      JsonNode root = LdJsonFactory.getObjectMapper().readTree(contextFile);
+      context = root.get("@context");
+    } catch (IOException oops) {
+      return null;
+    }
+    if (context == null || !context.isObject()) return null;
+    
+    Map<String, String> prefixes = new HashMap<String, String>();
+    Iterator<Map.Entry<String, JsonNode>> sequence = context.getFields();
+    while (sequence.hasNext()) {
+      Map.Entry<String, JsonNode> entry = sequence.next();
+      String value = entry.getValue().getTextValue();
+      if (value != null && (value.endsWith("#") || value.endsWith("/"))) {
+        prefixes.put(entry.getKey(), value);
+      }
+    }
+    
+    Set<String> result = new TreeSet<String>();
+    addMentions(result, prefixes, context);
+    for (String namespace : prefixes.values()) {
+      result.add(namespace.substring(0, namespace.length()-1));
+    }
+    return result;
+  }
+  
+  private void addMentions(Set<String> set, Map<String, String> prefixes, JsonNode node) {
+    if (node.isTextual()) {
+      String value = node.getTextValue();
+      int colon = value.indexOf(':');
+      String namespace = (colon > 0) ? prefixes.get(value.substring(0, colon)) : null;
+      set.add(namespace == null ? value : namespace + value.substring(colon+1));
+      
+    } else {
+      for (JsonNode child : node) {
+        addMentions(set, prefixes, child);
+      }
+    }
+  }
+  
+  private List<String> split(String value) {
+    List<String> list = new ArrayList<String>();
+    for (String token : value.split(" ")) {
+      if (token.length() > 0) {
+        list.add(token);
+      }
+    }
+    return list;
+  }
+  
+  private String join(Set<String> set) {
+    StringBuilder builder = new StringBuilder();
+    for (String value : set) {
+      if (builder.length() > 0) {
+        builder.append(' ');
+      }
+      builder.append(value);
+    }
+    return builder.toString();
+  }
+
+}
@@ -20,8 +20,11 @@ import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.logging.Level;
@@ -30,6 +33,7 @@ import java.util.logging.Logger;
 import javax.xml.parsers.ParserConfigurationException;
 
 import org.semantictools.context.renderer.GlobalPropertiesReader;
+import org.semantictools.context.renderer.LayoutAlgorithm;
 import org.semantictools.context.renderer.MediaTypeFileManager;
 import org.semantictools.context.renderer.URLRewriter;
 import org.semantictools.context.renderer.model.ContextProperties;
@@ -42,16 +46,20 @@ import org.semantictools.frame.api.MediaTypeDocumenter;
 import org.semantictools.frame.api.OntologyManager;
 import org.semantictools.frame.api.SchemaParseException;
 import org.semantictools.frame.api.ServiceDocumentationManager;
+import org.semantictools.frame.api.SourceCatalog;
 import org.semantictools.frame.api.TypeManager;
+import org.semantictools.graphics.DiagramRenderService;
+import org.semantictools.graphics.ImageFormat;
 import org.semantictools.index.api.LinkedDataIndexPrinter;
 import org.semantictools.index.api.impl.LinkedDataIndexImpl;
 import org.semantictools.jsonld.LdAsset;
 import org.semantictools.jsonld.LdProcessor;
+import org.semantictools.jsonld.LdValidationCallback;
 import org.semantictools.jsonld.LdValidationMessage;
 import org.semantictools.jsonld.LdValidationReport;
 import org.semantictools.jsonld.LdValidationResult;
+import org.semantictools.jsonld.impl.LdAssetRepository;
 import org.semantictools.jsonld.impl.LdContentType;
-import org.semantictools.jsonld.io.LdParseException;
 import org.semantictools.uml.api.UmlFileManager;
 import org.semantictools.uml.api.UmlPrinter;
 import org.semantictools.uml.model.UmlManager;
@@ -79,6 +87,12 @@ public class DocumentationGenerator {
   private String version=null;
   private String indexFileName = "index.html";
   private boolean generate = true;
+  private int validationThreadCount = Runtime.getRuntime().availableProcessors();
+  private boolean incremental = false;
+  private int documentationThreadCount = 1;
+  private int diagramThreadCount = 1;
+  private ImageFormat diagramFormat = ImageFormat.PNG;
+  private LayoutAlgorithm diagramLayout = LayoutAlgorithm.GRID;
   
   
   /**
@@ -129,6 +143,121 @@ public class DocumentationGenerator {
 
 
 
+  /**
+   * Returns the number of threads used to validate the sample JSON documents.
+   */
+  public int getValidationThreadCount() {
+    return validationThreadCount;
+  }
+
+
+  /**
+   * Sets the number of threads used to validate the sample JSON documents.
+   */
+  public void setValidationThreadCount(int validationThreadCount) {
+    this.validationThreadCount = validationThreadCount;
+  }
+
+
+
+  /**
+   * Returns the number of threads used to produce the media type documentation.
+   */
+  public int getDocumentationThreadCount() {
+    return documentationThreadCount;
+  }
+
+
+  /**
+   * Sets the number of threads used to produce the media type documentation.
+   * The default value is 1, which means that media types are documented one at a time.
+   * @see MediaTypeDocumenter#setThreadCount(int)
+   */
+  public void setDocumentationThreadCount(int documentationThreadCount) {
+    this.documentationThreadCount = documentationThreadCount;
+  }
+
+
+
+  /**
+   * Returns the number of worker threads used to paint and encode the diagrams.
+   */
+  public int getDiagramThreadCount() {
+    return diagramThreadCount;
+  }
+
+
+  /**
+   * Sets the number of worker threads used to paint and encode the diagrams.
+   * The default value is 1, which means that diagrams are written on a single background
+   * thread while the HTML is generated.  A value of zero means that the diagrams are
+   * written synchronously.
+   * @see DiagramRenderService
+   */
+  public void setDiagramThreadCount(int diagramThreadCount) {
+    this.diagramThreadCount = diagramThreadCount;
+  }
+
+
+
+  /**
+   * Returns the format in which the diagrams are written.
+   */
+  public ImageFormat getDiagramFormat() {
+    return diagramFormat;
+  }
+
+
+  /**
+   * Sets the format in which the UML class diagrams and the media type diagrams are written.
+   * The default format is PNG.  SVG diagrams are much faster to produce and smaller to upload.
+   */
+  public void setDiagramFormat(ImageFormat diagramFormat) {
+    this.diagramFormat = diagramFormat;
+  }
+
+
+  /**
+   * Returns the algorithm used to place the nodes of the media type diagrams.
+   */
+  public LayoutAlgorithm getDiagramLayout() {
+    return diagramLayout;
+  }
+
+
+  /**
+   * Sets the algorithm used to place the nodes of the media type diagrams.
+   * The default is {@link LayoutAlgorithm#GRID}.  The {@link LayoutAlgorithm#TIDY} algorithm
+   * runs in linear time, which matters for media types with hundreds of properties.
+   */
+  public void setDiagramLayout(LayoutAlgorithm diagramLayout) {
+    this.diagramLayout = diagramLayout;
+  }
+
+
+
+  /**
+   * Returns true if this DocumentationGenerator rebuilds only those artifacts whose
+   * sources have changed since the previous run.
+   */
+  public boolean isIncremental() {
+    return incremental;
+  }
+
+
+  /**
+   * Specify whether this DocumentationGenerator should rebuild only those artifacts whose
+   * sources have changed since the previous run (incremental=true), or rebuild everything
+   * (incremental=false).  The checksums of the sources are recorded in a {@link BuildManifest}
+   * within the target directory; if that file is missing, everything is rebuilt.
+   * @see BuildPlan
+   */
+  public void setIncremental(boolean incremental) {
+    this.incremental = incremental;
+  }
+
+
+
   public String getIndexFileName() {
     return indexFileName;
   }
@@ -173,6 +302,13 @@ public class DocumentationGenerator {
     File umlDir = new File(pubDir, "uml");
     File mediaTypeDir = new File(pubDir, "mediatype");
     File umlCss = new File(umlDir, "uml.css");
+    
+    PhaseTimer timer = new PhaseTimer();
+    timer.start("plan");
+    BuildPlan plan = createBuildPlan();
+    
+    timer.start("catalog");
+    SourceCatalog catalog = new SourceCatalog(rdfDir);
 
     OntologyManager ontoManager = new OntologyManager();
     GlobalPropertiesReader globalReader = new GlobalPropertiesReader(ontoManager);
@@ -181,9 +317,11 @@ public class DocumentationGenerator {
     	global = new GlobalProperties();
     }
     UmlFileManager umlFileManager = new UmlFileManager(umlDir);
+    umlFileManager.setImageFormat(diagramFormat);
     
+    timer.start("schemas");
     TypeManager typeManager = new TypeManager();
-    typeManager.loadDir(rdfDir);
+    typeManager.load(catalog);
 
 //    typeManager.getOntModel().writeAll(System.out, "TURTLE", "");
     
@@ -200,35 +338,54 @@ public class DocumentationGenerator {
     
     ServiceFileManager serviceFileManager = new ServiceFileManager(umlDir, umlCss);
     MediaTypeFileManager mediatypeFileManager = new MediaTypeFileManager(mediaTypeDir, mediaTypeDir);
+    mediatypeFileManager.setImageFormat(diagramFormat);
     ContextManager contextManager = new ContextManager(global, mediatypeFileManager);
     MediaTypeDocumenter documenter = new MediaTypeDocumenter(contextManager, umlFileManager, global);
-    documenter.loadAll(rdfDir);
+    documenter.setThreadCount(Math.max(1, documentationThreadCount));
+    documenter.loadAll(catalog);
     typeManager.analyzeOntologies();
-    if (generate) {
-      documenter.produceAllDocumentation(mediaTypeDir);
-    }
     
-    ServiceDocumentationPrinter servicePrinter = new ServiceDocumentationPrinter(rewriter);
-    ServiceDocumentationManager serviceManager = new ServiceDocumentationManager(typeManager, global, contextManager, serviceFileManager, servicePrinter);
-    serviceManager.scan(rdfDir);
-    if (generate) {
-      serviceManager.writeAll();
-    }
+    DiagramRenderService renderService = new DiagramRenderService(Math.max(0, diagramThreadCount));
+    documenter.setRenderService(renderService);
+    documenter.setLayoutAlgorithm(diagramLayout);
+    try {
+      timer.start("mediatypes");
+      if (generate) {
+        documenter.produceAllDocumentation(mediaTypeDir, 
+            plan.listStaleMediaTypes(contextManager.listContextProperties()));
+      }
     
-    LinkedDataIndexImpl oracle = new LinkedDataIndexImpl(
-        typeManager,
-        contextManager, 
-        serviceManager,
-        umlFileManager);
+      timer.start("services");
+      ServiceDocumentationPrinter servicePrinter = new ServiceDocumentationPrinter(rewriter);
+      ServiceDocumentationManager serviceManager = new ServiceDocumentationManager(typeManager, global, contextManager, serviceFileManager, servicePrinter);
+      serviceManager.scan(rdfDir);
+      boolean siteStale = plan.isSiteStale();
+      if (generate && siteStale) {
+        serviceManager.writeAll();
+      }
     
-    File indexFile = new File(pubDir, indexFileName);
-    umlPrinter = new UmlPrinter(global, rewriter, umlManager, umlFileManager, oracle);
-    if (generate) {
-      indexPrinter = new LinkedDataIndexPrinter(indexFile, oracle);
-      umlPrinter.printAll();
-      indexPrinter.printIndex();
+      LinkedDataIndexImpl oracle = new LinkedDataIndexImpl(
+          typeManager,
+          contextManager, 
+          serviceManager,
+          umlFileManager);
+    
+      timer.start("uml");
+      File indexFile = new File(pubDir, indexFileName);
+      umlPrinter = new UmlPrinter(global, rewriter, umlManager, umlFileManager, oracle);
+      umlPrinter.setRenderService(renderService);
+      if (generate && siteStale) {
+        indexPrinter = new LinkedDataIndexPrinter(indexFile, oracle);
+        umlPrinter.printAll();
+        indexPrinter.printIndex();
+      }
+
+    } finally {
+      renderService.close();
     }
+    getLogger().info("Diagrams: " + renderService);
     
+    timer.start("upload");
     if (publish) {
       AppspotUploadClient uploader = new AppspotUploadClient();
       if (uploadEndpoint != null) {
@@ -238,43 +395,115 @@ public class DocumentationGenerator {
       uploader.uploadAll(pubDir);
     }
     
-    validate(contextManager, global);
+    timer.start("validate");
+    Set<String> invalidMediaTypes = validate(contextManager, global, plan, catalog);
+    
+    timer.start("repository");
+    List<ContextProperties> contextList = plan.filter(contextManager.listContextProperties());
+    if (plan.isFullBuild()) {
+      ontoManager.scan(catalog);
+      ontoManager.upload();
+    }
+    ontoManager.uploadJsonLdContextFiles(contextList);
+    ontoManager.publishToLocalRepository(contextList);
+    
+    plan.commit(contextManager.listContextProperties(), invalidMediaTypes);
+    timer.stop();
+    getLogger().info("Elapsed time by phase: " + timer);
+  }
+  
+  /**
+   * Create the plan that determines which artifacts need to be rebuilt.
+   * Everything is rebuilt unless this generator is in incremental mode, and
+   * the outputs from the previous run are still present.
+   */
+  private BuildPlan createBuildPlan() throws IOException {
+    if (!incremental || !generate) {
+      return new BuildPlan(null, true);
+    }
+    BuildManifest manifest = new BuildManifest(rdfDir, new File(pubDir, BuildManifest.FILE_NAME));
+    manifest.load();
+    boolean outputMissing = repoDir!=null && !repoDir.exists();
     
-    ontoManager.scan(rdfDir);
-    ontoManager.upload();
-    ontoManager.uploadJsonLdContextFiles(contextManager.listContextProperties());
-    ontoManager.publishToLocalRepository(contextManager.listContextProperties());
+    return new BuildPlan(manifest, outputMissing);
   }
   
-  private void validate(ContextManager manager, GlobalProperties global) {
-    if (repoDir == null) return;
-    deleteDir(repoDir);
+  /**
+   * Publish the JSON-LD contexts to the local repository, and validate the JSON samples.
+   * @return The media types whose context could not be published, or whose samples
+   * could not be validated or have problems.
+   */
+  private Set<String> validate(ContextManager manager, GlobalProperties global, BuildPlan plan, SourceCatalog catalog) {
+    final Set<String> invalidMediaTypes = Collections.synchronizedSet(new HashSet<String>());
+    if (repoDir == null) return invalidMediaTypes;
+    if (plan.isFullBuild()) {
+      deleteDir(repoDir);
+    }
     repoDir.mkdirs();
     
-    LdProcessor processor = createLdProcessor(global);
+    LdProcessor processor = createLdProcessor(global, catalog);
     processor.getContextManager().setEnhance(true);
     
-    List<ContextProperties> list = manager.listContextProperties();
+    List<ContextProperties> list = plan.filter(manager.listContextProperties());
     // Need to publish all the contexts first because some contexts
     // might depend on other contexts.
     for (ContextProperties context : list) {
-      publishJsonLdContext(processor, context);
+      if (!publishJsonLdContext(processor, context)) {
+        invalidMediaTypes.add(context.getMediaType());
+      }
     }
     // Now we can perform the validation.
+    // The samples are validated concurrently, and the reports are logged
+    // as they complete.
+    List<URL> urlList = new ArrayList<URL>();
+    final Map<String, File> sampleMap = new HashMap<String, File>();
+    final Map<String, String> mediaTypeMap = new HashMap<String, String>();
     for (ContextProperties context : list) {
       if (context.getValidateJsonSamples()) {
-        validate(processor, context);
+        addSamples(urlList, sampleMap, mediaTypeMap, context);
       }
     }
     
-
+    try {
+      processor.validate(urlList, Math.max(1, validationThreadCount), new LdValidationCallback() {
+        
+        @Override
+        public void validated(URL document, LdValidationReport report) {
+          if (hasProblem(report)) {
+            invalidMediaTypes.add(mediaTypeMap.get(document.toString()));
+          }
+          log(sampleMap.get(document.toString()), report);
+        }
+        
+        @Override
+        public void failed(URL document, Throwable error) {
+          invalidMediaTypes.add(mediaTypeMap.get(document.toString()));
+          getLogger().log(Level.SEVERE, "Failed to validate JSON sample " + sampleMap.get(document.toString()));
+          getLogger().log(Level.SEVERE, error.getMessage());
+        }
+      });
+    } catch (InterruptedException e) {
+      getLogger().log(Level.SEVERE, "Validation of JSON samples was interrupted");
+      Thread.currentThread().interrupt();
+      
+      // The samples that were not validated must be validated by the next run.
+      for (ContextProperties context : list) {
+        invalidMediaTypes.add(context.getMediaType());
+      }
+    }
+    
+    return invalidMediaTypes;
   }
 
 
 
 
-  private LdProcessor createLdProcessor(GlobalProperties global) {
-   LdProcessor processor = new LdProcessor(rdfDir, repoDir, false);
+  private LdProcessor createLdProcessor(GlobalProperties global, SourceCatalog catalog) {
+   LdProcessor processor = new LdProcessor(repoDir, false);
+   LdAssetRepository repository = processor.getRepository();
+   for (SourceCatalog.Source source : catalog.listSources()) {
+     repository.scan(source.getFile(), source.openStream());
+   }
    String list = global.getProperties().getProperty(ContextManager.SKIP_VALIDATION);
    if (list != null) {
      StringTokenizer tokenizer = new StringTokenizer(list, " \t\r\n");
@@ -289,12 +518,16 @@ public class DocumentationGenerator {
   }
 
 
-  private void publishJsonLdContext(LdProcessor processor,
+  /**
+   * Publish the JSON-LD context for the given media type to the local repository.
+   * @return false if the context could not be published.
+   */
+  private boolean publishJsonLdContext(LdProcessor processor,
       ContextProperties context) {
 
     File contextFile = context.getContextFile();
     if (contextFile == null) {
-      return;
+      return true;
     }
     try {
       String contextURI = context.getContextURI();
@@ -306,13 +539,20 @@ public class DocumentationGenerator {
       
     } catch (Exception e) {
       getLogger().severe("Failed to add context to repo: " + contextFile);
+      return false;
     } 
     
-    
+    return true;
   }
 
 
-  private void validate(LdProcessor processor, ContextProperties context) {
+  /**
+   * Add the URLs of the sample JSON files for the given context to the given list,
+   * and record each file and the media type that it illustrates in the given maps, 
+   * keyed by the string form of its URL.
+   */
+  private void addSamples(List<URL> urlList, Map<String, File> sampleMap, Map<String, String> mediaTypeMap, 
+      ContextProperties context) {
     List<SampleJson> list = context.getSampleJsonList();
     File baseDir = context.getSourceFile().getParentFile();
     if (list.isEmpty()) {
@@ -329,21 +569,13 @@ public class DocumentationGenerator {
       File file = new File(baseDir, sample.getFileName());
       try {
         URL url = file.toURI().toURL();
-        LdValidationReport report = processor.validate(url);
-        log(file, report);
+        urlList.add(url);
+        sampleMap.put(url.toString(), file);
+        mediaTypeMap.put(url.toString(), context.getMediaType());
         
       } catch (MalformedURLException e) {
         getLogger().log(Level.SEVERE, "Failed to validate JSON sample " + file);
         getLogger().log(Level.SEVERE, e.getMessage());
-      } catch (LdParseException e) {
-        getLogger().log(Level.SEVERE, "Failed to validate JSON sample " + file);
-        getLogger().log(Level.SEVERE, e.getMessage());
-      } catch (IOException e) {
-        getLogger().log(Level.SEVERE, "Failed to validate JSON sample " + file);
-        getLogger().log(Level.SEVERE, e.getMessage());
-      } catch (Throwable e) {
-        getLogger().log(Level.SEVERE, "Failed to validate JSON sample " + file);
-        getLogger().log(Level.SEVERE, e.getMessage());
       }
     }
     
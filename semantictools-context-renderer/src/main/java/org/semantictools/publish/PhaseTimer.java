@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright 2012 Pearson Education
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package org.semantictools.publish;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Records the time spent in each phase of a build.  Phases are sequential:
+ * starting a new phase ends the current one.
+ * 
+ * @author Greg McFall
+ *
+ */
+class PhaseTimer {
+  
+  private Map<String, Long> elapsed = new LinkedHashMap<String, Long>();
+  private String phase;
+  private long start;
+  
+  /**
+   * End the current phase, if any, and start the phase with the given name.
+   */
+  void start(String name) {
+    stop();
+    phase = name;
+    start = System.nanoTime();
+  }
+  
+  /**
+   * End the current phase.
+   */
+  void stop() {
+    if (phase != null) {
+      long time = System.nanoTime() - start;
+      Long prior = elapsed.get(phase);
+      elapsed.put(phase, prior==null ? time : prior + time);
+      phase = null;
+    }
+  }
+  
+  /**
+   * Returns the number of milliseconds spent in the given phase.
+   */
+  long getMillis(String name) {
+    Long time = elapsed.get(name);
+    return time==null ? 0 : time/1000000;
+  }
+  
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    String comma = "";
+    for (Map.Entry<String, Long> entry : elapsed.entrySet()) {
+      builder.append(comma);
+      builder.append(entry.getKey());
+      builder.append('=');
+      builder.append(entry.getValue()/1000000);
+      builder.append("ms");
+      comma = ", ";
+    }
+    return builder.toString();
+  }
+
+}
@@ -19,6 +19,7 @@ import java.io.File;
 
 import org.semantictools.frame.api.LinkManager;
 import org.semantictools.frame.model.RdfType;
+import org.semantictools.graphics.ImageFormat;
 import org.semantictools.uml.model.UmlClass;
 
 import com.hp.hpl.jena.rdf.model.Property;
@@ -30,11 +31,26 @@ public class UmlFileManager extends LinkManager {
   private String ontologyURI;
   private File ontologyDir;
   private File imagesDir;
+  private ImageFormat imageFormat = ImageFormat.PNG;
   
   public UmlFileManager(File rootDir) {
     this.rootDir = rootDir;
   }
   
+  /**
+   * Returns the format of the class diagrams.  The default format is PNG.
+   */
+  public ImageFormat getImageFormat() {
+    return imageFormat;
+  }
+
+  /**
+   * Sets the format of the class diagrams.
+   */
+  public void setImageFormat(ImageFormat imageFormat) {
+    this.imageFormat = imageFormat;
+  }
+  
   /**
    * Set the current ontology.  This establishes the base directory, and
    * subsequent operations are relative to this base.
@@ -60,7 +76,7 @@ public class UmlFileManager extends LinkManager {
   }
   
   public File getUmlClassImageFile(UmlClass umlClass) {
-    return new File(imagesDir, umlClass.getLocalName() + ".png");
+    return new File(imagesDir, umlClass.getLocalName() + "." + imageFormat.getExtension());
   }
   
   public File getRootDir() {
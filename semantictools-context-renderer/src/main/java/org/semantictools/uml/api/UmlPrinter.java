@@ -15,12 +15,12 @@
  ******************************************************************************/
 package org.semantictools.uml.api;
 
-import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -28,8 +28,6 @@ import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 
-import javax.imageio.ImageIO;
-
 import org.semantictools.context.renderer.URLRewriter;
 import org.semantictools.context.renderer.model.BaseDocumentMetadata;
 import org.semantictools.context.renderer.model.ContextProperties;
@@ -51,6 +49,7 @@ import org.semantictools.frame.model.Frame;
 import org.semantictools.frame.model.NamedIndividual;
 import org.semantictools.frame.model.OntologyInfo;
 import org.semantictools.frame.model.RdfType;
+import org.semantictools.graphics.DiagramRenderService;
 import org.semantictools.index.api.LinkedDataIndex;
 import org.semantictools.uml.graphics.ClassDiagram;
 import org.semantictools.uml.model.UmlAssociation;
@@ -76,6 +75,7 @@ public class UmlPrinter extends HtmlPrinter {
   private GlobalProperties global;
   private BaseDocumentMetadata metadata;
   private DocumentPrinter printer;
+  private DiagramRenderService renderService;
   
   public UmlPrinter(
       GlobalProperties global,
@@ -104,6 +104,22 @@ public class UmlPrinter extends HtmlPrinter {
    
   }
 
+  /**
+   * Returns the service that writes the class diagrams, or null if the diagrams are
+   * written synchronously, while the HTML is generated.
+   */
+  public DiagramRenderService getRenderService() {
+    return renderService;
+  }
+
+  /**
+   * Sets the service that writes the class diagrams.  All diagrams are written
+   * before {@link #printAll()} returns.
+   */
+  public void setRenderService(DiagramRenderService renderService) {
+    this.renderService = renderService;
+  }
+
 
 
   public void printAll() throws IOException {
@@ -126,6 +142,9 @@ public class UmlPrinter extends HtmlPrinter {
       
     }
     copyStyleSheet();
+    if (renderService != null) {
+      renderService.flush();
+    }
   }
   
   private void init(OntologyInfo info) {
@@ -375,7 +394,9 @@ public class UmlPrinter extends HtmlPrinter {
     if (uploadClient == null) return;
     String path = file.getPath().replace("\\", "/");
     path = uploadLinkManager.relativize(path);    
-    uploadClient.upload(contentType, path, file);
+    synchronized (uploadClient) {
+      uploadClient.upload(contentType, path, file);
+    }
     
   }
 
@@ -649,9 +670,24 @@ public class UmlPrinter extends HtmlPrinter {
     
     File file = linkManager.getUmlClassImageFile(umlClass);
     ClassDiagram diagram = new ClassDiagram(umlClass);
-    BufferedImage image = diagram.getImage();
-    ImageIO.write(image, "png", file);
-    uploadFile("image/png", file);
+    final String contentType = linkManager.getImageFormat().getContentType();
+    if (renderService != null) {
+      renderService.submit(diagram, file, new DiagramRenderService.Listener() {
+        
+        @Override
+        public void diagramReady(File file) throws IOException {
+          uploadFile(contentType, file);
+        }
+      });
+    } else {
+      OutputStream out = new FileOutputStream(file);
+      try {
+        DiagramRenderService.write(diagram, linkManager.getImageFormat(), null, out);
+      } finally {
+        out.close();
+      }
+      uploadFile(contentType, file);
+    }
     
     String src = "images/" + file.getName();
 //    String captionText = umlClass.getLocalName() + " Class";
@@ -27,11 +27,14 @@ import org.semantictools.frame.model.Encapsulation;
 import org.semantictools.frame.model.Field;
 import org.semantictools.graphics.Arc;
 import org.semantictools.graphics.ArcEnd;
+import org.semantictools.graphics.Diagram;
+import org.semantictools.graphics.DiagramRenderService;
 import org.semantictools.graphics.GraphicsUtil;
 import org.semantictools.graphics.HorizontalPanel;
 import org.semantictools.graphics.Label;
 import org.semantictools.graphics.Rect;
 import org.semantictools.graphics.Style;
+import org.semantictools.graphics.TextMeasurer;
 import org.semantictools.graphics.VerticalPanel;
 import org.semantictools.graphics.Widget;
 import org.semantictools.graphics.WidgetTransformer;
@@ -39,7 +42,15 @@ import org.semantictools.uml.model.UmlAssociation;
 import org.semantictools.uml.model.UmlAssociationEnd;
 import org.semantictools.uml.model.UmlClass;
 
-public class ClassDiagram {
+/**
+ * A diagram that shows a UML class together with its fields, associations, supertypes and subtypes.
+ * The layout is computed when the diagram is constructed, but the image is not painted until
+ * it is requested.
+ *
+ * @author Greg McFall
+ *
+ */
+public class ClassDiagram implements Diagram {
   
   private Style classStyle;
   private Style arcStyle;
@@ -55,6 +66,8 @@ public class ClassDiagram {
   private HorizontalPanel superTypePanel;
   private HorizontalPanel subtypePanel;
   private BufferedImage image;
+  private StringBuilder signature = new StringBuilder();
+  private String contentHash;
   private int width;
   private int height;
   private int dx;
@@ -70,6 +83,7 @@ public class ClassDiagram {
     umlClass = type;
     createStyles();
     
+    sign("class", type.getLocalName());
     Label classLabel = new Label(type.getLocalName(), classNameStyle);
     classWidget = new ClassWidget(classLabel, classStyle);
     childrenPanel = new VerticalPanel();
@@ -82,15 +96,37 @@ public class ClassDiagram {
     addSupertypes();
     addSubtypes();
     layout();
+    
+    sign("size", width + "x" + height);
+    sign("styles", imageStyle, classStyle, classBodyStyle, fieldStyle, arcStyle, classNameStyle);
+    contentHash = DiagramRenderService.digest(signature.toString());
+    signature = null;
 
-
-    image = new BufferedImage(width+1, height+1, BufferedImage.TYPE_INT_ARGB);
-    Graphics2D g = image.createGraphics();
-    g.setRenderingHint(
-        RenderingHints.KEY_TEXT_ANTIALIASING,
-        RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
-    paint(g);
-
+  }
+  
+  /**
+   * Append the given values to the signature from which the content hash is computed.
+   */
+  private void sign(String kind, Object... values) {
+    signature.append(kind);
+    for (Object value : values) {
+      signature.append('|');
+      signature.append(value);
+    }
+    signature.append('\n');
+  }
+  
+  private void signEnd(String kind, UmlAssociationEnd end) {
+    sign(kind, end.getLocalName(), end.getMultiplicity(), end.getEncapsulation());
+  }
+  
+  /**
+   * Returns a digest of the class name, fields, associations, supertypes, subtypes and styles
+   * in this diagram, plus the dimensions of the layout.
+   */
+  @Override
+  public String getContentHash() {
+    return contentHash;
   }
   
   private void addFields() {
@@ -100,6 +136,7 @@ public class ClassDiagram {
       String type = field.getType().getLocalName();
       String multiplicity = field.getMultiplicity();
       String text = name + ": " + type + "[" + multiplicity + "]";
+      sign("field", text);
       Label label = new Label(text, fieldStyle);
       classWidget.addField(label);
     }
@@ -121,6 +158,7 @@ public class ClassDiagram {
     
     for (UmlClass subtype : list) {
       
+      sign("subtype", subtype.getLocalName());
       Label label = new Label(subtype.getLocalName(), classNameStyle);
       ClassWidget subWidget = new ClassWidget(label, classStyle);
       
@@ -154,6 +192,7 @@ public class ClassDiagram {
     
     for (UmlClass supertype : list) {
       
+      sign("supertype", supertype.getLocalName());
       Label label = new Label(supertype.getLocalName(), classNameStyle);
       ClassWidget superWidget = new ClassWidget(label, classStyle);
       
@@ -176,9 +215,25 @@ public class ClassDiagram {
     
   }
 
-  public BufferedImage getImage() {
+  /**
+   * Returns a raster image of this diagram.  The image is painted the first time this method is called.
+   */
+  public synchronized BufferedImage getImage() {
+    if (image == null) {
+      image = DiagramRenderService.createImage(this);
+    }
     return image;
   }
+  
+  @Override
+  public int getWidth() {
+    return width+1;
+  }
+  
+  @Override
+  public int getHeight() {
+    return height+1;
+  }
 
 
   private void layout() {
@@ -396,7 +451,11 @@ public class ClassDiagram {
     
   }
 
-  private void paint(Graphics2D g) {
+  @Override
+  public void paint(Graphics2D g) {
+    g.setRenderingHint(
+        RenderingHints.KEY_TEXT_ANTIALIASING,
+        RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
     
     GraphicsUtil.paint(g, classWidget);
     GraphicsUtil.paint(g, superTypePanel);
@@ -425,6 +484,7 @@ public class ClassDiagram {
      
       UmlClass peer = a.getOtherEnd(umlClass).getParticipant();
       Label label = new Label(peer.getLocalName(), classNameStyle);
+      sign("parent", peer.getLocalName());
       
       ClassWidget otherWidget = (peer == priorParent) ? priorWidget : new ClassWidget(label, classStyle);
       
@@ -436,6 +496,8 @@ public class ClassDiagram {
       
       UmlAssociationEnd myEnd = a.getSelfEnd(umlClass);
       UmlAssociationEnd parentEnd = a.getOtherEnd(umlClass);
+      signEnd("selfEnd", myEnd);
+      signEnd("parentEnd", parentEnd);
       
       ArcEnd selfEnd = new ArcEnd(myEnd.getLocalName(), myEnd.getMultiplicity(), arcStyle);
       setEndShape(selfEnd, myEnd.getEncapsulation());
@@ -470,6 +532,9 @@ public class ClassDiagram {
       
       UmlClass peer = fieldEnd.getParticipant();
       Label label = new Label(peer.getLocalName(), classNameStyle);
+      sign("child", peer.getLocalName());
+      signEnd("selfEnd", classEnd);
+      signEnd("childEnd", fieldEnd);
       
       ClassWidget otherWidget = (priorClass == fieldClass) ? priorWidget :   new ClassWidget(label, classStyle);
       
@@ -572,20 +637,18 @@ public class ClassDiagram {
       classNameStyle.setPadRight(5);
     }
 
-    BufferedImage image = new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB);
-    Graphics2D g = image.createGraphics();
-    setMetrics(arcStyle, g);
-    setMetrics(classNameStyle, g);
-    setMetrics(fieldStyle, g);
+    setMetrics(arcStyle);
+    setMetrics(classNameStyle);
+    setMetrics(fieldStyle);
   }
 
 
-  private void setMetrics(Style style, Graphics2D g) {
+  private void setMetrics(Style style) {
     if (style.getMetrics() != null || style.getFont()==null) return;
     
     
     Font font = style.getFont();
-    FontMetrics metrics = g.getFontMetrics(font);
+    FontMetrics metrics = TextMeasurer.getDefault().getFontMetrics(font);
     style.setMetrics(metrics);
     
   }
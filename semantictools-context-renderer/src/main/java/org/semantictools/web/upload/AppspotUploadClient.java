@@ -33,6 +33,7 @@ import org.apache.http.impl.client.DefaultHttpClient;
 import org.apache.http.util.EntityUtils;
 import org.semantictools.context.renderer.model.ContextProperties;
 import org.semantictools.frame.api.LinkManager;
+import org.semantictools.publish.BuildManifest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -136,6 +137,7 @@ public class AppspotUploadClient {
   private String getContentType(String suffix) {
     return 
       "png".equals(suffix) ? "image/png" :
+      "svg".equals(suffix) ? "image/svg+xml" :
       "html".equals(suffix) ? "text/html" :
       "css".equals(suffix) ? "text/css" :
       "json".equals(suffix) ? "application/json" :
@@ -197,7 +199,7 @@ public class AppspotUploadClient {
 
   public void upload(String contentType, String path, File file) throws IOException {
     
-    if (file.getName().equals(CHECKSUM_PROPERTIES)) {
+    if (file.getName().equals(CHECKSUM_PROPERTIES) || file.getName().equals(BuildManifest.FILE_NAME)) {
       return;
     }
    
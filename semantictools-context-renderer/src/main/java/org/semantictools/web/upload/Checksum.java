@@ -16,9 +16,13 @@ public class Checksum {
  
     int nread = 0; 
  
-    while ((nread = fis.read(dataBytes)) != -1) {
-      md.update(dataBytes, 0, nread);
-    };
+    try {
+      while ((nread = fis.read(dataBytes)) != -1) {
+        md.update(dataBytes, 0, nread);
+      }
+    } finally {
+      fis.close();
+    }
  
     byte[] mdbytes = md.digest();
  
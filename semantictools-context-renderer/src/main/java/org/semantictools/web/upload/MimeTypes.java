@@ -25,6 +25,7 @@ public class MimeTypes {
     suffix2MediaType.put("json", "application/json");
     suffix2MediaType.put("html", "text/html");
     suffix2MediaType.put("png", "image/png");
+    suffix2MediaType.put("svg", "image/svg+xml");
   }
 
   
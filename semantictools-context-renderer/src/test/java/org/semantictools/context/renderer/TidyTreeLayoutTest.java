@@ -0,0 +1,143 @@
+package org.semantictools.context.renderer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.semantictools.context.renderer.model.DiagramSpec;
+import org.semantictools.context.renderer.model.Node;
+
+public class TidyTreeLayoutTest {
+  
+  private static final int SPACING = 15;
+
+  /**
+   * For a tree in which no subtree needs to be spread apart, the tidy layout
+   * must agree with the grid layout.
+   */
+  @Test
+  public void testSameAsGrid() {
+    DiagramSpec grid = layout(createTree(), LayoutAlgorithm.GRID);
+    DiagramSpec tidy = layout(createTree(), LayoutAlgorithm.TIDY);
+    
+    List<Node> gridNodes = list(grid.getRoot(), new ArrayList<Node>());
+    List<Node> tidyNodes = list(tidy.getRoot(), new ArrayList<Node>());
+    assertEquals(gridNodes.size(), tidyNodes.size());
+    for (int i=0; i<gridNodes.size(); i++) {
+      Node expected = gridNodes.get(i);
+      Node actual = tidyNodes.get(i);
+      assertEquals(expected.toString(), expected.getLeft(), actual.getLeft());
+      assertEquals(expected.toString(), expected.getTop(), actual.getTop());
+    }
+  }
+  
+  /**
+   * A leaf between two larger subtrees is placed midway between them.
+   */
+  @Test
+  public void testSpread() {
+    Node root = new Node("GradebookItem", "GradebookItem");
+    Node a = new Node("resultScore", "ResultScore");
+    Node b = new Node("comment", "xs:string");
+    Node c = new Node("scoreConstraints", "ScoreConstraints");
+    root.add(a);
+    root.add(b);
+    root.add(c);
+    for (int i=0; i<3; i++) {
+      a.add(new Node("score" + i, "xs:double"));
+      c.add(new Node("totalMaximum" + i, "xs:double"));
+    }
+    layout(root, LayoutAlgorithm.TIDY);
+    
+    assertTrue(b.getTop() >= a.getBottom() + SPACING);
+    assertEquals(b.getTop() - a.getTop(), c.getTop() - b.getTop());
+  }
+  
+  @Test
+  public void testRandomTree() {
+    Random random = new Random(7);
+    List<Node> nodes = new ArrayList<Node>();
+    Node root = new Node("root", "Root");
+    nodes.add(root);
+    for (int i=1; i<2000; i++) {
+      Node node = new Node("property" + i, "xs:string");
+      nodes.get(random.nextInt(nodes.size())).add(node);
+      nodes.add(node);
+    }
+    DiagramSpec spec = layout(root, LayoutAlgorithm.TIDY);
+    
+    List<List<Node>> columns = new ArrayList<List<Node>>();
+    collect(spec.getRoot(), 0, columns);
+    
+    int minTop = Integer.MAX_VALUE;
+    for (List<Node> column : columns) {
+      for (int i=0; i<column.size(); i++) {
+        Node node = column.get(i);
+        minTop = Math.min(minTop, node.getTop());
+        assertEquals(column.get(0).getLeft(), node.getLeft());
+        if (i>0) {
+          assertTrue(node.toString(), node.getTop() >= column.get(i-1).getBottom() + SPACING);
+        }
+        if (node.getChildren() != null) {
+          int middle = node.getFirstChild().getTop() + node.getLastChild().getBottom();
+          int actual = 2*node.getTop() + node.getHeight();
+          assertTrue(node.toString(), Math.abs(middle - actual) <= 2);
+        }
+      }
+    }
+    assertEquals(0, minTop);
+  }
+  
+  private DiagramSpec layout(Node root, LayoutAlgorithm algorithm) {
+    DiagramSpec spec = new DiagramSpec();
+    spec.setRoot(root);
+    ContextRenderer renderer = new ContextRenderer(null);
+    renderer.setLayoutAlgorithm(algorithm);
+    renderer.computeLayout(spec);
+    return spec;
+  }
+  
+  private Node createTree() {
+    Node root = new Node("GradebookItem", "GradebookItem");
+    Node a = new Node("resultScore", "ResultScore");
+    Node b = new Node("scoreConstraints", "ScoreConstraints");
+    Node c = new Node("comment", "xs:string");
+    root.add(a);
+    root.add(b);
+    root.add(c);
+    a.add(new Node("score", "xs:double"));
+    a.add(new Node("resultStatus", "ResultStatus"));
+    a.add(new Node("label", "xs:string"));
+    for (int i=0; i<5; i++) {
+      b.add(new Node("totalMaximum" + i, "xs:double"));
+    }
+    return root;
+  }
+  
+  private List<Node> list(Node node, List<Node> list) {
+    list.add(node);
+    if (node.getChildren() != null) {
+      for (Node child : node.getChildren()) {
+        list(child, list);
+      }
+    }
+    return list;
+  }
+  
+  private void collect(Node node, int depth, List<List<Node>> columns) {
+    if (columns.size() == depth) {
+      columns.add(new ArrayList<Node>());
+    }
+    columns.get(depth).add(node);
+    if (node.getChildren() != null) {
+      for (Node child : node.getChildren()) {
+        collect(child, depth+1, columns);
+      }
+    }
+  }
+
+}
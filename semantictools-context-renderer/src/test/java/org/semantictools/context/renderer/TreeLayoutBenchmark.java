@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * Copyright 2012 Pearson Education
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package org.semantictools.context.renderer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.semantictools.context.renderer.model.DiagramSpec;
+import org.semantictools.context.renderer.model.Node;
+
+/**
+ * A simple benchmark that compares the time taken by the GRID and TIDY layout 
+ * algorithms on synthetic trees of 100, 1,000 and 10,000 nodes (or the sizes given
+ * on the command line).  Each tree is a random recursive tree: every node after the 
+ * root is attached to a parent chosen at random from the nodes created before it, which
+ * yields the wide, shallow trees typical of JSON-LD contexts.  The timings cover the 
+ * whole layout, including text measurement, but not painting.
+ * Run it from the semantictools-context-renderer directory with the test classpath:
+ * <pre>
+ *   java -cp ... org.semantictools.context.renderer.TreeLayoutBenchmark [nodeCount...]
+ * </pre>
+ * 
+ * @author Greg McFall
+ *
+ */
+public class TreeLayoutBenchmark {
+  
+  private static final int WARMUP = 3;
+  private static final int RUNS = 5;
+
+  public static void main(String[] args) throws Exception {
+    int[] sizes = {100, 1000, 10000};
+    if (args.length > 0) {
+      sizes = new int[args.length];
+      for (int i=0; i<args.length; i++) {
+        sizes[i] = Integer.parseInt(args[i]);
+      }
+    }
+    
+    for (int size : sizes) {
+      for (LayoutAlgorithm algorithm : LayoutAlgorithm.values()) {
+        measure(algorithm, size);
+      }
+    }
+  }
+  
+  private static void measure(LayoutAlgorithm algorithm, int nodeCount) {
+    ContextRenderer renderer = new ContextRenderer(null);
+    renderer.setLayoutAlgorithm(algorithm);
+    
+    long best = Long.MAX_VALUE;
+    int height = 0;
+    for (int i=0; i<WARMUP+RUNS; i++) {
+      DiagramSpec spec = new DiagramSpec();
+      spec.setRoot(createTree(nodeCount));
+      
+      long start = System.nanoTime();
+      renderer.computeLayout(spec);
+      long elapsed = System.nanoTime() - start;
+      
+      if (i >= WARMUP) {
+        best = Math.min(best, elapsed);
+      }
+      height = height(spec.getRoot());
+    }
+    System.out.println(algorithm + " " + nodeCount + " nodes: " + 
+        best/1000 + " us, diagram height " + height + " px");
+  }
+  
+  /**
+   * Creates a random recursive tree with the given number of nodes.  The same 
+   * seed is used every time so that both algorithms lay out identical trees.
+   */
+  private static Node createTree(int nodeCount) {
+    Random random = new Random(nodeCount);
+    List<Node> nodes = new ArrayList<Node>(nodeCount);
+    Node root = new Node("root", "Root");
+    nodes.add(root);
+    for (int i=1; i<nodeCount; i++) {
+      Node node = new Node("property" + i, (i%3==0) ? "xs:string" : "Type" + i%17);
+      nodes.get(random.nextInt(nodes.size())).add(node);
+      nodes.add(node);
+    }
+    return root;
+  }
+  
+  private static int height(Node node) {
+    int bottom = node.getBottom();
+    if (node.getChildren() != null) {
+      for (Node child : node.getChildren()) {
+        bottom = Math.max(bottom, height(child));
+      }
+    }
+    return bottom;
+  }
+
+}
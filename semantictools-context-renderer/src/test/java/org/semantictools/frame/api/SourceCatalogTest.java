@@ -0,0 +1,52 @@
+package org.semantictools.frame.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.Test;
+import org.semantictools.frame.model.Frame;
+
+public class SourceCatalogTest {
+  
+  private File dir = new File("src/test/resources/gdx");
+
+  @Test
+  public void testParseOnce() throws Exception {
+    SourceCatalog catalog = new SourceCatalog(dir);
+    assertTrue(!catalog.listSources().isEmpty());
+    
+    for (SourceCatalog.Source source : catalog.listSources()) {
+      if (source.isTurtle()) {
+        assertSame(source.getModel(), source.getModel());
+      }
+    }
+  }
+  
+  @Test
+  public void testLoad() throws Exception {
+    TypeManager expected = new TypeManager();
+    expected.loadDir(dir);
+    
+    SourceCatalog catalog = new SourceCatalog(dir);
+    TypeManager actual = new TypeManager();
+    actual.load(catalog);
+    
+    assertEquals(expected.listFrames().size(), actual.listFrames().size());
+    assertEquals(expected.listDatatypes().size(), actual.listDatatypes().size());
+    
+    String uri = "http://purl.org/pearson/core/v1/vocab/outcomes#GradebookItem";
+    Frame frame = actual.getFrameByUri(uri);
+    assertTrue(frame != null);
+    assertEquals(expected.getFrameByUri(uri).listAllFields().size(), frame.listAllFields().size());
+    
+    // Loading the same catalog again has no effect.
+    int count = actual.listFrames().size();
+    actual.load(catalog);
+    assertEquals(count, actual.listFrames().size());
+    assertSame(frame, actual.getFrameByUri(uri));
+  }
+
+}
@@ -0,0 +1,155 @@
+package org.semantictools.graphics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Test;
+import org.semantictools.frame.api.TypeManager;
+import org.semantictools.uml.graphics.ClassDiagram;
+import org.semantictools.uml.model.UmlClass;
+import org.semantictools.uml.model.UmlManager;
+
+public class DiagramRenderServiceTest {
+  
+  private File dir = new File("target/DiagramRenderServiceTest");
+  
+  @Test
+  public void testSkipUnchangedDiagram() throws Exception {
+    dir.mkdirs();
+    File file = new File(dir, "GradebookItem.png");
+    file.delete();
+    
+    UmlClass umlClass = loadGradebookItem();
+    ClassDiagram diagram = new ClassDiagram(umlClass);
+    assertEquals(diagram.getContentHash(), new ClassDiagram(umlClass).getContentHash());
+    
+    DiagramRenderService service = new DiagramRenderService(2);
+    try {
+      service.submit(diagram, file, null);
+      service.flush();
+      assertEquals(1, service.getRenderCount());
+      assertEquals(diagram.getContentHash(), DiagramRenderService.readContentHash(file));
+      
+      BufferedImage image = ImageIO.read(file);
+      assertEquals(diagram.getImage().getWidth(), image.getWidth());
+      assertEquals(diagram.getImage().getHeight(), image.getHeight());
+      
+      long length = file.length();
+      service.submit(new ClassDiagram(umlClass), file, null);
+      service.flush();
+      assertEquals(1, service.getRenderCount());
+      assertEquals(1, service.getSkipCount());
+      assertEquals(length, file.length());
+      
+    } finally {
+      service.close();
+    }
+  }
+  
+  @Test
+  public void testSvg() throws Exception {
+    dir.mkdirs();
+    File file = new File(dir, "GradebookItem.svg");
+    file.delete();
+    
+    UmlClass umlClass = loadGradebookItem();
+    ClassDiagram diagram = new ClassDiagram(umlClass);
+    
+    DiagramRenderService service = new DiagramRenderService(1);
+    service.submit(diagram, file, null);
+    service.flush();
+    service.submit(new ClassDiagram(umlClass), file, null);
+    service.close();
+    
+    assertEquals(1, service.getRenderCount());
+    assertEquals(1, service.getSkipCount());
+    assertEquals(diagram.getContentHash(), DiagramRenderService.readContentHash(file));
+    
+    String text = readFile(file);
+    assertTrue(text.startsWith("<?xml"));
+    assertTrue(text.contains("<svg xmlns=\"http://www.w3.org/2000/svg\""));
+    assertTrue(text.contains(">GradebookItem</text>"));
+    assertTrue(text.trim().endsWith("</svg>"));
+  }
+  
+  private String readFile(File file) throws Exception {
+    StringBuilder builder = new StringBuilder();
+    Reader reader = new InputStreamReader(new FileInputStream(file), "UTF-8");
+    try {
+      char[] buffer = new char[1024];
+      int len;
+      while ( (len=reader.read(buffer)) > 0) {
+        builder.append(buffer, 0, len);
+      }
+    } finally {
+      reader.close();
+    }
+    return builder.toString();
+  }
+  
+  private UmlClass loadGradebookItem() throws Exception {
+    TypeManager typeManager = new TypeManager();
+    typeManager.loadDir(new File("src/test/resources/gdx"));
+    typeManager.processOntologies();
+    UmlManager umlManager = new UmlManager(typeManager);
+    UmlClass umlClass = umlManager.getUmlClassByURI("http://purl.org/pearson/core/v1/vocab/outcomes#GradebookItem");
+    assertTrue(umlClass != null);
+    return umlClass;
+  }
+  
+  @Test
+  public void testRenderChangedDiagram() throws Exception {
+    dir.mkdirs();
+    File file = new File(dir, "square.png");
+    file.delete();
+    
+    DiagramRenderService service = new DiagramRenderService(0);
+    service.submit(new Square(10), file, null);
+    service.submit(new Square(20), file, null);
+    service.close();
+    
+    assertEquals(2, service.getRenderCount());
+    assertEquals(0, service.getSkipCount());
+    assertEquals(20, ImageIO.read(file).getWidth());
+    assertEquals(DiagramRenderService.digest("square|20"), DiagramRenderService.readContentHash(file));
+  }
+  
+  static class Square implements Diagram {
+    private int size;
+    
+    Square(int size) {
+      this.size = size;
+    }
+
+    @Override
+    public String getContentHash() {
+      return DiagramRenderService.digest("square|" + size);
+    }
+
+    @Override
+    public int getWidth() {
+      return size;
+    }
+
+    @Override
+    public int getHeight() {
+      return size;
+    }
+
+    @Override
+    public void paint(Graphics2D graphics) {
+      graphics.drawRect(0, 0, size-1, size-1);
+    }
+    
+  }
+
+}
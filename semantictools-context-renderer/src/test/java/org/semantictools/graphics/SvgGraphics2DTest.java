@@ -0,0 +1,46 @@
+package org.semantictools.graphics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+public class SvgGraphics2DTest {
+
+  @Test
+  public void testFormat() {
+    assertEquals("0", SvgGraphics2D.format(0));
+    assertEquals("12", SvgGraphics2D.format(12));
+    assertEquals("12.5", SvgGraphics2D.format(12.5));
+    assertEquals("-3.25", SvgGraphics2D.format(-3.25));
+    assertEquals("0.33", SvgGraphics2D.format(1/3.0));
+  }
+  
+  @Test
+  public void testPaint() throws Exception {
+    SvgGraphics2D g = new SvgGraphics2D(100, 50);
+    g.setColor(Color.red);
+    g.setStroke(new BasicStroke(2));
+    g.drawLine(0, 0, 10, 0);
+    
+    g.translate(5, 5);
+    g.setColor(new Color(0, 0, 255));
+    g.setFont(new Font("Arial", Font.BOLD, 12));
+    g.drawString("a<b", 10, 20);
+    g.dispose();
+    
+    StringWriter writer = new StringWriter();
+    g.write(writer);
+    String svg = writer.toString();
+    
+    assertTrue(svg.startsWith("<svg xmlns=\"http://www.w3.org/2000/svg\" version=\"1.1\" width=\"100\" height=\"50\""));
+    assertTrue(svg.contains("<path d=\"M0.5 0.5L10.5 0.5\" fill=\"none\" stroke=\"#ff0000\" stroke-width=\"2\"/>"));
+    assertTrue(svg.contains("<text x=\"15\" y=\"25\" font-family=\"Arial\" font-size=\"12\" font-weight=\"bold\" fill=\"#0000ff\" xml:space=\"preserve\">a&lt;b</text>"));
+  }
+
+}
@@ -0,0 +1,52 @@
+package org.semantictools.graphics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import org.junit.Test;
+
+public class TextMeasurerTest {
+
+  @Test
+  public void testMetrics() {
+    TextMeasurer measurer = new TextMeasurer();
+    FontMetrics metrics = measurer.getFontMetrics(new Font("Arial", Font.PLAIN, 12));
+    assertSame(metrics, measurer.getFontMetrics(new Font("Arial", Font.PLAIN, 12)));
+    
+    BufferedImage image = new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB);
+    Graphics2D g = image.createGraphics();
+    FontMetrics expected = g.getFontMetrics(new Font("Arial", Font.PLAIN, 12));
+    
+    assertEquals(expected.getHeight(), metrics.getHeight());
+    assertEquals(expected.stringWidth("resultScore"), measurer.stringWidth(metrics, "resultScore"));
+    assertEquals(
+        expected.getStringBounds("xs:string", g), 
+        measurer.getStringBounds(metrics.getFont(), "xs:string"));
+  }
+  
+  @Test
+  public void testCache() {
+    TextMeasurer measurer = new TextMeasurer(2);
+    Font font = new Font("Arial", Font.BOLD, 12);
+    
+    int width = measurer.stringWidth(font, "alpha");
+    assertEquals(width, measurer.stringWidth(font, "alpha"));
+    assertEquals(1, measurer.getHitCount());
+    assertEquals(1, measurer.getMissCount());
+    
+    measurer.stringWidth(font, "beta");
+    assertEquals(2, measurer.getWidthCount());
+    
+    measurer.stringWidth(font, "gamma");
+    assertEquals(1, measurer.getWidthCount());
+    assertEquals(3, measurer.getMissCount());
+    
+    assertEquals(0, measurer.stringWidth(font, ""));
+  }
+
+}
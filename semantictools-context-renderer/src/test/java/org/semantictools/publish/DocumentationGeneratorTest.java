@@ -1,8 +1,20 @@
 package org.semantictools.publish;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
 
 import org.junit.Test;
+import org.semantictools.graphics.ImageFormat;
 
 public class DocumentationGeneratorTest {
 
@@ -16,5 +28,175 @@ public class DocumentationGeneratorTest {
     DocumentationGenerator generator = new DocumentationGenerator(rdfDir, pubDir, repoDir, publish);
     generator.run();
   }
+  
+  @Test
+  public void testIncremental() throws Exception {
+    File root = new File("target/DocumentationGeneratorTest");
+    delete(root);
+    File sourceDir = new File(root, "gdx");
+    File targetDir = new File(root, "pub");
+    File localRepo = new File(root, "repo");
+    copy(rdfDir, sourceDir);
+    
+    // The samples for AssignmentResultEvent have warnings, so skip them.  Otherwise, that 
+    // media type would be rebuilt by every run.
+    FileWriter writer = new FileWriter(new File(sourceDir, "AssignmentResult/context.properties"), true);
+    writer.write("\nvalidateJsonSamples=false\n");
+    writer.close();
+    
+    DocumentationGenerator generator = new DocumentationGenerator(sourceDir, targetDir, localRepo, publish);
+    generator.setIncremental(true);
+    generator.run();
+    assertTrue(new File(targetDir, BuildManifest.FILE_NAME).exists());
+    
+    File mediaTypeDir = new File(targetDir, "mediatype/application/vnd/pearson/core/v1");
+    File changed = new File(mediaTypeDir, "GradebookItemEvent+json/index.html");
+    File unchanged = new File(mediaTypeDir, "AssignmentResultEvent+json/index.html");
+    File invalid = new File(mediaTypeDir, "AssignmentResultDeletedEvent+json/index.html");
+    File index = new File(targetDir, "index.html");
+    changed.setLastModified(0);
+    unchanged.setLastModified(0);
+    invalid.setLastModified(0);
+    index.setLastModified(0);
+    
+    // Nothing has changed, so nothing should be rebuilt, except for a media type
+    // whose sample has errors, so that the errors are reported again.
+    generator.run();
+    assertEquals(0, changed.lastModified());
+    assertEquals(0, unchanged.lastModified());
+    assertEquals(0, index.lastModified());
+    assertTrue(invalid.lastModified() != 0);
+    
+    // Editing a sample rebuilds the documentation for that media type only.
+    writer = new FileWriter(new File(sourceDir, "GradebookItem/sample.json"), true);
+    writer.write("\n");
+    writer.close();
+    
+    generator.run();
+    assertTrue(changed.lastModified() != 0);
+    assertEquals(0, unchanged.lastModified());
+    assertEquals(0, index.lastModified());
+    
+    // Editing a binding file rebuilds only the media types whose context uses a resource
+    // that it annotates.  No context uses pc:CourseSection.
+    changed.setLastModified(0);
+    writer = new FileWriter(new File(sourceDir, "pc_binding.ttl"), true);
+    writer.write("\n");
+    writer.close();
+    
+    generator.run();
+    assertEquals(0, changed.lastModified());
+    assertEquals(0, unchanged.lastModified());
+    
+    // Only the context for GradebookItemEvent uses lti:Capability and lti:ProductFamily.
+    writer = new FileWriter(new File(sourceDir, "lti_binding.ttl"), true);
+    writer.write("\n");
+    writer.close();
+    
+    generator.run();
+    assertTrue(changed.lastModified() != 0);
+    assertEquals(0, unchanged.lastModified());
+  }
+  
+  @Test
+  public void testParallel() throws Exception {
+    File root = new File("target/DocumentationGeneratorTest");
+    File sequentialDir = new File(root, "sequential");
+    File parallelDir = new File(root, "parallel");
+    delete(sequentialDir);
+    delete(parallelDir);
+    
+    DocumentationGenerator generator = new DocumentationGenerator(rdfDir, sequentialDir, null, publish);
+    generator.run();
+    
+    generator = new DocumentationGenerator(rdfDir, parallelDir, null, publish);
+    generator.setDocumentationThreadCount(4);
+    generator.run();
+    
+    assertSameFiles(new File(sequentialDir, "mediatype"), new File(parallelDir, "mediatype"));
+  }
+  
+  @Test
+  public void testSvg() throws Exception {
+    File root = new File("target/DocumentationGeneratorTest");
+    File svgDir = new File(root, "svg");
+    delete(svgDir);
+    
+    DocumentationGenerator generator = new DocumentationGenerator(rdfDir, svgDir, null, publish);
+    generator.setDiagramFormat(ImageFormat.SVG);
+    generator.run();
+    
+    File mediaTypeDir = new File(svgDir, "mediatype/application/vnd/pearson/core/v1/GradebookItemEvent+json");
+    assertTrue(new File(mediaTypeDir, "images/overview.svg").exists());
+    assertTrue(!new File(mediaTypeDir, "images/overview.png").exists());
+    
+    String html = new String(readBytes(new File(mediaTypeDir, "index.html")), "UTF-8");
+    assertTrue(html.contains("images/overview.svg"));
+    assertTrue(!html.contains(".png"));
+    
+    File umlImage = new File(svgDir, "uml/purl.org/pearson/core/v1/vocab/outcomes/images/GradebookItem.svg");
+    assertTrue(umlImage.exists());
+  }
+  
+  private void assertSameFiles(File expected, File actual) throws IOException {
+    assertTrue(actual.getPath(), actual.exists());
+    if (expected.isDirectory()) {
+      assertEquals(actual.getPath(), expected.list().length, actual.list().length);
+      for (File child : expected.listFiles()) {
+        assertSameFiles(child, new File(actual, child.getName()));
+      }
+    } else {
+      assertTrue(actual.getPath(), Arrays.equals(readBytes(expected), readBytes(actual)));
+    }
+  }
+  
+  private byte[] readBytes(File file) throws IOException {
+    InputStream input = new FileInputStream(file);
+    try {
+      ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+      byte[] chunk = new byte[4096];
+      int len;
+      while ((len=input.read(chunk)) > 0) {
+        buffer.write(chunk, 0, len);
+      }
+      return buffer.toByteArray();
+    } finally {
+      input.close();
+    }
+  }
+  
+  private void copy(File source, File target) throws IOException {
+    if (source.isDirectory()) {
+      target.mkdirs();
+      for (File child : source.listFiles()) {
+        copy(child, new File(target, child.getName()));
+      }
+      return;
+    }
+    InputStream input = new FileInputStream(source);
+    try {
+      OutputStream output = new FileOutputStream(target);
+      try {
+        byte[] buffer = new byte[4096];
+        int len;
+        while ((len=input.read(buffer)) > 0) {
+          output.write(buffer, 0, len);
+        }
+      } finally {
+        output.close();
+      }
+    } finally {
+      input.close();
+    }
+  }
+  
+  private void delete(File file) {
+    if (file.isDirectory()) {
+      for (File child : file.listFiles()) {
+        delete(child);
+      }
+    }
+    file.delete();
+  }
 
 }
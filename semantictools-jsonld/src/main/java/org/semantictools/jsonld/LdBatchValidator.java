@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright 2012 Pearson Education
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package org.semantictools.jsonld;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * A utility that validates a batch of JSON-LD documents concurrently.
+ * <p>
+ * Documents are validated by an LdProcessor on the threads of a given ExecutorService,
+ * and the reports are delivered to an {@link LdValidationCallback} as soon as they are
+ * complete.  Reports are not necessarily delivered in the order in which the documents
+ * were supplied.
+ * <p>
+ * To bound memory consumption, at most {@link #getMaxPending() maxPending} documents
+ * are in flight at any one time.  The sequence of documents is consumed lazily, so it
+ * may be arbitrarily long.  A batch may be stopped early by calling {@link #cancel()}
+ * from any thread, including from within the callback.
+ * 
+ * @author Greg McFall
+ *
+ */
+public class LdBatchValidator {
+  
+  private LdProcessor processor;
+  private ExecutorService executor;
+  private int maxPending;
+  private volatile boolean cancelled;
+  
+  /**
+   * Create a new LdBatchValidator.
+   * @param processor  The processor used to validate each document.
+   * @param executor The executor that runs the validation tasks.  The caller is responsible
+   * for shutting down the executor.
+   * @param maxPending The maximum number of documents that may be in flight at any one time.
+   */
+  public LdBatchValidator(LdProcessor processor, ExecutorService executor, int maxPending) {
+    if (maxPending < 1) {
+      throw new IllegalArgumentException("maxPending must be positive: " + maxPending);
+    }
+    this.processor = processor;
+    this.executor = executor;
+    this.maxPending = maxPending;
+  }
+  
+  /**
+   * Returns the maximum number of documents that may be in flight at any one time.
+   */
+  public int getMaxPending() {
+    return maxPending;
+  }
+  
+  /**
+   * Stop submitting new documents, and cancel the documents that are in flight.
+   * The {@link #validate(Iterator, LdValidationCallback) validate} method returns 
+   * shortly after this method is called.
+   */
+  public void cancel() {
+    cancelled = true;
+  }
+  
+  /**
+   * Returns true if this batch has been cancelled.
+   */
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+  /**
+   * Validate the given documents, and deliver the reports to the given callback.
+   * This method blocks until all documents have been validated or the batch is cancelled.
+   * @return The number of documents that were delivered to the callback.
+   */
+  public int validate(Iterator<URL> documents, LdValidationCallback callback) throws InterruptedException {
+    
+    CompletionService<LdValidationReport> service = new ExecutorCompletionService<LdValidationReport>(executor);
+    Map<Future<LdValidationReport>, URL> pending = new HashMap<Future<LdValidationReport>, URL>();
+    int count = 0;
+    
+    try {
+      while (!cancelled && documents.hasNext()) {
+        if (pending.size() >= maxPending) {
+          deliver(service.take(), pending, callback);
+          count++;
+          continue;
+        }
+        final URL url = documents.next();
+        Future<LdValidationReport> future = service.submit(new Callable<LdValidationReport>() {
+          @Override
+          public LdValidationReport call() throws Exception {
+            return processor.validate(url);
+          }
+        });
+        pending.put(future, url);
+      }
+      
+      while (!cancelled && !pending.isEmpty()) {
+        deliver(service.take(), pending, callback);
+        count++;
+      }
+      
+    } finally {
+      for (Future<LdValidationReport> future : pending.keySet()) {
+        future.cancel(true);
+      }
+    }
+    
+    return count;
+  }
+  
+  private void deliver(Future<LdValidationReport> future, Map<Future<LdValidationReport>, URL> pending, LdValidationCallback callback) throws InterruptedException {
+    URL url = pending.remove(future);
+    try {
+      callback.validated(url, future.get());
+    } catch (ExecutionException oops) {
+      callback.failed(url, oops.getCause());
+    }
+  }
+  
+  /**
+   * Returns the list of URLs for JSON documents (i.e. files with the ".json" extension)
+   * within the given directory tree.  If the given file is not a directory, the returned
+   * list contains the URL for that file alone.  Within each directory, files are
+   * listed in alphabetical order.
+   */
+  public static List<URL> listDocuments(File file) throws MalformedURLException {
+    List<URL> list = new ArrayList<URL>();
+    if (file.isDirectory()) {
+      addDocuments(list, file);
+    } else {
+      list.add(file.toURI().toURL());
+    }
+    return list;
+  }
+
+  private static void addDocuments(List<URL> list, File dir) throws MalformedURLException {
+    File[] array = dir.listFiles();
+    if (array == null) return;
+    Arrays.sort(array);
+    for (File file : array) {
+      if (file.isDirectory()) {
+        addDocuments(list, file);
+      } else if (file.getName().endsWith(".json")) {
+        list.add(file.toURI().toURL());
+      }
+    }
+  }
+
+}
@@ -17,15 +17,24 @@ package org.semantictools.jsonld;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * LdClass represents an RDF class.
  * It aggregates all of the restrictions that apply to the RDF class.
  * It is useful during validation.
+ * <p>
+ * The transitive closure of the supertypes of each LdClass is computed lazily and
+ * cached, so that subtype tests do not need to walk the class hierarchy.  Each class
+ * counts the changes to its URI and its supertypes, and the closure records the count
+ * of every class it was computed from.  A closure is therefore recomputed only if one of 
+ * those classes has actually changed.
  * 
  * @author Greg McFall
  *
@@ -33,18 +42,24 @@ import java.util.Map;
 public class LdClass implements Serializable, LdType {
   private static final long serialVersionUID = 1L;
   
+  
   private String uri;
   private Map<String, LdRestriction> restrictions;
   private List<LdClass> superClassList;
   
   private LdTerm term;
   
+  private transient volatile int modCount;
+  private transient volatile Closure closure;
+  
   public LdClass(String classURI) {
     this.uri = classURI;
   }
   
   public void setURI(String uri) {
+    if (uri == null ? this.uri == null : uri.equals(this.uri)) return;
     this.uri = uri;
+    modCount++;
   }
 
   /**
@@ -63,7 +78,13 @@ public class LdClass implements Serializable, LdType {
   }
   
   public void setSupertypes(List<LdClass> superList) {
+    // The caller may have modified the current list in place, so only a different 
+    // list with the same elements is known to leave the closure unchanged.
+    if (superList != superClassList && superList != null && superList.equals(superClassList)) {
+      return;
+    }
     superClassList = superList;
+    modCount++;
   }
 
   /**
@@ -75,6 +96,46 @@ public class LdClass implements Serializable, LdType {
     }
     if (!superClassList.contains(dr)) {
       superClassList.add(dr);
+      modCount++;
+    }
+  }
+  
+  /**
+   * Returns the URIs of all the direct and indirect supertypes of this class.
+   * The returned set is unmodifiable.  The same set is returned until the URI or the 
+   * supertypes of this class or one of its ancestors change, so callers may cache 
+   * information derived from the set, and compare the set by identity to detect a change.
+   */
+  public Set<String> getSupertypeURIs() {
+    Closure c = closure;
+    if (c == null || !c.isCurrent()) {
+      c = computeClosure();
+      closure = c;
+    }
+    return c.ancestors;
+  }
+  
+  private Closure computeClosure() {
+    Set<String> ancestors = new HashSet<String>();
+    List<LdClass> sources = new ArrayList<LdClass>();
+    List<Integer> versions = new ArrayList<Integer>();
+    sources.add(this);
+    versions.add(modCount);
+    addAncestors(ancestors, sources, versions, this);
+    return new Closure(Collections.unmodifiableSet(ancestors), sources, versions);
+  }
+  
+  private static void addAncestors(Set<String> ancestors, List<LdClass> sources, List<Integer> versions, LdClass rdfClass) {
+    List<LdClass> superList = rdfClass.superClassList;
+    if (superList == null) return;
+    
+    for (LdClass superClass : superList) {
+      int version = superClass.modCount;
+      if (ancestors.add(superClass.getURI())) {
+        sources.add(superClass);
+        versions.add(version);
+        addAncestors(ancestors, sources, versions, superClass);
+      }
     }
   }
 
@@ -107,16 +168,9 @@ public class LdClass implements Serializable, LdType {
    * has a superclass with the specified URI.
    */
   public boolean hasSuperType(String superURI) {
-    if (superClassList != null) {
-      for (LdClass sr : superClassList) {
-        if (sr.getURI().equals(superURI) || sr.hasSuperType(superURI)) {
-          return true;
-        }
-      }
-    }
-    
-    return false;
+    if (superClassList == null) return false;
     
+    return getSupertypeURIs().contains(superURI);
   }
 
   /**
@@ -181,23 +235,7 @@ public class LdClass implements Serializable, LdType {
    * Returns true if this RDF class is a subclass of the given otherClass.
    */
   public boolean isSubClassOf(LdClass otherClass) {
-    return hasSuper(this, otherClass.getURI());
-  }
-  
-  /**
-   * Returns true if the given subClass has an ancestor whose URI is superURI.
-   */
-  private boolean hasSuper(LdClass subClass, String superURI) {
-      
-    List<LdClass> superList = subClass.listSupertypes();
-    if (superList != null) {
-      for (LdClass superClass : superList) {
-        if (superClass.getURI().equals(superURI) || hasSuper(superClass, superURI)) return true;
-      }
-    }
-    
-    return false;
-    
+    return hasSuperType(otherClass.getURI());
   }
 
   /**
@@ -240,5 +278,31 @@ public class LdClass implements Serializable, LdType {
   public String toString() {
     return "LdClass(" + uri + ")";
   }
+  
+  /**
+   * The transitive closure of the supertypes of a class, together with the 
+   * modification count of each class from which it was computed.
+   */
+  private static class Closure {
+    private final Set<String> ancestors;
+    private final LdClass[] sources;
+    private final int[] versions;
+    
+    Closure(Set<String> ancestors, List<LdClass> sourceList, List<Integer> versionList) {
+      this.ancestors = ancestors;
+      sources = sourceList.toArray(new LdClass[sourceList.size()]);
+      versions = new int[sources.length];
+      for (int i=0; i<versions.length; i++) {
+        versions[i] = versionList.get(i);
+      }
+    }
+    
+    boolean isCurrent() {
+      for (int i=0; i<sources.length; i++) {
+        if (sources[i].modCount != versions[i]) return false;
+      }
+      return true;
+    }
+  }
 
 }
@@ -22,9 +22,20 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * LdContext provides an API for accessing terms within a JSON-LD context.
+ * <p>
+ * Once a context and all of its components and ancestors have been closed, the
+ * context lazily builds a flattened resolution table that merges the terms from all
+ * of those sources, so that {@link #getTerm(String)} is a single hash lookup.  The
+ * expansion of compact IRIs is memoized in the same table.  Each table records the
+ * tables of the parent and the components from which it was built, and it is rebuilt
+ * only when one of those has been replaced, or when a term is added to a closed context.
+ * Copies of a context that have been re-parented under the same parent share a single
+ * table.
+ * 
  * @author Greg McFall
  *
  */
@@ -32,12 +43,20 @@ public class LdContext implements Serializable {
   private static final long serialVersionUID = 1L;
   private static Random random = new Random(new Date().getTime());
   
+  private static final int MAX_EXPANSIONS = 10000;
+  
   private transient LdContext parentContext;
+  private transient LdContext origin;
   private String contextURI;
   private List<LdTerm> termList;
   private Map<String,LdTerm> termMap;
   private List<LdContext> components;
   
+  private boolean closed;
+  private transient volatile boolean enhancementComplete;
+  private transient volatile Resolution resolution;
+  private transient volatile Resolution sharedResolution;
+  
   /**
    * Creates a new LdContext which inherits terms from the specified parent context.
    */
@@ -57,10 +76,22 @@ public class LdContext implements Serializable {
     copy.termMap = termMap;
     copy.components = components;
     copy.contextURI = contextURI;
+    copy.closed = closed;
+    copy.origin = getOrigin();
+    copy.enhancementComplete = enhancementComplete;
     
     return copy;
   }
   
+  /**
+   * Returns the context from which this context was copied, directly or indirectly, 
+   * or this context if it is not a copy.  A context and its copies share the same terms
+   * and components; they may differ only in their parent.
+   */
+  public LdContext getOrigin() {
+    return (origin == null) ? this : origin;
+  }
+  
   /**
    * Returns the URI for this context, or null if the URI is not known.
    */
@@ -75,6 +106,13 @@ public class LdContext implements Serializable {
     this.contextURI = contextURI;
   }
 
+  /**
+   * Returns the parent context from which terms are inherited, or null if there is no parent.
+   */
+  public LdContext getParentContext() {
+    return parentContext;
+  }
+
   /**
    * Sets the parent context from which terms are inherited.
    */
@@ -168,6 +206,7 @@ public class LdContext implements Serializable {
     }
     
     expandTerms();
+    closed = true;
   }
   
   public List<LdTerm> listTerms() {
@@ -258,6 +297,22 @@ public class LdContext implements Serializable {
       return term==null ? key : term.getIRI();
     }
     
+    Resolution r = getResolution();
+    if (r != null) {
+      String iri = r.expansions.get(key);
+      if (iri == null) {
+        iri = expandCompactIRI(key, colon);
+        if (iri != null && r.expansions.size() < MAX_EXPANSIONS) {
+          r.expansions.put(key, iri);
+        }
+      }
+      return iri;
+    }
+    
+    return expandCompactIRI(key, colon);
+  }
+  
+  private String expandCompactIRI(String key, int colon) {
     String prefix = key.substring(0, colon);
     String namespaceIRI = null;
     
@@ -293,6 +348,11 @@ public class LdContext implements Serializable {
   public LdTerm getTerm(String key) {
     if (key==null) return null;
     
+    Resolution r = getResolution();
+    if (r != null) {
+      return r.terms.get(key);
+    }
+    
     LdTerm term = (termMap != null) ? termMap.get(key) : null;
     if (term != null) return term;
     
@@ -309,6 +369,102 @@ public class LdContext implements Serializable {
     return term;
   }
   
+  /**
+   * Returns the flattened resolution table for this context, or null if the table
+   * cannot be built because this context, one of its components, or one of its
+   * ancestors is not closed.
+   */
+  private Resolution getResolution() {
+    if (!closed) return null;
+    
+    Resolution parent = null;
+    if (parentContext != null) {
+      parent = parentContext.getResolution();
+      if (parent == null) return null;
+    }
+    
+    Resolution r = resolution;
+    if (r != null && r.isCurrent(this, parent)) return r;
+    
+    // A copy that has been re-parented under the same parent as another copy
+    // can use the table that was built for that copy.
+    LdContext source = getOrigin();
+    if (source != this) {
+      r = source.sharedResolution;
+      if (r != null && r.isCurrent(this, parent)) {
+        resolution = r;
+        return r;
+      }
+    }
+    
+    r = buildResolution(parent);
+    if (r == null) return null;
+    resolution = r;
+    if (source != this) {
+      source.sharedResolution = r;
+    }
+    return r;
+  }
+  
+  private Resolution buildResolution(Resolution parent) {
+    Map<String, LdTerm> terms = (parent == null) ? null : parent.terms;
+    
+    Resolution[] componentResolutions = null;
+    if (components != null) {
+      componentResolutions = new Resolution[components.size()];
+      for (int i=0; i<componentResolutions.length; i++) {
+        componentResolutions[i] = components.get(i).getResolution();
+        if (componentResolutions[i] == null) return null;
+      }
+    }
+    
+    boolean local = (termMap != null && !termMap.isEmpty()) || (components != null && !components.isEmpty());
+    if (local) {
+      // Later entries take precedence, so add the sources in the reverse of the
+      // order in which they are searched.
+      Map<String, LdTerm> map = (terms==null) ? new HashMap<String, LdTerm>() : new HashMap<String, LdTerm>(terms);
+      if (componentResolutions != null) {
+        for (Resolution component : componentResolutions) {
+          map.putAll(component.terms);
+        }
+      }
+      if (termMap != null) {
+        map.putAll(termMap);
+      }
+      terms = map;
+    } else if (terms == null) {
+      terms = new HashMap<String, LdTerm>();
+    }
+    
+    return new Resolution(parent, componentResolutions, localSize(), terms);
+  }
+  
+  /**
+   * Returns the number of entries in the local term map.  Terms are only ever added to
+   * a closed context, by {@link #ensureTerm(String)}, so a change in this number
+   * means that the resolution table is stale.
+   */
+  private int localSize() {
+    return (termMap == null) ? 0 : termMap.size();
+  }
+  
+  /**
+   * Returns true if a call to {@link #setEnhancementComplete()} has declared that
+   * this context is fully enhanced.  Unlike {@link #isEnhanced()}, this method does
+   * not inspect the terms, so it is safe to call while another thread is enhancing the context.
+   */
+  public boolean isEnhancementComplete() {
+    return enhancementComplete;
+  }
+  
+  /**
+   * Declares that this context has been fully enhanced, and will not be modified
+   * by an LdContextEnhancer again.
+   */
+  public void setEnhancementComplete() {
+    enhancementComplete = true;
+  }
+  
   /**
    * Returns true if this context has been enhanced with LdProperty
    * or LdClass data which is useful for validation.
@@ -367,7 +523,7 @@ public class LdContext implements Serializable {
   public boolean isAssignableFrom(String subURI, String superURI) {
     if (subURI.equals(superURI)) return true;
     LdClass subDomain = getClass(subURI);
-    return (subDomain == null) ? null : subDomain.hasSuperType(superURI);
+    return subDomain != null && subDomain.hasSuperType(superURI);
   }
   
   public LdDatatype findDatatypeByURI(String datatypeURI) {
@@ -444,4 +600,39 @@ public class LdContext implements Serializable {
     return uri.substring(mark+1);
   }
   
+  /**
+   * The flattened terms of a context, plus the memoized expansions of compact IRIs.
+   * The terms map is shared with descendant contexts and is never modified.
+   */
+  private static class Resolution {
+    private final Resolution parent;
+    private final Resolution[] components;
+    private final int localSize;
+    private final Map<String, LdTerm> terms;
+    private final Map<String, String> expansions = new ConcurrentHashMap<String, String>();
+    
+    Resolution(Resolution parent, Resolution[] components, int localSize, Map<String, LdTerm> terms) {
+      this.parent = parent;
+      this.components = components;
+      this.localSize = localSize;
+      this.terms = terms;
+    }
+    
+    /**
+     * Returns true if this table is still valid for the given context, whose parent
+     * currently has the given table.
+     */
+    boolean isCurrent(LdContext context, Resolution currentParent) {
+      if (parent != currentParent || localSize != context.localSize()) return false;
+      if (components != null) {
+        List<LdContext> list = context.components;
+        if (list == null || list.size() != components.length) return false;
+        for (int i=0; i<components.length; i++) {
+          if (list.get(i).getResolution() != components[i]) return false;
+        }
+      }
+      return true;
+    }
+  }
+
 }
@@ -28,24 +28,69 @@ import org.semantictools.util.DurationUtil;
  */
 public class LdLiteral implements LdNode {
   
+  // The kinds of primitive value that may be held in the bits field.
+  private static final byte NONE = 0;
+  private static final byte LONG = 1;
+  private static final byte DOUBLE = 2;
+  private static final byte BOOLEAN = 3;
+  
   private String stringValue;
-  private Long longValue;
-  private Double doubleValue;
-  private Boolean booleanValue;
   private String type;
   private String language;
   
+  /**
+   * The primitive value of this literal, if any.  A double is stored as its raw
+   * long bits, and a boolean is stored as 1 or 0.  The kind field tells which
+   * of these interpretations applies.
+   */
+  private long bits;
+  private byte kind = NONE;
+  
+  /**
+   * Create an empty literal.
+   */
+  public LdLiteral() {
+  }
+  
+  /**
+   * Create a literal that holds the given String value.
+   */
+  public LdLiteral(String stringValue) {
+    this.stringValue = stringValue;
+  }
+  
+  /**
+   * Create a literal that holds the given long value, without boxing it.
+   */
+  public LdLiteral(long longValue) {
+    setLongValue(longValue);
+  }
+  
+  /**
+   * Create a literal that holds the given double value, without boxing it.
+   */
+  public LdLiteral(double doubleValue) {
+    setDoubleValue(doubleValue);
+  }
+  
+  /**
+   * Create a literal that holds the given boolean value, without boxing it.
+   */
+  public LdLiteral(boolean booleanValue) {
+    setBooleanValue(booleanValue);
+  }
   
   /**
    * Returns the String representation of this literal.
    */
   public String getStringValue() {
-    return 
-        stringValue != null ? stringValue :
-        longValue != null ? longValue.toString() :
-        doubleValue != null ? doubleValue.toString() :
-        booleanValue != null ? booleanValue.toString() :
-        null;
+    if (stringValue != null) return stringValue;
+    switch (kind) {
+    case LONG : return Long.toString(bits);
+    case DOUBLE : return Double.toString(Double.longBitsToDouble(bits));
+    case BOOLEAN : return Boolean.toString(bits != 0);
+    default : return null;
+    }
   }
   
   /**
@@ -55,6 +100,27 @@ public class LdLiteral implements LdNode {
     return stringValue != null;
   }
   
+  /**
+   * Returns true if this literal holds a Long value and no String value.
+   */
+  public boolean isLongValue() {
+    return stringValue == null && kind == LONG;
+  }
+  
+  /**
+   * Returns true if this literal holds a Double value and no String or Long value.
+   */
+  public boolean isDoubleValue() {
+    return stringValue == null && kind == DOUBLE;
+  }
+  
+  /**
+   * Returns true if this literal holds only a Boolean value.
+   */
+  public boolean isBooleanValue() {
+    return stringValue == null && kind == BOOLEAN;
+  }
+  
   /**
    * Sets the String representation of this literal.
    * Setting a Long or Double value automatically makes a String value
@@ -94,18 +160,31 @@ public class LdLiteral implements LdNode {
    * Returns a Long representation of this literal.
    */
   public Long getLongValue() {
-    return 
-      (longValue != null) ? longValue :
-      (stringValue != null) ? Long.parseLong(stringValue) : 
-      (doubleValue != null) ? doubleValue.longValue() :   
-      null;
+    if (kind == LONG) return Long.valueOf(bits);
+    if (stringValue != null) return Long.valueOf(stringValue);
+    if (kind == DOUBLE) return Long.valueOf((long) Double.longBitsToDouble(bits));
+    return null;
   }
   
   /**
    * Sets the Long representation of this literal.
+   * A literal holds at most one primitive value, so this replaces any Double or 
+   * Boolean value.  Passing null removes the Long value, if any.
    */
   public void setLongValue(Long longValue) {
-    this.longValue = longValue;
+    if (longValue != null) {
+      setLongValue(longValue.longValue());
+    } else if (kind == LONG) {
+      clearPrimitive();
+    }
+  }
+  
+  /**
+   * Sets the long representation of this literal, without boxing it.
+   */
+  public void setLongValue(long longValue) {
+    bits = longValue;
+    kind = LONG;
   }
   
   /**
@@ -113,27 +192,62 @@ public class LdLiteral implements LdNode {
    * 
    */
   public Double getDoubleValue() {
-    return 
-      (doubleValue!=null) ? doubleValue :
-      (stringValue!=null) ? Double.parseDouble(stringValue) : 
-      (longValue != null) ? longValue.doubleValue() :
-      null;
+    if (kind == DOUBLE) return Double.valueOf(Double.longBitsToDouble(bits));
+    if (stringValue != null) return Double.valueOf(stringValue);
+    if (kind == LONG) return Double.valueOf(bits);
+    return null;
   }
   
   /**
    * Sets the Double representation of this literal.
+   * A literal holds at most one primitive value, so this replaces any Long or 
+   * Boolean value.  Passing null removes the Double value, if any.
    */
   public void setDoubleValue(Double doubleValue) {
-    this.doubleValue = doubleValue;
+    if (doubleValue != null) {
+      setDoubleValue(doubleValue.doubleValue());
+    } else if (kind == DOUBLE) {
+      clearPrimitive();
+    }
+  }
+  
+  /**
+   * Sets the double representation of this literal, without boxing it.
+   */
+  public void setDoubleValue(double doubleValue) {
+    bits = Double.doubleToRawLongBits(doubleValue);
+    kind = DOUBLE;
   }
   
   
   public Boolean getBooleanValue() {
-    return booleanValue;
+    return (kind == BOOLEAN) ? Boolean.valueOf(bits != 0) : null;
   }
 
+  /**
+   * Sets the Boolean representation of this literal.
+   * A literal holds at most one primitive value, so this replaces any Long or 
+   * Double value.  Passing null removes the Boolean value, if any.
+   */
   public void setBooleanValue(Boolean booleanValue) {
-    this.booleanValue = booleanValue;
+    if (booleanValue != null) {
+      setBooleanValue(booleanValue.booleanValue());
+    } else if (kind == BOOLEAN) {
+      clearPrimitive();
+    }
+  }
+  
+  /**
+   * Sets the boolean representation of this literal, without boxing it.
+   */
+  public void setBooleanValue(boolean booleanValue) {
+    bits = booleanValue ? 1 : 0;
+    kind = BOOLEAN;
+  }
+  
+  private void clearPrimitive() {
+    bits = 0;
+    kind = NONE;
   }
 
   /**
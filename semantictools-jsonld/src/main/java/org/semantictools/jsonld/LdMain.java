@@ -24,10 +24,16 @@ public class LdMain {
   private static final String DEFAULT_REPO = "repo";
   private static final String REPO = "-repo";
   private static final String SRC = "-src";
+  private static final String THREADS = "-threads";
+  private static final String STREAMING = "-streaming";
+  private static final String QUADS = "-quads";
   
   private List<File> fileList = new ArrayList<File>();
   private File sourceDir;
   private File repoDir;
+  private int threadCount = 1;
+  private boolean streaming = false;
+  private boolean quads = false;
 
   /**
    * @param args
@@ -48,6 +54,15 @@ public class LdMain {
       } else if (SRC.equals(value)) {
         sourceDir = new File(args[++i]);
         
+      } else if (THREADS.equals(value)) {
+        threadCount = Integer.parseInt(args[++i]);
+        
+      } else if (STREAMING.equals(value)) {
+        streaming = true;
+        
+      } else if (QUADS.equals(value)) {
+        quads = true;
+        
       } else {
         addFile(new File(value));
       }
@@ -56,19 +71,94 @@ public class LdMain {
   
   public void run() {
     LdProcessor processor = new LdProcessor(sourceDir, getRepoDir(), false);
+    processor.setStreaming(streaming);
+    try {
+      if (quads) {
+        runQuads(processor);
+        return;
+      }
+      if (threadCount > 1) {
+        runBatch(processor);
+        return;
+      }
+      for (URL url : listDocuments()) {
+        try {
+          System.out.print("Validating... ");
+          System.out.println(url);
+          LdValidationReport report = processor.validate(url);
+          System.out.print(report);
+        } catch (Throwable oops) {
+          oops.printStackTrace(System.out);
+        }
+      }
+    } finally {
+      processor.shutdown();
+    }
+  }
+  
+  /**
+   * Returns the URLs for all the JSON documents to be validated.
+   */
+  private List<URL> listDocuments() {
+    List<URL> urlList = new ArrayList<URL>();
     for (File file : fileList) {
-      URL url;
       try {
-        System.out.print("Validating... ");
-        System.out.println(file);
-        url = file.toURI().toURL();
-        LdValidationReport report = processor.validate(url);
-        System.out.print(report);
+        urlList.addAll(LdBatchValidator.listDocuments(file));
+      } catch (Throwable oops) {
+        oops.printStackTrace(System.out);
+      }
+    }
+    return urlList;
+  }
+  
+  /**
+   * Read the quads from each file, and print the number of quads and the throughput.
+   */
+  private void runQuads(LdProcessor processor) {
+    LdQuadCallback callback = new LdQuadCallback() {
+      @Override
+      public void quad(LdQuad quad) {
+      }
+    };
+    for (URL url : listDocuments()) {
+      try {
+        System.out.print("Reading quads... ");
+        System.out.println(url);
+        long start = System.nanoTime();
+        long count = processor.readQuads(url, callback);
+        long elapsed = Math.max(1, System.nanoTime() - start);
+        System.out.println(count + " quads, " + (count*1000000000L/elapsed) + " quads/sec");
       } catch (Throwable oops) {
         oops.printStackTrace(System.out);
       }
     }
   }
+  
+  /**
+   * Validate all the files concurrently, and print each report as soon as it is complete.
+   */
+  private void runBatch(LdProcessor processor) {
+    try {
+      processor.validate(listDocuments(), threadCount, new LdValidationCallback() {
+        
+        @Override
+        public void validated(URL document, LdValidationReport report) {
+          System.out.print("Validated ");
+          System.out.println(document);
+          System.out.print(report);
+        }
+        
+        @Override
+        public void failed(URL document, Throwable error) {
+          System.out.print("Failed to validate ");
+          System.out.println(document);
+          error.printStackTrace(System.out);
+        }
+      });
+    } catch (Throwable oops) {
+      oops.printStackTrace(System.out);
+    }
+  }
 
   private File getRepoDir() {
     if (repoDir == null) {
@@ -79,6 +169,7 @@ public class LdMain {
 
   /**
    * Add the file for a JSON document that is to be validated.
+   * If the file is a directory, all JSON documents within the directory tree will be validated.
    */
   public void addFile(File file) {
     fileList.add(file);
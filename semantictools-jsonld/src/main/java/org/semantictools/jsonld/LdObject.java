@@ -72,6 +72,14 @@ public interface LdObject extends LdNode {
    */
   Iterator<LdField> fields();
   
+  /**
+   * Returns the first field of this object whose fully qualified property IRI
+   * is equal to the given value, or null if there is no such field.
+   * Objects produced by a streaming parser do not support random access to their fields;
+   * they throw an IllegalStateException.
+   */
+  LdField getField(String propertyIRI);
+  
   /**
    * Returns the field that "owns" this object, or null if this object is 
    * the top-level node in the JSON-LD document.
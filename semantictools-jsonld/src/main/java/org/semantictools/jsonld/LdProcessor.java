@@ -17,11 +17,20 @@ package org.semantictools.jsonld;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.PrintWriter;
+import java.io.StringReader;
 import java.io.StringWriter;
+import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.semantictools.jsonld.impl.AppspotContextPublisher;
 import org.semantictools.jsonld.impl.LdAssetManagerImpl;
@@ -32,6 +41,7 @@ import org.semantictools.jsonld.impl.LdContextEnhancerImpl;
 import org.semantictools.jsonld.impl.LdContextManagerImpl;
 import org.semantictools.jsonld.impl.LdParserImpl;
 import org.semantictools.jsonld.impl.LdPublisherPipeline;
+import org.semantictools.jsonld.impl.LdQuadParserImpl;
 import org.semantictools.jsonld.impl.LdTreeReader;
 import org.semantictools.jsonld.impl.LdValidationServiceImpl;
 import org.semantictools.jsonld.io.ErrorHandler;
@@ -39,6 +49,7 @@ import org.semantictools.jsonld.io.LdContextReader;
 import org.semantictools.jsonld.io.LdContextWriter;
 import org.semantictools.jsonld.io.LdParseException;
 import org.semantictools.jsonld.io.LdParser;
+import org.semantictools.jsonld.io.LdQuadParser;
 import org.semantictools.jsonld.io.impl.EnhancedLdContextReader;
 import org.semantictools.jsonld.io.impl.LdContextReaderImpl;
 import org.semantictools.jsonld.io.impl.LdContextWriterImpl;
@@ -46,6 +57,9 @@ import org.semantictools.jsonld.io.impl.LdContextWriterImpl;
 /**
  * A processor that enhances and publishes JSON-LD contexts and
  * performs JSON-LD validation.
+ * <p>
+ * The {@link #validate(URL)} method is threadsafe, so a single LdProcessor
+ * may be shared by many threads that validate documents concurrently.
  * 
  * @author Greg McFall
  *
@@ -57,9 +71,10 @@ public class LdProcessor implements LdPublisher {
   private LdContextEnhancer contextEnhancer;
   private LdContextWriter contextWriter;
   private LdAssetManager assetManager;
+  private LdAssetRepository repository;
   private LdPublisher publisher;
-  private LdParser jsonldParser;
   private LdValidationService validationService;
+  private boolean streaming;
   
   /**
    * Create a default LdEnhancerApp which reads JSON-LD contexts
@@ -102,7 +117,7 @@ public class LdProcessor implements LdPublisher {
    * repository.  Otherwise, publish only to the local repository.
    */
   public LdProcessor(File sourceDir, File repositoryDir, boolean publishToInternet) {
-    LdAssetRepository repository = new LdAssetRepository(repositoryDir);
+    repository = new LdAssetRepository(repositoryDir);
     
     publisher = publishToInternet ?
         new LdPublisherPipeline(repository, new AppspotContextPublisher()) :
@@ -114,7 +129,15 @@ public class LdProcessor implements LdPublisher {
     }
   }
   
-  public LdContextReader getContextReader() {
+  /**
+   * Returns the local repository used by this LdProcessor, or null if this
+   * LdProcessor does not have a local repository.
+   */
+  public LdAssetRepository getRepository() {
+    return repository;
+  }
+  
+  public synchronized LdContextReader getContextReader() {
     if (contextReader == null) {
       LdContextReaderImpl impl = new LdContextReaderImpl(null);
       contextReader = impl;   
@@ -123,50 +146,79 @@ public class LdProcessor implements LdPublisher {
     return contextReader;
   }
 
-  public LdContextManager getContextManager() {
+  public synchronized LdContextManager getContextManager() {
     if (contextManager == null) {      
       contextManager = new LdContextManagerImpl(getAssetManager(), getContextReader(), getContextEnhancer());
     }
     return contextManager;
   }
 
-  private LdContextEnhancer getContextEnhancer() {
+  private synchronized LdContextEnhancer getContextEnhancer() {
     if (contextEnhancer == null) {
       contextEnhancer = new LdContextEnhancerImpl(getAssetManager());
     }
     return contextEnhancer;
   }
 
-  private LdAssetManager getAssetManager() {
+  private synchronized LdAssetManager getAssetManager() {
     if (assetManager == null) {
       assetManager = new LdAssetManagerImpl();
     }
     return assetManager;
   }
   
-  private LdPublisher getPublisher() {
+  private synchronized LdPublisher getPublisher() {
     if (publisher == null) {
       publisher = new AppspotContextPublisher();
     }
     return publisher;
   }
   
-  private LdContextWriter getContextWriter() {
+  private synchronized LdContextWriter getContextWriter() {
     if (contextWriter == null) {
       contextWriter = new LdContextWriterImpl();
     }
     return contextWriter;
   }
   
-  private LdParser getLdParser() {
-    if (jsonldParser == null) {
-      LdContextReader reader = new EnhancedLdContextReader(getContextManager(), getContextEnhancer(), getContextReader());
-      jsonldParser = new LdTreeReader(reader);
-    }
-    return jsonldParser;
+  /**
+   * Returns true if JSON-LD documents are validated in a single pass while they are
+   * streamed from the input, and false if each document is parsed into memory 
+   * before it is validated.
+   */
+  public boolean isStreaming() {
+    return streaming;
+  }
+
+  /**
+   * Specify whether JSON-LD documents should be validated in a single pass while they
+   * are streamed from the input.  Streaming validation uses memory proportional to the 
+   * depth of the document rather than its size, but it requires that the JSON-LD keywords
+   * (including &#064;context) appear at the beginning of each object.
+   */
+  public void setStreaming(boolean streaming) {
+    this.streaming = streaming;
+  }
+
+
+  /**
+   * Create a new LdParser that reports errors in JSON-LD contexts to the given handler.
+   * The parser shares the LdContextManager (and hence its cache of contexts) with
+   * this processor, but it does not hold any other mutable state in common with
+   * other parsers.
+   */
+  private LdParser createLdParser(ErrorHandler handler) {
+    LdContextReader reader = createContextReader(handler);
+    return streaming ? new LdParserImpl(reader, true) : new LdTreeReader(reader);
   }
   
-  public LdValidationService getValidationService() {
+  private LdContextReader createContextReader(ErrorHandler handler) {
+    LdContextReader reader = new EnhancedLdContextReader(getContextManager(), getContextEnhancer(), getContextReader());
+    reader.setErrorHandler(handler);
+    return reader;
+  }
+  
+  public synchronized LdValidationService getValidationService() {
     if (validationService == null) {
       validationService = new LdValidationServiceImpl();
     }
@@ -176,6 +228,8 @@ public class LdProcessor implements LdPublisher {
   /**
    * Get (or create) an enhanced rendition of the specified JSON-LD context, and
    * publish the result to a repository that has been configured with this LdProcessor.
+   * If this LdProcessor has a local repository, a binary snapshot of the enhanced 
+   * context is saved alongside it, so that later lookups need not parse the JSON.
    * 
    * @param contextURL The URL of the JSON-LD context that should be enhanced and published.
    * @throws IOException
@@ -201,23 +255,127 @@ public class LdProcessor implements LdPublisher {
     LdPublisher publisher = getPublisher();
     publisher.publish(asset);
     
+    if (repository != null) {
+      // The snapshot must match what a lookup would parse from the published rendition.
+      LdContext published = getContextReader().parserExternalContext(new StringReader(asset.getContent()));
+      repository.publishContextSnapshot(contextURL, published);
+    }
+    
   }
   
+  /**
+   * Validate the JSON-LD document at the specified URL.
+   * This method is threadsafe.  Errors encountered while loading the JSON-LD context
+   * are reported as warnings within the returned report.
+   */
   public LdValidationReport validate(URL jsonDocument) throws LdParseException, IOException {
     
-    LdParser parser = getLdParser();
+    if ("file".equals(jsonDocument.getProtocol())) {
+      try {
+        return validate(Paths.get(jsonDocument.toURI()));
+      } catch (URISyntaxException | IllegalArgumentException e) {
+        // The URL cannot be expressed as a Path, so read it as a stream below.
+      }
+    }
+    
+    ValidationErrorHandler handler = new ValidationErrorHandler();
+    LdParser parser = createLdParser(handler);
     LdValidationService service = getValidationService();
+    
+    LdValidationReport report = null;
+    InputStream input = jsonDocument.openStream();
+    try {
+      // A streaming parser reads the document while it is being validated,
+      // so the stream must remain open until validation is complete.
+      LdNode node = parser.parse(input);
+      report = service.validate(node);
+    } finally {
+      input.close();
+    }
+    
+    handler.reportErrors(report);
+    
+    return report;
+  }
+  
+  /**
+   * Validate the JSON-LD document in the specified file.  The file is read through 
+   * memory-mapped buffers instead of a stream, so with a streaming processor even 
+   * files that are larger than the heap can be validated.
+   * This method is threadsafe.  Errors encountered while loading the JSON-LD context
+   * are reported as warnings within the returned report.
+   */
+  public LdValidationReport validate(Path jsonDocument) throws LdParseException, IOException {
+    
     ValidationErrorHandler handler = new ValidationErrorHandler();
-    getContextReader().setErrorHandler(handler);
-    LdNode node = parser.parse(jsonDocument.openStream());
-    getContextReader().setErrorHandler(null);
+    LdParser parser = createLdParser(handler);
+    LdValidationService service = getValidationService();
+    
+    LdValidationReport report = null;
+    try (FileChannel channel = FileChannel.open(jsonDocument, StandardOpenOption.READ)) {
+      // As above, a streaming parser reads the file while it is being validated.
+      LdNode node = parser.parse(channel);
+      report = service.validate(node);
+    }
     
-    LdValidationReport report = service.validate(node);
     handler.reportErrors(report);
     
     return report;
   }
   
+  /**
+   * Read the JSON-LD document at the specified URL, and deliver each of its quads to the
+   * given callback as soon as it is parsed.  The document is never held in memory, so this
+   * method is suitable for loading large documents into a triple store.
+   * This method is threadsafe.
+   * 
+   * @return The number of quads delivered to the callback.
+   * @throws LdParseException If the document is malformed, or if the JSON-LD context could not be loaded.
+   */
+  public long readQuads(URL jsonDocument, LdQuadCallback callback) throws LdParseException, IOException {
+    ValidationErrorHandler handler = new ValidationErrorHandler();
+    LdQuadParser parser = new LdQuadParserImpl(createContextReader(handler));
+    
+    long count = parser.parse(jsonDocument.openStream(), callback);
+    handler.throwErrors();
+    
+    return count;
+  }
+  
+  /**
+   * Validate a batch of JSON-LD documents concurrently, using a pool with the specified
+   * number of threads.  Reports are delivered to the given callback on the calling thread
+   * as soon as they are complete, so they may arrive in a different order than the documents.
+   * This method blocks until all of the documents have been validated.
+   * 
+   * @param documents The URLs of the documents to validate.
+   * @param threadCount The number of threads used to perform the validation.
+   * @param callback The callback that receives the validation reports.
+   * @see LdBatchValidator
+   */
+  public void validate(Iterable<URL> documents, int threadCount, LdValidationCallback callback) throws InterruptedException {
+    if (threadCount < 1) {
+      throw new IllegalArgumentException("threadCount must be positive: " + threadCount);
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+    try {
+      LdBatchValidator validator = new LdBatchValidator(this, executor, 2*threadCount);
+      validator.validate(documents.iterator(), callback);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+  
+  /**
+   * Release the threads held by this LdProcessor.  The LdProcessor remains usable
+   * afterwards; it simply creates new threads on demand.
+   */
+  public synchronized void shutdown() {
+    if (contextEnhancer instanceof LdContextEnhancerImpl) {
+      ((LdContextEnhancerImpl) contextEnhancer).shutdown();
+    }
+  }
+  
   static class ValidationErrorHandler implements ErrorHandler {
     private List<Throwable> errorList = new ArrayList<>();
 
@@ -226,6 +384,12 @@ public class LdProcessor implements LdPublisher {
       errorList.add(error);
     }
     
+    void throwErrors() throws LdParseException {
+      if (!errorList.isEmpty()) {
+        throw new LdParseException(errorList.get(0));
+      }
+    }
+    
     void reportErrors(LdValidationReport report) {
       for (Throwable e : errorList) {
         LdValidationMessage message = new LdValidationMessage(LdValidationResult.WARNING, "", e.getMessage());
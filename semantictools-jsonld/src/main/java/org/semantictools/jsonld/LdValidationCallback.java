@@ -0,0 +1,40 @@
+/*******************************************************************************
+ * Copyright 2012 Pearson Education
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package org.semantictools.jsonld;
+
+import java.net.URL;
+
+/**
+ * A callback that receives the results of a batch validation.
+ * The callback methods are invoked on the thread that started the batch,
+ * one document at a time, so implementations do not need to be threadsafe.
+ * 
+ * @author Greg McFall
+ *
+ */
+public interface LdValidationCallback {
+  
+  /**
+   * Receive the report for a document that was validated successfully.
+   */
+  void validated(URL document, LdValidationReport report);
+  
+  /**
+   * Receive notification that the specified document could not be validated.
+   */
+  void failed(URL document, Throwable error);
+
+}
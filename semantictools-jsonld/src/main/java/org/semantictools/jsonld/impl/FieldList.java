@@ -15,14 +15,29 @@
  ******************************************************************************/
 package org.semantictools.jsonld.impl;
 
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.Map;
 
 import org.semantictools.jsonld.LdField;
 
 public class FieldList {
+  
+  /**
+   * The number of fields above which {@link #find(String)} uses a hash index instead
+   * of scanning the list.
+   */
+  static final int INDEX_THRESHOLD = 8;
 
   private LinkedLdField firstField;
   private LinkedLdField lastField;
+  private int size;
+  
+  /**
+   * Maps each property IRI to the first field with that IRI.  The index is built
+   * on demand, and it is discarded whenever the list changes.
+   */
+  private Map<String, LinkedLdField> index;
 
   LinkedLdField getFirstField() {
     return firstField;
@@ -44,6 +59,8 @@ public class FieldList {
       lastField.setNextField(field);
     }
     lastField = field;
+    size++;
+    index = null;
   }
   
   public void remove(LinkedLdField field) {
@@ -56,6 +73,30 @@ public class FieldList {
       lastField = prev;
     }
     prev.setNextField(next);
+    size--;
+    index = null;
+  }
+  
+  /**
+   * Returns the first field whose property IRI is equal to the given value, or null
+   * if there is no such field.
+   */
+  LdField find(String propertyIRI) {
+    if (propertyIRI == null) return null;
+    if (size <= INDEX_THRESHOLD) {
+      for (LinkedLdField field=firstField; field!=null; field=field.getNextField()) {
+        if (propertyIRI.equals(field.getPropertyURI())) return field;
+      }
+      return null;
+    }
+    if (index == null) {
+      Map<String, LinkedLdField> map = new HashMap<String, LinkedLdField>();
+      for (LinkedLdField field=lastField; field!=null; field=field.getPrevField()) {
+        map.put(field.getPropertyURI(), field);
+      }
+      index = map;
+    }
+    return index.get(propertyIRI);
   }
   
   public Iterator<LdField> iterator() {
@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright 2012 Pearson Education
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package org.semantictools.jsonld.impl;
+
+import java.io.IOException;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.node.ObjectNode;
+import org.semantictools.jsonld.LdContext;
+import org.semantictools.jsonld.io.LdParseException;
+import org.semantictools.jsonld.io.LdUncheckedParseException;
+
+/**
+ * An LdObject whose fields are materialized on demand from the JSON tree that
+ * the LdTreeReader has already parsed.  The &#064;id and &#064;type of the object
+ * are available immediately, but the fields (and hence the nested nodes) are built
+ * only when {@link #fields()} or {@link #getField(String)} is first invoked.
+ * After that, the object no longer refers to the JSON tree.  If the fields cannot be 
+ * built, an {@link LdUncheckedParseException} is thrown and the object keeps the JSON
+ * tree, so that a later access fails in the same way.
+ * <p>
+ * Nested objects are themselves lazy, so a consumer that touches only a few 
+ * properties of a large document builds only the nodes along the path to those
+ * properties.
+ * 
+ * @author Greg McFall
+ *
+ */
+class LazyLdObject extends LdObjectImpl {
+  
+  private ObjectNode json;
+  private LdTreeReader reader;
+  private LdNodePool pool;
+
+  LazyLdObject(LdContext context, ObjectNode json, LdTreeReader reader, LdNodePool pool) {
+    super(context);
+    this.json = json;
+    this.reader = reader;
+    this.pool = pool;
+    
+    JsonNode id = json.get("@id");
+    if (id != null) {
+      setId(id.getTextValue());
+    }
+    JsonNode type = json.get("@type");
+    if (type != null) {
+      setRawType(pool.share(type.getTextValue()));
+    }
+  }
+  
+  /**
+   * Returns true if the fields of this object have been built.
+   */
+  boolean isMaterialized() {
+    return json == null;
+  }
+
+  @Override
+  FieldList getFieldList() {
+    if (json != null) {
+      try {
+        reader.parseFields(json, this, pool);
+      } catch (IOException oops) {
+        throw new LdUncheckedParseException(new LdParseException(oops));
+      } catch (LdParseException oops) {
+        throw new LdUncheckedParseException(oops);
+      }
+      json = null;
+      reader = null;
+      pool = null;
+    }
+    return super.getFieldList();
+  }
+
+}
@@ -100,7 +100,17 @@ public class LdAssetManagerImpl implements LdAssetManager {
       }
     }
     
-    InputStream input = connection.getInputStream();
+    return readAsset(uri, location, connection.getInputStream());
+  }
+  
+  /**
+   * Scan the asset from the given stream and attempt to infer the LdContentType from the contents.
+   * The stream is closed when this method returns.
+   * @param uri  The URI of the asset, or null if the URI is not known.
+   * @param location The physical location of the asset.
+   * @param input The stream from which the content of the asset is read.
+   */
+  protected LdAsset readAsset(String uri, URL location, InputStream input) throws IOException {
 
     LdContentType format = LdContentType.UNKNOWN;
     StringBuilder builder = eagerLoading ? new StringBuilder() : null;
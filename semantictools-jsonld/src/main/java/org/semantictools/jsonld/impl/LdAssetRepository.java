@@ -16,14 +16,18 @@
 package org.semantictools.jsonld.impl;
 
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URL;
+import java.nio.charset.Charset;
 import java.util.Properties;
 
 import org.semantictools.jsonld.LdAsset;
+import org.semantictools.jsonld.LdContext;
 import org.semantictools.jsonld.LdPublishException;
 import org.semantictools.jsonld.LdPublisher;
 import org.slf4j.Logger;
@@ -31,6 +35,10 @@ import org.slf4j.LoggerFactory;
 
 /**
  * An LdAssetManager that maintains a local cache of LdAssets on the file system.
+ * <p>
+ * In addition to the assets themselves, the repository can hold a binary snapshot of
+ * each enhanced context, which can be loaded much faster than the JSON representation
+ * can be parsed.  See {@link LdContextSnapshot}.
  * 
  * @author Greg McFall
  *
@@ -40,6 +48,11 @@ public class LdAssetRepository extends LdAssetManagerImpl implements LdPublisher
   private static final String PROPERTIES_FILENAME = "asset.properties";
   private static final String URI = "uri";
   private static final String DEFAULT = "default";
+  private static final String SNAPSHOT_FILENAME = "ENHANCED_CONTEXT.snapshot";
+  private static final String CHECKSUM = ".checksum";
+  private static final String SIZE = ".size";
+  private static final String MODIFIED = ".modified";
+  private static final Charset UTF8 = Charset.forName("UTF-8");
   
   private File root;
   
@@ -70,9 +83,7 @@ public class LdAssetRepository extends LdAssetManagerImpl implements LdPublisher
         try {
           URL location = file.toURI().toURL();
           LdAsset asset = readAsset(null, location);
-          if ((asset.getURI()!=null) && (asset.getFormat() != LdContentType.UNKNOWN)) {
-            publish(asset);
-          }
+          publishScannedAsset(asset);
           
         } catch (Throwable oops) {
           logger.warn("failed to store asset: " + file.getPath());
@@ -81,6 +92,35 @@ public class LdAssetRepository extends LdAssetManagerImpl implements LdPublisher
     }
   }
   
+  /**
+   * Copy an asset whose content has already been read into memory into this repository.
+   * This method is equivalent to {@link #scan(File)} for a single file, except that
+   * the content is read from the given stream instead of the file system.
+   * @param file The file that holds the asset.
+   * @param content The content of the file.  The stream is closed when this method returns.
+   */
+  public void scan(File file, InputStream content) {
+    LdContentType format = LdContentType.guessContentType(file.getName());
+    try {
+      if (format != LdContentType.UNKNOWN) {
+        URL location = file.toURI().toURL();
+        LdAsset asset = readAsset(null, location, content);
+        publishScannedAsset(asset);
+      } else {
+        content.close();
+      }
+      
+    } catch (Throwable oops) {
+      logger.warn("failed to store asset: " + file.getPath());
+    }
+  }
+  
+  private void publishScannedAsset(LdAsset asset) throws LdPublishException {
+    if ((asset.getURI()!=null) && (asset.getFormat() != LdContentType.UNKNOWN)) {
+      publish(asset);
+    }
+  }
+  
   /**
    * Copy the given asset into this repository
    */
@@ -103,18 +143,28 @@ public class LdAssetRepository extends LdAssetManagerImpl implements LdPublisher
         p.put(DEFAULT, formatName);
       }
       
-      File propertiesFile = new File(assetDir, PROPERTIES_FILENAME);
-      FileWriter writer = new FileWriter(propertiesFile);
+      File contentFile = new File(assetDir, fileName);
+      FileWriter writer = new FileWriter(contentFile);
       try {
-        p.store(writer, null);
+        writer.write(asset.getContent());      
       } finally {
         safeClose(writer);
       }
       
-      File contentFile = new File(assetDir, fileName);
+      if (format == LdContentType.ENHANCED_CONTEXT) {
+        // Record the identity of the enhanced context, so that a snapshot can be matched
+        // to it without reading the whole file again.  Any existing snapshot was taken 
+        // from the previous rendition.
+        new File(assetDir, SNAPSHOT_FILENAME).delete();
+        p.put(formatName + CHECKSUM, Long.toString(LdContextSnapshot.checksum(asset.getContent().getBytes(UTF8))));
+        p.put(formatName + SIZE, Long.toString(contentFile.length()));
+        p.put(formatName + MODIFIED, Long.toString(contentFile.lastModified()));
+      }
+      
+      File propertiesFile = new File(assetDir, PROPERTIES_FILENAME);
+      writer = new FileWriter(propertiesFile);
       try {
-        writer = new FileWriter(contentFile);
-        writer.write(asset.getContent());      
+        p.store(writer, null);
       } finally {
         safeClose(writer);
       }
@@ -188,6 +238,107 @@ public class LdAssetRepository extends LdAssetManagerImpl implements LdPublisher
     return asset;
   }
   
+  /**
+   * Returns the enhanced context with the given URI from its binary snapshot, or null if
+   * this repository does not hold a current snapshot of that context.  A snapshot is current
+   * only if it was taken from the enhanced context that is presently stored in the repository.
+   * <p>
+   * The enhanced context is identified by the checksum recorded when it was published, so 
+   * this method does not read the enhanced context itself.  If the file has been modified 
+   * since it was published, the snapshot is ignored.
+   */
+  public LdContext findContextSnapshot(String contextURI) {
+    EnhancedContextSource source = enhancedContextSource(contextURI);
+    if (source == null || !source.isUnmodified()) return null;
+    
+    File snapshot = new File(source.file.getParentFile(), SNAPSHOT_FILENAME);
+    if (!snapshot.exists()) return null;
+    
+    try {
+      return LdContextSnapshot.read(snapshot, source.checksum);
+    } catch (Throwable oops) {
+      logger.warn("Ignoring invalid context snapshot: " + snapshot.getPath(), oops);
+      return null;
+    }
+  }
+  
+  /**
+   * Save a binary snapshot of the given enhanced context.  The context must have been parsed
+   * from the enhanced context that is presently stored in this repository, so this method is
+   * normally called right after the enhanced context is published.
+   * The context is closed as a side-effect.
+   */
+  public void publishContextSnapshot(String contextURI, LdContext context) throws LdPublishException {
+    EnhancedContextSource source = enhancedContextSource(contextURI);
+    try {
+      if (source == null) {
+        throw new FileNotFoundException("The enhanced context is not stored in the repository");
+      }
+      context.close();
+      File snapshot = new File(source.file.getParentFile(), SNAPSHOT_FILENAME);
+      LdContextSnapshot.write(context, source.checksum, snapshot);
+      
+    } catch (IOException oops) {
+      throw new LdPublishException(contextURI, oops);
+    }
+  }
+  
+  /**
+   * Returns the enhanced context with the given URI, as recorded when it was published, 
+   * or null if there is no such context in this repository.  An enhanced context that
+   * was published without a checksum is treated as if it were absent.
+   */
+  private EnhancedContextSource enhancedContextSource(String contextURI) {
+    File assetDir = assetDir(contextURI);
+    if (assetDir == null || !assetDir.exists()) return null;
+    
+    try {
+      String formatName = LdContentType.ENHANCED_CONTEXT.name();
+      Properties p = getAssetProperties(assetDir);
+      String fileName = p.getProperty(formatName);
+      String checksum = p.getProperty(formatName + CHECKSUM);
+      if (fileName == null || checksum == null) return null;
+      
+      File file = new File(assetDir, fileName);
+      if (!file.exists()) return null;
+      
+      return new EnhancedContextSource(
+          file, 
+          Long.parseLong(checksum), 
+          Long.parseLong(p.getProperty(formatName + SIZE, "-1")), 
+          Long.parseLong(p.getProperty(formatName + MODIFIED, "-1")));
+      
+    } catch (IOException | NumberFormatException oops) {
+      logger.warn("Failed to read asset properties: " + contextURI, oops);
+      return null;
+    }
+  }
+  
+  /**
+   * The file that holds an enhanced context, together with the checksum, size and 
+   * modification time that were recorded when it was published.
+   */
+  private static class EnhancedContextSource {
+    private File file;
+    private long checksum;
+    private long size;
+    private long modified;
+    
+    EnhancedContextSource(File file, long checksum, long size, long modified) {
+      this.file = file;
+      this.checksum = checksum;
+      this.size = size;
+      this.modified = modified;
+    }
+    
+    /**
+     * Returns true if the file has not been changed since it was published.
+     */
+    boolean isUnmodified() {
+      return file.length() == size && file.lastModified() == modified;
+    }
+  }
+  
   /**
    * Returns the properties of the asset whose representations are stored
    * in the given directory.
@@ -198,6 +349,10 @@ public class LdAssetRepository extends LdAssetManagerImpl implements LdPublisher
    *   <DT>{format}</DT><DD>The name of the file containing the representation of the asset in the specified format.
    *   In this case, the property name matches the exact name of an element from the {@link LdContentType} enumeration.
    *   </DD>
+   *   <DT>ENHANCED_CONTEXT.checksum</DT><DD>The checksum of the enhanced context when it was published, 
+   *   which identifies the source of a context snapshot</DD>
+   *   <DT>ENHANCED_CONTEXT.size, ENHANCED_CONTEXT.modified</DT><DD>The size and modification time of the 
+   *   file that holds the enhanced context, used to detect changes made outside of this repository</DD>
    * </DL>
    */
   private Properties getAssetProperties(File assetDir) throws IOException {
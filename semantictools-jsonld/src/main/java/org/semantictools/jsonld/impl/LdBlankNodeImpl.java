@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright 2012 Pearson Education
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package org.semantictools.jsonld.impl;
+
+import org.semantictools.jsonld.LdBlankNode;
+import org.semantictools.jsonld.LdContainer;
+import org.semantictools.jsonld.LdIRI;
+import org.semantictools.jsonld.LdLiteral;
+import org.semantictools.jsonld.LdObject;
+
+public class LdBlankNodeImpl implements LdBlankNode {
+
+  private String identifier;
+  
+  public LdBlankNodeImpl(String identifier) {
+    this.identifier = identifier;
+  }
+
+  @Override
+  public boolean isObject() {
+    return false;
+  }
+
+  @Override
+  public boolean isContainer() {
+    return false;
+  }
+
+  @Override
+  public boolean isLiteral() {
+    return false;
+  }
+
+  @Override
+  public boolean isIRI() {
+    return false;
+  }
+
+  @Override
+  public boolean isBlankNode() {
+    return true;
+  }
+
+  @Override
+  public LdLiteral asLiteral() throws ClassCastException {
+    throw new ClassCastException("Cannot convert to Literal: type is blank node");
+  }
+
+  @Override
+  public LdContainer asContainer() throws ClassCastException {
+    throw new ClassCastException("Cannot convert to Container: type is blank node");
+  }
+
+  @Override
+  public LdObject asObject() throws ClassCastException {
+   LdObjectImpl obj = new LdObjectImpl(null);
+   obj.setId(identifier);
+   return obj;
+  }
+
+  @Override
+  public LdIRI asIRI() throws ClassCastException {
+    throw new ClassCastException("Cannot convert to IRI: type is blank node");
+  }
+
+  @Override
+  public LdBlankNode asBlankNode() throws ClassCastException {
+    return this;
+  }
+
+  @Override
+  public String getIdentifier() {
+    return identifier;
+  }
+  
+  public String toString() {
+    return identifier;
+  }
+
+}
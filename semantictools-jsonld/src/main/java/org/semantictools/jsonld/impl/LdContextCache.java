@@ -0,0 +1,235 @@
+/*******************************************************************************
+ * Copyright 2012 Pearson Education
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package org.semantictools.jsonld.impl;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.semantictools.jsonld.LdContext;
+
+/**
+ * A threadsafe, bounded cache of parsed LdContext instances.
+ * Entries are keyed by the URI of the context plus a flag that indicates whether
+ * the context has been enhanced, so that the plain and enhanced renditions of
+ * the same context can be cached side-by-side.
+ * <p>
+ * When the cache is full, the least recently used entry is evicted.  Optionally,
+ * entries may also expire after a fixed time-to-live.
+ * <p>
+ * The contexts held in this cache are shared by all callers.  They are closed
+ * before they are cached, and callers must not modify them.
+ *
+ * @author Greg McFall
+ *
+ */
+public class LdContextCache {
+
+  public static final int DEFAULT_MAX_SIZE = 100;
+
+  private int maxSize;
+  private long timeToLive;
+
+  private long hitCount;
+  private long missCount;
+  private long evictionCount;
+
+  private Map<Key, Entry> map;
+
+  /**
+   * Create a cache that holds up to {@link #DEFAULT_MAX_SIZE} contexts, with no time-to-live.
+   */
+  public LdContextCache() {
+    this(DEFAULT_MAX_SIZE, 0);
+  }
+
+  /**
+   * Create a new LdContextCache.
+   * @param maxSize The maximum number of contexts held in the cache.
+   * @param timeToLive The number of milliseconds that a context remains valid after it is
+   * added to the cache, or zero if contexts never expire.
+   */
+  public LdContextCache(int maxSize, long timeToLive) {
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+    }
+    this.maxSize = maxSize;
+    this.timeToLive = timeToLive;
+    map = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+        if (size() > LdContextCache.this.maxSize) {
+          evictionCount++;
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * Returns the cached context with the given URI, or null if no such context
+   * is in the cache.
+   * @param contextURI The URI of the requested context.
+   * @param enhanced  true if the enhanced rendition of the context is requested, and false otherwise.
+   */
+  public synchronized LdContext get(String contextURI, boolean enhanced) {
+    if (contextURI == null) return null;
+    Key key = new Key(contextURI, enhanced);
+    Entry entry = map.get(key);
+    if (entry != null && isExpired(entry)) {
+      map.remove(key);
+      evictionCount++;
+      entry = null;
+    }
+    if (entry == null) {
+      missCount++;
+      return null;
+    }
+    hitCount++;
+    return entry.context;
+  }
+
+  /**
+   * Add the given context to the cache.  The context is closed as a side-effect.
+   * @param contextURI The URI of the context.
+   * @param enhanced true if the given context has been enhanced, and false otherwise.
+   * @param context The context to be cached.
+   */
+  public void put(String contextURI, boolean enhanced, LdContext context) {
+    if (contextURI == null || context == null) return;
+    context.close();
+    Entry entry = new Entry(context, System.currentTimeMillis());
+    synchronized (this) {
+      map.put(new Key(contextURI, enhanced), entry);
+    }
+  }
+
+  /**
+   * Remove both the plain and enhanced renditions of the specified context from the cache.
+   */
+  public synchronized void invalidate(String contextURI) {
+    map.remove(new Key(contextURI, false));
+    map.remove(new Key(contextURI, true));
+  }
+
+  /**
+   * Remove all contexts from the cache.
+   */
+  public synchronized void invalidateAll() {
+    map.clear();
+  }
+
+  /**
+   * Remove any contexts whose time-to-live has elapsed.
+   */
+  public synchronized void purgeExpired() {
+    if (timeToLive <= 0) return;
+    Iterator<Entry> sequence = map.values().iterator();
+    while (sequence.hasNext()) {
+      if (isExpired(sequence.next())) {
+        sequence.remove();
+        evictionCount++;
+      }
+    }
+  }
+
+  /**
+   * Returns the number of contexts currently held in the cache.
+   */
+  public synchronized int size() {
+    return map.size();
+  }
+
+  /**
+   * Returns the maximum number of contexts held in the cache.
+   */
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  /**
+   * Returns the number of milliseconds that a context remains valid after it is
+   * added to the cache, or zero if contexts never expire.
+   */
+  public long getTimeToLive() {
+    return timeToLive;
+  }
+
+  /**
+   * Returns the number of lookups that were satisfied from the cache.
+   */
+  public synchronized long getHitCount() {
+    return hitCount;
+  }
+
+  /**
+   * Returns the number of lookups that were not satisfied from the cache.
+   */
+  public synchronized long getMissCount() {
+    return missCount;
+  }
+
+  /**
+   * Returns the number of contexts that were removed from the cache because
+   * the cache was full or the context expired.  Explicit invalidation is not counted.
+   */
+  public synchronized long getEvictionCount() {
+    return evictionCount;
+  }
+
+  public synchronized String toString() {
+    return "LdContextCache(size=" + map.size() + ", hits=" + hitCount +
+        ", misses=" + missCount + ", evictions=" + evictionCount + ")";
+  }
+
+  private boolean isExpired(Entry entry) {
+    return timeToLive > 0 && (System.currentTimeMillis() - entry.created) > timeToLive;
+  }
+
+  static class Entry {
+    private LdContext context;
+    private long created;
+
+    Entry(LdContext context, long created) {
+      this.context = context;
+      this.created = created;
+    }
+  }
+
+  static class Key {
+    private String contextURI;
+    private boolean enhanced;
+
+    Key(String contextURI, boolean enhanced) {
+      this.contextURI = contextURI;
+      this.enhanced = enhanced;
+    }
+
+    public int hashCode() {
+      return enhanced ? contextURI.hashCode()+1 : contextURI.hashCode();
+    }
+
+    public boolean equals(Object other) {
+      if (!(other instanceof Key)) return false;
+      Key key = (Key) other;
+      return enhanced==key.enhanced && contextURI.equals(key.contextURI);
+    }
+  }
+
+}
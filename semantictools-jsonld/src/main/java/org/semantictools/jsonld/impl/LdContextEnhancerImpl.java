@@ -19,9 +19,14 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import org.semantictools.jsonld.LdAsset;
 import org.semantictools.jsonld.LdAssetManager;
@@ -40,10 +45,12 @@ import com.hp.hpl.jena.ontology.MaxCardinalityRestriction;
 import com.hp.hpl.jena.ontology.MinCardinalityRestriction;
 import com.hp.hpl.jena.ontology.OntClass;
 import com.hp.hpl.jena.ontology.OntModel;
+import com.hp.hpl.jena.ontology.OntModelSpec;
 import com.hp.hpl.jena.ontology.OntProperty;
 import com.hp.hpl.jena.ontology.OntResource;
 import com.hp.hpl.jena.ontology.Restriction;
 import com.hp.hpl.jena.rdf.model.Literal;
+import com.hp.hpl.jena.rdf.model.Model;
 import com.hp.hpl.jena.rdf.model.ModelFactory;
 import com.hp.hpl.jena.rdf.model.RDFList;
 import com.hp.hpl.jena.rdf.model.RDFNode;
@@ -59,11 +66,122 @@ import com.hp.hpl.jena.vocabulary.XSD;
 public class LdContextEnhancerImpl implements LdContextEnhancer {
 
   private LdAssetManager assetManager;
+  private LdOntologyCache ontologyCache = new LdOntologyCache();
+  private boolean inferencing = true;
+  private int loaderThreadCount = Runtime.getRuntime().availableProcessors();
+  private ExecutorService loaderExecutor;
+  private boolean ownsLoaderExecutor;
 
   public LdContextEnhancerImpl(LdAssetManager assetManager) {
     this.assetManager = assetManager;
   }
   
+  /**
+   * Returns the cache that holds the ontologies previously parsed by this enhancer.
+   */
+  public LdOntologyCache getOntologyCache() {
+    return ontologyCache;
+  }
+
+  /**
+   * Sets the cache that holds the ontologies previously parsed by this enhancer.
+   * Several enhancers may share the same cache.
+   */
+  public void setOntologyCache(LdOntologyCache ontologyCache) {
+    this.ontologyCache = ontologyCache;
+  }
+  
+  /**
+   * Returns true if this enhancer applies an RDFS reasoner to the ontologies,
+   * and false if it works with the asserted statements only.
+   */
+  public boolean isInferencing() {
+    return inferencing;
+  }
+
+  /**
+   * Specify whether this enhancer applies an RDFS reasoner to the ontologies.  
+   * The default value is true.
+   * <p>
+   * Without a reasoner, enhancement is considerably faster and consumes less memory.  
+   * The enhancer only needs the direct super-classes of each class, and LdClass computes
+   * the transitive closure itself.  Ranges and domains that are not asserted on a property 
+   * are inherited from its super-properties.  However, facts that can be obtained only
+   * by inference (such as the type of a resource implied by the domain of a property) 
+   * are not available in this mode.
+   */
+  public void setInferencing(boolean inferencing) {
+    this.inferencing = inferencing;
+  }
+  
+  /**
+   * Returns the maximum number of threads used to fetch and parse the namespaces
+   * referenced by a context.
+   */
+  public int getLoaderThreadCount() {
+    return loaderThreadCount;
+  }
+
+  /**
+   * Sets the maximum number of threads used to fetch and parse the namespaces
+   * referenced by a context.  The default is the number of available processors.
+   * A value of 1 causes the namespaces to be loaded on the calling thread.
+   */
+  public void setLoaderThreadCount(int loaderThreadCount) {
+    if (loaderThreadCount < 1) {
+      throw new IllegalArgumentException("loaderThreadCount must be positive: " + loaderThreadCount);
+    }
+    synchronized (this) {
+      this.loaderThreadCount = loaderThreadCount;
+      if (ownsLoaderExecutor) {
+        // The pool is sized from the thread count, so let the next request create a new one.
+        loaderExecutor.shutdown();
+        loaderExecutor = null;
+        ownsLoaderExecutor = false;
+      }
+    }
+  }
+  
+  /**
+   * Sets the executor used to fetch and parse namespaces concurrently.  The executor 
+   * is not shut down by this enhancer; the caller remains responsible for it.
+   * If no executor is supplied, the enhancer creates its own pool of 
+   * <code>loaderThreadCount</code> daemon threads the first time it is needed, 
+   * and shares that pool across all subsequent requests.
+   */
+  public synchronized void setLoaderExecutor(ExecutorService loaderExecutor) {
+    if (ownsLoaderExecutor) {
+      this.loaderExecutor.shutdown();
+    }
+    this.loaderExecutor = loaderExecutor;
+    ownsLoaderExecutor = false;
+  }
+  
+  /**
+   * Releases the threads used to load namespaces, if they were created by this enhancer.
+   * An executor supplied through {@link #setLoaderExecutor(ExecutorService)} is left
+   * running.  The enhancer creates a new pool if it is used again afterwards.
+   */
+  public synchronized void shutdown() {
+    if (ownsLoaderExecutor) {
+      loaderExecutor.shutdownNow();
+      loaderExecutor = null;
+      ownsLoaderExecutor = false;
+    }
+  }
+  
+  /**
+   * Returns the executor used to load namespaces, or null if they should be
+   * loaded on the calling thread.
+   */
+  private synchronized ExecutorService getLoaderExecutor() {
+    if (loaderExecutor == null && loaderThreadCount > 1) {
+      loaderExecutor = Executors.newFixedThreadPool(loaderThreadCount, new LoaderThreadFactory());
+      ownsLoaderExecutor = true;
+    }
+    return loaderExecutor;
+  }
+  
   @Override
   public void enhance(LdContext context) throws LdContextEnhanceException {
     Delegate delegate = new Delegate();
@@ -82,6 +200,11 @@ public class LdContextEnhancerImpl implements LdContextEnhancer {
    * A delegate that actually performs the work of enhancement.
    * This delegate is not threadsafe. Thus, the parent class
    * creates a new Delegate for each request.
+   * <p>
+   * Enhancement proceeds in stages.  First, the namespaces used by the context are 
+   * collected.  Next, those namespaces are fetched and parsed concurrently.  Then the
+   * ontologies are merged into a single OntModel, and finally the terms are enhanced
+   * with information from that model.
    * 
    * @author Greg McFall
    *
@@ -106,6 +229,8 @@ public class LdContextEnhancerImpl implements LdContextEnhancer {
         collectNamespaces(context);
         if (uri2Term == null) return;
         
+        loadNamespaces();
+        
 //        buildOntModel();
         computeTermTypes();
         buildDatatypes();
@@ -179,6 +304,12 @@ public class LdContextEnhancerImpl implements LdContextEnhancer {
     private void computeType(LdTerm term) {
       String propertyURI = term.getIRI();
       OntResource resource = ontModel.getOntResource(propertyURI);
+      if (resource != null && !inferencing && !resource.isProperty() && isPredicate(propertyURI)) {
+        // Properties from the standard vocabularies, such as rdfs:label, are not declared in
+        // the ontologies.  Declare them as the RDFS reasoner would, based on their use.
+        // The statement is added to the base model, so the cached ontologies are not affected.
+        ontModel.add(resource, RDF.type, RDF.Property);
+      }
       
       if (resource != null && resource.isProperty()) {
   
@@ -186,7 +317,7 @@ public class LdContextEnhancerImpl implements LdContextEnhancer {
         
         if (term.getTypeIRI() == null) {
           String rangeURI = null;
-          OntResource range = property.getRange();
+          OntResource range = getRange(property, new HashSet<OntProperty>());
           if (range == null) {
             rangeURI = OWL.Thing.getURI();
           } else {
@@ -208,8 +339,30 @@ public class LdContextEnhancerImpl implements LdContextEnhancer {
       
     }
   
+    /**
+     * Returns true if the resource with the given URI is used as the predicate of some statement.
+     */
+    private boolean isPredicate(String uri) {
+      return ontModel.contains(null, ontModel.getProperty(uri), (RDFNode) null);
+    }
+    
+    /**
+     * Returns the range of the given property.  When there is no reasoner, a range 
+     * that is not asserted on the property is inherited from its super-properties.
+     */
+    private OntResource getRange(OntProperty property, Set<OntProperty> memory) {
+      OntResource range = property.getRange();
+      if (range == null && !inferencing && memory.add(property)) {
+        List<OntProperty> superList = listSuperProperties(property);
+        for (int i=0; range==null && i<superList.size(); i++) {
+          range = getRange(superList.get(i), memory);
+        }
+      }
+      return range;
+    }
+  
     private void buildDomain(LdTerm term, OntProperty property) {
-      List<? extends OntResource> domainList = property.listDomain().toList();
+      List<? extends OntResource> domainList = listDomain(property, new HashSet<OntProperty>());
       for (OntResource resource : domainList) {
         if (resource.isClass()) {
           addDomain(property, term, resource.asClass());
@@ -218,6 +371,41 @@ public class LdContextEnhancerImpl implements LdContextEnhancer {
       
     }
     
+    /**
+     * Returns the domain of the given property.  When there is no reasoner, the domain
+     * includes the domain of each super-property.
+     */
+    private List<? extends OntResource> listDomain(OntProperty property, Set<OntProperty> memory) {
+      List<? extends OntResource> domainList = property.listDomain().toList();
+      if (inferencing || !memory.add(property)) {
+        return domainList;
+      }
+      List<OntResource> result = new ArrayList<OntResource>(domainList);
+      for (OntProperty superProperty : listSuperProperties(property)) {
+        for (OntResource resource : listDomain(superProperty, memory)) {
+          if (!result.contains(resource)) {
+            result.add(resource);
+          }
+        }
+      }
+      return result;
+    }
+    
+    /**
+     * Returns the asserted super-properties of the given property.  Super-properties from
+     * the standard vocabularies (such as rdfs:label) are not declared in the
+     * ontologies, and they are skipped.
+     */
+    private List<OntProperty> listSuperProperties(OntProperty property) {
+      List<OntProperty> list = new ArrayList<OntProperty>();
+      for (RDFNode node : property.listPropertyValues(RDFS.subPropertyOf).toList()) {
+        if (node.canAs(OntProperty.class)) {
+          list.add(node.as(OntProperty.class));
+        }
+      }
+      return list;
+    }
+    
     private void addDomain(OntProperty ontProperty, LdTerm term, OntClass type) {
       String uri = type.getURI();
       if (uri != null) {
@@ -483,8 +671,10 @@ public class LdContextEnhancerImpl implements LdContextEnhancer {
     }
   
     private Integer maxCardinality(Restriction restriction) {
-      OntProperty p = restriction.getOnProperty();
-      if (p.hasRDFType(OWL.FunctionalProperty)) {
+      // Without a reasoner, the property may not be declared (as in the case of rdfs:label), 
+      // so it cannot be viewed as an OntProperty.
+      RDFNode p = restriction.getPropertyValue(OWL.onProperty);
+      if (p != null && p.isResource() && p.asResource().hasProperty(RDF.type, OWL.FunctionalProperty)) {
         return 1;
       }
       if (!restriction.canAs(MaxCardinalityRestriction.class)) return null;
@@ -513,15 +703,63 @@ public class LdContextEnhancerImpl implements LdContextEnhancer {
 //      
 //    }
   
-    private void loadNamespace(LdAsset ns) throws LdContextEnhanceException {
-  
-      switch (ns.getFormat()) {
-      case TURTLE:
+    /**
+     * Fetch and parse the collected namespaces, and merge them into the OntModel.
+     * The namespaces are fetched and parsed concurrently, but they are merged in 
+     * the order in which they were collected so that the outcome does not depend
+     * on the timing of the threads.
+     */
+    private void loadNamespaces() throws LdContextEnhanceException {
+      ontModel = ModelFactory.createOntologyModel(
+          inferencing ? OntModelSpec.OWL_MEM_RDFS_INF : OntModelSpec.OWL_MEM);
+      if (namespaceSet == null) return;
+      
+      List<NamespaceLoader> loaderList = new ArrayList<NamespaceLoader>();
+      for (String namespace : namespaceSet) {
+        loaderList.add(new NamespaceLoader(namespace));
+      }
+      
+      ExecutorService executor = loaderList.size() > 1 ? getLoaderExecutor() : null;
+      if (executor != null) {
         try {
-          ontModel.read(ns.getReader(), null, "TTL");
-        } catch (IOException e) {
+          executor.invokeAll(loaderList);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
           throw new LdContextEnhanceException(e);
         }
+      } else {
+        for (NamespaceLoader loader : loaderList) {
+          loader.call();
+        }
+      }
+      
+      for (NamespaceLoader loader : loaderList) {
+        mergeNamespace(loader);
+      }
+      
+      // The cached ontologies were added as sub-models without rebinding the
+      // reasoner, so rebind it once now that all of them are in place.
+      if (inferencing) {
+        ontModel.rebind();
+      }
+    }
+  
+    private void mergeNamespace(NamespaceLoader loader) throws LdContextEnhanceException {
+      if (loader.error instanceof RuntimeException) {
+        throw (RuntimeException) loader.error;
+      }
+      if (loader.error != null) {
+        throw new LdContextEnhanceException(loader.error);
+      }
+      LdAsset ns = loader.asset;
+      if (ns == null) {
+        addError("Namespace not found: " + loader.namespace);
+        return;
+      }
+  
+      switch (ns.getFormat()) {
+      case TURTLE:
+        ontModel.addSubModel(loader.model, false);
         break;
         
       case XSD :
@@ -553,9 +791,6 @@ public class LdContextEnhancerImpl implements LdContextEnhancer {
      */
     private void collectNamespaces(LdContext context) throws LdContextEnhanceException {
 
-      if (ontModel == null) {
-        ontModel = ModelFactory.createOntologyModel();
-      }
       if (context == null) return;
       
       if (context.isEnhanced()) return;
@@ -619,18 +854,9 @@ public class LdContextEnhancerImpl implements LdContextEnhancer {
       if (namespace == null || isStandardNamespace(namespace)) return;
       
       if (namespaceSet == null) {
-        namespaceSet = new HashSet<String>();
-      }
-      if (!namespaceSet.contains(namespace)) {
-        namespaceSet.add(namespace);
-
-        LdAsset ns = assetManager.findAsset(namespace);
-        if (ns == null) {
-          addError("Namespace not found: " + namespace);
-        } else {
-          loadNamespace(ns);
-        }
+        namespaceSet = new LinkedHashSet<String>();
       }
+      namespaceSet.add(namespace);
       
     }
   
@@ -652,5 +878,48 @@ public class LdContextEnhancerImpl implements LdContextEnhancer {
       
       return uri.substring(0, end+1);
     }
+    
+    /**
+     * A task that fetches a namespace from the asset manager and, if it is
+     * an ontology, parses it.
+     */
+    class NamespaceLoader implements Callable<Void> {
+      private String namespace;
+      private LdAsset asset;
+      private Model model;
+      private Exception error;
+      
+      NamespaceLoader(String namespace) {
+        this.namespace = namespace;
+      }
+
+      @Override
+      public Void call() {
+        try {
+          asset = assetManager.findAsset(namespace);
+          if (asset != null && asset.getFormat() == LdContentType.TURTLE) {
+            model = ontologyCache.getModel(asset);
+          }
+        } catch (IOException | RuntimeException e) {
+          error = e;
+        }
+        return null;
+      }
     }
+  }
+  
+  /**
+   * Creates daemon threads so that an enhancer which is never shut down 
+   * does not prevent the JVM from exiting.
+   */
+  private static class LoaderThreadFactory implements ThreadFactory {
+    private ThreadFactory delegate = Executors.defaultThreadFactory();
+
+    @Override
+    public Thread newThread(Runnable task) {
+      Thread thread = delegate.newThread(task);
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
 }
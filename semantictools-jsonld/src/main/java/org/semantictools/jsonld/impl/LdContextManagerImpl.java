@@ -30,6 +30,7 @@ public class LdContextManagerImpl implements LdContextManager{
   private LdAssetManager assetManager;
   private LdContextReader contextReader;
   private LdContextEnhancer contextEnhancer;
+  private LdContextCache contextCache = new LdContextCache();
   private boolean enhance;
   
   public LdContextManagerImpl(LdAssetManager assetManager, LdContextReader contextReader,
@@ -43,6 +44,22 @@ public class LdContextManagerImpl implements LdContextManager{
     this.enhance = enhance;
   }
   
+  /**
+   * Returns the cache that holds contexts previously parsed by this manager,
+   * or null if caching is disabled.
+   */
+  public LdContextCache getContextCache() {
+    return contextCache;
+  }
+
+  /**
+   * Sets the cache that holds contexts previously parsed by this manager.
+   * A null value disables caching, so that every lookup parses the context afresh.
+   */
+  public void setContextCache(LdContextCache contextCache) {
+    this.contextCache = contextCache;
+  }
+  
   @Override
   public LdContext findContext(String contextURI) throws LdContextParseException, IOException {
     
@@ -54,18 +71,38 @@ public class LdContextManagerImpl implements LdContextManager{
       }
     }
     
+    LdContext context = getCachedContext(contextURI, false);
+    if (context != null) {
+      return context;
+    }
+    
     LdAsset asset = assetManager.findAsset(contextURI);
     if (asset == null) {
       return null;
     }
     
-    LdContext context = contextReader.parserExternalContext(asset.getReader());
-    context.setContextURI(contextURI);
+    context = contextReader.parserExternalContext(asset.getReader());
+    if (context != null) {
+      context.setContextURI(contextURI);
+      putCachedContext(contextURI, false, context);
+    }
     return context;
   }
   
   @Override
   public LdContext findEnhancedContext(String contextURI) throws LdContextParseException, IOException, LdContextEnhanceException  {
+    LdContext context = getCachedContext(contextURI, true);
+    if (context != null) {
+      return context;
+    }
+    
+    // Try the snapshot first, since finding the asset may load the whole JSON document.
+    context = findContextSnapshot(contextURI);
+    if (context != null) {
+      putCachedContext(contextURI, true, context);
+      return context;
+    }
+    
     boolean enhance = false;
     LdAsset asset = assetManager.findAsset(contextURI, LdContentType.ENHANCED_CONTEXT);
     if (asset == null) {
@@ -74,14 +111,37 @@ public class LdContextManagerImpl implements LdContextManager{
     }
     if (asset == null) return null;
 
-    LdContext context = contextReader.parserExternalContext(asset.getReader());
+    context = contextReader.parserExternalContext(asset.getReader());
+    if (context == null) return null;
+    
     if (enhance) {
       contextEnhancer.enhance(context);
     }
+    putCachedContext(contextURI, true, context);
     
     return context;
   }
   
+  /**
+   * Returns the enhanced context from its binary snapshot, if the asset manager
+   * is a repository that holds a current snapshot.  Snapshots are taken when the 
+   * enhanced context is published, not when it is found.
+   */
+  private LdContext findContextSnapshot(String contextURI) {
+    return (assetManager instanceof LdAssetRepository) ?
+        ((LdAssetRepository) assetManager).findContextSnapshot(contextURI) : null;
+  }
+  
+  private LdContext getCachedContext(String contextURI, boolean enhanced) {
+    return (contextCache == null) ? null : contextCache.get(contextURI, enhanced);
+  }
+  
+  private void putCachedContext(String contextURI, boolean enhanced, LdContext context) {
+    if (contextCache != null) {
+      contextCache.put(contextURI, enhanced, context);
+    }
+  }
+  
   
 
 }
@@ -0,0 +1,726 @@
+/*******************************************************************************
+ * Copyright 2012 Pearson Education
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package org.semantictools.jsonld.impl;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+import org.semantictools.jsonld.LdClass;
+import org.semantictools.jsonld.LdContainerType;
+import org.semantictools.jsonld.LdContext;
+import org.semantictools.jsonld.LdDatatype;
+import org.semantictools.jsonld.LdDatatypeManager;
+import org.semantictools.jsonld.LdProperty;
+import org.semantictools.jsonld.LdQualifiedRestriction;
+import org.semantictools.jsonld.LdRestriction;
+import org.semantictools.jsonld.LdTerm;
+import org.semantictools.jsonld.Whitespace;
+import org.semantictools.jsonld.XsdType;
+import org.semantictools.jsonld.io.LdIriPool;
+
+/**
+ * Reads and writes binary snapshots of closed LdContext instances.
+ * <p>
+ * A snapshot begins with a header that contains a format version, a checksum of the source 
+ * from which the context was parsed, and a CRC-32 checksum of the payload.  The payload holds
+ * a table of distinct strings, followed by the datatypes, terms and classes of the context, 
+ * which refer to each other (and to the strings) by index.  A snapshot is read directly from
+ * a memory-mapped buffer.
+ * <p>
+ * A snapshot is rejected if its version is not supported, if its payload is corrupt, or
+ * if it was taken from a different source.  In each case the caller is expected to fall 
+ * back to parsing the context from its JSON representation.
+ * 
+ * @author Greg McFall
+ *
+ */
+public class LdContextSnapshot {
+  
+  /**
+   * The version of the snapshot format.  Increment this value whenever the format changes.
+   */
+  public static final int VERSION = 1;
+  
+  private static final int MAGIC = 0x4C44534E;
+  private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 4;
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+  
+  private static final int NULL = -1;
+  
+  // Tags for the Number values of datatype facets.
+  private static final byte NUMBER_NULL = 0;
+  private static final byte NUMBER_BYTE = 1;
+  private static final byte NUMBER_SHORT = 2;
+  private static final byte NUMBER_INTEGER = 3;
+  private static final byte NUMBER_LONG = 4;
+  private static final byte NUMBER_FLOAT = 5;
+  private static final byte NUMBER_DOUBLE = 6;
+  private static final byte NUMBER_DECIMAL = 7;
+  
+  /**
+   * Returns the CRC-32 checksum of the given bytes.
+   */
+  public static long checksum(byte[] data) {
+    CRC32 crc = new CRC32();
+    crc.update(data, 0, data.length);
+    return crc.getValue();
+  }
+  
+  /**
+   * Write a snapshot of the given context to the specified file.  The context is closed
+   * as a side-effect.
+   * @param context The context to be saved.
+   * @param sourceChecksum The checksum of the source from which the context was parsed.
+   * @param file The file to which the snapshot will be written.
+   */
+  public static void write(LdContext context, long sourceChecksum, File file) throws IOException {
+    context.close();
+    byte[] payload = new Writer().write(context);
+    
+    // Write to a temporary file and then rename it, so that readers never 
+    // observe a partial snapshot.
+    File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+    DataOutputStream data = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+    try {
+      data.writeInt(MAGIC);
+      data.writeInt(VERSION);
+      data.writeLong(sourceChecksum);
+      data.writeLong(checksum(payload));
+      data.writeInt(payload.length);
+      data.write(payload);
+    } finally {
+      data.close();
+    }
+    
+    if (file.exists() && !file.delete()) {
+      temp.delete();
+      throw new IOException("Cannot replace snapshot: " + file);
+    }
+    if (!temp.renameTo(file)) {
+      temp.delete();
+      throw new IOException("Cannot write snapshot: " + file);
+    }
+  }
+  
+  /**
+   * Returns a copy of the given context that shares no terms, classes or datatypes 
+   * with it, so that the copy may be enhanced without modifying the original.  
+   * The context is closed as a side-effect.
+   */
+  public static LdContext copy(LdContext context) throws IOException {
+    context.close();
+    byte[] payload = new Writer().write(context);
+    return new Reader(ByteBuffer.wrap(payload)).read();
+  }
+  
+  /**
+   * Read the context from the snapshot in the specified file.
+   * @param file The file that contains the snapshot.
+   * @param sourceChecksum  The checksum of the current source for the context.
+   * @return The context, or null if the snapshot was taken from a different source.
+   * @throws IOException If the file cannot be read, or if it does not contain a valid snapshot.
+   */
+  public static LdContext read(File file, long sourceChecksum) throws IOException {
+    RandomAccessFile input = new RandomAccessFile(file, "r");
+    try {
+      FileChannel channel = input.getChannel();
+      long size = channel.size();
+      if (size < HEADER_SIZE) {
+        throw new IOException("Snapshot is truncated: " + file);
+      }
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      
+      int magic = buffer.getInt();
+      int version = buffer.getInt();
+      long source = buffer.getLong();
+      long checksum = buffer.getLong();
+      int length = buffer.getInt();
+      
+      if (magic != MAGIC) {
+        throw new IOException("Not a context snapshot: " + file);
+      }
+      if (version != VERSION) {
+        throw new IOException("Unsupported snapshot version " + version + ": " + file);
+      }
+      if (source != sourceChecksum) {
+        return null;
+      }
+      if (length != size - HEADER_SIZE) {
+        throw new IOException("Snapshot is truncated: " + file);
+      }
+      
+      ByteBuffer payload = buffer.slice();
+      if (checksum(payload.duplicate()) != checksum) {
+        throw new IOException("Snapshot checksum does not match: " + file);
+      }
+      
+      try {
+        return new Reader(payload).read();
+      } catch (RuntimeException oops) {
+        // A malformed payload shows up as an underflow, or as an index out of bounds.
+        throw new IOException("Snapshot is malformed: " + file, oops);
+      }
+      
+    } finally {
+      input.close();
+    }
+  }
+  
+  private static long checksum(ByteBuffer buffer) {
+    CRC32 crc = new CRC32();
+    byte[] chunk = new byte[8192];
+    while (buffer.hasRemaining()) {
+      int count = Math.min(chunk.length, buffer.remaining());
+      buffer.get(chunk, 0, count);
+      crc.update(chunk, 0, count);
+    }
+    return crc.getValue();
+  }
+  
+  /**
+   * Encodes a context as a snapshot payload.
+   */
+  static class Writer {
+    private Map<String, Integer> stringMap = new HashMap<String, Integer>();
+    private List<String> stringList = new ArrayList<String>();
+    private Map<LdTerm, Integer> termMap = new IdentityHashMap<LdTerm, Integer>();
+    private List<LdTerm> termList = new ArrayList<LdTerm>();
+    private Map<LdClass, Integer> classMap = new IdentityHashMap<LdClass, Integer>();
+    private List<LdClass> classList = new ArrayList<LdClass>();
+    private Map<LdDatatype, Integer> datatypeMap = new IdentityHashMap<LdDatatype, Integer>();
+    private List<LdDatatype> datatypeList = new ArrayList<LdDatatype>();
+    
+    private DataOutputStream out;
+    
+    byte[] write(LdContext context) throws IOException {
+      collect(context);
+      
+      // Encode the body first, so that the string table is complete before it is written.
+      ByteArrayOutputStream body = new ByteArrayOutputStream();
+      out = new DataOutputStream(body);
+      
+      for (LdDatatype datatype : datatypeList) {
+        writeDatatype(datatype);
+      }
+      for (LdTerm term : termList) {
+        writeTerm(term);
+      }
+      for (LdClass rdfClass : classList) {
+        writeClass(rdfClass);
+      }
+      writeContext(context);
+      out.flush();
+      
+      ByteArrayOutputStream buffer = new ByteArrayOutputStream(body.size() + 16*stringList.size());
+      out = new DataOutputStream(buffer);
+      out.writeInt(stringList.size());
+      for (String text : stringList) {
+        byte[] bytes = text.getBytes(UTF8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+      }
+      out.writeInt(datatypeList.size());
+      out.writeInt(termList.size());
+      out.writeInt(classList.size());
+      body.writeTo(out);
+      out.flush();
+      
+      return buffer.toByteArray();
+    }
+    
+    private void collect(LdContext context) {
+      List<LdTerm> list = context.listTerms();
+      if (list != null) {
+        for (LdTerm term : list) {
+          collect(term);
+        }
+      }
+      List<LdContext> components = context.listComponents();
+      if (components != null) {
+        for (LdContext component : components) {
+          collect(component);
+        }
+      }
+    }
+    
+    private void collect(LdTerm term) {
+      if (term == null || termMap.containsKey(term)) return;
+      termMap.put(term, termList.size());
+      termList.add(term);
+      collect(term.getRdfClass());
+      collect(term.getDatatype());
+    }
+    
+    private void collect(LdClass rdfClass) {
+      if (rdfClass == null || classMap.containsKey(rdfClass)) return;
+      classMap.put(rdfClass, classList.size());
+      classList.add(rdfClass);
+      collect(rdfClass.getTerm());
+      
+      List<LdClass> superList = rdfClass.listSupertypes();
+      if (superList != null) {
+        for (LdClass superClass : superList) {
+          collect(superClass);
+        }
+      }
+      List<LdRestriction> restrictions = rdfClass.listRestrictions();
+      if (restrictions != null) {
+        for (LdRestriction restriction : restrictions) {
+          collect(restriction.getDomain());
+        }
+      }
+    }
+    
+    private void collect(LdDatatype datatype) {
+      if (datatype == null || datatypeMap.containsKey(datatype) || isBuiltin(datatype)) return;
+      datatypeMap.put(datatype, datatypeList.size());
+      datatypeList.add(datatype);
+      collect(datatype.getBase());
+    }
+    
+    private void writeContext(LdContext context) throws IOException {
+      writeString(context.getContextURI());
+      
+      List<LdTerm> list = context.listTerms();
+      out.writeInt(list==null ? NULL : list.size());
+      if (list != null) {
+        for (LdTerm term : list) {
+          out.writeInt(termMap.get(term));
+        }
+      }
+      
+      List<LdContext> components = context.listComponents();
+      out.writeInt(components==null ? NULL : components.size());
+      if (components != null) {
+        for (LdContext component : components) {
+          writeContext(component);
+        }
+      }
+    }
+    
+    private void writeTerm(LdTerm term) throws IOException {
+      writeString(term.getShortName());
+      writeString(term.getRawIRI());
+      writeString(term.getIRI());
+      writeString(term.getRawTypeIRI());
+      writeString(term.getTypeIRI());
+      writeString(term.getContainerType()==null ? null : term.getContainerType().name());
+      writeString(term.getLanguage());
+      writeInteger(term.getMinCardinality());
+      writeClassRef(term.getRdfClass());
+      writeDatatypeRef(term.getDatatype());
+      
+      LdProperty property = term.getProperty();
+      out.writeBoolean(property != null);
+      if (property != null) {
+        writeStringList(property.getDomain());
+      }
+    }
+    
+    private void writeClass(LdClass rdfClass) throws IOException {
+      writeString(rdfClass.getURI());
+      writeTermRef(rdfClass.getTerm());
+      
+      List<LdClass> superList = rdfClass.listSupertypes();
+      out.writeInt(superList==null ? NULL : superList.size());
+      if (superList != null) {
+        for (LdClass superClass : superList) {
+          writeClassRef(superClass);
+        }
+      }
+      
+      List<LdRestriction> restrictions = rdfClass.listRestrictions();
+      out.writeInt(restrictions==null ? NULL : restrictions.size());
+      if (restrictions != null) {
+        for (LdRestriction restriction : restrictions) {
+          writeRestriction(restriction);
+        }
+      }
+    }
+    
+    private void writeRestriction(LdRestriction restriction) throws IOException {
+      writeClassRef(restriction.getDomain());
+      writeString(restriction.getPropertyURI());
+      writeInteger(restriction.getMinCardinality());
+      writeInteger(restriction.getMaxCardinality());
+      writeString(restriction.getAllValuesFrom());
+      
+      List<LdQualifiedRestriction> qlist = restriction.listQualifiedRestrictions();
+      out.writeInt(qlist==null ? NULL : qlist.size());
+      if (qlist != null) {
+        for (LdQualifiedRestriction qr : qlist) {
+          writeString(qr.getRangeURI());
+          writeInteger(qr.getMinCardinality());
+          writeInteger(qr.getMaxCardinality());
+        }
+      }
+    }
+    
+    private void writeDatatype(LdDatatype datatype) throws IOException {
+      writeString(datatype.getLocalName());
+      writeString(datatype.getURI());
+      writeString(datatype.getURI()==null ? null : datatype.getNamespace());
+      writeDatatypeRef(datatype.getBase());
+      writeString(datatype.getXsdType()==null ? null : datatype.getXsdType().name());
+      writeInteger(datatype.getLength());
+      writeInteger(datatype.getMinLength());
+      writeInteger(datatype.getMaxLength());
+      
+      Pattern pattern = datatype.getPattern();
+      writeString(pattern==null ? null : pattern.pattern());
+      out.writeInt(pattern==null ? 0 : pattern.flags());
+      
+      writeString(datatype.getWhitespace()==null ? null : datatype.getWhitespace().name());
+      writeNumber(datatype.getMaxInclusive());
+      writeNumber(datatype.getMaxExclusive());
+      writeNumber(datatype.getMinInclusive());
+      writeNumber(datatype.getMinExclusive());
+      writeInteger(datatype.getTotalDigits());
+      writeInteger(datatype.getFractionDigits());
+    }
+    
+    private void writeTermRef(LdTerm term) throws IOException {
+      out.writeInt(term==null ? NULL : termMap.get(term));
+    }
+    
+    private void writeClassRef(LdClass rdfClass) throws IOException {
+      out.writeInt(rdfClass==null ? NULL : classMap.get(rdfClass));
+    }
+    
+    /**
+     * Built-in datatypes are written by URI, so that the reader can resolve them to the
+     * shared instances in the LdDatatypeManager.
+     */
+    private void writeDatatypeRef(LdDatatype datatype) throws IOException {
+      boolean builtin = (datatype != null) && isBuiltin(datatype);
+      out.writeBoolean(builtin);
+      if (builtin) {
+        writeString(datatype.getURI());
+      } else {
+        out.writeInt(datatype==null ? NULL : datatypeMap.get(datatype));
+      }
+    }
+    
+    private void writeString(String text) throws IOException {
+      if (text == null) {
+        out.writeInt(NULL);
+        return;
+      }
+      Integer index = stringMap.get(text);
+      if (index == null) {
+        index = stringList.size();
+        stringMap.put(text, index);
+        stringList.add(text);
+      }
+      out.writeInt(index);
+    }
+    
+    private void writeStringList(List<String> list) throws IOException {
+      out.writeInt(list==null ? NULL : list.size());
+      if (list != null) {
+        for (String text : list) {
+          writeString(text);
+        }
+      }
+    }
+    
+    private void writeInteger(Integer value) throws IOException {
+      out.writeBoolean(value != null);
+      if (value != null) {
+        out.writeInt(value);
+      }
+    }
+    
+    private void writeNumber(Number value) throws IOException {
+      if (value == null) {
+        out.writeByte(NUMBER_NULL);
+      } else if (value instanceof Byte) {
+        out.writeByte(NUMBER_BYTE);
+        out.writeByte(value.byteValue());
+      } else if (value instanceof Short) {
+        out.writeByte(NUMBER_SHORT);
+        out.writeShort(value.shortValue());
+      } else if (value instanceof Integer) {
+        out.writeByte(NUMBER_INTEGER);
+        out.writeInt(value.intValue());
+      } else if (value instanceof Long) {
+        out.writeByte(NUMBER_LONG);
+        out.writeLong(value.longValue());
+      } else if (value instanceof Float) {
+        out.writeByte(NUMBER_FLOAT);
+        out.writeFloat(value.floatValue());
+      } else if (value instanceof Double) {
+        out.writeByte(NUMBER_DOUBLE);
+        out.writeDouble(value.doubleValue());
+      } else {
+        out.writeByte(NUMBER_DECIMAL);
+        writeString(value.toString());
+      }
+    }
+  }
+  
+  /**
+   * Decodes a snapshot payload.
+   */
+  static class Reader {
+    private ByteBuffer in;
+    private String[] strings;
+    private LdDatatype[] datatypes;
+    private LdTerm[] terms;
+    private LdClass[] classes;
+    
+    /**
+     * The IRI values of each term, which are restored after the context is closed.
+     */
+    private String[] iris;
+    private String[] typeIRIs;
+    
+    Reader(ByteBuffer in) {
+      this.in = in;
+    }
+    
+    LdContext read() throws IOException {
+      // The strings are mostly names and IRIs, so share them with the documents
+      // and contexts read by the parsers.
+      LdIriPool pool = LdIriPool.getDefault();
+      strings = new String[in.getInt()];
+      for (int i=0; i<strings.length; i++) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        strings[i] = pool.intern(new String(bytes, UTF8));
+      }
+      
+      // Create all objects first, so that references may be resolved in any order.
+      datatypes = new LdDatatype[in.getInt()];
+      terms = new LdTerm[in.getInt()];
+      classes = new LdClass[in.getInt()];
+      iris = new String[terms.length];
+      typeIRIs = new String[terms.length];
+      for (int i=0; i<datatypes.length; i++) {
+        datatypes[i] = new LdDatatype();
+      }
+      for (int i=0; i<terms.length; i++) {
+        terms[i] = new LdTerm();
+      }
+      for (int i=0; i<classes.length; i++) {
+        classes[i] = new LdClass(null);
+      }
+      
+      for (LdDatatype datatype : datatypes) {
+        readDatatype(datatype);
+      }
+      for (int i=0; i<terms.length; i++) {
+        readTerm(i);
+      }
+      for (LdClass rdfClass : classes) {
+        readClass(rdfClass);
+      }
+      LdContext context = readContext();
+      if (in.hasRemaining()) {
+        throw new IOException("Unexpected data at the end of the snapshot");
+      }
+      
+      // Closing the context expands the raw IRIs and builds the lookup tables exactly as
+      // they were built when the context was parsed.  Then restore the IRI values, which 
+      // may have been modified after the context was closed.
+      context.close();
+      for (int i=0; i<terms.length; i++) {
+        terms[i].setIRI(iris[i]);
+        terms[i].setTypeIRI(typeIRIs[i]);
+      }
+      
+      return context;
+    }
+    
+    private LdContext readContext() {
+      LdContext context = new LdContext();
+      context.setContextURI(readString());
+      
+      int termCount = in.getInt();
+      for (int i=0; i<termCount; i++) {
+        context.add(terms[in.getInt()]);
+      }
+      int componentCount = in.getInt();
+      for (int i=0; i<componentCount; i++) {
+        context.add(readContext());
+      }
+      return context;
+    }
+    
+    private void readTerm(int index) {
+      LdTerm term = terms[index];
+      term.setShortName(readString());
+      term.setRawIRI(readString());
+      iris[index] = readString();
+      term.setRawTypeIRI(readString());
+      typeIRIs[index] = readString();
+      String containerType = readString();
+      term.setContainerType(containerType==null ? null : LdContainerType.valueOf(containerType));
+      term.setLanguage(readString());
+      term.setMinCardinality(readInteger());
+      term.setRdfClass(readClassRef());
+      term.setDatatype(readDatatypeRef());
+      
+      if (in.get() != 0) {
+        LdProperty property = term.ensureProperty();
+        int count = in.getInt();
+        for (int i=0; i<count; i++) {
+          property.addDomain(readString());
+        }
+      }
+    }
+    
+    private void readClass(LdClass rdfClass) {
+      rdfClass.setURI(readString());
+      rdfClass.setTerm(readTermRef());
+      
+      int superCount = in.getInt();
+      if (superCount != NULL) {
+        List<LdClass> superList = new ArrayList<LdClass>(superCount);
+        for (int i=0; i<superCount; i++) {
+          superList.add(readClassRef());
+        }
+        rdfClass.setSupertypes(superList);
+      }
+      
+      int restrictionCount = in.getInt();
+      for (int i=0; i<restrictionCount; i++) {
+        rdfClass.add(readRestriction());
+      }
+    }
+    
+    private LdRestriction readRestriction() {
+      LdRestriction restriction = new LdRestriction();
+      restriction.setDomain(readClassRef());
+      restriction.setPropertyURI(readString());
+      restriction.setMinCardinality(readInteger());
+      restriction.setMaxCardinality(readInteger());
+      restriction.setAllValuesFrom(readString());
+      
+      int count = in.getInt();
+      for (int i=0; i<count; i++) {
+        LdQualifiedRestriction qr = new LdQualifiedRestriction();
+        qr.setRangeURI(readString());
+        qr.setMinCardinality(readInteger());
+        qr.setMaxCardinality(readInteger());
+        restriction.add(qr);
+      }
+      return restriction;
+    }
+    
+    private void readDatatype(LdDatatype datatype) {
+      datatype.setLocalName(readString());
+      datatype.setURI(readString());
+      datatype.setNamespace(readString());
+      datatype.setBase(readDatatypeRef());
+      String xsdType = readString();
+      datatype.setXsdType(xsdType==null ? null : XsdType.valueOf(xsdType));
+      datatype.setLength(readInteger());
+      datatype.setMinLength(readInteger());
+      datatype.setMaxLength(readInteger());
+      
+      String pattern = readString();
+      int flags = in.getInt();
+      datatype.setPattern(pattern==null ? null : Pattern.compile(pattern, flags));
+      
+      String whitespace = readString();
+      datatype.setWhitespace(whitespace==null ? null : Whitespace.valueOf(whitespace));
+      datatype.setMaxInclusive(readNumber());
+      datatype.setMaxExclusive(readNumber());
+      datatype.setMinInclusive(readNumber());
+      datatype.setMinExclusive(readNumber());
+      datatype.setTotalDigits(readInteger());
+      datatype.setFractionDigits(readInteger());
+    }
+    
+    private LdTerm readTermRef() {
+      int index = in.getInt();
+      return (index == NULL) ? null : terms[index];
+    }
+    
+    private LdClass readClassRef() {
+      int index = in.getInt();
+      return (index == NULL) ? null : classes[index];
+    }
+    
+    private LdDatatype readDatatypeRef() {
+      if (in.get() != 0) {
+        String uri = readString();
+        LdDatatype builtin = LdDatatypeManager.getXsdTypeByURI(uri);
+        if (builtin == null) {
+          throw new BufferUnderflowException();
+        }
+        return builtin;
+      }
+      int index = in.getInt();
+      return (index == NULL) ? null : datatypes[index];
+    }
+    
+    private String readString() {
+      int index = in.getInt();
+      return (index == NULL) ? null : strings[index];
+    }
+    
+    private Integer readInteger() {
+      return (in.get() != 0) ? Integer.valueOf(in.getInt()) : null;
+    }
+    
+    private Number readNumber() {
+      byte tag = in.get();
+      switch (tag) {
+      case NUMBER_NULL : return null;
+      case NUMBER_BYTE : return in.get();
+      case NUMBER_SHORT : return in.getShort();
+      case NUMBER_INTEGER : return in.getInt();
+      case NUMBER_LONG : return in.getLong();
+      case NUMBER_FLOAT : return in.getFloat();
+      case NUMBER_DOUBLE : return in.getDouble();
+      case NUMBER_DECIMAL : return decimal(readString());
+      default : throw new IllegalArgumentException("Unknown number tag: " + tag);
+      }
+    }
+    
+    private Number decimal(String text) {
+      return (text.indexOf('.')<0 && text.indexOf('E')<0 && text.indexOf('e')<0) ? 
+          new BigInteger(text) : new BigDecimal(text);
+    }
+  }
+  
+  private static boolean isBuiltin(LdDatatype datatype) {
+    String uri = datatype.getURI();
+    return uri != null && LdDatatypeManager.getXsdTypeByURI(uri) == datatype;
+  }
+
+}
@@ -0,0 +1,881 @@
+/*******************************************************************************
+ * Copyright 2012 Pearson Education
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package org.semantictools.jsonld.impl;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.semantictools.jsonld.LdDatatype;
+import org.semantictools.jsonld.LdLiteral;
+import org.semantictools.jsonld.LdValidationMessage;
+import org.semantictools.jsonld.LdValidationReport;
+import org.semantictools.jsonld.LdValidationResult;
+import org.semantictools.jsonld.Whitespace;
+import org.semantictools.jsonld.XsdType;
+import org.semantictools.util.DurationUtil;
+
+/**
+ * A compiled form of the facets that constrain an LdDatatype.
+ * <p>
+ * The checker collects the facets declared by a datatype and by each datatype in its 
+ * chain of base types, where a facet declared by a derived type takes precedence over the 
+ * same facet in a base type, and all patterns must match.  The underlying XML Schema type
+ * determines how literal values are checked: numbers are compared without re-parsing JSON
+ * numbers, dates and times are checked against the lexical forms defined by XML Schema, and 
+ * durations are checked by {@link DurationUtil#isDuration(String)}.
+ * <p>
+ * A checker is immutable and threadsafe, so it is compiled once and reused for every 
+ * document that is validated.
+ * 
+ * @author Greg McFall
+ *
+ */
+public class LdDatatypeChecker {
+  
+  private static final BigInteger UNSIGNED_LONG_MAX = new BigInteger("18446744073709551615");
+  
+  private enum Kind {
+    STRING,
+    BOOLEAN,
+    INTEGER,
+    DECIMAL,
+    FLOAT,
+    DATETIME,
+    DATE,
+    TIME,
+    GYEAR,
+    GYEARMONTH,
+    GMONTH,
+    GMONTHDAY,
+    GDAY,
+    DURATION,
+    HEXBINARY,
+    BASE64BINARY,
+    LANGUAGE,
+    NAME,
+    NCNAME,
+    NMTOKEN
+  }
+  
+  private String typeName;
+  private XsdType xsdType;
+  private Kind kind;
+  private Whitespace whitespace;
+  
+  private int length = -1;
+  private int minLength = -1;
+  private int maxLength = -1;
+  private Pattern[] patterns;
+  private String[] patternOwners;
+  
+  private Number minInclusive;
+  private Number maxInclusive;
+  private Number minExclusive;
+  private Number maxExclusive;
+  private double minInclusiveValue;
+  private double maxInclusiveValue;
+  private double minExclusiveValue;
+  private double maxExclusiveValue;
+  private int totalDigits = -1;
+  private int fractionDigits = -1;
+  
+  // The range of values permitted by the built-in integer type.
+  private long minValue = Long.MIN_VALUE;
+  private long maxValue = Long.MAX_VALUE;
+  private BigInteger bigMinValue;
+  private BigInteger bigMaxValue;
+  
+  private LdDatatypeChecker() {}
+  
+  /**
+   * Compile the facets of the given datatype and its base types into a new checker.
+   */
+  public static LdDatatypeChecker compile(LdDatatype datatype) {
+    LdDatatypeChecker checker = new LdDatatypeChecker();
+    checker.typeName = datatype.getLocalName();
+    checker.xsdType = datatype.getXsdType();
+    checker.kind = kindOf(checker.xsdType);
+    
+    List<Pattern> patternList = new ArrayList<Pattern>();
+    List<String> ownerList = new ArrayList<String>();
+    Map<LdDatatype, Boolean> visited = new IdentityHashMap<LdDatatype, Boolean>();
+    
+    for (LdDatatype type=datatype; type!=null && visited.put(type, Boolean.TRUE)==null; type=type.getBase()) {
+      if (checker.length<0 && type.getLength()!=null) {
+        checker.length = type.getLength();
+      }
+      if (checker.minLength<0 && type.getMinLength()!=null) {
+        checker.minLength = type.getMinLength();
+      }
+      if (checker.maxLength<0 && type.getMaxLength()!=null) {
+        checker.maxLength = type.getMaxLength();
+      }
+      if (checker.totalDigits<0 && type.getTotalDigits()!=null) {
+        checker.totalDigits = type.getTotalDigits();
+      }
+      if (checker.fractionDigits<0 && type.getFractionDigits()!=null) {
+        checker.fractionDigits = type.getFractionDigits();
+      }
+      if (checker.whitespace==null) {
+        checker.whitespace = type.getWhitespace();
+      }
+      if (checker.minInclusive==null) {
+        checker.minInclusive = type.getMinInclusive();
+      }
+      if (checker.maxInclusive==null) {
+        checker.maxInclusive = type.getMaxInclusive();
+      }
+      if (checker.minExclusive==null) {
+        checker.minExclusive = type.getMinExclusive();
+      }
+      if (checker.maxExclusive==null) {
+        checker.maxExclusive = type.getMaxExclusive();
+      }
+      if (type.getPattern() != null) {
+        patternList.add(type.getPattern());
+        ownerList.add(type.getLocalName());
+      }
+    }
+    
+    if (!patternList.isEmpty()) {
+      checker.patterns = patternList.toArray(new Pattern[patternList.size()]);
+      checker.patternOwners = ownerList.toArray(new String[ownerList.size()]);
+    }
+    if (checker.whitespace == null) {
+      checker.whitespace = defaultWhitespace(checker.xsdType);
+    }
+    checker.minInclusiveValue = (checker.minInclusive==null) ? 0 : checker.minInclusive.doubleValue();
+    checker.maxInclusiveValue = (checker.maxInclusive==null) ? 0 : checker.maxInclusive.doubleValue();
+    checker.minExclusiveValue = (checker.minExclusive==null) ? 0 : checker.minExclusive.doubleValue();
+    checker.maxExclusiveValue = (checker.maxExclusive==null) ? 0 : checker.maxExclusive.doubleValue();
+    
+    if (checker.kind == Kind.INTEGER) {
+      checker.setIntegerRange();
+    }
+    
+    return checker;
+  }
+  
+  private static Kind kindOf(XsdType xsdType) {
+    if (xsdType == null) return Kind.STRING;
+    
+    switch (xsdType) {
+    case BOOLEAN : return Kind.BOOLEAN;
+    
+    case BYTE :
+    case INT :
+    case INTEGER :
+    case LONG :
+    case NEGATIVEINTEGER :
+    case NONNEGATIVEINTEGER :
+    case NONPOSITIVEINTEGER :
+    case POSTIVEINTEGER :
+    case SHORT :
+    case UNSIGNEDBYTE :
+    case UNSIGNEDINT :
+    case UNSIGNEDLONG :
+    case UNSIGNEDSHORT : return Kind.INTEGER;
+    
+    case DECIMAL : return Kind.DECIMAL;
+    case DOUBLE :
+    case FLOAT : return Kind.FLOAT;
+    
+    case DATETIME : return Kind.DATETIME;
+    case DATE : return Kind.DATE;
+    case TIME : return Kind.TIME;
+    case GYEAR : return Kind.GYEAR;
+    case GYEARMONTH : return Kind.GYEARMONTH;
+    case GMONTH : return Kind.GMONTH;
+    case GMONTHDAY : return Kind.GMONTHDAY;
+    case GDAY : return Kind.GDAY;
+    case DURATION : return Kind.DURATION;
+    
+    case HEXBINARY : return Kind.HEXBINARY;
+    case BASE64BINARY : return Kind.BASE64BINARY;
+    case LANGUAGE : return Kind.LANGUAGE;
+    case NAME : return Kind.NAME;
+    case NCNAME : return Kind.NCNAME;
+    case NMTOKEN : return Kind.NMTOKEN;
+    
+    default : return Kind.STRING;
+    }
+  }
+  
+  private static Whitespace defaultWhitespace(XsdType xsdType) {
+    if (xsdType == null || xsdType == XsdType.STRING || xsdType == XsdType.UNDEFINED) {
+      return Whitespace.PRESERVE;
+    }
+    return (xsdType == XsdType.NORMALIZEDSTRING) ? Whitespace.REPLACE : Whitespace.COLLAPSE;
+  }
+  
+  private void setIntegerRange() {
+    switch (xsdType) {
+    case BYTE : setIntegerRange(Byte.MIN_VALUE, Byte.MAX_VALUE); break;
+    case SHORT : setIntegerRange(Short.MIN_VALUE, Short.MAX_VALUE); break;
+    case INT : setIntegerRange(Integer.MIN_VALUE, Integer.MAX_VALUE); break;
+    case LONG : setIntegerRange(Long.MIN_VALUE, Long.MAX_VALUE); break;
+    case UNSIGNEDBYTE : setIntegerRange(0, 255); break;
+    case UNSIGNEDSHORT : setIntegerRange(0, 65535); break;
+    case UNSIGNEDINT : setIntegerRange(0, 4294967295L); break;
+    
+    case UNSIGNEDLONG :
+      minValue = 0;
+      bigMinValue = BigInteger.ZERO;
+      bigMaxValue = UNSIGNED_LONG_MAX;
+      break;
+      
+    case NONNEGATIVEINTEGER :
+      minValue = 0;
+      bigMinValue = BigInteger.ZERO;
+      break;
+      
+    case POSTIVEINTEGER :
+      minValue = 1;
+      bigMinValue = BigInteger.ONE;
+      break;
+      
+    case NONPOSITIVEINTEGER :
+      maxValue = 0;
+      bigMaxValue = BigInteger.ZERO;
+      break;
+      
+    case NEGATIVEINTEGER :
+      maxValue = -1;
+      bigMaxValue = BigInteger.ONE.negate();
+      break;
+      
+    default :
+      break;
+    }
+  }
+  
+  private void setIntegerRange(long min, long max) {
+    minValue = min;
+    maxValue = max;
+    bigMinValue = BigInteger.valueOf(min);
+    bigMaxValue = BigInteger.valueOf(max);
+  }
+  
+  /**
+   * Check the given literal value against the facets of the datatype, and add an error 
+   * to the report for each constraint that is violated.
+   * @param path The path to the value, which is used in validation messages.
+   */
+  public void check(String path, LdLiteral value, LdValidationReport report) {
+    switch (kind) {
+    case BOOLEAN : checkBoolean(path, value, report); break;
+    case INTEGER : checkInteger(path, value, report); break;
+    case DECIMAL :
+    case FLOAT : checkDecimal(path, value, report); break;
+    default : checkString(path, value, report); break;
+    }
+  }
+
+  private void checkBoolean(String path, LdLiteral value, LdValidationReport report) {
+    String text = null;
+    if (value.isStringValue()) {
+      text = normalize(value.getStringValue());
+      if (!"true".equals(text) && !"false".equals(text) && !"1".equals(text) && !"0".equals(text)) {
+        invalid(path, text, report);
+        return;
+      }
+    } else if (value.isLongValue()) {
+      long number = value.getLongValue();
+      if (number != 0 && number != 1) {
+        invalid(path, value.getStringValue(), report);
+        return;
+      }
+    } else if (!value.isBooleanValue()) {
+      invalid(path, value.getStringValue(), report);
+      return;
+    }
+    
+    if (patterns != null) {
+      checkPatterns(path, text==null ? value.getStringValue() : text, report);
+    }
+  }
+
+  private void checkInteger(String path, LdLiteral value, LdValidationReport report) {
+    String text = null;
+    long number = 0;
+    BigInteger bigNumber = null;
+    
+    if (value.isStringValue()) {
+      text = normalize(value.getStringValue());
+      int digits = countIntegerDigits(text);
+      if (digits < 0) {
+        invalid(path, text, report);
+        return;
+      }
+      if (digits <= 18) {
+        number = Long.parseLong(text);
+      } else {
+        bigNumber = new BigInteger(text);
+      }
+      
+    } else if (value.isLongValue()) {
+      number = value.getLongValue();
+      
+    } else if (value.isDoubleValue()) {
+      double d = value.getDoubleValue();
+      if (Double.isInfinite(d) || Double.isNaN(d) || d != Math.rint(d)) {
+        invalid(path, value.getStringValue(), report);
+        return;
+      }
+      if (Math.abs(d) < 9.0e18) {
+        number = (long) d;
+      } else {
+        bigNumber = new BigDecimal(d).toBigInteger();
+      }
+      
+    } else {
+      invalid(path, value.getStringValue(), report);
+      return;
+    }
+    
+    if (bigNumber != null && bigNumber.bitLength() < 64) {
+      number = bigNumber.longValue();
+      bigNumber = null;
+    }
+    
+    boolean inRange = (bigNumber == null) ?
+        (number >= minValue && number <= maxValue) :
+        ((bigMinValue == null || bigNumber.compareTo(bigMinValue) >= 0) && 
+         (bigMaxValue == null || bigNumber.compareTo(bigMaxValue) <= 0));
+    
+    if (!inRange) {
+      String msg = "Value is out of range for xsd:" + xsdType.getLocalName() + ": " + 
+          display(value, text);
+      error(path, msg, report);
+      return;
+    }
+    
+    double comparable = (bigNumber == null) ? number : bigNumber.doubleValue();
+    checkRange(path, comparable, value, text, report);
+    
+    if (totalDigits >= 0) {
+      String lexical = (bigNumber == null) ? Long.toString(number) : bigNumber.toString();
+      checkDigits(path, lexical, value, text, report);
+    }
+    if (patterns != null) {
+      checkPatterns(path, display(value, text), report);
+    }
+  }
+
+  private void checkDecimal(String path, LdLiteral value, LdValidationReport report) {
+    String text = null;
+    double number = 0;
+    
+    if (value.isStringValue()) {
+      text = normalize(value.getStringValue());
+      if (kind == Kind.DECIMAL ? !isDecimal(text) : !isFloat(text)) {
+        invalid(path, text, report);
+        return;
+      }
+      number = 
+          "INF".equals(text) ? Double.POSITIVE_INFINITY :
+          "-INF".equals(text) ? Double.NEGATIVE_INFINITY :
+          Double.parseDouble(text);
+      
+    } else if (value.isLongValue()) {
+      number = value.getLongValue();
+      
+    } else if (value.isDoubleValue()) {
+      number = value.getDoubleValue();
+      
+    } else {
+      invalid(path, value.getStringValue(), report);
+      return;
+    }
+    
+    checkRange(path, number, value, text, report);
+    
+    if (totalDigits >= 0 || fractionDigits >= 0) {
+      String lexical = text;
+      if (lexical == null) {
+        lexical = value.isLongValue() ? 
+            Long.toString(value.getLongValue()) : 
+            BigDecimal.valueOf(number).toPlainString();
+      }
+      checkDigits(path, lexical, value, text, report);
+    }
+    if (patterns != null) {
+      checkPatterns(path, display(value, text), report);
+    }
+  }
+  
+  private void checkRange(String path, double number, LdLiteral value, String text, LdValidationReport report) {
+    if (minInclusive != null && !(number >= minInclusiveValue)) {
+      error(path, "Should have minInclusive=" + minInclusive + ", but found " + display(value, text), report);
+    }
+    if (maxInclusive != null && !(number <= maxInclusiveValue)) {
+      error(path, "Should have maxInclusive=" + maxInclusive + ", but found " + display(value, text), report);
+    }
+    if (minExclusive != null && !(number > minExclusiveValue)) {
+      error(path, "Should have minExclusive=" + minExclusive + ", but found " + display(value, text), report);
+    }
+    if (maxExclusive != null && !(number < maxExclusiveValue)) {
+      error(path, "Should have maxExclusive=" + maxExclusive + ", but found " + display(value, text), report);
+    }
+  }
+  
+  /**
+   * Check the totalDigits and fractionDigits facets against the given lexical form of a
+   * decimal number.
+   */
+  private void checkDigits(String path, String lexical, LdLiteral value, String text, LdValidationReport report) {
+    int start = 0;
+    int end = lexical.length();
+    if (start<end && (lexical.charAt(start)=='-' || lexical.charAt(start)=='+')) start++;
+    
+    int point = lexical.indexOf('.', start);
+    int intEnd = (point<0) ? end : point;
+    
+    // Leading zeros in the integer part and trailing zeros in the fraction are not significant.
+    while (start<intEnd && lexical.charAt(start)=='0') start++;
+    int fraction = 0;
+    if (point >= 0) {
+      int fracEnd = end;
+      while (fracEnd>point+1 && lexical.charAt(fracEnd-1)=='0') fracEnd--;
+      fraction = fracEnd - point - 1;
+    }
+    int total = Math.max(1, (intEnd - start) + fraction);
+    
+    if (totalDigits>=0 && total>totalDigits) {
+      error(path, "Should have totalDigits=" + totalDigits + ", but found " + display(value, text), report);
+    }
+    if (fractionDigits>=0 && fraction>fractionDigits) {
+      error(path, "Should have fractionDigits=" + fractionDigits + ", but found " + display(value, text), report);
+    }
+  }
+
+  private void checkString(String path, LdLiteral value, LdValidationReport report) {
+    String text = normalize(value.getStringValue());
+    
+    if (!isValidLexical(text)) {
+      invalid(path, text, report);
+      return;
+    }
+    
+    if (length>=0 || minLength>=0 || maxLength>=0) {
+      int size = lengthOf(text);
+      if (length>=0 && size != length) {
+        error(path, "Should have length=" + length + ", but found length=" + size, report);
+      }
+      if (minLength>=0 && size < minLength) {
+        error(path, "Should have minLength=" + minLength + ", but found length=" + size, report);
+      }
+      if (maxLength>=0 && size > maxLength) {
+        error(path, "Should have maxLength=" + maxLength + ", but found length=" + size, report);
+      }
+    }
+    
+    if (patterns != null) {
+      checkPatterns(path, text, report);
+    }
+  }
+  
+  private void checkPatterns(String path, String text, LdValidationReport report) {
+    for (int i=0; i<patterns.length; i++) {
+      if (!patterns[i].matcher(text).matches()) {
+        String msg =
+            "Value does not match the " + patternOwners[i] + " pattern: " + patterns[i].pattern();
+        error(path, msg, report);
+      }
+    }
+  }
+  
+  private boolean isValidLexical(String text) {
+    switch (kind) {
+    case DATETIME : return isDateTime(text);
+    case DATE : return isDate(text);
+    case TIME : return isTime(text);
+    case GYEAR : return isGYear(text);
+    case GYEARMONTH : return isGYearMonth(text);
+    case GMONTH : return isGMonth(text);
+    case GMONTHDAY : return isGMonthDay(text);
+    case GDAY : return isGDay(text);
+    case DURATION : return DurationUtil.isDuration(text);
+    case HEXBINARY : return isHexBinary(text);
+    case BASE64BINARY : return isBase64Binary(text);
+    case LANGUAGE : return isLanguage(text);
+    case NAME : return isName(text, true);
+    case NCNAME : return isName(text, false);
+    case NMTOKEN : return isNmtoken(text);
+    default : return true;
+    }
+  }
+  
+  /**
+   * Returns the length of the given value, as defined by the length facets.  For binary 
+   * types this is the number of octets, and for all other types the number of characters.
+   */
+  private int lengthOf(String text) {
+    switch (kind) {
+    case HEXBINARY : 
+      return text.length()/2;
+      
+    case BASE64BINARY :
+      int count = 0;
+      for (int i=0; i<text.length(); i++) {
+        char c = text.charAt(i);
+        if (c != ' ' && c != '=') count++;
+      }
+      return count*3/4;
+      
+    default :
+      return text.codePointCount(0, text.length());
+    }
+  }
+  
+  /**
+   * Apply the whitespace facet to the given value.  The value is returned unchanged,
+   * without allocating a new string, if it is already normalized.
+   */
+  private String normalize(String text) {
+    if (whitespace == Whitespace.PRESERVE) return text;
+    
+    boolean collapse = (whitespace == Whitespace.COLLAPSE);
+    int length = text.length();
+    boolean normal = true;
+    for (int i=0; i<length && normal; i++) {
+      char c = text.charAt(i);
+      if (c=='\t' || c=='\n' || c=='\r') {
+        normal = false;
+      } else if (c==' ' && collapse) {
+        normal = (i>0 && i<length-1 && text.charAt(i+1) != ' ');
+      }
+    }
+    if (normal) return text;
+    
+    StringBuilder builder = new StringBuilder(length);
+    for (int i=0; i<length; i++) {
+      char c = text.charAt(i);
+      if (c=='\t' || c=='\n' || c=='\r') {
+        c = ' ';
+      }
+      if (c==' ' && collapse && (builder.length()==0 || builder.charAt(builder.length()-1)==' ')) {
+        continue;
+      }
+      builder.append(c);
+    }
+    if (collapse && builder.length()>0 && builder.charAt(builder.length()-1)==' ') {
+      builder.setLength(builder.length()-1);
+    }
+    return builder.toString();
+  }
+  
+  private String display(LdLiteral value, String text) {
+    return (text != null) ? text : value.getStringValue();
+  }
+  
+  private void invalid(String path, String text, LdValidationReport report) {
+    error(path, "Invalid " + typeName + " value: '" + text + "'", report);
+  }
+  
+  private void error(String path, String message, LdValidationReport report) {
+    report.add(new LdValidationMessage(LdValidationResult.ERROR, path, message));
+  }
+  
+  /**
+   * Returns the number of significant digits in the given integer literal, or -1 if 
+   * the text is not a valid integer.
+   */
+  private static int countIntegerDigits(String text) {
+    int length = text.length();
+    int i = 0;
+    if (i<length && (text.charAt(i)=='-' || text.charAt(i)=='+')) i++;
+    if (i == length) return -1;
+    
+    int digits = 0;
+    for (; i<length; i++) {
+      char c = text.charAt(i);
+      if (!isDigit(c)) return -1;
+      if (digits>0 || c!='0') digits++;
+    }
+    return digits;
+  }
+  
+  private static boolean isDecimal(String text) {
+    int length = text.length();
+    int i = 0;
+    if (i<length && (text.charAt(i)=='-' || text.charAt(i)=='+')) i++;
+    
+    int digits = 0;
+    boolean point = false;
+    for (; i<length; i++) {
+      char c = text.charAt(i);
+      if (isDigit(c)) {
+        digits++;
+      } else if (c=='.' && !point) {
+        point = true;
+      } else {
+        return false;
+      }
+    }
+    return digits>0;
+  }
+  
+  private static boolean isFloat(String text) {
+    if ("INF".equals(text) || "-INF".equals(text) || "NaN".equals(text)) return true;
+    
+    int mark = Math.max(text.indexOf('e'), text.indexOf('E'));
+    if (mark < 0) return isDecimal(text);
+    
+    String exponent = text.substring(mark+1);
+    return isDecimal(text.substring(0, mark)) && countIntegerDigits(exponent)>=0;
+  }
+  
+  private static boolean isDateTime(String text) {
+    int i = scanDate(text, 0);
+    if (i<0 || i>=text.length() || text.charAt(i) != 'T') return false;
+    i = scanTime(text, i+1);
+    return i>=0 && scanTimezone(text, i);
+  }
+  
+  private static boolean isDate(String text) {
+    int i = scanDate(text, 0);
+    return i>=0 && scanTimezone(text, i);
+  }
+  
+  private static boolean isTime(String text) {
+    int i = scanTime(text, 0);
+    return i>=0 && scanTimezone(text, i);
+  }
+  
+  private static boolean isGYear(String text) {
+    int i = scanYear(text, 0);
+    return i>=0 && scanTimezone(text, i);
+  }
+  
+  private static boolean isGYearMonth(String text) {
+    int i = scanYear(text, 0);
+    if (i<0 || !isChar(text, i, '-')) return false;
+    int month = twoDigits(text, i+1);
+    return month>=1 && month<=12 && scanTimezone(text, i+3);
+  }
+  
+  private static boolean isGMonth(String text) {
+    if (!isChar(text, 0, '-') || !isChar(text, 1, '-')) return false;
+    int month = twoDigits(text, 2);
+    return month>=1 && month<=12 && scanTimezone(text, 4);
+  }
+  
+  private static boolean isGMonthDay(String text) {
+    if (!isChar(text, 0, '-') || !isChar(text, 1, '-') || !isChar(text, 4, '-')) return false;
+    int month = twoDigits(text, 2);
+    int day = twoDigits(text, 5);
+    return 
+        month>=1 && month<=12 && day>=1 && 
+        day<=(month==2 ? 29 : daysInMonth(month, false)) && 
+        scanTimezone(text, 7);
+  }
+  
+  private static boolean isGDay(String text) {
+    if (!isChar(text, 0, '-') || !isChar(text, 1, '-') || !isChar(text, 2, '-')) return false;
+    int day = twoDigits(text, 3);
+    return day>=1 && day<=31 && scanTimezone(text, 5);
+  }
+  
+  /**
+   * Scan a date of the form YYYY-MM-DD, and return the index of the next character,
+   * or -1 if the text does not contain a valid date at the given position.
+   */
+  private static int scanDate(String text, int start) {
+    int i = scanYear(text, start);
+    if (i<0 || !isChar(text, i, '-') || !isChar(text, i+3, '-')) return -1;
+    
+    int month = twoDigits(text, i+1);
+    int day = twoDigits(text, i+4);
+    if (month<1 || month>12 || day<1 || day>daysInMonth(month, isLeapYear(text, i))) return -1;
+    
+    return i+6;
+  }
+  
+  /**
+   * Scan a year with at least four digits, and an optional leading minus sign.
+   * Returns the index of the next character, or -1 if there is no valid year.
+   */
+  private static int scanYear(String text, int start) {
+    int i = start;
+    if (isChar(text, i, '-')) i++;
+    int mark = i;
+    while (i<text.length() && isDigit(text.charAt(i))) i++;
+    
+    int digits = i - mark;
+    if (digits<4 || (digits>4 && text.charAt(mark)=='0')) return -1;
+    
+    return i;
+  }
+  
+  /**
+   * Returns true if the year that ends at the given index is a leap year.  Only the last 
+   * four digits are needed, since 10000 is a multiple of 400.
+   */
+  private static boolean isLeapYear(String text, int end) {
+    int year = Integer.parseInt(text.substring(end-4, end));
+    return (year%4==0) && (year%100!=0 || year%400==0);
+  }
+  
+  private static int daysInMonth(int month, boolean leapYear) {
+    switch (month) {
+    case 2 : return leapYear ? 29 : 28;
+    case 4 :
+    case 6 :
+    case 9 :
+    case 11 : return 30;
+    default : return 31;
+    }
+  }
+  
+  /**
+   * Scan a time of the form hh:mm:ss with optional fractional seconds.  Returns the index
+   * of the next character, or -1 if the text does not contain a valid time.
+   */
+  private static int scanTime(String text, int start) {
+    if (!isChar(text, start+2, ':') || !isChar(text, start+5, ':')) return -1;
+    int hour = twoDigits(text, start);
+    int minute = twoDigits(text, start+3);
+    int second = twoDigits(text, start+6);
+    if (hour<0 || minute<0 || second<0 || minute>59 || second>59) return -1;
+    
+    int i = start+8;
+    boolean fraction = false;
+    if (isChar(text, i, '.')) {
+      int mark = ++i;
+      while (i<text.length() && isDigit(text.charAt(i))) {
+        if (text.charAt(i) != '0') fraction = true;
+        i++;
+      }
+      if (i == mark) return -1;
+    }
+    
+    // 24:00:00 is permitted as the end of a day.
+    if (hour>24 || (hour==24 && (minute!=0 || second!=0 || fraction))) return -1;
+    
+    return i;
+  }
+  
+  /**
+   * Returns true if the text is complete at the given index, or if it is followed
+   * by a valid timezone and nothing else.
+   */
+  private static boolean scanTimezone(String text, int start) {
+    int length = text.length();
+    if (start == length) return true;
+    if (start+1 == length && text.charAt(start)=='Z') return true;
+    if (start+6 != length) return false;
+    
+    char sign = text.charAt(start);
+    if ((sign!='+' && sign!='-') || !isChar(text, start+3, ':')) return false;
+    int hour = twoDigits(text, start+1);
+    int minute = twoDigits(text, start+4);
+    return hour>=0 && minute>=0 && minute<=59 && (hour<14 || (hour==14 && minute==0));
+  }
+  
+  private static boolean isHexBinary(String text) {
+    if (text.length()%2 != 0) return false;
+    for (int i=0; i<text.length(); i++) {
+      if (Character.digit(text.charAt(i), 16) < 0) return false;
+    }
+    return true;
+  }
+  
+  private static boolean isBase64Binary(String text) {
+    int count = 0;
+    int padding = 0;
+    for (int i=0; i<text.length(); i++) {
+      char c = text.charAt(i);
+      if (c == ' ') continue;
+      if (c == '=') {
+        padding++;
+      } else if (padding>0 || !(
+          (c>='A' && c<='Z') || (c>='a' && c<='z') || (c>='0' && c<='9') || c=='+' || c=='/')
+      ) {
+        return false;
+      }
+      count++;
+    }
+    return padding<=2 && count%4==0;
+  }
+  
+  private static boolean isLanguage(String text) {
+    int length = text.length();
+    int mark = 0;
+    for (int i=0; i<=length; i++) {
+      if (i==length || text.charAt(i)=='-') {
+        int size = i - mark;
+        if (size<1 || size>8) return false;
+        mark = i+1;
+        continue;
+      }
+      char c = text.charAt(i);
+      boolean letter = (c>='a' && c<='z') || (c>='A' && c<='Z');
+      if (!letter && (mark==0 || !isDigit(c))) return false;
+    }
+    return true;
+  }
+  
+  private static boolean isName(String text, boolean colon) {
+    if (text.length()==0) return false;
+    char first = text.charAt(0);
+    if (!Character.isLetter(first) && first!='_' && !(colon && first==':')) return false;
+    for (int i=1; i<text.length(); i++) {
+      char c = text.charAt(i);
+      if (!isNameChar(c) || (c==':' && !colon)) return false;
+    }
+    return true;
+  }
+  
+  private static boolean isNmtoken(String text) {
+    if (text.length()==0) return false;
+    for (int i=0; i<text.length(); i++) {
+      if (!isNameChar(text.charAt(i))) return false;
+    }
+    return true;
+  }
+  
+  private static boolean isNameChar(char c) {
+    if (Character.isLetterOrDigit(c) || c=='.' || c=='-' || c=='_' || c==':' || c=='\u00B7') return true;
+    int type = Character.getType(c);
+    return type==Character.NON_SPACING_MARK || type==Character.COMBINING_SPACING_MARK;
+  }
+  
+  private static boolean isChar(String text, int index, char c) {
+    return index<text.length() && text.charAt(index)==c;
+  }
+  
+  /**
+   * Returns the value of the two decimal digits at the given index, or -1 if
+   * there are not two digits at that position.
+   */
+  private static int twoDigits(String text, int index) {
+    if (index+1 >= text.length()) return -1;
+    char a = text.charAt(index);
+    char b = text.charAt(index+1);
+    return (isDigit(a) && isDigit(b)) ? (a-'0')*10 + (b-'0') : -1;
+  }
+  
+  private static boolean isDigit(char c) {
+    return c>='0' && c<='9';
+  }
+
+}
@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright 2012 Pearson Education
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package org.semantictools.jsonld.impl;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.semantictools.jsonld.LdContext;
+import org.semantictools.jsonld.LdObject;
+import org.semantictools.jsonld.io.LdIriPool;
+
+/**
+ * LdNodePool shares the values that recur throughout a single JSON-LD document
+ * while it is being parsed, so that large documents do not hold thousands of
+ * equal copies of the same strings.
+ * <p>
+ * For each combination of JSON-LD context and field name, the local name and 
+ * the fully qualified property IRI are computed once, and every LdField created 
+ * for that combination refers to the same pair of strings.  These strings, and
+ * the datatype IRIs, languages and type values read from the document, are 
+ * interned in an LdIriPool so that they are also shared with other documents.
+ * <p>
+ * An LdNodePool is used by one parse at a time, and it is not threadsafe.
+ * 
+ * @author Greg McFall
+ *
+ */
+class LdNodePool {
+  
+  private Map<LdContext, Map<String, PropertyName>> properties = 
+      new IdentityHashMap<LdContext, Map<String,PropertyName>>();
+  
+  private LdIriPool iriPool;
+  
+  /**
+   * Create a new LdNodePool that interns strings in the given LdIriPool.
+   */
+  LdNodePool(LdIriPool iriPool) {
+    this.iriPool = iriPool;
+  }
+  
+  /**
+   * Create a new field owned by the given object, and set its local name 
+   * and property IRI.
+   * @param owner The object that owns the new field.
+   * @param context  The JSON-LD context of the owner, or null if there is no context.
+   * @param fieldName The name of the field as it appears in the JSON-LD document.
+   */
+  LinkedLdField createField(LdObject owner, LdContext context, String fieldName) {
+    PropertyName name = getPropertyName(context, fieldName);
+    LinkedLdField field = new LinkedLdField(owner);
+    field.setLocalName(name.localName);
+    field.setPropertyURI(name.propertyIRI);
+    return field;
+  }
+  
+  /**
+   * Returns a shared instance of the given string.
+   */
+  String share(String value) {
+    return iriPool.intern(value);
+  }
+  
+  /**
+   * Returns the number of distinct property names held in this pool.
+   */
+  int getPropertyCount() {
+    int count = 0;
+    for (Map<String, PropertyName> map : properties.values()) {
+      count += map.size();
+    }
+    return count;
+  }
+  
+  private PropertyName getPropertyName(LdContext context, String fieldName) {
+    Map<String, PropertyName> map = properties.get(context);
+    if (map == null) {
+      map = new HashMap<String, PropertyName>();
+      properties.put(context, map);
+    }
+    PropertyName name = map.get(fieldName);
+    if (name == null) {
+      String propertyIRI = (context == null) ? fieldName : context.expand(fieldName);
+      name = new PropertyName(localName(fieldName), share(propertyIRI));
+      map.put(fieldName, name);
+    }
+    return name;
+  }
+  
+  /**
+   * Returns the simple name of the given field.  If the field name contains 
+   * a '#', '/', or ':' then the simple name is substring after that delimiter.
+   */
+  private String localName(String fieldName) {
+    int delim = fieldName.lastIndexOf('#');
+    if (delim < 0) {
+      delim = fieldName.lastIndexOf('/');
+    }
+    if (delim < 0) {
+      delim = fieldName.lastIndexOf(':');
+    }
+    return (delim >= 0) ? share(fieldName.substring(delim+1)) : share(fieldName);
+  }
+  
+  static class PropertyName {
+    private final String localName;
+    private final String propertyIRI;
+    
+    PropertyName(String localName, String propertyIRI) {
+      this.localName = localName;
+      this.propertyIRI = propertyIRI;
+    }
+  }
+
+}
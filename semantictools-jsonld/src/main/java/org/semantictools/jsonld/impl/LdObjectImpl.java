@@ -111,7 +111,22 @@ public class LdObjectImpl implements LdObject, LdIRI, LdBlankNode {
 
   @Override
   public Iterator<LdField> fields() {
-    return fieldList==null ? null : fieldList.iterator();
+    FieldList list = getFieldList();
+    return list==null ? null : list.iterator();
+  }
+  
+  @Override
+  public LdField getField(String propertyIRI) {
+    FieldList list = getFieldList();
+    return list==null ? null : list.find(propertyIRI);
+  }
+  
+  /**
+   * Returns the list of fields in this object.  Subclasses may override this method
+   * to build the list on demand.
+   */
+  FieldList getFieldList() {
+    return fieldList;
   }
 
   @Override
@@ -0,0 +1,195 @@
+/*******************************************************************************
+ * Copyright 2012 Pearson Education
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package org.semantictools.jsonld.impl;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.semantictools.jsonld.LdAsset;
+
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.rdf.model.ModelFactory;
+
+/**
+ * A threadsafe, bounded cache of parsed ontologies.
+ * Entries are keyed by the URI of the namespace plus a checksum of the Turtle
+ * document that defines it, so that a namespace is parsed again only if its 
+ * content has changed.
+ * <p>
+ * The models held in this cache are shared by all callers.  They are meant to be
+ * composed into an OntModel as sub-models, which leaves them untouched because 
+ * all updates are applied to the base model.  Callers must not modify them directly.
+ * <p>
+ * When the cache is full, the least recently used entry is evicted.
+ *
+ * @author Greg McFall
+ *
+ */
+public class LdOntologyCache {
+  
+  public static final int DEFAULT_MAX_SIZE = 100;
+  
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+  
+  private int maxSize;
+  
+  private long hitCount;
+  private long missCount;
+  private long evictionCount;
+  
+  private Map<String, Model> map;
+  
+  /**
+   * Create a cache that holds up to {@link #DEFAULT_MAX_SIZE} ontologies.
+   */
+  public LdOntologyCache() {
+    this(DEFAULT_MAX_SIZE);
+  }
+  
+  /**
+   * Create a new LdOntologyCache.
+   * @param maxSize The maximum number of ontologies held in the cache.
+   */
+  public LdOntologyCache(int maxSize) {
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+    }
+    this.maxSize = maxSize;
+    map = new LinkedHashMap<String, Model>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Model> eldest) {
+        if (size() > LdOntologyCache.this.maxSize) {
+          evictionCount++;
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+  
+  /**
+   * Returns the model parsed from the given Turtle asset.  The model is parsed
+   * and added to the cache if the cache does not already hold a model for the
+   * current content of the asset.
+   */
+  public Model getModel(LdAsset asset) throws IOException {
+    String content = asset.getContent();
+    if (content == null) {
+      content = read(asset.getReader());
+    }
+    String key = asset.getURI() + "|" + checksum(content);
+    
+    synchronized (this) {
+      Model model = map.get(key);
+      if (model != null) {
+        hitCount++;
+        return model;
+      }
+      missCount++;
+    }
+    
+    // Parse outside the lock, so that other namespaces may be served in the meantime.
+    Model model = ModelFactory.createDefaultModel();
+    model.read(new StringReader(content), null, "TTL");
+    
+    synchronized (this) {
+      Model prior = map.get(key);
+      if (prior != null) {
+        return prior;
+      }
+      map.put(key, model);
+    }
+    return model;
+  }
+  
+  /**
+   * Remove all ontologies from the cache.
+   */
+  public synchronized void invalidateAll() {
+    map.clear();
+  }
+  
+  /**
+   * Returns the number of ontologies currently held in the cache.
+   */
+  public synchronized int size() {
+    return map.size();
+  }
+  
+  /**
+   * Returns the maximum number of ontologies held in the cache.
+   */
+  public int getMaxSize() {
+    return maxSize;
+  }
+  
+  /**
+   * Returns the number of lookups that were satisfied from the cache.
+   */
+  public synchronized long getHitCount() {
+    return hitCount;
+  }
+  
+  /**
+   * Returns the number of lookups that were not satisfied from the cache,
+   * i.e. the number of times that an ontology was parsed.
+   */
+  public synchronized long getMissCount() {
+    return missCount;
+  }
+  
+  /**
+   * Returns the number of ontologies that were removed from the cache because
+   * the cache was full.  Explicit invalidation is not counted.
+   */
+  public synchronized long getEvictionCount() {
+    return evictionCount;
+  }
+  
+  public synchronized String toString() {
+    return "LdOntologyCache(size=" + map.size() + ", hits=" + hitCount +
+        ", misses=" + missCount + ", evictions=" + evictionCount + ")";
+  }
+  
+  private String read(Reader reader) throws IOException {
+    StringBuilder buffer = new StringBuilder();
+    try {
+      char[] chunk = new char[8192];
+      int count = 0;
+      while ( (count=reader.read(chunk)) > 0) {
+        buffer.append(chunk, 0, count);
+      }
+    } finally {
+      reader.close();
+    }
+    return buffer.toString();
+  }
+  
+  private long checksum(String content) {
+    byte[] data = content.getBytes(UTF8);
+    CRC32 crc = new CRC32();
+    crc.update(data, 0, data.length);
+    return crc.getValue();
+  }
+
+}
@@ -17,9 +17,12 @@ package org.semantictools.jsonld.impl;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
-import org.codehaus.jackson.JsonFactory;
 import org.codehaus.jackson.JsonParseException;
 import org.codehaus.jackson.JsonParser;
 import org.codehaus.jackson.JsonToken;
@@ -31,7 +34,11 @@ import org.semantictools.jsonld.LdLiteral;
 import org.semantictools.jsonld.LdNode;
 import org.semantictools.jsonld.LdObject;
 import org.semantictools.jsonld.LdTerm;
+import org.semantictools.jsonld.io.ByteBufferInputStream;
 import org.semantictools.jsonld.io.LdContextReader;
+import org.semantictools.jsonld.io.LdJsonFactory;
+import org.semantictools.jsonld.io.LdIriPool;
+import org.semantictools.jsonld.io.MappedFileInputStream;
 import org.semantictools.jsonld.io.LdParseException;
 import org.semantictools.jsonld.io.LdParser;
 
@@ -40,6 +47,7 @@ public class LdParserImpl implements LdParser {
   private LdContextReader contextParser;
 
   private boolean streaming=false;
+  private LdIriPool iriPool = LdIriPool.getDefault();
   /**
    * Create a non-streaming LdParserImpl with the given context parser.
    */
@@ -53,6 +61,43 @@ public class LdParserImpl implements LdParser {
     Delegate delegate = new Delegate();
     return delegate.parse(input);
   }
+  
+  @Override
+  public LdNode parse(Path file) throws LdParseException, IOException {
+    return parseOwnedStream(new MappedFileInputStream(file));
+  }
+
+  @Override
+  public LdNode parse(FileChannel channel) throws LdParseException, IOException {
+    return parseOwnedStream(new MappedFileInputStream(channel, MappedFileInputStream.DEFAULT_WINDOW_SIZE));
+  }
+  
+  /**
+   * Parse a stream that was opened by this parser.  If parsing succeeds, the stream is 
+   * closed in the usual way: immediately, or by the top node once it has been streamed.
+   * If parsing fails, nobody else holds the stream, so it is closed here.
+   */
+  private LdNode parseOwnedStream(InputStream input) throws LdParseException, IOException {
+    boolean parsed = false;
+    try {
+      LdNode result = parse(input);
+      parsed = true;
+      return result;
+    } finally {
+      if (!parsed) {
+        try {
+          input.close();
+        } catch (IOException ignore) {
+          // Report the failure to parse rather than the failure to close.
+        }
+      }
+    }
+  }
+
+  @Override
+  public LdNode parse(ByteBuffer buffer) throws LdParseException, IOException {
+    return parse(new ByteBufferInputStream(buffer));
+  }
 
   /**
    * Create a new LdParserImpl and specify whether or not it is a streaming
@@ -68,12 +113,42 @@ public class LdParserImpl implements LdParser {
   public boolean isStreaming() {
     return streaming;
   }
+  
+  /**
+   * Returns true if the given node was produced by a streaming LdParserImpl, in which
+   * case the fields and elements of the node can be read only once.
+   */
+  static boolean isStreamingNode(LdNode node) {
+    if (node instanceof LdObjectImpl) {
+      return ((LdObjectImpl) node).fieldList instanceof Delegate.StreamingFieldList;
+    }
+    return node instanceof Delegate.StreamingLdContainer;
+  }
 
   @Override
   public void setStreaming(boolean streaming) {
     this.streaming = streaming;
   }
 
+  /**
+   * Returns the LdIriPool in which property IRIs, datatype IRIs and other recurring
+   * strings are interned.  By default, this is the shared {@link LdIriPool#getDefault() pool}.
+   */
+  public LdIriPool getIriPool() {
+    return iriPool;
+  }
+
+  /**
+   * Sets the LdIriPool in which property IRIs, datatype IRIs and other recurring
+   * strings are interned.
+   */
+  public void setIriPool(LdIriPool iriPool) {
+    if (iriPool == null) {
+      throw new IllegalArgumentException("iriPool must not be null");
+    }
+    this.iriPool = iriPool;
+  }
+
   
   static enum IteratorMode {
     /**
@@ -109,13 +184,16 @@ public class LdParserImpl implements LdParser {
      */
     private String typeBuffer;
     
+    /**
+     * Shares property names and datatype IRIs between the nodes of the document.
+     */
+    private LdNodePool pool = new LdNodePool(iriPool);
+    
    
   
     public LdNode parse(InputStream input) throws LdParseException, IOException {
   
-      JsonFactory factory = new JsonFactory();
-      factory.enable(JsonParser.Feature.ALLOW_COMMENTS);
-      jsonParser = factory.createJsonParser(input);
+      jsonParser = LdJsonFactory.getJsonFactory().createJsonParser(input);
       jsonParser.nextToken();
       try {
         LdNode result = parseNode(null, null, null);
@@ -176,11 +254,15 @@ public class LdParserImpl implements LdParser {
   
       case VALUE_FALSE :
       case VALUE_TRUE :      
+        result = new LdLiteral(jsonParser.getBooleanValue());
+        break;
+        
       case VALUE_NUMBER_FLOAT:      
+        result = new LdLiteral(jsonParser.getDoubleValue());
+        break;
+        
       case VALUE_NUMBER_INT: 
-        LdLiteral literal = new LdLiteral();
-        result = literal;
-        parseValue(literal);
+        result = new LdLiteral(jsonParser.getLongValue());
         break;
         
       case VALUE_STRING:
@@ -210,9 +292,7 @@ public class LdParserImpl implements LdParser {
         result = object;
       } else {
   
-        LdLiteral literal = new LdLiteral();
-        literal.setStringValue(jsonParser.getText());
-        result = literal;
+        result = new LdLiteral(jsonParser.getText());
         
       }
       return result;
@@ -305,7 +385,7 @@ public class LdParserImpl implements LdParser {
         // The node is either an object or an extended literal, but we
         // cannot disambiguate between the two options, so buffer the type value.
         
-        typeBuffer = readString();
+        typeBuffer = pool.share(readString());
         
       } else if ("@value".equals(fieldName) || "@language".equals(fieldName)) {
         node = createLiteral(fieldName);
@@ -317,6 +397,10 @@ public class LdParserImpl implements LdParser {
     }
   
   
+    /**
+     * Create a literal from an extended value, consuming the remaining fields of the 
+     * extended value up to and including the closing brace.
+     */
     private LdNode createLiteral(String fieldName) throws JsonParseException, IOException {
       LdLiteral literal = new LdLiteral();
       literal.setType(typeBuffer);
@@ -324,21 +408,32 @@ public class LdParserImpl implements LdParser {
       
       addLiteralField(literal, fieldName);
       
-      return null;
+      JsonToken token = null;
+      while ( (token=jsonParser.nextToken()) == JsonToken.FIELD_NAME) {
+        addLiteralField(literal, jsonParser.getCurrentName());
+      }
+      if (token != JsonToken.END_OBJECT) {
+        throw new JsonParseException("Expected the end of an extended value", jsonParser.getCurrentLocation());
+      }
+      
+      return literal;
     }
   
     private void addLiteralField(LdLiteral literal, String fieldName) throws JsonParseException, IOException {
       
       if ("@type".equals(fieldName)) {
-        literal.setType(readString());
+        literal.setType(pool.share(readString()));
         
       } else if ("@language".equals(fieldName)) {
-        literal.setLanguage(readString());
+        literal.setLanguage(pool.share(readString()));
         
       } else if ("@value".equals(fieldName)) {
         jsonParser.nextToken();
         parseValue(literal);
         
+      } else {
+        jsonParser.nextToken();
+        jsonParser.skipChildren();
       }
       
     }
@@ -400,8 +495,8 @@ public class LdParserImpl implements LdParser {
       // are assumed to appear at the beginning of the object.  Thus, for a streaming
       // parser, we only need to parse more fields as long as the current field starts with '@'
       //
-      if (!streaming || fieldName.startsWith("@")) {
-        parseFields(object);
+      if ((!streaming || fieldName.startsWith("@")) && parseFields(object) && streaming) {
+        ((StreamingFieldList) list).setComplete();
       }
       
       
@@ -416,9 +511,10 @@ public class LdParserImpl implements LdParser {
      * are assumed to appear at the beginning of the object.  Thus, for a streaming
      * parser, we only need to parse more fields until we encounter a field that is not a 
      * JSON-LD keyword.
+     * @return true if the closing brace of the object was consumed, and false otherwise.
      * @throws LdContextParseException 
      */
-    private void parseFields(LdObjectImpl object) throws JsonParseException, IOException, LdContextParseException {
+    private boolean parseFields(LdObjectImpl object) throws JsonParseException, IOException, LdContextParseException {
       
       JsonToken token = null;
       while ( (token=jsonParser.nextToken()) != null) {
@@ -429,18 +525,19 @@ public class LdParserImpl implements LdParser {
           if (streaming && !fieldName.startsWith("@")) {
             // This is a streaming parser, so we won't parse any more fields eagerly.
             // The remaining fields will be parsed by the StreamingFieldIterator.
-            return;
+            return false;
           }
           break;
           
         case END_OBJECT:
-          return;
+          return true;
           
         default:
           throw new JsonParseException(
               "Unexpected token while parsing fields: " + token, jsonParser.getCurrentLocation());
         }
       }
+      return true;
       
     }
     
@@ -460,33 +557,12 @@ public class LdParserImpl implements LdParser {
         object.setId(readString());
         
       } else if ("@type".equals(fieldName)) {
-        object.setRawType(readString());
+        object.setRawType(pool.share(readString()));
         
       } else {
         LdContext context = object.getContext();
         LdTerm term = (context==null) ? null : context.getTerm(fieldName);
-        field = new LinkedLdField(object);
-  
-        // If the field name contains a '#', '/', or ':'
-        // then the simple name is substring after that delimiter.
-        
-        int delim = fieldName.lastIndexOf('#');
-        if (delim < 0) {
-          delim = fieldName.lastIndexOf('/');
-        }
-        if (delim < 0) {
-          delim = fieldName.lastIndexOf(':');
-        }
-        if (delim >= 0) {
-          field.setLocalName(fieldName.substring(delim+1));
-        } else {
-          field.setLocalName(fieldName);
-        }
-        
-        
-        String propertyIRI = (context == null) ? fieldName : context.expand(fieldName);
-        field.setPropertyURI(propertyIRI);
-        
+        field = pool.createField(object, context, fieldName);
         
         jsonParser.nextToken();
         LdNode value = parseNode(object, term, field);
@@ -557,6 +633,7 @@ public class LdParserImpl implements LdParser {
     class StreamingLdContainer extends LdContainerImpl {
   
       private InputStream stream;
+      private boolean started;
       
       public StreamingLdContainer(LdContainerType type) {
         super(type);
@@ -570,36 +647,46 @@ public class LdParserImpl implements LdParser {
   
       @Override
       public Iterator<LdNode> iterator() {
-        LdField ownerField = owner();
-        
-        LdObjectImpl parent = ownerField==null ? null : (LdObjectImpl) ownerField.getOwner();
-        return new ElementIterator(parent);
+        if (started) {
+          throw new IllegalStateException("The iterator for a StreamingLdContainer may be accessed only once");
+        }
+        started = true;
+        return new ElementIterator(owner());
       }
   
       class ElementIterator implements Iterator<LdNode> {
   
         LdTerm term;
+        LdField field;
         LdObjectImpl parent;
         
-        ElementIterator(LdObjectImpl parent) {
-          this.parent = parent;
-          LdField field = parent.owner();
-          LdObject object = (field==null) ? null : field.getOwner();
-          LdContext context = (object==null) ? null : object.getContext();
+        /**
+         * The token that begins the next element, or null if the parser has not
+         * yet been advanced to the next element.
+         */
+        JsonToken nextToken;
+        
+        ElementIterator(LdField field) {
+          this.field = field;
+          parent = (field==null) ? null : (LdObjectImpl) field.getOwner();
+          LdContext context = (parent==null) ? null : parent.getContext();
           term = (context==null) ? null : context.getTerm(field.getLocalName());
         }
   
         @Override
         public boolean hasNext() {
           try {
-            JsonToken token = jsonParser.nextToken();
-            switch (token) {
+            if (nextToken == null) {
+              nextToken = jsonParser.nextToken();
+            }
+            switch (nextToken) {
             case VALUE_STRING:
             case VALUE_NUMBER_FLOAT:
             case VALUE_NUMBER_INT:
             case VALUE_FALSE :
             case VALUE_TRUE:
             case START_OBJECT:
+            case START_ARRAY:
               return true;
               
             default:
@@ -618,9 +705,17 @@ public class LdParserImpl implements LdParser {
   
         @Override
         public LdNode next() {
+          if (!hasNext()) {
+            throw new NoSuchElementException();
+          }
+          nextToken = null;
           
           try {
-            return parseNode(parent, term, null);
+            LdNode node = parseNode(parent, term, field);
+            if (node instanceof LdContainerImpl) {
+              ((LdContainerImpl) node).setOwner(field);
+            }
+            return node;
           } catch (Exception e) {
             throw new RuntimeException(e);
           }
@@ -659,6 +754,7 @@ public class LdParserImpl implements LdParser {
       private LdObjectImpl object;
       private IteratorMode mode = IteratorMode.BEGIN;
       private InputStream stream;
+      private boolean complete;
       
       public StreamingFieldList(LdObjectImpl object) {
         this.object = object;
@@ -667,9 +763,34 @@ public class LdParserImpl implements LdParser {
       void setStream(InputStream stream) {
         this.stream = stream;
       }
+      
+      /**
+       * Record that the closing brace of the object was consumed while parsing the
+       * lookahead fields, so that no more fields may be read from the parser.
+       */
+      void setComplete() {
+        complete = true;
+      }
+      
+      /**
+       * Add a lookahead field.  Fields that are read directly from the parser are handed
+       * to the client without being retained, so that memory usage does not grow with 
+       * the number of fields in the object.
+       */
+      @Override
+      public void add(LinkedLdField field) {
+        if (mode == IteratorMode.BEGIN) {
+          super.add(field);
+        }
+      }
   
   
   
+      @Override
+      LdField find(String propertyIRI) {
+        throw new IllegalStateException("The fields of a streaming object cannot be accessed by property IRI");
+      }
+      
       public Iterator<LdField> iterator() {
         if (mode != IteratorMode.BEGIN) {
           throw new IllegalStateException("The iterator for a StreamingFieldList may be accessed only once");
@@ -687,8 +808,15 @@ public class LdParserImpl implements LdParser {
       class StreamingFieldIterator extends FieldIterator {
         
         LdObjectImpl object;
+        
+        /**
+         * The field that has been read from the parser but not yet returned by next().
+         */
+        LdField pendingField;
+        
         public StreamingFieldIterator(LdObjectImpl object) {
           super(object.fieldList);
+          this.object = object;
         }
   
   
@@ -709,9 +837,23 @@ public class LdParserImpl implements LdParser {
             
           case PARSER :
             
+            if (pendingField != null) {
+              more = true;
+              break;
+            }
+            
             try{
               
-              more = jsonParser.nextToken()==JsonToken.FIELD_NAME;
+              // Keywords such as @type that appear after the first ordinary field
+              // are applied to the object, but they are not returned as fields.
+              
+              while (!complete && jsonParser.nextToken()==JsonToken.FIELD_NAME) {
+                pendingField = addField(object, jsonParser.getCurrentName());
+                if (pendingField != null) {
+                  more = true;
+                  break;
+                }
+              }
   
               if (!more) {
                 mode = IteratorMode.END;
@@ -731,6 +873,9 @@ public class LdParserImpl implements LdParser {
               throw new RuntimeException(oops);
             }
             break;
+            
+          default:
+            break;
           }
           
           return more;
@@ -740,6 +885,9 @@ public class LdParserImpl implements LdParser {
   
         @Override
         public LdField next() {
+          if (!hasNext()) {
+            throw new NoSuchElementException();
+          }
           LdField field = null;
           switch (mode) {
           
@@ -748,13 +896,12 @@ public class LdParserImpl implements LdParser {
             break;
             
           case PARSER :
-            try {
-              field = addField(object, jsonParser.getCurrentName());
-            } catch (Exception e) {
-              throw new RuntimeException(e);
-            }
+            field = pendingField;
+            pendingField = null;
             break;
             
+          default:
+            break;
           }
           
           return field;
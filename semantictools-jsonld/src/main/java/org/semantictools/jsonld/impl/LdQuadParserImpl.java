@@ -0,0 +1,454 @@
+/*******************************************************************************
+ * Copyright 2012 Pearson Education
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package org.semantictools.jsonld.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.codehaus.jackson.JsonParseException;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+import org.semantictools.jsonld.LdContext;
+import org.semantictools.jsonld.LdContextParseException;
+import org.semantictools.jsonld.LdIRI;
+import org.semantictools.jsonld.LdLiteral;
+import org.semantictools.jsonld.LdNode;
+import org.semantictools.jsonld.LdQuad;
+import org.semantictools.jsonld.LdQuadCallback;
+import org.semantictools.jsonld.LdTerm;
+import org.semantictools.jsonld.io.LdContextReader;
+import org.semantictools.jsonld.io.LdJsonFactory;
+import org.semantictools.jsonld.io.LdParseException;
+import org.semantictools.jsonld.io.LdQuadParser;
+
+/**
+ * An LdQuadParser that reads the JSON-LD document directly from a Jackson token stream.
+ * The parser holds only one small frame for each object along the current path, 
+ * so memory usage is proportional to the depth of the document rather than its size.
+ * 
+ * @author Greg McFall
+ *
+ */
+public class LdQuadParserImpl implements LdQuadParser {
+  
+  public static final String RDF_TYPE = "http://www.w3.org/1999/02/22-rdf-syntax-ns#type";
+  
+  private LdContextReader contextReader;
+  
+  /**
+   * Create a new LdQuadParserImpl that uses the given reader to parse 
+   * the JSON-LD contexts referenced by documents.
+   */
+  public LdQuadParserImpl(LdContextReader contextReader) {
+    this.contextReader = contextReader;
+  }
+
+  @Override
+  public long parse(InputStream input, LdQuadCallback callback) throws LdParseException, IOException {
+    // Use a delegate to ensure that we are threadsafe.
+    Delegate delegate = new Delegate(callback);
+    try {
+      return delegate.parse(input);
+    } finally {
+      input.close();
+    }
+  }
+  
+  /**
+   * The state of the object that is currently being parsed.
+   */
+  static class Frame {
+    
+    /**
+     * The JSON-LD context in scope for this object.
+     */
+    LdContext context;
+    
+    /**
+     * The IRI or blank node that identifies this object.
+     */
+    LdNode subject;
+    
+    /**
+     * The subject and predicate of the quad that links the enclosing object to this 
+     * object, or null if this is a top-level object.
+     */
+    LdNode linkSubject;
+    LdIRI linkPredicate;
+    
+    /**
+     * The term for the property whose value is this object.
+     */
+    LdTerm term;
+    
+    /**
+     * The raw values of the &#064;type property, buffered until we know whether this
+     * object is a node or an extended literal value.
+     */
+    List<String> typeList;
+    
+    /**
+     * The literal, if this object turns out to be an extended value.
+     */
+    LdLiteral literal;
+    
+    /**
+     * True if the subject of this object has been determined, and the link
+     * and type quads have been delivered.
+     */
+    boolean resolved;
+    
+    Frame(LdContext context, LdNode linkSubject, LdIRI linkPredicate, LdTerm term) {
+      this.context = context;
+      this.linkSubject = linkSubject;
+      this.linkPredicate = linkPredicate;
+      this.term = term;
+    }
+  }
+  
+  class Delegate {
+    
+    private JsonParser jsonParser;
+    private LdQuadCallback callback;
+    private long quadCount;
+    private int blankNodeCount;
+    
+    /**
+     * Maps the blank node labels found in the document to the labels assigned by this parser.
+     * Every blank node is relabeled, so a label from the document can never coincide 
+     * with the label generated for an anonymous object.
+     */
+    private Map<String, LdBlankNodeImpl> blankNodeMap = new HashMap<String, LdBlankNodeImpl>();
+    
+    Delegate(LdQuadCallback callback) {
+      this.callback = callback;
+    }
+    
+    public long parse(InputStream input) throws LdParseException, IOException {
+      jsonParser = LdJsonFactory.getJsonFactory().createJsonParser(input);
+      
+      try {
+        JsonToken token = jsonParser.nextToken();
+        if (token == JsonToken.START_OBJECT) {
+          parseObject(new Frame(null, null, null, null));
+          
+        } else if (token == JsonToken.START_ARRAY) {
+          while ( (token=jsonParser.nextToken()) == JsonToken.START_OBJECT) {
+            parseObject(new Frame(null, null, null, null));
+          }
+          if (token != JsonToken.END_ARRAY) {
+            throw new JsonParseException("Expected a JSON-LD object", jsonParser.getCurrentLocation());
+          }
+          
+        } else {
+          throw new JsonParseException("JSON-LD node not found.", jsonParser.getCurrentLocation());
+        }
+        
+      } catch (JsonParseException e) {
+        throw new LdParseException(e);
+        
+      } catch (LdContextParseException e) {
+        throw new LdParseException(e);
+      }
+      
+      return quadCount;
+    }
+    
+    /**
+     * Parse the fields of an object.  The jsonParser must be positioned at the opening
+     * brace of the object, and on return it is positioned at the closing brace.
+     */
+    private void parseObject(Frame frame) throws JsonParseException, IOException, LdContextParseException {
+      
+      JsonToken token = null;
+      while ( (token=jsonParser.nextToken()) == JsonToken.FIELD_NAME) {
+        String fieldName = jsonParser.getCurrentName();
+        
+        if ("@context".equals(fieldName)) {
+          frame.context = contextReader.parseContextField(jsonParser);
+          
+        } else if ("@id".equals(fieldName)) {
+          if (frame.resolved) {
+            throw new JsonParseException(
+                "The @id property must appear before the other properties of an object", 
+                jsonParser.getCurrentLocation());
+          }
+          frame.subject = createResource(frame.context, readString());
+          resolve(frame);
+          
+        } else if ("@type".equals(fieldName)) {
+          parseType(frame);
+          
+        } else if ("@value".equals(fieldName)) {
+          jsonParser.nextToken();
+          parseValue(literal(frame));
+          
+        } else if ("@language".equals(fieldName)) {
+          literal(frame).setLanguage(readString());
+          
+        } else if ("@graph".equals(fieldName)) {
+          resolve(frame);
+          parseGraph(frame.context);
+          
+        } else if (fieldName.startsWith("@")) {
+          jsonParser.nextToken();
+          jsonParser.skipChildren();
+          
+        } else {
+          resolve(frame);
+          LdContext context = frame.context;
+          LdIRI predicate = new LdIriImpl(context==null ? fieldName : context.expand(fieldName));
+          LdTerm term = (context==null) ? null : context.getTerm(fieldName);
+          jsonParser.nextToken();
+          parseProperty(frame, predicate, term);
+        }
+      }
+      if (token != JsonToken.END_OBJECT) {
+        throw new JsonParseException("Expected a field or the end of an object", jsonParser.getCurrentLocation());
+      }
+      
+      if (frame.literal != null) {
+        endLiteral(frame);
+      } else {
+        resolve(frame);
+      }
+    }
+    
+    /**
+     * Returns the literal for an object that is an extended value.
+     */
+    private LdLiteral literal(Frame frame) throws JsonParseException {
+      if (frame.literal == null) {
+        if (frame.resolved) {
+          throw new JsonParseException(
+              "An extended value must not contain other properties", jsonParser.getCurrentLocation());
+        }
+        frame.literal = new LdLiteral();
+      }
+      return frame.literal;
+    }
+
+    private void endLiteral(Frame frame) {
+      LdLiteral literal = frame.literal;
+      if (frame.typeList != null) {
+        String type = frame.typeList.get(0);
+        literal.setType(frame.context==null ? type : frame.context.expand(type));
+      } else if (frame.term != null) {
+        literal.setType(frame.term.getTypeIRI());
+      }
+      if (frame.linkSubject != null) {
+        emit(frame.linkSubject, frame.linkPredicate, literal);
+      }
+    }
+    
+    /**
+     * Determine the subject of the given object, and deliver the quads that were waiting for it.
+     * If the object does not have an &#064;id property, it is assigned a blank node.
+     */
+    private void resolve(Frame frame) {
+      if (frame.resolved) return;
+      frame.resolved = true;
+      
+      if (frame.subject == null) {
+        frame.subject = createBlankNode();
+      }
+      if (frame.linkSubject != null) {
+        emit(frame.linkSubject, frame.linkPredicate, frame.subject);
+      }
+      if (frame.typeList != null) {
+        for (String type : frame.typeList) {
+          emitType(frame, type);
+        }
+        frame.typeList = null;
+      }
+    }
+    
+    private void parseType(Frame frame) throws JsonParseException, IOException {
+      JsonToken token = jsonParser.nextToken();
+      if (token == JsonToken.START_ARRAY) {
+        while ( (token=jsonParser.nextToken()) == JsonToken.VALUE_STRING) {
+          addType(frame, jsonParser.getText());
+        }
+        if (token != JsonToken.END_ARRAY) {
+          throw new JsonParseException("Expected String value", jsonParser.getCurrentLocation());
+        }
+      } else if (token == JsonToken.VALUE_STRING) {
+        addType(frame, jsonParser.getText());
+      } else {
+        throw new JsonParseException("Expected String value", jsonParser.getCurrentLocation());
+      }
+    }
+    
+    private void addType(Frame frame, String type) {
+      if (frame.resolved) {
+        emitType(frame, type);
+        return;
+      }
+      if (frame.typeList == null) {
+        frame.typeList = new ArrayList<String>(1);
+      }
+      frame.typeList.add(type);
+    }
+    
+    private void emitType(Frame frame, String type) {
+      LdContext context = frame.context;
+      emit(frame.subject, new LdIriImpl(RDF_TYPE), new LdIriImpl(context==null ? type : context.expand(type)));
+    }
+    
+    /**
+     * Parse the nodes within a &#064;graph property.  These nodes are not linked to
+     * the object that contains the graph.
+     */
+    private void parseGraph(LdContext context) throws JsonParseException, IOException, LdContextParseException {
+      JsonToken token = jsonParser.nextToken();
+      if (token == JsonToken.START_OBJECT) {
+        parseObject(new Frame(context, null, null, null));
+        return;
+      }
+      if (token != JsonToken.START_ARRAY) {
+        throw new JsonParseException("Expected an object or array", jsonParser.getCurrentLocation());
+      }
+      while ( (token=jsonParser.nextToken()) == JsonToken.START_OBJECT) {
+        parseObject(new Frame(context, null, null, null));
+      }
+      if (token != JsonToken.END_ARRAY) {
+        throw new JsonParseException("Expected an object", jsonParser.getCurrentLocation());
+      }
+    }
+    
+    /**
+     * Deliver the quads for the value of a property.  The jsonParser must be positioned 
+     * at the first token of the value.
+     */
+    private void parseProperty(Frame frame, LdIRI predicate, LdTerm term) throws JsonParseException, IOException, LdContextParseException {
+      
+      JsonToken token = jsonParser.getCurrentToken();
+      switch (token) {
+      
+      case START_OBJECT :
+        parseObject(new Frame(frame.context, frame.subject, predicate, term));
+        break;
+        
+      case START_ARRAY :
+        while (jsonParser.nextToken() != JsonToken.END_ARRAY) {
+          parseProperty(frame, predicate, term);
+        }
+        break;
+        
+      case VALUE_NULL :
+        break;
+        
+      case VALUE_STRING :
+        if (term != null && "@id".equals(term.getRawTypeIRI())) {
+          emit(frame.subject, predicate, createResource(frame.context, jsonParser.getText()));
+        } else {
+          emitLiteral(frame, predicate, term);
+        }
+        break;
+        
+      case VALUE_FALSE :
+      case VALUE_TRUE :
+      case VALUE_NUMBER_FLOAT :
+      case VALUE_NUMBER_INT :
+        emitLiteral(frame, predicate, term);
+        break;
+        
+      default:
+        throw new JsonParseException(
+            "Expected the start of an object, array, or a literal value", jsonParser.getCurrentLocation());
+      }
+    }
+    
+    /**
+     * Deliver a quad whose object is the literal value at the current token of the jsonParser.
+     */
+    private void emitLiteral(Frame frame, LdIRI predicate, LdTerm term) throws JsonParseException, IOException {
+      LdLiteral literal = new LdLiteral();
+      parseValue(literal);
+      if (term != null) {
+        literal.setType(term.getTypeIRI());
+      }
+      emit(frame.subject, predicate, literal);
+    }
+    
+    /**
+     * Examine the current token, and based on that token, read a value from the jsonParser
+     * and record the value in the given literal.
+     */
+    private void parseValue(LdLiteral literal) throws JsonParseException, IOException {
+      
+      JsonToken token = jsonParser.getCurrentToken();
+      switch (token) {
+      
+      case VALUE_FALSE :
+      case VALUE_TRUE :
+        literal.setBooleanValue(jsonParser.getBooleanValue());
+        break;
+        
+      case VALUE_NUMBER_FLOAT:
+        literal.setDoubleValue(jsonParser.getDoubleValue());
+        break;
+        
+      case VALUE_NUMBER_INT:
+        literal.setLongValue(jsonParser.getLongValue());
+        break;
+        
+      case VALUE_STRING:
+        literal.setStringValue(jsonParser.getText());
+        break;
+        
+      default:
+        throw new JsonParseException("Expected a literal value", jsonParser.getCurrentLocation());
+      }
+      
+    }
+    
+    private LdNode createResource(LdContext context, String rawId) {
+      if (rawId.startsWith("_:")) {
+        LdBlankNodeImpl node = blankNodeMap.get(rawId);
+        if (node == null) {
+          node = createBlankNode();
+          blankNodeMap.put(rawId, node);
+        }
+        return node;
+      }
+      return new LdIriImpl(context==null ? rawId : context.expand(rawId));
+    }
+    
+    private LdBlankNodeImpl createBlankNode() {
+      blankNodeCount++;
+      return new LdBlankNodeImpl("_:b" + blankNodeCount);
+    }
+  
+    private String readString() throws JsonParseException, IOException {
+      if (jsonParser.nextToken() != JsonToken.VALUE_STRING) {
+        throw new JsonParseException("Expected String value", jsonParser.getCurrentLocation());
+      }
+      
+      return jsonParser.getText();
+    }
+    
+    private void emit(LdNode subject, LdIRI predicate, LdNode object) {
+      quadCount++;
+      callback.quad(new LdQuad(subject, predicate, object));
+    }
+  }
+
+}
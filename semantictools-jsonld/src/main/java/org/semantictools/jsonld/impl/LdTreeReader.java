@@ -2,13 +2,14 @@ package org.semantictools.jsonld.impl;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
 import java.util.Iterator;
 import java.util.Map.Entry;
 
 import org.codehaus.jackson.JsonNode;
 import org.codehaus.jackson.JsonParseException;
-import org.codehaus.jackson.JsonParser.Feature;
-import org.codehaus.jackson.map.ObjectMapper;
 import org.codehaus.jackson.node.ArrayNode;
 import org.codehaus.jackson.node.ObjectNode;
 import org.semantictools.jsonld.LdContainerType;
@@ -18,12 +19,18 @@ import org.semantictools.jsonld.LdLiteral;
 import org.semantictools.jsonld.LdNode;
 import org.semantictools.jsonld.LdObject;
 import org.semantictools.jsonld.LdTerm;
+import org.semantictools.jsonld.io.ByteBufferInputStream;
 import org.semantictools.jsonld.io.LdContextReader;
+import org.semantictools.jsonld.io.LdIriPool;
+import org.semantictools.jsonld.io.LdJsonFactory;
+import org.semantictools.jsonld.io.MappedFileInputStream;
 import org.semantictools.jsonld.io.LdParseException;
 import org.semantictools.jsonld.io.LdParser;
 
 public class LdTreeReader implements LdParser {
   private LdContextReader contextReader;
+  private LdIriPool iriPool = LdIriPool.getDefault();
+  private boolean lazy;
 
   public LdTreeReader(LdContextReader contextReader) {
     this.contextReader = contextReader;
@@ -32,39 +39,50 @@ public class LdTreeReader implements LdParser {
   @Override
   public LdNode parse(InputStream input) throws LdParseException, IOException {
     
-    ObjectMapper mapper = new ObjectMapper();
-    mapper.configure(Feature.ALLOW_COMMENTS, true);
-    JsonNode node = mapper.readTree(input);
+    JsonNode node = LdJsonFactory.getObjectMapper().readTree(input);
     if (! (node instanceof ObjectNode)) {
       throw new LdParseException("JSON-LD document must have an object as the root element");
     }
     
-    LdNode result = parseNode(node, null, null, null);
+    LdNode result = parseNode(node, null, null, null, new LdNodePool(iriPool));
     
     return result;
   }
   
-  LdNode parseNode(JsonNode node, LdObjectImpl parent, LdTerm term, LdField owner) throws JsonParseException, IOException, LdParseException {
+  @Override
+  public LdNode parse(Path file) throws LdParseException, IOException {
+    try (InputStream input = new MappedFileInputStream(file)) {
+      return parse(input);
+    }
+  }
+
+  @Override
+  public LdNode parse(FileChannel channel) throws LdParseException, IOException {
+    try (InputStream input = new MappedFileInputStream(channel, MappedFileInputStream.DEFAULT_WINDOW_SIZE)) {
+      return parse(input);
+    }
+  }
+
+  @Override
+  public LdNode parse(ByteBuffer buffer) throws LdParseException, IOException {
+    return parse(new ByteBufferInputStream(buffer));
+  }
+  
+  LdNode parseNode(JsonNode node, LdObjectImpl parent, LdTerm term, LdField owner, LdNodePool pool) throws JsonParseException, IOException, LdParseException {
     LdNode result = null;
     
     if ( node instanceof ObjectNode) {
-      result = parseObject((ObjectNode) node, parent, owner);
+      result = parseObject((ObjectNode) node, parent, owner, pool);
     } else if (node.isBoolean()) {
-      LdLiteral literal = new LdLiteral();
-      literal.setBooleanValue(node.getBooleanValue());
-      result = literal;
+      result = new LdLiteral(node.getBooleanValue());
     } else if (node.isFloatingPointNumber()) {
-      LdLiteral literal = new LdLiteral();
-      literal.setDoubleValue(node.getDoubleValue());
-      result = literal;
+      result = new LdLiteral(node.getDoubleValue());
     } else if (node.isLong() || node.isInt()) {
-      LdLiteral literal = new LdLiteral();
-      literal.setLongValue(node.getLongValue());
-      result = literal;
+      result = new LdLiteral(node.getLongValue());
     } else if (node.isTextual()) {
       result = parseStringNode(node.getTextValue(), parent, term);
     } else if (node.isArray()) {
-      result = parseArray((ArrayNode)node, parent, term, owner);
+      result = parseArray((ArrayNode)node, parent, term, owner, pool);
     }
      
     return result;
@@ -80,35 +98,33 @@ public class LdTreeReader implements LdParser {
       result = object;
     } else {
 
-      LdLiteral literal = new LdLiteral();
-      literal.setStringValue(text);
-      result = literal;
+      result = new LdLiteral(text);
       
     }
     return result;
   }
 
-  private LdNode parseArray(ArrayNode array, LdObjectImpl parent, LdTerm term, LdField owner) throws JsonParseException, IOException, LdParseException {
+  private LdNode parseArray(ArrayNode array, LdObjectImpl parent, LdTerm term, LdField owner, LdNodePool pool) throws JsonParseException, IOException, LdParseException {
     LdList list = new LdList(LdContainerType.SET);
-    parseElements(array, term, parent, list, owner);
+    parseElements(array, term, parent, list, owner, pool);
     
     return list;
   }
 
   private void parseElements(ArrayNode array, LdTerm term, LdObjectImpl parent, LdList list,
-      LdField field) throws JsonParseException, IOException, LdParseException {
+      LdField field, LdNodePool pool) throws JsonParseException, IOException, LdParseException {
     
     for (int i=0; i<array.size(); i++) {
         JsonNode node = array.get(i);
-        list.add(parseNode(node, parent, term, field));
+        list.add(parseNode(node, parent, term, field, pool));
     }
   }
     
 
-  private LdNode parseObject(ObjectNode node, LdObjectImpl parent, LdField owner) throws LdParseException, JsonParseException, IOException {
+  private LdNode parseObject(ObjectNode node, LdObjectImpl parent, LdField owner, LdNodePool pool) throws LdParseException, JsonParseException, IOException {
     JsonNode value = node.get("@value");
     if (value != null) {
-      return parseExtendedValue(node, parent, owner);
+      return parseExtendedValue(node, parent, owner, pool);
     }
     
     JsonNode contextNode = node.get("@context");
@@ -117,7 +133,12 @@ public class LdTreeReader implements LdParser {
     if (contextNode != null) {
       try {
         context = contextReader.parseContext(contextNode);
-        context.setParentContext(parentContext);
+        if (context != null && parentContext != null) {
+          // The context may be shared via the cache in the LdContextManager,
+          // so re-parent a shallow copy.
+          context = context.copy();
+          context.setParentContext(parentContext);
+        }
         
       } catch (Exception e) {
         throw new LdParseException(e);
@@ -128,14 +149,19 @@ public class LdTreeReader implements LdParser {
     if (context == null) {
       context = new LdContext();
     }
+    if (lazy) {
+      LazyLdObject object = new LazyLdObject(context, node, this, pool);
+      object.setOwner(owner);
+      return object;
+    }
     LdObjectImpl object = new LdObjectImpl(context);
     object.setOwner(owner);
-    parseFields(node, object, (ObjectNode)node, parent);
+    parseFields(node, object, pool);
     return object;
   }
 
   private LdNode parseExtendedValue(ObjectNode object, LdObjectImpl parent,
-      LdField owner) {
+      LdField owner, LdNodePool pool) {
     LdLiteral literal = new LdLiteral();
     
     Iterator<Entry<String,JsonNode>> sequence = object.getFields();
@@ -145,16 +171,16 @@ public class LdTreeReader implements LdParser {
       JsonNode node = entry.getValue();
       
       if (fieldName.equals("@language")) {
-        literal.setLanguage(node.getTextValue());
+        literal.setLanguage(pool.share(node.getTextValue()));
       } else if (fieldName.equals("@type")) {
-        literal.setType(node.getTextValue());
+        literal.setType(pool.share(node.getTextValue()));
       } else if ("@value".equals(fieldName)) {
         if (node.isBoolean()) {
           literal.setBooleanValue(node.getBooleanValue());
         } else if (node.isFloatingPointNumber()) {
           literal.setDoubleValue(node.getDoubleValue());
-        } else if (node.isLong()) {
-          literal.setLongValue(literal.getLongValue());
+        } else if (node.isLong() || node.isInt()) {
+          literal.setLongValue(node.getLongValue());
         } else if (node.isTextual()) {
           literal.setStringValue(node.getTextValue());
         }
@@ -164,8 +190,10 @@ public class LdTreeReader implements LdParser {
     return literal;
   }
 
-  private void parseFields(ObjectNode json, LdObjectImpl object, ObjectNode node,
-      LdObjectImpl parent) throws JsonParseException, IOException, LdParseException {
+  /**
+   * Build the fields of the given object from the given JSON tree.
+   */
+  void parseFields(ObjectNode json, LdObjectImpl object, LdNodePool pool) throws JsonParseException, IOException, LdParseException {
     
     FieldList fieldList = new FieldList();
     object.setFieldList(fieldList);
@@ -182,33 +210,13 @@ public class LdTreeReader implements LdParser {
       } else if ("@id".equals(fieldName)) {
         object.setId(value.getTextValue());
       } else if ("@type".equals(fieldName)) {
-        object.setRawType(value.getTextValue());
+        object.setRawType(pool.share(value.getTextValue()));
       } else {
 
         LdTerm term = (context==null) ? null : context.getTerm(fieldName);
-        LinkedLdField field = new LinkedLdField(object);
-  
-        // If the field name contains a '#', '/', or ':'
-        // then the simple name is substring after that delimiter.
-        
-        int delim = fieldName.lastIndexOf('#');
-        if (delim < 0) {
-          delim = fieldName.lastIndexOf('/');
-        }
-        if (delim < 0) {
-          delim = fieldName.lastIndexOf(':');
-        }
-        if (delim >= 0) {
-          field.setLocalName(fieldName.substring(delim+1));
-        } else {
-          field.setLocalName(fieldName);
-        }
+        LinkedLdField field = pool.createField(object, context, fieldName);
         
-        
-        String propertyIRI = (context == null) ? fieldName : context.expand(fieldName);
-        field.setPropertyURI(propertyIRI);
-        
-        LdNode v = parseNode(value, object, term, field);
+        LdNode v = parseNode(value, object, term, field, pool);
         field.setValue(v);
         setValueOwner(field);
   
@@ -268,9 +276,46 @@ public class LdTreeReader implements LdParser {
 
   }
 
+  /**
+   * Returns the LdIriPool in which property IRIs, datatype IRIs and other recurring
+   * strings are interned.  By default, this is the shared {@link LdIriPool#getDefault() pool}.
+   */
+  public LdIriPool getIriPool() {
+    return iriPool;
+  }
+
+  /**
+   * Sets the LdIriPool in which property IRIs, datatype IRIs and other recurring
+   * strings are interned.
+   */
+  public void setIriPool(LdIriPool iriPool) {
+    if (iriPool == null) {
+      throw new IllegalArgumentException("iriPool must not be null");
+    }
+    this.iriPool = iriPool;
+  }
+
   @Override
   public boolean isStreaming() {
     return false;
   }
 
+  /**
+   * Returns true if this reader produces objects whose fields are built on demand.
+   */
+  public boolean isLazy() {
+    return lazy;
+  }
+
+  /**
+   * Specify whether this reader produces objects whose fields are built on demand.
+   * A lazy reader suits consumers that inspect only some of the nodes in a document, 
+   * for instance only the &#064;id and &#064;type of the top-level object.  
+   * The JSON tree of each object is retained until its fields are built, so a 
+   * consumer that visits every node should use an eager reader, which is the default.
+   */
+  public void setLazy(boolean lazy) {
+    this.lazy = lazy;
+  }
+
 }
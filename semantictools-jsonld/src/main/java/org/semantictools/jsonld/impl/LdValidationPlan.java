@@ -0,0 +1,434 @@
+/*******************************************************************************
+ * Copyright 2012 Pearson Education
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package org.semantictools.jsonld.impl;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.semantictools.jsonld.LdClass;
+import org.semantictools.jsonld.LdContext;
+import org.semantictools.jsonld.LdDatatype;
+import org.semantictools.jsonld.LdProperty;
+import org.semantictools.jsonld.LdQualifiedRestriction;
+import org.semantictools.jsonld.LdRestriction;
+import org.semantictools.jsonld.LdTerm;
+import org.semantictools.jsonld.LdValidationResult;
+
+/**
+ * A compiled form of the validation rules defined by a JSON-LD context.
+ * <p>
+ * The plan resolves, once per context, the information that the validator would otherwise
+ * recompute for every object and every field: the flattened list of restrictions that apply
+ * to each class (including the restrictions inherited from supertypes), the effective 
+ * cardinality bounds, the datatype of each term together with its compiled facet checker, 
+ * and the domain of each property.  
+ * Domains are represented as bit sets over class ids that are assigned by the plan, so that
+ * domain membership is tested by intersecting the domain with the supertype closure of the 
+ * class.  The ids are local to the plan, so the id table holds only the classes of one context.
+ * <p>
+ * Entries are compiled lazily and cached, so a plan is cheap to create.  A plan is 
+ * threadsafe, and it is valid only for the context from which it was compiled.  The plan
+ * does not hold a reference to that context; instead, the context is passed to each method.
+ * 
+ * @author Greg McFall
+ *
+ */
+public class LdValidationPlan {
+  
+  static final String RDFS_LABEL = "http://www.w3.org/2000/01/rdf-schema#label";
+  static final String OWL_THING = "http://www.w3.org/2002/07/owl#Thing";
+  
+  private static final ClassPlan UNDEFINED_CLASS = new ClassPlan(null, 0);
+  
+  private Map<String, ClassPlan> classMap = new ConcurrentHashMap<String, ClassPlan>();
+  private Map<String, TermPlan> termMap = new ConcurrentHashMap<String, TermPlan>();
+  private Map<LdDatatype, LdDatatypeChecker> checkerMap = new ConcurrentHashMap<LdDatatype, LdDatatypeChecker>();
+  private Map<String, Integer> classIds = new ConcurrentHashMap<String, Integer>();
+  
+  /**
+   * Returns the compiled plan for the RDF class with the given URI, or null if
+   * the class is not defined in the context.
+   */
+  public ClassPlan getClassPlan(LdContext context, String classURI) {
+    if (classURI == null) return null;
+    ClassPlan plan = classMap.get(classURI);
+    if (plan == null) {
+      LdClass rdfClass = context.getClass(classURI);
+      plan = (rdfClass==null) ? UNDEFINED_CLASS : compileClass(context, rdfClass);
+      classMap.put(classURI, plan);
+    }
+    return (plan == UNDEFINED_CLASS) ? null : plan;
+  }
+  
+  /**
+   * Returns the compiled plan for the term with the given key.
+   * @param key Either the short name for the term, or a compact IRI, or a fully qualified IRI.
+   */
+  public TermPlan getTermPlan(LdContext context, String key) {
+    TermPlan plan = termMap.get(key);
+    if (plan == null) {
+      plan = compileTerm(context, key);
+      termMap.put(key, plan);
+    }
+    return plan;
+  }
+  
+  private ClassPlan compileClass(LdContext context, LdClass rdfClass) {
+    ClassPlan plan = new ClassPlan(rdfClass, getClassId(rdfClass.getURI()));
+    
+    List<RestrictionPlan> list = new ArrayList<RestrictionPlan>();
+    addRestrictions(context, plan, rdfClass, list);
+    plan.restrictions = list.toArray(new RestrictionPlan[list.size()]);
+    
+    return plan;
+  }
+
+  /**
+   * Add the restrictions for the given class and its supertypes, in the same order
+   * in which the validator has always reported them.
+   */
+  private void addRestrictions(LdContext context, ClassPlan plan, LdClass rdfClass, List<RestrictionPlan> list) {
+    
+    List<LdRestriction> restrictions = rdfClass.listRestrictions();
+    if (restrictions == null) return;
+    
+    for (LdRestriction restriction : restrictions) {
+      list.add(compileRestriction(context, plan, restriction));
+    }
+    
+    List<LdClass> superList = rdfClass.listSupertypes();
+    if (superList != null) {
+      for (LdClass superClass : superList) {
+        addRestrictions(context, plan, superClass, list);
+      }
+    }
+  }
+
+  private RestrictionPlan compileRestriction(LdContext context, ClassPlan plan, LdRestriction restriction) {
+    String propertyURI = restriction.getPropertyURI();
+    LdTerm term = context.getTerm(propertyURI);
+    
+    // The JSON-LD context may override the minimum cardinality of the property.
+    Integer minOverride = (term==null) ? null : term.getMinCardinality();
+    
+    RestrictionPlan r = new RestrictionPlan();
+    r.slot = plan.slot(propertyURI);
+    r.defaultName = (term==null) ? localName(propertyURI) : term.getShortName();
+    r.minCardinality = effectiveMin(restriction.getMinCardinality(), minOverride);
+    r.maxCardinality = restriction.getMaxCardinality();
+    
+    List<LdQualifiedRestriction> qlist = restriction.listQualifiedRestrictions();
+    if (qlist != null) {
+      r.qualifiedMin = new Integer[qlist.size()];
+      r.qualifiedMax = new Integer[qlist.size()];
+      for (int i=0; i<qlist.size(); i++) {
+        LdQualifiedRestriction qr = qlist.get(i);
+        r.qualifiedMin[i] = effectiveMin(qr.getMinCardinality(), minOverride);
+        r.qualifiedMax[i] = qr.getMaxCardinality();
+      }
+    }
+    
+    return r;
+  }
+  
+  private Integer effectiveMin(Integer minCardinality, Integer override) {
+    return (minCardinality==null || override==null) ? minCardinality : override;
+  }
+  
+  private TermPlan compileTerm(LdContext context, String key) {
+    TermPlan plan = new TermPlan();
+    LdTerm term = context.getTerm(key);
+    plan.term = term;
+    
+    if (term == null) {
+      plan.domainResult = LdValidationResult.ERROR;
+      plan.domainMessage = 
+          "Cannot expand property name to a URI.  The term '" + key + "' is not defined.";
+      plan.literalResult = LdValidationResult.ERROR;
+      plan.literalMessage = "No term is defined for this property";
+      return plan;
+    }
+    
+    plan.idref = "@id".equals(term.getRawTypeIRI());
+    compileDomain(context, plan, key);
+    compileDatatype(context, plan);
+    
+    return plan;
+  }
+  
+  private void compileDomain(LdContext context, TermPlan plan, String key) {
+    LdTerm term = plan.term;
+    LdProperty property = term.getProperty();
+    if (property == null) return;
+    
+    List<String> domainList = property.getDomain();
+    if (domainList == null) {
+      if (!RDFS_LABEL.equals(term.getIRI())) {
+        // Special handling for rdfs:label
+        plan.domainResult = LdValidationResult.WARNING;
+        plan.domainMessage = "The domain for the property '" + key + "' is not known.";
+      }
+      return;
+    }
+    
+    plan.checkDomain = true;
+    plan.domainSet = new HashSet<String>(domainList);
+    plan.domainBits = new BitSet();
+    for (String domainURI : domainList) {
+      plan.domainBits.set(getClassId(domainURI));
+    }
+  }
+
+  private void compileDatatype(LdContext context, TermPlan plan) {
+    LdTerm term = plan.term;
+    String typeIRI = term.getTypeIRI();
+    if (typeIRI == null) {
+      plan.literalResult = LdValidationResult.WARNING;
+      plan.literalMessage = "Cannot validate this property because the datatype is not known.";
+      return;
+    }
+    
+    plan.datatype = context.findDatatypeByURI(typeIRI);
+    if (plan.datatype != null) {
+      plan.checker = getChecker(plan.datatype);
+      return;
+    }
+    
+    // Don't warn about rdfs:label
+    
+    if (RDFS_LABEL.equals(term.getIRI())) return;
+    
+    // It is possible that the field is supposed to be an embedded object
+    // but was given an IRI reference as a string value instead.
+    // Let's test that hypothesis.
+    
+    LdTerm typeTerm = context.getTerm(typeIRI);
+    if (typeTerm == null) {
+      plan.literalResult = LdValidationResult.ERROR;
+      plan.literalMessage = "Term not found: " + typeIRI;
+      return;
+    }
+    
+    if (OWL_THING.equals(typeIRI)) {
+      // Special handling for properties of type owl:Thing.
+      return;
+    }
+    
+    plan.literalResult = LdValidationResult.WARNING;
+    plan.literalMessage = (typeTerm.getRdfClass() != null) ?
+        "Expected an embedded object but found an IRI reference" :
+        "Cannot validate this property because the datatype is not known.";
+  }
+  
+  /**
+   * Returns the compiled checker for the given datatype.  Terms that share a datatype
+   * share the same checker.
+   */
+  private LdDatatypeChecker getChecker(LdDatatype datatype) {
+    LdDatatypeChecker checker = checkerMap.get(datatype);
+    if (checker == null) {
+      checker = LdDatatypeChecker.compile(datatype);
+      checkerMap.put(datatype, checker);
+    }
+    return checker;
+  }
+  
+  /**
+   * Returns true if the class with the given URI is a member of the domain of the
+   * given term, either directly or through one of its supertypes.
+   */
+  public boolean isMemberOf(LdContext context, String typeURI, TermPlan term) {
+    if (term.domainSet.contains(typeURI)) return true;
+    
+    ClassPlan plan = getClassPlan(context, typeURI);
+    return plan != null && plan.getSupertypeBits(this).intersects(term.domainBits);
+  }
+  
+  /**
+   * Returns the id of the RDF class with the given URI within this plan.  
+   * Equal URIs always map to the same id, and ids are small non-negative integers
+   * suitable for use as bit set indices.
+   */
+  int getClassId(String classURI) {
+    Integer id = classIds.get(classURI);
+    if (id == null) {
+      synchronized (classIds) {
+        id = classIds.get(classURI);
+        if (id == null) {
+          id = classIds.size();
+          classIds.put(classURI, id);
+        }
+      }
+    }
+    return id;
+  }
+  
+  private String localName(String propertyURI) {
+    int delim = propertyURI.lastIndexOf('#');
+    if (delim < 0) {
+      delim = propertyURI.lastIndexOf('/');
+    }
+    if (delim < 0) {
+      return propertyURI;
+    }
+    return propertyURI.substring(delim+1);
+  }
+  
+  /**
+   * The compiled restrictions for an RDF class.  Each property that has a restriction
+   * is assigned a slot, so that the cardinality of the properties on an object can be
+   * recorded in an array.
+   */
+  public static class ClassPlan {
+    private LdClass rdfClass;
+    private int index;
+    private Map<String, Integer> slotMap = new HashMap<String, Integer>();
+    private RestrictionPlan[] restrictions;
+    private volatile Supertypes supertypes;
+    
+    ClassPlan(LdClass rdfClass, int index) {
+      this.rdfClass = rdfClass;
+      this.index = index;
+    }
+    
+    /**
+     * Returns the RDF class from which this plan was compiled.
+     */
+    public LdClass getRdfClass() {
+      return rdfClass;
+    }
+    
+    /**
+     * Returns the id of this class within the plan.
+     */
+    public int getIndex() {
+      return index;
+    }
+    
+    /**
+     * Returns the number of slots in this class.
+     */
+    public int getSlotCount() {
+      return slotMap.size();
+    }
+    
+    /**
+     * Returns the slot for the property with the given URI, or -1 if the 
+     * property is not restricted by this class.
+     */
+    public int getSlot(String propertyURI) {
+      Integer slot = slotMap.get(propertyURI);
+      return (slot==null) ? -1 : slot;
+    }
+    
+    RestrictionPlan[] getRestrictions() {
+      return restrictions;
+    }
+    
+    /**
+     * Returns the ids of the supertypes of this class.  The bits are recomputed only
+     * when the supertype closure of the class changes.
+     */
+    BitSet getSupertypeBits(LdValidationPlan owner) {
+      Set<String> closure = rdfClass.getSupertypeURIs();
+      Supertypes s = supertypes;
+      if (s == null || s.closure != closure) {
+        BitSet bits = new BitSet();
+        for (String uri : closure) {
+          bits.set(owner.getClassId(uri));
+        }
+        s = new Supertypes(closure, bits);
+        supertypes = s;
+      }
+      return s.bits;
+    }
+    
+    private int slot(String propertyURI) {
+      Integer slot = slotMap.get(propertyURI);
+      if (slot == null) {
+        slot = slotMap.size();
+        slotMap.put(propertyURI, slot);
+      }
+      return slot;
+    }
+  }
+  
+  /**
+   * The supertype closure of a class, as a set of ids.
+   */
+  private static class Supertypes {
+    private final Set<String> closure;
+    private final BitSet bits;
+    
+    Supertypes(Set<String> closure, BitSet bits) {
+      this.closure = closure;
+      this.bits = bits;
+    }
+  }
+  
+  /**
+   * The compiled form of a restriction, with the effective cardinality bounds.
+   */
+  static class RestrictionPlan {
+    int slot;
+    String defaultName;
+    Integer minCardinality;
+    Integer maxCardinality;
+    Integer[] qualifiedMin;
+    Integer[] qualifiedMax;
+  }
+  
+  /**
+   * The compiled validation rules for a term.  If the outcome of a check does not depend
+   * on the document, the message for that outcome is precomputed.
+   */
+  public static class TermPlan {
+    LdTerm term;
+    boolean idref;
+    
+    LdValidationResult domainResult;
+    String domainMessage;
+    boolean checkDomain;
+    Set<String> domainSet;
+    BitSet domainBits;
+    
+    LdValidationResult literalResult;
+    String literalMessage;
+    LdDatatype datatype;
+    LdDatatypeChecker checker;
+    
+    /**
+     * Returns the term, or null if the term is not defined in the context.
+     */
+    public LdTerm getTerm() {
+      return term;
+    }
+    
+    /**
+     * Returns true if the values of this term are IRI references.
+     */
+    public boolean isIdref() {
+      return idref;
+    }
+  }
+
+}
@@ -15,44 +15,101 @@
  ******************************************************************************/
 package org.semantictools.jsonld.impl;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
 
 import org.semantictools.jsonld.AmbiguousRestrictionException;
 import org.semantictools.jsonld.LdClass;
 import org.semantictools.jsonld.LdContainer;
 import org.semantictools.jsonld.LdContext;
-import org.semantictools.jsonld.LdDatatype;
 import org.semantictools.jsonld.LdField;
 import org.semantictools.jsonld.LdLiteral;
 import org.semantictools.jsonld.LdNode;
 import org.semantictools.jsonld.LdObject;
 import org.semantictools.jsonld.LdProperty;
-import org.semantictools.jsonld.LdQualifiedRestriction;
 import org.semantictools.jsonld.LdRestriction;
 import org.semantictools.jsonld.LdTerm;
-import org.semantictools.jsonld.LdType;
 import org.semantictools.jsonld.LdValidationMessage;
 import org.semantictools.jsonld.LdValidationReport;
 import org.semantictools.jsonld.LdValidationResult;
 import org.semantictools.jsonld.LdValidationService;
+import org.semantictools.jsonld.impl.LdValidationPlan.ClassPlan;
+import org.semantictools.jsonld.impl.LdValidationPlan.RestrictionPlan;
+import org.semantictools.jsonld.impl.LdValidationPlan.TermPlan;
 
 public class LdValidationServiceImpl implements LdValidationService {
   private Set<String> ignoredProperties;
+  private PlanCache planCache = new PlanCache();
   
   public LdValidationServiceImpl() {
   }
 
+  /**
+   * Validate the given node, and return a report.
+   * <p>
+   * If the node was produced by a {@link LdParserImpl streaming parser}, then the
+   * document is validated in a single pass while it is being parsed.  In this case,
+   * the validator holds only the objects along the current path plus a cardinality 
+   * counter for each property of those objects, so memory usage is proportional to the
+   * depth of the document rather than its size.  The streaming parser expects the 
+   * JSON-LD keywords (such as &#064;context and &#064;type) to appear at the beginning
+   * of each object.
+   */
   @Override
   public LdValidationReport validate(LdNode node) {
     // To ensure that this method is threadsafe, use a delegate.
-    Delegate delegate = new Delegate(ignoredProperties);
+    Delegate delegate = new Delegate(ignoredProperties, planCache, LdParserImpl.isStreamingNode(node));
     return delegate.validate(node);
   }
   
+  /**
+   * Returns the validation plan for the given context, compiling it if necessary.
+   * Plans are cached for as long as the context remains in use.  Copies of a context
+   * that inherit from equivalent parents share the same plan.
+   */
+  public LdValidationPlan getValidationPlan(LdContext context) {
+    return planCache.get(context);
+  }
+  
+  /**
+   * A cache of validation plans.
+   * <p>
+   * A parser re-parents a shallow copy of a shared context for each embedded &#064;context, 
+   * so plans are keyed by the {@link LdContext#getOrigin() origin} of the context rather 
+   * than the context itself.  Since a copy may inherit terms from a different parent, the 
+   * plan for an origin is further keyed by the origins of its ancestors.
+   */
+  static class PlanCache {
+    private Map<LdContext, Map<List<LdContext>, LdValidationPlan>> originMap =
+        new WeakHashMap<LdContext, Map<List<LdContext>, LdValidationPlan>>();
+    
+    public synchronized LdValidationPlan get(LdContext context) {
+      LdContext origin = context.getOrigin();
+      Map<List<LdContext>, LdValidationPlan> planMap = originMap.get(origin);
+      if (planMap == null) {
+        planMap = new HashMap<List<LdContext>, LdValidationPlan>();
+        originMap.put(origin, planMap);
+      }
+      
+      List<LdContext> ancestors = new ArrayList<LdContext>();
+      for (LdContext parent = context.getParentContext(); parent != null; parent = parent.getParentContext()) {
+        ancestors.add(parent.getOrigin());
+      }
+      
+      LdValidationPlan plan = planMap.get(ancestors);
+      if (plan == null) {
+        plan = new LdValidationPlan();
+        planMap.put(ancestors, plan);
+      }
+      return plan;
+    }
+  }
+  
 
   /**
    * A non-threadsafe implementation.
@@ -64,11 +121,40 @@ public class LdValidationServiceImpl implements LdValidationService {
 
   private Set<String> ignoredProperties;
   private LdValidationReport report;
+  private boolean streaming;
+  private PlanCache planCache;
+  
+  /**
+   * The context for the most recently used plan.  Nested objects usually share
+   * the context of their parent, so this saves a lookup in the planCache.
+   */
+  private LdContext planContext;
+  private LdValidationPlan plan;
   
   
   
   public Delegate(Set<String> ignoredProperties) {
+    this(ignoredProperties, new PlanCache(), false);
+  }
+  
+  /**
+   * Create a new Delegate.
+   * @param planCache The cache of validation plans.
+   * @param streaming true if the nodes to be validated come from a streaming parser, 
+   * in which case the fields of each object are visited exactly once.
+   */
+  public Delegate(Set<String> ignoredProperties, PlanCache planCache, boolean streaming) {
     this.ignoredProperties = ignoredProperties;
+    this.planCache = planCache;
+    this.streaming = streaming;
+  }
+  
+  private LdValidationPlan plan(LdContext context) {
+    if (context != planContext) {
+      plan = planCache.get(context);
+      planContext = context;
+    }
+    return plan;
   }
 
 
@@ -77,6 +163,8 @@ public class LdValidationServiceImpl implements LdValidationService {
     report = new LdValidationReport();
     if (node.isObject()) {
       validateObject("", node.asObject());
+    } else if (streaming) {
+      drain(node);
     }
     return report;
   }
@@ -88,7 +176,6 @@ public class LdValidationServiceImpl implements LdValidationService {
       objectType = inferQualifiedType(path, obj);
       obj.setTypeIRI(objectType);
     }
-    RandomAccessObject object = new RandomAccessObject(obj);
     LdContext context = obj.getContext();
    
     
@@ -97,16 +184,27 @@ public class LdValidationServiceImpl implements LdValidationService {
     if (path.length()>0) {
       path = path + ".";
     }
-    LdClass dr = null;
+    ClassPlan dr = null;
     if (context == null) {
       warn(path, "JSON-LD context is undefined");
     } else {
-      dr = context.getClass(objectType);
+      dr = plan(context).getClassPlan(context, objectType);
+    }
+    FieldCounters counters = (dr==null) ? null : new FieldCounters(dr);
+    if (streaming) {
+      // The fields can be read only once, so validate each field as it is
+      // streamed, and check the restrictions afterwards using the cardinality counters.
+      validateFields(path, obj, counters);
+      if (dr != null) {
+        validateObject(path, counters);
+      }
+      return;
     }
     if (dr != null) {
-      validateObject(path, object, dr);
+      counters.count(obj);
+      validateObject(path, counters);
     }
-    validateFields(path, object);
+    validateFields(path, obj, null);
     
   }
   
@@ -154,116 +252,115 @@ public class LdValidationServiceImpl implements LdValidationService {
     
   }
 
-  private void validateFields(String path, RandomAccessObject obj) {
-    Iterator<LdField> sequence = obj.getNode().fields();
+  private void validateFields(String path, LdObject obj, FieldCounters counters) {
+    Iterator<LdField> sequence = obj.fields();
     if (sequence == null) return;
     while (sequence.hasNext()) {
       LdField field = sequence.next();
       String fieldName = field.getLocalName();
       String fieldPath = path + fieldName;
-      validateField(fieldPath, field);
+      int cardinality = validateField(fieldPath, field);
+      if (counters != null) {
+        counters.add(field, cardinality);
+      }
     }
     
   }
 
-  private void validateObject(String path, RandomAccessObject object, LdClass dr) {
-    if (dr.listRestrictions()==null) return;
+  /**
+   * Check the restrictions of the object's class, and of all its supertypes, against
+   * the cardinality of the object's properties.
+   */
+  private void validateObject(String path, FieldCounters counters) {
     
-    for (LdRestriction restriction : dr.listRestrictions()) {
-      String propertyURI = restriction.getPropertyURI();
-      LdField field = object.getField(propertyURI);
-      String fieldName = getFieldName(object, field, propertyURI);
+    for (RestrictionPlan restriction : counters.plan.getRestrictions()) {
+      int slot = restriction.slot;
+      String fieldName = counters.localName[slot];
+      if (fieldName == null) {
+        fieldName = restriction.defaultName;
+      }
       
       String fieldPath = path + fieldName;
-      Integer minCardinality = restriction.getMinCardinality();
-      Integer maxCardinality = restriction.getMaxCardinality();
+      int cardinality = counters.cardinality[slot];
       
-      LdContext context = object.getNode().getContext();
+      validateCardinality(fieldPath, restriction.minCardinality, restriction.maxCardinality, cardinality);
       
-      int cardinality = getCardinality(field);
-      
-      if (minCardinality != null) {
-        validateMinCardinality(context, object.getNode(), propertyURI, fieldPath, minCardinality, cardinality);
-      }
-      
-      if (maxCardinality != null) {
-        validateMaxCardinality(fieldPath, maxCardinality, cardinality);
+      if (restriction.qualifiedMin != null) {
+        for (int i=0; i<restriction.qualifiedMin.length; i++) {
+          validateCardinality(fieldPath, restriction.qualifiedMin[i], restriction.qualifiedMax[i], cardinality);
+        }
       }
-
-      validateQualifiedRestrictions(context, fieldPath, restriction, field, cardinality);
       
     }
-
-    validateSuperDomains(path, object, dr);
     
   }
   
-
-  private void validateQualifiedRestrictions(
-      LdContext context,
-      String fieldPath, LdRestriction restriction, LdField field, int cardinality) {
-   
-    List<LdQualifiedRestriction> list = restriction.listQualifiedRestrictions();
-    if (list == null) return;
-    
-    for (LdQualifiedRestriction qr : list) {
-
-      Integer minCardinality = qr.getMinCardinality();
-      Integer maxCardinality = qr.getMaxCardinality();
-      
-      LdObject owner = field==null ? null : field.getOwner();
-      String propertyURI = field==null ? qr.getRestriction().getPropertyURI() : field.getPropertyURI();
-      
-      LdContext c = (owner==null) ? context : owner.getContext();
-
-      if (minCardinality != null) {
-        validateMinCardinality(c, owner, propertyURI, fieldPath, minCardinality, cardinality);
-      }
-      
-      if (maxCardinality != null) {
-        validateMaxCardinality(fieldPath, maxCardinality, cardinality);
-      }
+  private void validateCardinality(String fieldPath, Integer minCardinality, Integer maxCardinality, int cardinality) {
+    if (minCardinality != null) {
+      validateMinCardinality(fieldPath, minCardinality, cardinality);
     }
     
-  }
-
-  private void validateSuperDomains(String path, RandomAccessObject object, LdClass dr) {
-    
-    List<LdClass> superList = dr.listSupertypes();
-    if (superList == null) return;
-    
-    for (LdClass superDomain : superList) {
-      validateObject(path, object, superDomain);
+    if (maxCardinality != null) {
+      validateMaxCardinality(fieldPath, maxCardinality, cardinality);
     }
-    
   }
 
-  private void validateField(String path, LdField field) {
+  /**
+   * Validate the given field, and return the number of values that it holds.
+   * The number of values is computed only when streaming.
+   */
+  private int validateField(String path, LdField field) {
    
-    if (field == null) return;
-    if (ignoredProperties!=null && ignoredProperties.contains(field.getPropertyURI())) {
-      return;
-    }
+    if (field == null) return 0;
     
     LdNode value = field.getValue();
+    if (ignoredProperties!=null && ignoredProperties.contains(field.getPropertyURI())) {
+      return streaming ? drain(value) : 0;
+    }
 
     validateDomain(path, field);
     
     if (value.isObject()) {    
-      LdTerm term = field.getOwner().getContext().getTerm(field.getPropertyURI());
-      if (term != null && !"@id".equals(term.getRawTypeIRI())) {
+      TermPlan term = getTermPlan(field.getOwner().getContext(), field.getPropertyURI());
+      if (term != null && term.term != null && !term.idref) {
         validateObject(path, value.asObject());
+      } else if (streaming) {
+        drain(value);
       }
       
     } else if (value.isContainer()) {
-      validateContainer(path, value.asContainer());
+      return validateContainer(path, value.asContainer());
       
     } else if (value.isLiteral()) {
       validateLiteral(path, field, value.asLiteral());
     }
     
+    return 1;
     
-    
+  }
+  
+  /**
+   * Read the remaining contents of a node produced by a streaming parser without 
+   * validating them, and return the number of values that the node represents.
+   */
+  private int drain(LdNode node) {
+    int count = 1;
+    if (node.isObject()) {
+      Iterator<LdField> sequence = node.asObject().fields();
+      if (sequence != null) {
+        while (sequence.hasNext()) {
+          drain(sequence.next().getValue());
+        }
+      }
+    } else if (node.isContainer()) {
+      count = 0;
+      Iterator<LdNode> sequence = node.asContainer().iterator();
+      while (sequence.hasNext()) {
+        drain(sequence.next());
+        count++;
+      }
+    }
+    return count;
   }
 
 
@@ -281,86 +378,23 @@ public class LdValidationServiceImpl implements LdValidationService {
       return;
     }
     
-    LdTerm fieldTerm = context.getTerm(field.getLocalName());
-    if (fieldTerm == null) {
-      String msg  = "No term is defined for this property";
-      error(path, msg);
-      return;
-    }
-    
-    String typeIRI = fieldTerm.getTypeIRI();
-    if (typeIRI == null) {
-      String msg = "Cannot validate this property because the datatype is not known.";
-      warn(path, msg);
+    TermPlan term = plan(context).getTermPlan(context, field.getLocalName());
+    if (term.literalMessage != null) {
+      report(term.literalResult, path, term.literalMessage);
       return;
     }
     
-    LdDatatype datatype = context.findDatatypeByURI(typeIRI);
-    
-    if (datatype == null) {
-      
-      // Don't warn about rdfs:label
-      
-      if (!"http://www.w3.org/2000/01/rdf-schema#label".equals(fieldTerm.getIRI())) {
-        // It is possible that the field is supposed to be an embedded object
-        // but was given an IRI reference as a string value instead.
-        // Let's test that hypothesis.
-        
-        LdTerm typeTerm = context.getTerm(typeIRI);
-        if (typeTerm == null) {
-          error(path, "Term not found: " + typeIRI);
-          return;
-        }
-        LdClass rdfClass = typeTerm.getRdfClass();
-        
-        if ("http://www.w3.org/2002/07/owl#Thing".equals(typeIRI)) {
-          // Special handling for properties of type owl:Thing.
-          return;
-        }
-        
-        if (rdfClass != null) {
-          String msg = "Expected an embedded object but found an IRI reference";
-          warn(path, msg);
-        } else {
-          String msg = "Cannot validate this property because the datatype is not known.";
-          warn(path, msg);
-        }
-      }
-      return;
+    if (term.checker != null) {
+      term.checker.check(path, value, report);
     }
     
-    validateLiteral(path, value, datatype);
-    
-    
   }
-
-  private void validateLiteral(String path, LdLiteral value, LdDatatype datatype) {
-    // TODO: validate dateTime and duration syntax
-    
-    // String validation
-    
-    if (
-        (datatype.getMaxLength() != null) && 
-        (value.getStringValue().length()>datatype.getMaxLength())
-    ) {
-      String msg =
-          "Should have maxLength=" + datatype.getMaxLength() + ", but found length=" +
-           value.getStringValue().length();
-      
-      error(path, msg);
-      
-    }
-    
-    if (
-        (datatype.getPattern() != null) &&
-        (!datatype.getPattern().matcher(value.getStringValue()).matches()) 
-    ) {
-      String msg =
-          "Value does not match the " + datatype.getLocalName() + " pattern: " + datatype.getPattern().pattern();
-      error(path, msg);
-    }
-    // TODO: perform other string validation
-    
+  
+  /**
+   * Returns the plan for the term with the given key, or null if the context is not defined.
+   */
+  private TermPlan getTermPlan(LdContext context, String key) {
+    return (context==null) ? null : plan(context).getTermPlan(context, key);
   }
 
   private void validateDomain(String path, LdField field) {
@@ -376,26 +410,13 @@ public class LdValidationServiceImpl implements LdValidationService {
       return;
     } 
 
-    LdTerm term = context.getTerm(fieldName);
-    if (term == null) {
-      String msg = 
-          "Cannot expand property name to a URI.  The term '" + fieldName + "' is not defined.";
-      report(LdValidationResult.ERROR, path, msg);
-      return;
-    }
-    LdProperty property = term.getProperty();
-    if (property == null) return;
-    
-    List<String> domainList = property.getDomain();
-    if (domainList == null) {
-      if (!"http://www.w3.org/2000/01/rdf-schema#label".equals(term.getIRI())) {
-        // Special handling for rdfs:label
-        String msg =
-            "The domain for the property '" + fieldName + "' is not known.";
-        report(LdValidationResult.WARNING, path, msg);
-      }
+    LdValidationPlan plan = plan(context);
+    TermPlan term = plan.getTermPlan(context, fieldName);
+    if (term.domainMessage != null) {
+      report(term.domainResult, path, term.domainMessage);
       return;
     }
+    if (!term.checkDomain) return;
     
     String ownerType = getOwnerType(field);
     if (ownerType == null) {
@@ -405,7 +426,7 @@ public class LdValidationServiceImpl implements LdValidationService {
       return;
     }
     
-   if (!isMemberOf(context, ownerType, domainList)) {
+   if (!plan.isMemberOf(context, ownerType, term)) {
      String msg = "Invalid domain for this property";
      report(LdValidationResult.ERROR, path, msg);
    }
@@ -449,35 +470,9 @@ public class LdValidationServiceImpl implements LdValidationService {
 
 
   /**
-   * Returns true if the type named by the typeURI parameter is one of the
-   * classes in the given uriList, or a subclass of one of those classes.
+   * Validate the elements of the given container, and return the number of elements.
    */
-  private boolean isMemberOf(
-      LdContext context, String typeURI, List<String> uriList
-  ) {
-    if (uriList.contains(typeURI)) return true;
-    
-    LdClass dr = context.getClass(typeURI);
-    return isSuperMemberOf(context, uriList, dr);
-  }
-
-  private boolean isSuperMemberOf(LdContext context, List<String> uriList, LdClass dr) {
-    
-    if (dr == null) return false;
-    
-    List<LdClass> list = dr.listSupertypes();
-    if (list != null) {
-      for (LdClass superDR : list) {
-        String domainURI = superDR.getURI();
-        if (uriList.contains(domainURI)) return true;
-        if (isSuperMemberOf(context, uriList, superDR)) return true;
-      }
-    }
-    
-    return false;
-  }
-
-  private void validateContainer(String path, LdContainer container) {
+  private int validateContainer(String path, LdContainer container) {
 
     int index = 0;
     Iterator<LdNode> sequence = container.iterator();
@@ -485,11 +480,8 @@ public class LdValidationServiceImpl implements LdValidationService {
     LdObject ownerObject = field.getOwner();
     LdContext context = ownerObject.getContext();
     
-    boolean idref = false;
-    LdTerm term = context.getTerm(field.getPropertyURI());
-    if (term != null && "@id".equals(term.getRawTypeIRI())) {
-      idref = true;
-    }
+    TermPlan term = getTermPlan(context, field.getPropertyURI());
+    boolean idref = (term != null && term.idref);
     
     while (sequence.hasNext()) {
       LdNode node = sequence.next();
@@ -505,11 +497,14 @@ public class LdValidationServiceImpl implements LdValidationService {
         } else {
           validateLiteral(elemPath, field, node.asLiteral());
         }
+      } else if (streaming && node.isContainer()) {
+        drain(node);
       }
       
       
       index++;
     }
+    return index;
     
   }
 
@@ -528,44 +523,12 @@ public class LdValidationServiceImpl implements LdValidationService {
   }
 
 
-  private String getFieldName(RandomAccessObject object, LdField field, String propertyURI) {
-    if (field != null) {
-      return field.getLocalName();
-    }
-    LdContext context = object.getNode().getContext();
-    if (context == null) {
-      return getLocalName(propertyURI);
-    }
-    LdTerm term = context.getTerm(propertyURI);
-    
-    return term==null ? getLocalName(propertyURI) : term.getShortName();
-  }
-
-  
-  private String getLocalName(String propertyURI) {
-    int delim = propertyURI.lastIndexOf('#');
-    if (delim < 0) {
-      delim = propertyURI.lastIndexOf('/');
-    }
-    if (delim < 0) {
-      return propertyURI;
-    }
-    return propertyURI.substring(delim+1);
-  }
-
-
-  private void validateMinCardinality(
-      LdContext context,
-      LdObject object, String propertyURI, String fieldPath, int minCardinality, int cardinality) {
-    
-    /**
-     * Check to see if the minimum cardinality has an override in the
-     * JSON-LD context.
-     */
-    LdTerm term = context.getTerm(propertyURI);
-    if (term.getMinCardinality() != null) {
-      minCardinality = term.getMinCardinality();
-    }
+  /**
+   * Report an error if the cardinality is less than the given minimum.  Any override
+   * of the minimum cardinality in the JSON-LD context has already been applied by the
+   * validation plan.
+   */
+  private void validateMinCardinality(String fieldPath, int minCardinality, int cardinality) {
     
     if (cardinality < minCardinality) {
       String message =
@@ -600,38 +563,42 @@ public class LdValidationServiceImpl implements LdValidationService {
 
 
 
-  static class RandomAccessObject {
-    private Map<String, LdField> fieldMap;
-    private LdObject object;
+  /**
+   * Records the local name and cardinality of each restricted property on an object,
+   * indexed by the slots of the object's class.
+   * When streaming, the counters are populated as the fields are visited; 
+   * otherwise they are computed from the fields of the object before validation.
+   */
+  class FieldCounters {
+    private ClassPlan plan;
+    private String[] localName;
+    private int[] cardinality;
+    
+    FieldCounters(ClassPlan plan) {
+      this.plan = plan;
+      localName = new String[plan.getSlotCount()];
+      cardinality = new int[plan.getSlotCount()];
+    }
     
-    public RandomAccessObject(LdObject object) {
-      this.object = object;
-      fieldMap = new HashMap<String, LdField>();
+    void count(LdObject object) {
       Iterator<LdField> sequence = object.fields();
       if (sequence != null) {
         while (sequence.hasNext()) {
           LdField field = sequence.next();
-          fieldMap.put(field.getPropertyURI(), field);
+          add(field, getCardinality(field));
         }
       }
-      
     }
     
-    public LdObject getNode() {
-      return object;
-    }
-
-
-
-    public LdField getField(String propertyURI) {
-      return fieldMap.get(propertyURI);
-    }
-
-    public String toString() {
-      return "RadnomAccessObject(" + object.getId() + ")";
+    void add(LdField field, int count) {
+      int slot = plan.getSlot(field.getPropertyURI());
+      if (slot >= 0) {
+        localName[slot] = field.getLocalName();
+        cardinality[slot] = count;
+      }
     }
     
-    }
+  }
 
 
 
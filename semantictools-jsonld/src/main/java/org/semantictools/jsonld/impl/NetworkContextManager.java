@@ -28,10 +28,27 @@ public class NetworkContextManager implements LdContextManager {
   private static Logger logger = LoggerFactory.getLogger(NetworkContextManager.class);
   
   private LdContextReader contextReader;
+  private LdContextCache contextCache = new LdContextCache();
   
   public NetworkContextManager(LdContextReader reader) {
     contextReader = reader;
   }
+  
+  /**
+   * Returns the cache that holds contexts previously downloaded by this manager,
+   * or null if caching is disabled.
+   */
+  public LdContextCache getContextCache() {
+    return contextCache;
+  }
+
+  /**
+   * Sets the cache that holds contexts previously downloaded by this manager.
+   * A null value disables caching, so that every lookup downloads the context afresh.
+   */
+  public void setContextCache(LdContextCache contextCache) {
+    this.contextCache = contextCache;
+  }
 
   /**
    * Attempts to download and parse the specified context directly from
@@ -39,12 +56,21 @@ public class NetworkContextManager implements LdContextManager {
    */
   @Override
   public LdContext findContext(String contextURI) {
+    
+    LdContext cached = (contextCache==null) ? null : contextCache.get(contextURI, false);
+    if (cached != null) {
+      return cached;
+    }
    
     try {
       URL url = new URL(contextURI);
       InputStream stream = url.openStream();
       try {
         LdContext context = contextReader.parseExternalContext(stream);
+        if (context != null && contextCache != null) {
+          context.setContextURI(contextURI);
+          contextCache.put(contextURI, false, context);
+        }
         return context;
       } finally {
         safeClose(stream);
@@ -66,9 +92,14 @@ public class NetworkContextManager implements LdContextManager {
     
   }
 
+  /**
+   * Returns the enhanced rendition of the specified context, if an EnhancedLdContextReader
+   * has put it in the cache of this manager, or null otherwise.  This manager does not
+   * enhance contexts itself.
+   */
   @Override
   public LdContext findEnhancedContext(String contextURI) {
-    return null;
+    return (contextCache==null) ? null : contextCache.get(contextURI, true);
   }
 
   @Override
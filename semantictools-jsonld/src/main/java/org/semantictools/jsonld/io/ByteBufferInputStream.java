@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright 2012 Pearson Education
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package org.semantictools.jsonld.io;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * An InputStream that reads the remaining bytes of a ByteBuffer.  Bytes are transferred 
+ * directly from the buffer into the caller's array, so a parser that reads from this 
+ * stream does not require any intermediate copy of the data.  
+ * <p>
+ * The stream reads from a duplicate of the given buffer, so the position of the 
+ * original buffer is not changed.
+ * 
+ * @author Greg McFall
+ *
+ */
+public class ByteBufferInputStream extends InputStream {
+  
+  private ByteBuffer buffer;
+  
+  public ByteBufferInputStream(ByteBuffer buffer) {
+    this.buffer = buffer.duplicate();
+  }
+
+  @Override
+  public int read() {
+    return buffer.hasRemaining() ? (buffer.get() & 0xff) : -1;
+  }
+
+  @Override
+  public int read(byte[] array, int offset, int length) {
+    if (length == 0) return 0;
+    int count = Math.min(length, buffer.remaining());
+    if (count == 0) return -1;
+    buffer.get(array, offset, count);
+    return count;
+  }
+
+  @Override
+  public long skip(long n) {
+    int count = (int) Math.min(Math.max(n, 0), buffer.remaining());
+    buffer.position(buffer.position() + count);
+    return count;
+  }
+
+  @Override
+  public int available() {
+    return buffer.remaining();
+  }
+
+}
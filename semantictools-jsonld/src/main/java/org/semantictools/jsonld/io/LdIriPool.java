@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright 2012 Pearson Education
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package org.semantictools.jsonld.io;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A threadsafe, bounded dictionary of the IRIs and names that recur throughout 
+ * JSON-LD contexts and documents: property IRIs, datatype IRIs, type values, 
+ * languages and term names.  The readers and parsers store each of these strings 
+ * once, so that a large document does not hold thousands of equal copies, and so
+ * that comparisons and hash lookups on the validation path are satisfied by 
+ * identity and by the hash code cached in the shared instance.
+ * <p>
+ * The pool should not be used for values that are unique to a document, such as 
+ * the IRIs of individual nodes or the text of literals.  When the pool reaches its 
+ * maximum size, it is cleared and begins to fill again, so an interned string is 
+ * equal, but not necessarily identical, to strings interned earlier.
+ * <p>
+ * A single pool, returned by {@link #getDefault()}, is shared by all readers and
+ * parsers unless they are configured with a pool of their own.
+ * 
+ * @author Greg McFall
+ *
+ */
+public class LdIriPool {
+  
+  public static final int DEFAULT_MAX_SIZE = 100000;
+  
+  private static volatile LdIriPool defaultPool = new LdIriPool();
+  
+  private final int maxSize;
+  private final ConcurrentMap<String, String> map = new ConcurrentHashMap<String, String>();
+  
+  /**
+   * Create a pool that holds up to {@link #DEFAULT_MAX_SIZE} strings.
+   */
+  public LdIriPool() {
+    this(DEFAULT_MAX_SIZE);
+  }
+  
+  /**
+   * Create a pool that holds up to the given number of strings.
+   */
+  public LdIriPool(int maxSize) {
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+    }
+    this.maxSize = maxSize;
+  }
+  
+  /**
+   * Returns the pool shared by all readers and parsers.
+   */
+  public static LdIriPool getDefault() {
+    return defaultPool;
+  }
+  
+  /**
+   * Replace the pool shared by all readers and parsers.
+   * This method should be invoked, if at all, before any JSON-LD documents are processed.
+   */
+  public static void setDefault(LdIriPool pool) {
+    if (pool == null) {
+      throw new IllegalArgumentException("pool must not be null");
+    }
+    defaultPool = pool;
+  }
+  
+  /**
+   * Returns the pooled instance of the given string, adding the string to the
+   * pool if necessary.  Returns null if the given value is null.
+   */
+  public String intern(String value) {
+    if (value == null) return null;
+    String result = map.get(value);
+    if (result == null) {
+      if (map.size() >= maxSize) {
+        map.clear();
+      }
+      result = map.putIfAbsent(value, value);
+      if (result == null) {
+        result = value;
+      }
+    }
+    return result;
+  }
+  
+  /**
+   * Returns the number of strings currently held in the pool.
+   */
+  public int size() {
+    return map.size();
+  }
+  
+  /**
+   * Returns the maximum number of strings held in the pool.
+   */
+  public int getMaxSize() {
+    return maxSize;
+  }
+  
+  /**
+   * Remove all strings from the pool.
+   */
+  public void clear() {
+    map.clear();
+  }
+
+}
@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright 2012 Pearson Education
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package org.semantictools.jsonld.io;
+
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.map.ObjectMapper;
+
+/**
+ * Provides the JsonFactory and ObjectMapper shared by all readers and writers of JSON 
+ * documents.  Jackson factories are expensive to create: each one owns the symbol table
+ * that canonicalizes field names, which becomes effective only after it has seen a few 
+ * documents.  Sharing a single factory lets every document benefit from the names 
+ * collected while parsing previous documents, and the factory recycles its I/O buffers
+ * on each thread.
+ * <p>
+ * The shared factory allows comments within JSON documents, and it canonicalizes and 
+ * interns field names.  Both the factory and the mapper are threadsafe, but callers must
+ * not reconfigure them.  Use an ObjectWriter to obtain a customized view of the mapper, 
+ * or call {@link #setObjectMapper(ObjectMapper)} to replace the shared instances.
+ * 
+ * @author Greg McFall
+ *
+ */
+public class LdJsonFactory {
+  
+  private static volatile ObjectMapper mapper = createObjectMapper();
+  
+  /**
+   * Create a new ObjectMapper, with a JsonFactory configured in the manner described above.
+   */
+  public static ObjectMapper createObjectMapper() {
+    JsonFactory factory = new JsonFactory();
+    factory.enable(JsonParser.Feature.ALLOW_COMMENTS);
+    factory.enable(JsonParser.Feature.CANONICALIZE_FIELD_NAMES);
+    factory.enable(JsonParser.Feature.INTERN_FIELD_NAMES);
+    return new ObjectMapper(factory);
+  }
+  
+  /**
+   * Returns the shared ObjectMapper.
+   */
+  public static ObjectMapper getObjectMapper() {
+    return mapper;
+  }
+  
+  /**
+   * Returns the JsonFactory of the shared ObjectMapper.
+   */
+  public static JsonFactory getJsonFactory() {
+    return mapper.getJsonFactory();
+  }
+  
+  /**
+   * Replace the shared ObjectMapper (and its JsonFactory). 
+   * This method should be invoked, if at all, before any JSON documents are processed.
+   */
+  public static void setObjectMapper(ObjectMapper objectMapper) {
+    if (objectMapper == null) {
+      throw new IllegalArgumentException("objectMapper must not be null");
+    }
+    mapper = objectMapper;
+  }
+
+}
@@ -17,6 +17,9 @@ package org.semantictools.jsonld.io;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
 
 import org.semantictools.jsonld.LdNode;
 
@@ -44,6 +47,29 @@ public interface LdParser {
    * and return a node that is completely disconnected from the parser.
    */
   LdNode parse(InputStream input) throws LdParseException, IOException;
+  
+  /**
+   * Returns the top-level node parsed from the specified file.  The file is read through 
+   * memory-mapped buffers, so its contents are never copied onto the heap, and files 
+   * larger than the heap can be parsed by a streaming parser.  The file is closed when 
+   * the document has been read completely.
+   * @see MappedFileInputStream
+   */
+  LdNode parse(Path file) throws LdParseException, IOException;
+  
+  /**
+   * Returns the top-level node parsed from the given channel, starting at its current position.
+   * The channel is read through memory-mapped buffers, and it is closed when the document
+   * has been read completely.
+   * @see MappedFileInputStream
+   */
+  LdNode parse(FileChannel channel) throws LdParseException, IOException;
+  
+  /**
+   * Returns the top-level node parsed from the remaining bytes of the given buffer,
+   * which may be a memory-mapped buffer.  The position of the buffer is not changed.
+   */
+  LdNode parse(ByteBuffer buffer) throws LdParseException, IOException;
 
   /**
    * Specify whether or not this parser is a streaming parser.
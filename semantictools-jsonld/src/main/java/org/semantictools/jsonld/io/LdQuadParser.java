@@ -0,0 +1,46 @@
+/*******************************************************************************
+ * Copyright 2012 Pearson Education
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package org.semantictools.jsonld.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.semantictools.jsonld.LdQuadCallback;
+
+/**
+ * LdQuadParser is an interface used to parse a JSON-LD document into a stream of quads.
+ * Unlike {@link LdParser}, an LdQuadParser does not build nodes for the objects in the
+ * document.  Instead, it pushes each quad to a callback as soon as the quad is read, 
+ * so that arbitrarily large documents can be processed with constant memory.
+ * 
+ * @author Greg McFall
+ *
+ */
+public interface LdQuadParser {
+  
+  /**
+   * Parse the JSON-LD document from the given stream, and deliver each quad to the
+   * given callback as soon as it is produced.  Subjects and predicates are delivered
+   * as fully qualified IRIs or blank nodes.
+   * <p>
+   * The JSON-LD keywords (&#064;context, &#064;id and &#064;type) must appear before the 
+   * other properties of each object.  
+   * 
+   * @return The number of quads delivered to the callback.
+   */
+  long parse(InputStream input, LdQuadCallback callback) throws LdParseException, IOException;
+
+}
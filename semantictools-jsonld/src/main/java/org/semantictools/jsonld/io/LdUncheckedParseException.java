@@ -0,0 +1,37 @@
+/*******************************************************************************
+ * Copyright 2012 Pearson Education
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package org.semantictools.jsonld.io;
+
+/**
+ * An unchecked wrapper for an LdParseException, thrown when a node that is built on 
+ * demand cannot be parsed.  Such nodes are materialized by methods that do not declare
+ * checked exceptions.
+ * @author Greg McFall
+ *
+ */
+public class LdUncheckedParseException extends RuntimeException {
+  private static final long serialVersionUID = 1L;
+
+  public LdUncheckedParseException(LdParseException cause) {
+    super(cause.getMessage(), cause);
+  }
+  
+  @Override
+  public LdParseException getCause() {
+    return (LdParseException) super.getCause();
+  }
+
+}
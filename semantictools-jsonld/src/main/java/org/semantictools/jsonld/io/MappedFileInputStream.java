@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright 2012 Pearson Education
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package org.semantictools.jsonld.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An InputStream that reads a file through a sequence of memory-mapped windows.
+ * The contents of the file are never copied onto the heap, apart from the small 
+ * buffer owned by the consumer of the stream, so files much larger than the heap 
+ * (and larger than the 2 GB limit of a single MappedByteBuffer) can be parsed.
+ * Each window is released by the garbage collector once the stream has moved past it.
+ * <p>
+ * Closing this stream closes the underlying channel.
+ * 
+ * @author Greg McFall
+ *
+ */
+public class MappedFileInputStream extends InputStream {
+  
+  /**
+   * The default size of each memory-mapped window, in bytes.
+   */
+  public static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+  
+  private FileChannel channel;
+  private int windowSize;
+  private long position;
+  private long size;
+  private MappedByteBuffer window;
+  
+  /**
+   * Open the specified file for reading.
+   */
+  public MappedFileInputStream(Path file) throws IOException {
+    this(FileChannel.open(file, StandardOpenOption.READ), DEFAULT_WINDOW_SIZE);
+  }
+  
+  /**
+   * Create a stream that reads the given channel from its current position to the end.
+   * @param channel The channel from which the data will be read.
+   * @param windowSize The number of bytes mapped into memory at a time.
+   */
+  public MappedFileInputStream(FileChannel channel, int windowSize) throws IOException {
+    if (windowSize < 1) {
+      throw new IllegalArgumentException("windowSize must be positive: " + windowSize);
+    }
+    this.channel = channel;
+    this.windowSize = windowSize;
+    position = channel.position();
+    size = channel.size();
+  }
+
+  @Override
+  public int read() throws IOException {
+    return nextWindow() ? (window.get() & 0xff) : -1;
+  }
+
+  @Override
+  public int read(byte[] array, int offset, int length) throws IOException {
+    if (length == 0) return 0;
+    if (!nextWindow()) return -1;
+    int count = Math.min(length, window.remaining());
+    window.get(array, offset, count);
+    return count;
+  }
+
+  @Override
+  public long skip(long n) throws IOException {
+    if (n <= 0) return 0;
+    long remaining = (window==null ? 0 : window.remaining());
+    if (n < remaining) {
+      window.position(window.position() + (int) n);
+      return n;
+    }
+    // Skip past the current window, and start the next window at the new position.
+    long skipped = Math.min(n, remaining + (size - position));
+    position += skipped - remaining;
+    window = null;
+    return skipped;
+  }
+
+  @Override
+  public int available() {
+    long remaining = (window==null ? 0 : window.remaining()) + (size - position);
+    return (int) Math.min(remaining, Integer.MAX_VALUE);
+  }
+
+  @Override
+  public void close() throws IOException {
+    window = null;
+    channel.close();
+  }
+  
+  /**
+   * Ensure that the current window has some remaining bytes, mapping the next window
+   * if necessary.
+   * @return false if the end of the file has been reached.
+   */
+  private boolean nextWindow() throws IOException {
+    if (window != null && window.hasRemaining()) {
+      return true;
+    }
+    if (position >= size) {
+      return false;
+    }
+    long length = Math.min(windowSize, size - position);
+    window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+    position += length;
+    return true;
+  }
+
+}
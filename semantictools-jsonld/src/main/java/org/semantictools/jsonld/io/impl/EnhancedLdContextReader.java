@@ -25,10 +25,24 @@ import org.semantictools.jsonld.LdContext;
 import org.semantictools.jsonld.LdContextEnhancer;
 import org.semantictools.jsonld.LdContextManager;
 import org.semantictools.jsonld.LdContextParseException;
+import org.semantictools.jsonld.impl.LdContextCache;
 import org.semantictools.jsonld.impl.LdContextEnhanceException;
-import org.semantictools.jsonld.io.ErrorHandler;
+import org.semantictools.jsonld.impl.LdContextManagerImpl;
+import org.semantictools.jsonld.impl.LdContextSnapshot;
+import org.semantictools.jsonld.impl.NetworkContextManager;
 import org.semantictools.jsonld.io.LdContextReader;
 
+/**
+ * An LdContextReader that returns enhanced contexts.
+ * <p>
+ * External contexts are obtained from the LdContextManager in their enhanced form, and
+ * contexts declared inline within a JSON-LD document are enhanced after they are parsed.
+ * If the manager has no enhanced rendition of an external context, a copy of the plain 
+ * rendition is enhanced, and the copy is put in the cache of the manager.  The plain
+ * rendition itself is never modified, since it may be shared with other readers.
+ * Each EnhancedLdContextReader has its own ErrorHandler, so a separate instance
+ * may be used for each document in order to collect errors on a per-document basis.
+ */
 public class EnhancedLdContextReader extends LdContextReaderImpl {
   
   private LdContextEnhancer enhancer;
@@ -50,8 +64,19 @@ public class EnhancedLdContextReader extends LdContextReaderImpl {
   }
   
   private LdContext enhance(LdContext context) throws LdContextEnhanceException {
-    if (context != null && !context.isEnhanced()) {
-      enhancer.enhance(context);
+    if (context == null || context.isEnhancementComplete()) {
+      return context;
+    }
+    // Make sure that the context is enhanced only once.  The terms are modified while 
+    // the context is enhanced, so they may be inspected only while the lock is held.  
+    // Other threads rely on the volatile flag.
+    synchronized (context) {
+      if (!context.isEnhancementComplete()) {
+        if (!context.isEnhanced()) {
+          enhancer.enhance(context);
+        }
+        context.setEnhancementComplete();
+      }
     }
     return context;
   }
@@ -67,30 +92,85 @@ public class EnhancedLdContextReader extends LdContextReaderImpl {
   public LdContext parseContextField(JsonParser parser)
       throws LdContextParseException, IOException {
     try {
-    return enhance(reader.parseContextField(parser));
+      return enhance(super.parseContextField(parser));
     } catch (LdContextEnhanceException oops) {
       throw new LdContextParseException(oops);
     }
   }
 
   @Override
-  public void setErrorHandler(ErrorHandler handler) {
-    reader.setErrorHandler(handler);
-    
+  public LdContext parseContext(JsonNode node) throws LdContextParseException, IOException {
+    try {
+      return enhance(super.parseContext(node));
+    } catch (LdContextEnhanceException oops) {
+      throw new LdContextParseException(oops);
+    }
   }
 
+  /**
+   * Load the enhanced rendition of the specified context from the LdContextManager,
+   * falling back to the plain rendition if no enhanced rendition is available.
+   * Failures are reported to the ErrorHandler of this reader.
+   */
   @Override
-  public ErrorHandler getErrorHandler() {
-    return reader.getErrorHandler();
+  protected LdContext loadExternalContext(String contextURI) throws IOException, LdContextParseException {
+    LdContextManager manager = getManager();
+    if (manager == null) {
+      return super.loadExternalContext(contextURI);
+    }
+    try {
+      LdContext context = manager.findEnhancedContext(contextURI);
+      if (context == null) {
+        context = enhanceCopy(contextURI, manager.findContext(contextURI));
+      }
+      if (context == null) {
+        handleError( new LdContextParseException("JSON-LD context not found: " + contextURI));
+      }
+      return context;
+      
+    } catch (LdContextEnhanceException oops) {
+      handleError(oops);
+      
+    } catch (LdContextParseException oops) {
+      handleError(oops);
+      
+    } catch (IOException oops) {
+      handleError(oops);
+    }
+    return null;
   }
-
-  protected void handleError(Throwable oops) throws IOException, LdContextParseException {
-    ErrorHandler handler = getErrorHandler();
-    if (handler == null) {
-      super.handleError(oops);
-    } else {
-      handler.handleError(oops);
+  
+  /**
+   * Returns an enhanced copy of the given plain context, taken from the cache of the
+   * LdContextManager if possible.  Otherwise, the copy is enhanced and put in the cache, 
+   * so that the context is enhanced only once, no matter how many readers request it.
+   */
+  private LdContext enhanceCopy(String contextURI, LdContext plain) throws LdContextEnhanceException, IOException {
+    if (plain == null || plain.isEnhancementComplete()) {
+      return plain;
+    }
+    LdContextCache cache = getContextCache();
+    synchronized (plain) {
+      LdContext context = (cache==null) ? null : cache.get(contextURI, true);
+      if (context == null) {
+        context = enhance(LdContextSnapshot.copy(plain));
+        if (cache != null) {
+          cache.put(contextURI, true, context);
+        }
+      }
+      return context;
+    }
+  }
+  
+  private LdContextCache getContextCache() {
+    LdContextManager manager = getManager();
+    if (manager instanceof NetworkContextManager) {
+      return ((NetworkContextManager) manager).getContextCache();
+    }
+    if (manager instanceof LdContextManagerImpl) {
+      return ((LdContextManagerImpl) manager).getContextCache();
     }
+    return null;
   }
 
 }
@@ -24,7 +24,6 @@ import java.util.List;
 import java.util.Map.Entry;
 import java.util.regex.Pattern;
 
-import org.codehaus.jackson.JsonFactory;
 import org.codehaus.jackson.JsonNode;
 import org.codehaus.jackson.JsonParseException;
 import org.codehaus.jackson.JsonParser;
@@ -45,11 +44,14 @@ import org.semantictools.jsonld.LdTerm;
 import org.semantictools.jsonld.Whitespace;
 import org.semantictools.jsonld.io.ErrorHandler;
 import org.semantictools.jsonld.io.LdContextReader;
+import org.semantictools.jsonld.io.LdIriPool;
+import org.semantictools.jsonld.io.LdJsonFactory;
 
 public class LdContextReaderImpl implements LdContextReader {
   
   private LdContextManager manager;
   private ErrorHandler errorHandler;
+  private LdIriPool iriPool = LdIriPool.getDefault();
   
 
   public LdContextReaderImpl(LdContextManager manager) {
@@ -70,6 +72,24 @@ public class LdContextReaderImpl implements LdContextReader {
     this.manager = manager;
   }
 
+  /**
+   * Returns the LdIriPool in which the names and IRIs of terms are interned.
+   * By default, this is the shared {@link LdIriPool#getDefault() pool}.
+   */
+  public LdIriPool getIriPool() {
+    return iriPool;
+  }
+
+  /**
+   * Sets the LdIriPool in which the names and IRIs of terms are interned.
+   */
+  public void setIriPool(LdIriPool iriPool) {
+    if (iriPool == null) {
+      throw new IllegalArgumentException("iriPool must not be null");
+    }
+    this.iriPool = iriPool;
+  }
+
   private LdContext parseContext(JsonParser parser) throws JsonParseException, IOException {
     LdContext context = new LdContext();
     parseContext(parser, context);
@@ -249,7 +269,7 @@ public class LdContextReaderImpl implements LdContextReader {
     while (parser.nextToken() == JsonToken.FIELD_NAME) {
       String fieldName = parser.getCurrentName();
       if ("onProperty".equals(fieldName)) {
-        restriction.setPropertyURI(readString(parser));
+        restriction.setPropertyURI(iriPool.intern(readString(parser)));
         
       } else if ("maxCardinality".equals(fieldName)) {
         restriction.setMaxCardinality(readInt(parser));
@@ -505,9 +525,7 @@ public class LdContextReaderImpl implements LdContextReader {
     
 
     LdContext context = null;
-    JsonFactory factory = new JsonFactory();
-    factory.enable(JsonParser.Feature.ALLOW_COMMENTS);
-    JsonParser jsonParser = factory.createJsonParser(reader);
+    JsonParser jsonParser = LdJsonFactory.getJsonFactory().createJsonParser(reader);
     JsonToken token=null;
     while ( (token = jsonParser.nextToken()) != null) {
      
@@ -526,9 +544,7 @@ public class LdContextReaderImpl implements LdContextReader {
       IOException, LdContextParseException {
 
     LdContext context = null;
-    JsonFactory factory = new JsonFactory();
-    factory.enable(JsonParser.Feature.ALLOW_COMMENTS);
-    JsonParser jsonParser = factory.createJsonParser(stream);
+    JsonParser jsonParser = LdJsonFactory.getJsonFactory().createJsonParser(stream);
     JsonToken token=null;
     while ( (token = jsonParser.nextToken()) != null) {
      
@@ -565,6 +581,9 @@ public class LdContextReaderImpl implements LdContextReader {
     
     if (context != null) {
       context.close();
+      if (!external) {
+        internTerms(context);
+      }
       prepareOwlClasses(context);
       
       // We don't need to resolve references if the context is external
@@ -578,6 +597,36 @@ public class LdContextReaderImpl implements LdContextReader {
     return context;
   }
 
+  /**
+   * Replace the names and IRIs of the terms in the given context, and in its 
+   * anonymous components, with the instances held in the LdIriPool.
+   * External components are skipped; they were interned when they were read, and
+   * they may be shared with other callers.
+   * This method must be invoked after the context is closed, so that the expanded
+   * IRIs are available.
+   */
+  private void internTerms(LdContext context) {
+    List<LdTerm> termList = context.listTerms();
+    if (termList != null) {
+      for (LdTerm term : termList) {
+        term.setShortName(iriPool.intern(term.getShortName()));
+        term.setRawIRI(iriPool.intern(term.getRawIRI()));
+        term.setIRI(iriPool.intern(term.getIRI()));
+        term.setRawTypeIRI(iriPool.intern(term.getRawTypeIRI()));
+        term.setTypeIRI(iriPool.intern(term.getTypeIRI()));
+        term.setLanguage(iriPool.intern(term.getLanguage()));
+      }
+    }
+    List<LdContext> components = context.listComponents();
+    if (components != null) {
+      for (LdContext component : components) {
+        if (component.getContextURI() == null) {
+          internTerms(component);
+        }
+      }
+    }
+  }
+
   /** Add RDF class for owl:Thing if it is referenced explicitly.
    * This method is a bit of a hack.
    * TODO: Find a more elegant solution.
@@ -708,10 +757,15 @@ public class LdContextReaderImpl implements LdContextReader {
     
   }
 
-  private LdContext loadExternalContext(String contextURI) throws IOException, LdContextParseException {
+  /**
+   * Load the external context with the specified URI from the LdContextManager.
+   * The returned context may be shared with other callers, so it must not be modified.
+   */
+  protected LdContext loadExternalContext(String contextURI) throws IOException, LdContextParseException {
     if (manager == null) {
       String msg = "Cannot load external contexts";
       handleError( new LdContextParseException(msg) );
+      return null;
     }
     LdContext context = manager.findContext(contextURI);
     if (context == null) {
@@ -759,6 +813,9 @@ public class LdContextReaderImpl implements LdContextReader {
     
     if (context != null) {
       context.close();
+      if (!external) {
+        internTerms(context);
+      }
       prepareOwlClasses(context);
       
       // We don't need to resolve references if the context is external
@@ -941,7 +998,7 @@ public class LdContextReaderImpl implements LdContextReader {
       value = entry.getValue();
       
       if ("onProperty".equals(fieldName)) {
-        restriction.setPropertyURI(value.getTextValue());
+        restriction.setPropertyURI(iriPool.intern(value.getTextValue()));
         
       } else if ("maxCardinality".equals(fieldName)) {
         restriction.setMaxCardinality(value.getIntValue());
@@ -144,6 +144,62 @@ public class DurationUtil {
     return duration;
   }
   
+  /**
+   * Returns true if the given text is a valid lexical representation of an xsd:duration.
+   * For consistency with {@link #durationAsString(long)}, a number of weeks is also accepted
+   * between the months and the days.
+   */
+  public static boolean isDuration(String text) {
+    int length = text.length();
+    int i = 0;
+    if (i<length && text.charAt(i)=='-') i++;
+    if (i>=length || text.charAt(i) != 'P') return false;
+    i++;
+    
+    String designators = "YMWD";
+    int next = 0;
+    boolean time = false;
+    boolean timeComponent = false;
+    boolean component = false;
+    
+    while (i<length) {
+      char c = text.charAt(i);
+      if (c == 'T') {
+        if (time) return false;
+        time = true;
+        designators = "HMS";
+        next = 0;
+        i++;
+        continue;
+      }
+      int start = i;
+      while (i<length && isDigit(text.charAt(i))) i++;
+      if (i == start || i>=length) return false;
+      
+      boolean fraction = false;
+      if (text.charAt(i) == '.') {
+        int mark = ++i;
+        while (i<length && isDigit(text.charAt(i))) i++;
+        if (i == mark || i>=length) return false;
+        fraction = true;
+      }
+      
+      int index = designators.indexOf(text.charAt(i), next);
+      if (index < 0) return false;
+      if (fraction && !(time && text.charAt(i)=='S')) return false;
+      next = index+1;
+      component = true;
+      timeComponent = time;
+      i++;
+    }
+    
+    return component && (!time || timeComponent);
+  }
+  
+  private static boolean isDigit(char c) {
+    return c>='0' && c<='9';
+  }
+  
   private static int parseInt(String text, int start, int end) {
     return Integer.parseInt(text.substring(start, end));
   }
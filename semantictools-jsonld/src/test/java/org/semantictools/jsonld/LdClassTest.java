@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright 2012 Pearson Education
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package org.semantictools.jsonld;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class LdClassTest {
+  
+  private static final String NS = "http://example.com/ns/LdClassTest#";
+
+  @Test
+  public void testSupertypeClosure() {
+    LdClass thing = new LdClass(NS + "Thing");
+    LdClass agent = new LdClass(NS + "Agent");
+    LdClass person = new LdClass(NS + "Person");
+    LdClass student = new LdClass(NS + "Student");
+    
+    agent.addSupertype(thing);
+    person.addSupertype(agent);
+    student.addSupertype(person);
+    
+    assertTrue(student.hasSuperType(NS + "Person"));
+    assertTrue(student.hasSuperType(NS + "Thing"));
+    assertTrue(student.isSubClassOf(agent));
+    assertFalse(student.hasSuperType(NS + "Student"));
+    assertFalse(student.hasSuperType(NS + "Undefined"));
+    assertFalse(thing.isSubClassOf(student));
+    
+    assertEquals(3, student.getSupertypeURIs().size());
+    assertTrue(agent.getSupertypeURIs().contains(NS + "Thing"));
+  }
+  
+  @Test
+  public void testUnchangedClosure() {
+    LdClass agent = new LdClass(NS + "Agent");
+    LdClass person = new LdClass(NS + "Person");
+    LdClass other = new LdClass(NS + "Other");
+    person.addSupertype(agent);
+    
+    Set<String> closure = person.getSupertypeURIs();
+    
+    // Changes that do not alter the hierarchy of person must not discard its closure.
+    person.addSupertype(agent);
+    person.setURI(NS + "Person");
+    agent.setURI(NS + "Agent");
+    other.addSupertype(agent);
+    List<LdClass> list = new ArrayList<LdClass>();
+    list.add(agent);
+    person.setSupertypes(list);
+    assertSame(closure, person.getSupertypeURIs());
+    
+    agent.setURI(NS + "Actor");
+    assertNotSame(closure, person.getSupertypeURIs());
+    assertTrue(person.hasSuperType(NS + "Actor"));
+    assertFalse(person.hasSuperType(NS + "Agent"));
+  }
+  
+  @Test
+  public void testInvalidation() {
+    LdClass organization = new LdClass(NS + "Organization");
+    LdClass school = new LdClass(NS + "School");
+    LdClass college = new LdClass(NS + "College");
+    
+    college.addSupertype(school);
+    assertFalse(college.hasSuperType(NS + "Organization"));
+    
+    // Modifying an ancestor must be visible through the cached closure of the subclass.
+    school.addSupertype(organization);
+    assertTrue(college.hasSuperType(NS + "Organization"));
+    
+    List<LdClass> list = new ArrayList<LdClass>();
+    list.add(organization);
+    college.setSupertypes(list);
+    assertFalse(college.hasSuperType(NS + "School"));
+    assertTrue(college.hasSuperType(NS + "Organization"));
+  }
+  
+  @Test
+  public void testCycle() {
+    LdClass a = new LdClass(NS + "A");
+    LdClass b = new LdClass(NS + "B");
+    a.addSupertype(b);
+    b.addSupertype(a);
+    
+    assertTrue(a.hasSuperType(NS + "B"));
+    assertTrue(a.hasSuperType(NS + "A"));
+    assertFalse(a.hasSuperType(NS + "C"));
+  }
+  
+  @Test
+  public void testAssignable() {
+    LdContext context = new LdContext();
+    assertTrue(context.isAssignableFrom(NS + "A", NS + "A"));
+    assertFalse(context.isAssignableFrom(NS + "Undefined", NS + "A"));
+  }
+
+}
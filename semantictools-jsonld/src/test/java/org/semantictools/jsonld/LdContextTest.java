@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright 2012 Pearson Education
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package org.semantictools.jsonld;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LdContextTest {
+  
+  private static final String NS = "http://example.com/ns/LdContextTest#";
+
+  @Test
+  public void testPrecedence() {
+    LdContext parent = new LdContext();
+    LdTerm parentName = term("name", NS + "parentName");
+    parent.add(term("ex", NS));
+    parent.add(parentName);
+    parent.close();
+    
+    LdContext first = new LdContext();
+    LdTerm firstName = term("name", NS + "firstName");
+    first.add(firstName);
+    first.add(term("age", NS + "firstAge"));
+    
+    LdContext second = new LdContext();
+    LdTerm secondAge = term("age", NS + "secondAge");
+    second.add(secondAge);
+    
+    LdContext child = new LdContext(parent);
+    LdTerm childColor = term("color", "ex:color");
+    child.add(first);
+    child.add(second);
+    child.add(childColor);
+    child.close();
+    
+    assertSame(firstName, child.getTerm("name"));
+    assertSame(secondAge, child.getTerm("age"));
+    assertSame(childColor, child.getTerm("color"));
+    assertSame(parentName, parent.getTerm("name"));
+    
+    assertEquals(NS + "color", childColor.getIRI());
+    assertEquals(NS + "color", child.expand("color"));
+    assertEquals(NS + "size", child.expand("ex:size"));
+    assertEquals(NS + "size", child.expand("ex:size"));
+    assertEquals("none:size", child.expand("none:size"));
+  }
+  
+  @Test
+  public void testInvalidation() {
+    LdContext parent = new LdContext();
+    parent.add(term("ex", NS));
+    parent.close();
+    
+    LdContext other = new LdContext();
+    other.add(term("ex", "http://example.com/other#"));
+    other.close();
+    
+    LdContext child = new LdContext(parent);
+    child.add(term("color", NS + "color"));
+    child.close();
+    
+    assertEquals(NS + "size", child.expand("ex:size"));
+    
+    child.setParentContext(other);
+    assertEquals("http://example.com/other#size", child.expand("ex:size"));
+    
+    LdTerm created = parent.ensureTerm(NS + "Shape");
+    assertTrue(parent.getTerm(NS + "Shape") == created);
+    assertSame(created, parent.getTerm(created.getShortName()));
+  }
+  
+  @Test
+  public void testCopies() {
+    LdContext parent = new LdContext();
+    parent.add(term("ex", NS));
+    parent.close();
+    
+    LdContext other = new LdContext();
+    other.add(term("ex", "http://example.com/other#"));
+    other.close();
+    
+    LdContext nested = new LdContext();
+    nested.add(term("color", "ex:color"));
+    nested.close();
+    
+    LdContext first = nested.copy();
+    first.setParentContext(parent);
+    LdContext second = nested.copy();
+    second.setParentContext(other);
+    LdContext third = first.copy();
+    third.setParentContext(parent);
+    
+    assertSame(nested, third.getOrigin());
+    assertEquals(NS + "size", first.expand("ex:size"));
+    assertEquals("http://example.com/other#size", second.expand("ex:size"));
+    assertEquals(NS + "size", third.expand("ex:size"));
+    assertEquals(NS + "size", first.expand("ex:size"));
+    
+    LdTerm created = parent.ensureTerm(NS + "Shape");
+    assertSame(created, first.getTerm(NS + "Shape"));
+    assertSame(created, third.getTerm(NS + "Shape"));
+    assertTrue(second.getTerm(NS + "Shape") == null);
+  }
+  
+  private LdTerm term(String shortName, String rawIRI) {
+    LdTerm term = new LdTerm();
+    term.setShortName(shortName);
+    term.setRawIRI(rawIRI);
+    return term;
+  }
+
+}
@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright 2012 Pearson Education
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package org.semantictools.jsonld;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LdLiteralTest {
+
+  @Test
+  public void testLong() {
+    LdLiteral literal = new LdLiteral(42L);
+    assertTrue(literal.isLongValue());
+    assertTrue(!literal.isDoubleValue());
+    assertEquals(Long.valueOf(42), literal.getLongValue());
+    assertEquals(Double.valueOf(42), literal.getDoubleValue());
+    assertEquals("42", literal.getStringValue());
+    assertNull(literal.getBooleanValue());
+  }
+
+  @Test
+  public void testDouble() {
+    LdLiteral literal = new LdLiteral(-2.5);
+    assertTrue(literal.isDoubleValue());
+    assertEquals(Double.valueOf(-2.5), literal.getDoubleValue());
+    assertEquals(Long.valueOf(-2), literal.getLongValue());
+    assertEquals("-2.5", literal.getStringValue());
+  }
+
+  @Test
+  public void testBoolean() {
+    LdLiteral literal = new LdLiteral(false);
+    assertTrue(literal.isBooleanValue());
+    assertEquals(Boolean.FALSE, literal.getBooleanValue());
+    assertEquals("false", literal.getStringValue());
+    assertNull(literal.getLongValue());
+  }
+
+  @Test
+  public void testString() {
+    LdLiteral literal = new LdLiteral("17");
+    literal.setLongValue(Long.valueOf(17));
+    assertTrue(literal.isStringValue());
+    assertTrue(!literal.isLongValue());
+    assertEquals(Long.valueOf(17), literal.getLongValue());
+    assertEquals("17", literal.getStringValue());
+  }
+
+  @Test
+  public void testReplaceAndClear() {
+    LdLiteral literal = new LdLiteral();
+    assertNull(literal.getStringValue());
+    assertNull(literal.getLongValue());
+    assertNull(literal.getDoubleValue());
+
+    literal.setLongValue(Long.valueOf(3));
+    literal.setDoubleValue(Double.valueOf(0.5));
+    assertTrue(literal.isDoubleValue());
+    assertEquals(Double.valueOf(0.5), literal.getDoubleValue());
+
+    // Clearing a value that is not held has no effect.
+    literal.setLongValue((Long) null);
+    assertEquals(Double.valueOf(0.5), literal.getDoubleValue());
+
+    literal.setDoubleValue((Double) null);
+    assertNull(literal.getStringValue());
+    assertNull(literal.getDoubleValue());
+  }
+
+}
@@ -15,10 +15,19 @@
  ******************************************************************************/
 package org.semantictools.jsonld;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.File;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -31,6 +40,8 @@ public class LdProcessorTest {
   private String contextURL = "http://purl.org/pearson/core/v1/ctx/outcomes/GradebookItemEvent";
   private File outFile = new File("target/LdEnhancerAppTest/purl.org/pearson/core/v1/ctx/outcomes/GradebookItemEvent/ENHANCED_CONTEXT.json");
   private String jsonDocumentPath = "GradebookItemEventInvalid.json";
+  private int threadCount = 32;
+  private int iterationCount = 20;
   
   private URL jsonDocumentURL;
   
@@ -51,5 +62,152 @@ public class LdProcessorTest {
     LdValidationServiceImplTest.validateReport(report);
     
   }
+  
+  @Test
+  public void testStreaming() throws Exception {
+    
+    FileUtil.delete(repositoryDir);
+    LdProcessor app = new LdProcessor(sourceDir, repositoryDir, false);
+    app.setStreaming(true);
+    app.publishEnhancedContext(contextURL);
+    
+    LdValidationReport report = app.validate(jsonDocumentURL);
+    LdValidationServiceImplTest.validateReport(report);
+    
+  }
+  
+  @Test
+  public void testReadQuads() throws Exception {
+    
+    FileUtil.delete(repositoryDir);
+    LdProcessor app = new LdProcessor(sourceDir, repositoryDir, false);
+    app.publishEnhancedContext(contextURL);
+    
+    final List<LdQuad> list = new ArrayList<LdQuad>();
+    long count = app.readQuads(jsonDocumentURL, new LdQuadCallback() {
+      @Override
+      public void quad(LdQuad quad) {
+        list.add(quad);
+      }
+    });
+    
+    assertTrue(count > 0);
+    assertEquals(count, list.size());
+  }
+  
+  /**
+   * Verify that a single LdProcessor produces identical reports when it is
+   * shared by many threads that validate documents concurrently.
+   */
+  @Test
+  public void testConcurrentValidation() throws Exception {
+    
+    FileUtil.delete(repositoryDir);
+    final LdProcessor app = new LdProcessor(sourceDir, repositoryDir, false);
+    app.publishEnhancedContext(contextURL);
+    
+    final String expected = app.validate(jsonDocumentURL).toString();
+    
+    final CountDownLatch startSignal = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+    try {
+      List<Future<List<String>>> futureList = new ArrayList<Future<List<String>>>();
+      for (int i=0; i<threadCount; i++) {
+        futureList.add(executor.submit(new Callable<List<String>>() {
+          @Override
+          public List<String> call() throws Exception {
+            startSignal.await();
+            List<String> list = new ArrayList<String>();
+            for (int j=0; j<iterationCount; j++) {
+              list.add(app.validate(jsonDocumentURL).toString());
+            }
+            return list;
+          }
+        }));
+      }
+      startSignal.countDown();
+      
+      for (Future<List<String>> future : futureList) {
+        for (String actual : future.get()) {
+          assertEquals(expected, actual);
+        }
+      }
+    } finally {
+      executor.shutdown();
+    }
+    
+  }
+  
+  @Test
+  public void testBatchValidation() throws Exception {
+    
+    FileUtil.delete(repositoryDir);
+    LdProcessor app = new LdProcessor(sourceDir, repositoryDir, false);
+    app.publishEnhancedContext(contextURL);
+    
+    final String expected = app.validate(jsonDocumentURL).toString();
+    
+    List<URL> documents = new ArrayList<URL>();
+    for (int i=0; i<100; i++) {
+      documents.add(jsonDocumentURL);
+    }
+    final List<String> reports = new ArrayList<String>();
+    app.validate(documents, 4, new LdValidationCallback() {
+      
+      @Override
+      public void validated(URL document, LdValidationReport report) {
+        reports.add(report.toString());
+      }
+      
+      @Override
+      public void failed(URL document, Throwable error) {
+        fail(error.getMessage());
+      }
+    });
+    
+    assertEquals(documents.size(), reports.size());
+    for (String actual : reports) {
+      assertEquals(expected, actual);
+    }
+  }
+  
+  @Test
+  public void testBatchCancellation() throws Exception {
+    
+    FileUtil.delete(repositoryDir);
+    LdProcessor app = new LdProcessor(sourceDir, repositoryDir, false);
+    app.publishEnhancedContext(contextURL);
+    
+    List<URL> documents = new ArrayList<URL>();
+    for (int i=0; i<100; i++) {
+      documents.add(jsonDocumentURL);
+    }
+    
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      final LdBatchValidator validator = new LdBatchValidator(app, executor, 4);
+      int count = validator.validate(documents.iterator(), new LdValidationCallback() {
+        
+        int count = 0;
+        
+        @Override
+        public void validated(URL document, LdValidationReport report) {
+          if (++count == 10) {
+            validator.cancel();
+          }
+        }
+        
+        @Override
+        public void failed(URL document, Throwable error) {
+        }
+      });
+      
+      assertEquals(10, count);
+      assertTrue(validator.isCancelled());
+      
+    } finally {
+      executor.shutdown();
+    }
+  }
 
 }
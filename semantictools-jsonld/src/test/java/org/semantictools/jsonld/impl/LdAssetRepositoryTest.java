@@ -16,16 +16,23 @@
 package org.semantictools.jsonld.impl;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
 
 import static org.junit.Assert.*;
 import org.junit.Before;
 import org.junit.Test;
 import org.semantictools.jsonld.LdAsset;
+import org.semantictools.jsonld.LdContext;
+import org.semantictools.jsonld.LdProcessor;
+import org.semantictools.jsonld.LdTerm;
+import org.semantictools.jsonld.io.impl.LdContextReaderImpl;
 
 public class LdAssetRepositoryTest {
   
   private File source = new File("src/test/resources/gdx");
   private File root = new File("target/LdAssetRepositoryTest");
+  private String contextURI = "http://purl.org/pearson/core/v1/ctx/outcomes/GradebookItemEvent";
   
   private LdAssetRepository repository;
   
@@ -61,6 +68,120 @@ public class LdAssetRepositoryTest {
     
   }
 
+  @Test
+  public void testScanContent() throws Exception {
+    scanContent(source);
+    verifyContext();
+    verifyTurtle();
+  }
+  
+  private void scanContent(File file) throws Exception {
+    if (file.isDirectory()) {
+      for (File child : file.listFiles()) {
+        scanContent(child);
+      }
+    } else {
+      repository.scan(file, new FileInputStream(file));
+    }
+  }
+
+  @Test
+  public void testContextSnapshot() throws Exception {
+    LdProcessor processor = new LdProcessor(source, root, false);
+    processor.publishEnhancedContext(contextURI);
+    processor.shutdown();
+    
+    // Publishing the enhanced context saves a snapshot.
+    File snapshot = new File(root, "purl.org/pearson/core/v1/ctx/outcomes/GradebookItemEvent/ENHANCED_CONTEXT.snapshot");
+    assertTrue(snapshot.exists());
+    LdContext loaded = repository.findContextSnapshot(contextURI);
+    assertTrue(loaded != null);
+    
+    // A lookup does not write a snapshot.
+    assertTrue(snapshot.delete());
+    LdContext parsed = createManager().findEnhancedContext(contextURI);
+    assertFalse(snapshot.exists());
+    repository.publishContextSnapshot(contextURI, parsed);
+    
+    LdContext cached = createManager().findEnhancedContext(contextURI);
+    assertEquals(parsed.listTerms().size(), cached.listTerms().size());
+    LdTerm term = cached.getTerm("metadata");
+    assertEquals(parsed.getTerm("metadata").getIRI(), term.getIRI());
+    assertEquals(parsed.getTerm("metadata").getTypeIRI(), term.getTypeIRI());
+    assertTrue(cached.isEnhanced());
+    for (LdTerm expected : parsed.listTerms()) {
+      LdTerm actual = cached.getTerm(expected.getShortName());
+      assertEquals(expected.getIRI(), actual.getIRI());
+      if (expected.getRdfClass() != null) {
+        assertEquals(expected.getRdfClass().getURI(), actual.getRdfClass().getURI());
+        assertEquals(
+          String.valueOf(expected.getRdfClass().listRestrictions()), 
+          String.valueOf(actual.getRdfClass().listRestrictions()));
+      }
+    }
+    
+    // A corrupt snapshot is ignored.
+    FileWriter writer = new FileWriter(snapshot);
+    writer.write("corrupt");
+    writer.close();
+    assertNull(repository.findContextSnapshot(contextURI));
+    
+    // A snapshot of a different rendition of the enhanced context is ignored.
+    repository.publishContextSnapshot(contextURI, parsed);
+    assertTrue(repository.findContextSnapshot(contextURI) != null);
+    LdAsset asset = repository.findAsset(contextURI, LdContentType.ENHANCED_CONTEXT);
+    String content = asset.loadContent();
+    asset.setContent(content + " ");
+    repository.publish(asset);
+    assertNull(repository.findContextSnapshot(contextURI));
+    
+    // So is a snapshot of an enhanced context that was changed outside of the repository.
+    asset.setContent(content);
+    repository.publish(asset);
+    repository.publishContextSnapshot(contextURI, parsed);
+    assertTrue(repository.findContextSnapshot(contextURI) != null);
+    File source = new File(snapshot.getParentFile(), "ENHANCED_CONTEXT.json");
+    writer = new FileWriter(source, true);
+    writer.write(" ");
+    writer.close();
+    assertNull(repository.findContextSnapshot(contextURI));
+  }
+  
+  /**
+   * If the repository holds a current snapshot of the enhanced context, the context manager
+   * must not load the enhanced context itself.
+   */
+  @Test
+  public void testSnapshotBeforeAsset() throws Exception {
+    LdProcessor processor = new LdProcessor(source, root, false);
+    processor.publishEnhancedContext(contextURI);
+    processor.shutdown();
+    
+    final int[] count = new int[1];
+    LdAssetRepository repository = new LdAssetRepository(root) {
+      @Override
+      public LdAsset findAsset(String assetURI, LdContentType format) {
+        count[0]++;
+        return super.findAsset(assetURI, format);
+      }
+    };
+    LdContextReaderImpl reader = new LdContextReaderImpl(null);
+    LdContextManagerImpl manager = new LdContextManagerImpl(repository, reader, new LdContextEnhancerImpl(repository));
+    reader.setManager(manager);
+    
+    LdContext context = manager.findEnhancedContext(contextURI);
+    assertTrue(context != null);
+    assertTrue(context.isEnhanced());
+    assertEquals(0, count[0]);
+  }
+  
+  private LdContextManagerImpl createManager() {
+    LdContextReaderImpl reader = new LdContextReaderImpl(null);
+    LdContextManagerImpl manager = new LdContextManagerImpl(repository, reader, new LdContextEnhancerImpl(repository));
+    reader.setManager(manager);
+    return manager;
+  }
+
   private void verifyTurtle() {
     LdAsset asset = repository.findAsset("http://purl.org/pearson/core/v1/vocab/outcomes#");
     assertTrue(asset != null);
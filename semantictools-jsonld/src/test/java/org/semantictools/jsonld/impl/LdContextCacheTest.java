@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright 2012 Pearson Education
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package org.semantictools.jsonld.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.Test;
+import org.semantictools.jsonld.FileUtil;
+import org.semantictools.jsonld.LdContext;
+import org.semantictools.jsonld.io.impl.LdContextReaderImpl;
+
+public class LdContextCacheTest {
+
+  private String contextURI = "http://purl.org/pearson/core/v1/ctx/outcomes/GradebookItemEvent";
+  private File source = new File("src/test/resources/gdx");
+  private File root = new File("target/LdContextCacheTest");
+
+  @Test
+  public void testEviction() {
+    LdContextCache cache = new LdContextCache(2, 0);
+    LdContext a = new LdContext();
+    LdContext b = new LdContext();
+    LdContext c = new LdContext();
+
+    cache.put("a", false, a);
+    cache.put("b", false, b);
+
+    // Touch "a" so that "b" becomes the least recently used entry.
+    assertSame(a, cache.get("a", false));
+
+    cache.put("c", false, c);
+
+    assertEquals(2, cache.size());
+    assertEquals(1, cache.getEvictionCount());
+    assertNull(cache.get("b", false));
+    assertSame(a, cache.get("a", false));
+    assertSame(c, cache.get("c", false));
+
+    assertEquals(3, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+  }
+
+  @Test
+  public void testFlavors() {
+    LdContextCache cache = new LdContextCache();
+    LdContext plain = new LdContext();
+    LdContext enhanced = new LdContext();
+
+    cache.put(contextURI, false, plain);
+    cache.put(contextURI, true, enhanced);
+
+    assertSame(plain, cache.get(contextURI, false));
+    assertSame(enhanced, cache.get(contextURI, true));
+
+    cache.invalidate(contextURI);
+    assertEquals(0, cache.size());
+    assertNull(cache.get(contextURI, false));
+    assertNull(cache.get(contextURI, true));
+  }
+
+  @Test
+  public void testTimeToLive() throws Exception {
+    LdContextCache cache = new LdContextCache(10, 1);
+    cache.put(contextURI, false, new LdContext());
+
+    Thread.sleep(20);
+
+    assertNull(cache.get(contextURI, false));
+    assertEquals(1, cache.getEvictionCount());
+  }
+
+  @Test
+  public void testContextManager() throws Exception {
+    FileUtil.delete(root);
+    LdAssetRepository repository = new LdAssetRepository(root);
+    repository.scan(source);
+
+    LdContextReaderImpl reader = new LdContextReaderImpl(null);
+    LdContextManagerImpl manager = new LdContextManagerImpl(repository, reader, new LdContextEnhancerImpl(repository));
+    reader.setManager(manager);
+
+    LdContext first = manager.findContext(contextURI);
+    LdContext second = manager.findContext(contextURI);
+
+    assertTrue(first != null);
+    assertSame(first, second);
+
+    LdContextCache cache = manager.getContextCache();
+    assertEquals(1, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+
+    cache.invalidateAll();
+    LdContext third = manager.findContext(contextURI);
+    assertTrue(third != first);
+  }
+
+}
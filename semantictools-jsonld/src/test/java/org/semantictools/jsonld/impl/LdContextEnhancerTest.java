@@ -16,11 +16,14 @@
 package org.semantictools.jsonld.impl;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.InputStream;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -64,6 +67,23 @@ public class LdContextEnhancerTest {
     
     verify();
   }
+  
+  @Test
+  public void testLoaderExecutor() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      enhancer.setLoaderExecutor(executor);
+      enhancer.enhance(context);
+      verify();
+      
+      // The enhancer must neither shut down nor replace an executor that it does not own.
+      enhancer.shutdown();
+      assertFalse(executor.isShutdown());
+      
+    } finally {
+      executor.shutdownNow();
+    }
+  }
 
 
   protected void afterEnhance() throws Exception {
@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * Copyright 2012 Pearson Education
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package org.semantictools.jsonld.impl;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+import org.semantictools.jsonld.LdDatatype;
+import org.semantictools.jsonld.LdDatatypeManager;
+import org.semantictools.jsonld.LdLiteral;
+import org.semantictools.jsonld.LdValidationReport;
+
+public class LdDatatypeCheckerTest {
+
+  @Test
+  public void testStringFacets() {
+    LdDatatype base = derive("Code.Type", LdDatatypeManager.LD_NORMALIZEDSTRING);
+    base.setPattern(Pattern.compile("[A-Z0-9]*"));
+    base.setMaxLength(8);
+    
+    LdDatatype type = derive("ShortCode.Type", base);
+    type.setMinLength(2);
+    type.setMaxLength(4);
+    
+    LdDatatypeChecker checker = LdDatatypeChecker.compile(type);
+    assertEquals(0, errors(checker, string("AB12")));
+    assertEquals(1, errors(checker, string("A")));
+    assertEquals(1, errors(checker, string("ABCDE")));
+    assertEquals(1, errors(checker, string("ab")));
+    assertEquals(2, errors(checker, string("abcde")));
+  }
+  
+  @Test
+  public void testIntegers() {
+    LdDatatypeChecker checker = LdDatatypeChecker.compile(LdDatatypeManager.LD_UNSIGNEDBYTE);
+    assertEquals(0, errors(checker, number(255)));
+    assertEquals(0, errors(checker, string(" 7 ")));
+    assertEquals(1, errors(checker, number(256)));
+    assertEquals(1, errors(checker, number(-1)));
+    assertEquals(1, errors(checker, string("1.5")));
+    assertEquals(1, errors(checker, decimal(1.5)));
+    
+    LdDatatype score = derive("Score.Type", LdDatatypeManager.LD_INTEGER);
+    score.setMinInclusive(0);
+    score.setMaxExclusive(100);
+    score.setTotalDigits(2);
+    checker = LdDatatypeChecker.compile(score);
+    assertEquals(0, errors(checker, number(99)));
+    assertEquals(2, errors(checker, number(100)));
+    assertEquals(1, errors(checker, string("-5")));
+    assertEquals(2, errors(checker, string("123456789012345678901234567890")));
+    
+    checker = LdDatatypeChecker.compile(LdDatatypeManager.LD_UNSIGNEDLONG);
+    assertEquals(0, errors(checker, string("18446744073709551615")));
+    assertEquals(1, errors(checker, string("18446744073709551616")));
+  }
+  
+  @Test
+  public void testDecimals() {
+    LdDatatype price = derive("Price.Type", LdDatatypeManager.LD_DECIMAL);
+    price.setMinExclusive(0);
+    price.setFractionDigits(2);
+    LdDatatypeChecker checker = LdDatatypeChecker.compile(price);
+    assertEquals(0, errors(checker, string("19.990")));
+    assertEquals(0, errors(checker, decimal(0.5)));
+    assertEquals(1, errors(checker, string("0")));
+    assertEquals(1, errors(checker, string("1.999")));
+    assertEquals(1, errors(checker, string("1e3")));
+    
+    checker = LdDatatypeChecker.compile(LdDatatypeManager.LD_DOUBLE);
+    assertEquals(0, errors(checker, string("1.5E-3")));
+    assertEquals(0, errors(checker, string("-INF")));
+    assertEquals(1, errors(checker, string("1.5d")));
+  }
+  
+  @Test
+  public void testDates() {
+    LdDatatypeChecker checker = LdDatatypeChecker.compile(LdDatatypeManager.LD_DATETIME);
+    assertEquals(0, errors(checker, string("2012-02-29T23:59:59.5Z")));
+    assertEquals(0, errors(checker, string("2000-02-29T24:00:00-05:00")));
+    assertEquals(1, errors(checker, string("2013-02-29T10:00:00Z")));
+    assertEquals(1, errors(checker, string("2012-13-01T10:00:00")));
+    assertEquals(1, errors(checker, string("2012-01-01")));
+    
+    checker = LdDatatypeChecker.compile(LdDatatypeManager.LD_DATE);
+    assertEquals(0, errors(checker, string("1900-02-28+14:00")));
+    assertEquals(1, errors(checker, string("1900-02-29")));
+    
+    checker = LdDatatypeChecker.compile(LdDatatypeManager.LD_GMONTHDAY);
+    assertEquals(0, errors(checker, string("--02-29")));
+    assertEquals(1, errors(checker, string("--04-31")));
+  }
+  
+  @Test
+  public void testDurations() {
+    LdDatatypeChecker checker = LdDatatypeChecker.compile(LdDatatypeManager.LD_DAYTIMEDURATION);
+    assertEquals(0, errors(checker, string("P1DT2H30M")));
+    assertEquals(0, errors(checker, string("PT0.5S")));
+    assertEquals(0, errors(checker, string("-P2W")));
+    assertEquals(1, errors(checker, string("P")));
+    assertEquals(1, errors(checker, string("P1DT")));
+    assertEquals(1, errors(checker, string("PT1S2M")));
+    assertEquals(1, errors(checker, string("P1.5D")));
+  }
+  
+  @Test
+  public void testOtherTypes() {
+    assertEquals(0, errors(LdDatatypeChecker.compile(LdDatatypeManager.LD_BOOLEAN), string("1")));
+    assertEquals(1, errors(LdDatatypeChecker.compile(LdDatatypeManager.LD_BOOLEAN), string("yes")));
+    assertEquals(0, errors(LdDatatypeChecker.compile(LdDatatypeManager.LD_LANGUAGE), string("en-US")));
+    assertEquals(1, errors(LdDatatypeChecker.compile(LdDatatypeManager.LD_LANGUAGE), string("en-unitedstates")));
+    assertEquals(1, errors(LdDatatypeChecker.compile(LdDatatypeManager.LD_NCNAME), string("a:b")));
+    assertEquals(1, errors(LdDatatypeChecker.compile(LdDatatypeManager.LD_HEXBINARY), string("0FA")));
+    
+    LdDatatype digest = derive("Digest.Type", LdDatatypeManager.LD_BASE64BINARY);
+    digest.setLength(4);
+    LdDatatypeChecker checker = LdDatatypeChecker.compile(digest);
+    assertEquals(0, errors(checker, string("AAECAw==")));
+    assertEquals(1, errors(checker, string("AAEC")));
+    assertEquals(1, errors(checker, string("AA=C")));
+  }
+  
+  private LdDatatype derive(String localName, LdDatatype base) {
+    LdDatatype type = new LdDatatype();
+    type.setLocalName(localName);
+    type.setURI("http://example.com/datatypes#" + localName);
+    type.setBase(base);
+    return type;
+  }
+  
+  private int errors(LdDatatypeChecker checker, LdLiteral value) {
+    LdValidationReport report = new LdValidationReport();
+    checker.check("value", value, report);
+    return report.listMessages().size();
+  }
+  
+  private LdLiteral string(String value) {
+    LdLiteral literal = new LdLiteral();
+    literal.setStringValue(value);
+    return literal;
+  }
+  
+  private LdLiteral number(long value) {
+    LdLiteral literal = new LdLiteral();
+    literal.setLongValue(value);
+    return literal;
+  }
+  
+  private LdLiteral decimal(double value) {
+    LdLiteral literal = new LdLiteral();
+    literal.setDoubleValue(value);
+    return literal;
+  }
+
+}
@@ -0,0 +1,219 @@
+/*******************************************************************************
+ * Copyright 2012 Pearson Education
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package org.semantictools.jsonld.impl;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.semantictools.jsonld.LdClass;
+import org.semantictools.jsonld.LdContext;
+import org.semantictools.jsonld.LdQualifiedRestriction;
+import org.semantictools.jsonld.LdRestriction;
+import org.semantictools.jsonld.LdTerm;
+
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.rdf.model.ModelFactory;
+import com.hp.hpl.jena.rdf.model.Resource;
+import com.hp.hpl.jena.rdf.model.Statement;
+import com.hp.hpl.jena.rdf.model.StmtIterator;
+import com.hp.hpl.jena.vocabulary.OWL;
+import com.hp.hpl.jena.vocabulary.RDF;
+import com.hp.hpl.jena.vocabulary.RDFS;
+
+/**
+ * A simple benchmark that compares the cost of context enhancement with and without
+ * an RDFS reasoner.  The context declares a term for every class and property 
+ * in the vocabularies found in the given directory, which defaults to the LTI example.
+ * The benchmark also reports the number of terms whose enhancement differs between the
+ * two modes.
+ * Run it from the semantictools-jsonld directory with the test classpath:
+ * <pre>
+ *   java -cp ... org.semantictools.jsonld.impl.LdEnhancerBenchmark [iterations] [directory]
+ * </pre>
+ * 
+ * @author Greg McFall
+ *
+ */
+public class LdEnhancerBenchmark {
+  
+  private static final String DEFAULT_DIR = "../examples/lti/src/main/resources/rdf";
+
+  public static void main(String[] args) throws Exception {
+    int iterations = (args.length>0) ? Integer.parseInt(args[0]) : 20;
+    File dir = new File((args.length>1) ? args[1] : DEFAULT_DIR);
+    
+    InMemoryVocabularyManager manager = new InMemoryVocabularyManager();
+    manager.scan(dir);
+    List<String> iriList = listResources(dir);
+    
+    List<String> reasoned = describe(enhance(manager, iriList, true));
+    List<String> direct = describe(enhance(manager, iriList, false));
+    List<String> missing = new ArrayList<String>(reasoned);
+    missing.removeAll(direct);
+    List<String> extra = new ArrayList<String>(direct);
+    extra.removeAll(reasoned);
+    for (String text : missing) {
+      System.out.println("reasoner:    " + text);
+    }
+    for (String text : extra) {
+      System.out.println("no reasoner: " + text);
+    }
+    int differences = missing.size() + extra.size();
+    
+    System.out.println("Terms:          " + iriList.size());
+    System.out.println("Differences:    " + differences);
+    
+    // Warm up, then measure.  Each mode gets its own ontology cache, which is
+    // populated during the warm-up, so that parsing is excluded from the measurement.
+    for (int round=0; round<2; round++) {
+      measure(manager, iriList, true, iterations);
+      measure(manager, iriList, false, iterations);
+    }
+  }
+  
+  private static void measure(InMemoryVocabularyManager manager, List<String> iriList, boolean inferencing, int iterations) 
+      throws Exception {
+    
+    LdContextEnhancerImpl enhancer = new LdContextEnhancerImpl(manager);
+    enhancer.setInferencing(inferencing);
+    enhancer.enhance(createContext(iriList));
+    
+    long allocated = allocatedBytes();
+    long start = System.nanoTime();
+    for (int i=0; i<iterations; i++) {
+      enhancer.enhance(createContext(iriList));
+    }
+    long elapsed = System.nanoTime() - start;
+    allocated = allocatedBytes() - allocated;
+    
+    System.out.println((inferencing ? "Reasoner:     " : "No reasoner:  ") + 
+        (elapsed/iterations/1000) + " microseconds/context, " + 
+        (allocated/iterations/1024) + " KB allocated/context");
+  }
+  
+  /**
+   * Returns the number of bytes allocated by the current thread, or zero if the
+   * JVM does not report it.
+   */
+  private static long allocatedBytes() {
+    Object bean = ManagementFactory.getThreadMXBean();
+    if (bean instanceof com.sun.management.ThreadMXBean) {
+      return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+    return 0;
+  }
+
+  private static LdContext enhance(InMemoryVocabularyManager manager, List<String> iriList, boolean inferencing) throws Exception {
+    LdContextEnhancerImpl enhancer = new LdContextEnhancerImpl(manager);
+    enhancer.setInferencing(inferencing);
+    LdContext context = createContext(iriList);
+    enhancer.enhance(context);
+    return context;
+  }
+  
+  private static LdContext createContext(List<String> iriList) {
+    LdContext context = new LdContext();
+    for (int i=0; i<iriList.size(); i++) {
+      LdTerm term = new LdTerm();
+      term.setShortName("t" + i);
+      term.setRawIRI(iriList.get(i));
+      context.add(term);
+    }
+    context.close();
+    return context;
+  }
+  
+  /**
+   * Returns the URI of each class and property declared in the Turtle files within
+   * the given directory.
+   */
+  private static List<String> listResources(File dir) {
+    Model model = ModelFactory.createDefaultModel();
+    for (File file : dir.listFiles()) {
+      if (file.getName().endsWith(".ttl") && !file.getName().endsWith("_binding.ttl")) {
+        model.read(file.toURI().toString(), "TTL");
+      }
+    }
+    Set<String> set = new HashSet<String>();
+    StmtIterator sequence = model.listStatements(null, RDF.type, (Resource) null);
+    while (sequence.hasNext()) {
+      Statement s = sequence.next();
+      Resource type = s.getResource();
+      String uri = s.getSubject().getURI();
+      if (uri != null && !uri.startsWith(RDFS.getURI()) && (
+          type.equals(OWL.Class) || type.equals(RDFS.Class) || type.equals(RDF.Property) ||
+          type.equals(OWL.ObjectProperty) || type.equals(OWL.DatatypeProperty))) {
+        set.add(uri);
+      }
+    }
+    List<String> list = new ArrayList<String>(set);
+    Collections.sort(list);
+    return list;
+  }
+  
+  private static List<String> describe(LdContext context) {
+    List<String> list = new ArrayList<String>();
+    for (LdTerm term : context.listTerms()) {
+      StringBuilder builder = new StringBuilder();
+      builder.append(term.getIRI());
+      builder.append(" type=").append(term.getTypeIRI());
+      if (term.getProperty() != null) {
+        builder.append(" domain=").append(sorted(term.getProperty().getDomain()));
+      }
+      LdClass rdfClass = term.getRdfClass();
+      if (rdfClass != null) {
+        List<String> superList = new ArrayList<String>();
+        if (rdfClass.listSupertypes() != null) {
+          for (LdClass superClass : rdfClass.listSupertypes()) {
+            superList.add(superClass.getURI());
+          }
+        }
+        builder.append(" supertypes=").append(sorted(superList));
+        
+        List<String> restrictionList = new ArrayList<String>();
+        if (rdfClass.listRestrictions() != null) {
+          for (LdRestriction r : rdfClass.listRestrictions()) {
+            StringBuilder text = new StringBuilder();
+            text.append(r.getPropertyURI()).append('[').append(r.getMinCardinality()).append(',')
+              .append(r.getMaxCardinality()).append(',').append(r.getAllValuesFrom());
+            if (r.listQualifiedRestrictions() != null) {
+              for (LdQualifiedRestriction q : r.listQualifiedRestrictions()) {
+                text.append(',').append(q.getRangeURI()).append(q.getMinCardinality()).append(q.getMaxCardinality());
+              }
+            }
+            restrictionList.add(text.append(']').toString());
+          }
+        }
+        builder.append(" restrictions=").append(sorted(restrictionList));
+      }
+      list.add(builder.toString());
+    }
+    Collections.sort(list);
+    return list;
+  }
+  
+  private static List<String> sorted(List<String> list) {
+    List<String> result = (list==null) ? new ArrayList<String>() : new ArrayList<String>(list);
+    Collections.sort(result);
+    return result;
+  }
+
+}
@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright 2012 Pearson Education
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package org.semantictools.jsonld.impl;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import org.semantictools.jsonld.LdNode;
+import org.semantictools.jsonld.io.LdIriPool;
+import org.semantictools.jsonld.io.impl.LdContextReaderImpl;
+
+/**
+ * A simple benchmark that measures the heap saved by the LdIriPool.  It writes a 
+ * synthetic JSON-LD document with many objects (one million by default) to a 
+ * temporary file, and parses it twice with a non-streaming LdParserImpl: first with
+ * a pool that holds a single string, which effectively disables interning, and then
+ * with a pool of the default size.  Each object declares its type, and holds a plain
+ * literal plus a typed and a language-tagged extended value, so that type values,
+ * datatype IRIs and languages recur in every object.
+ * Run it from the semantictools-jsonld directory with the test classpath and a 
+ * large, fixed heap:
+ * <pre>
+ *   java -Xms2g -Xmx2g -cp ... org.semantictools.jsonld.impl.LdIriPoolBenchmark [objectCount]
+ * </pre>
+ * 
+ * @author Greg McFall
+ *
+ */
+public class LdIriPoolBenchmark {
+
+  public static void main(String[] args) throws Exception {
+    int objectCount = (args.length>0) ? Integer.parseInt(args[0]) : 1000000;
+    
+    File file = File.createTempFile("LdIriPoolBenchmark", ".json");
+    file.deleteOnExit();
+    writeDocument(file, objectCount);
+    System.out.println("Document size:  " + file.length()/1024 + " KB, " + objectCount + " objects");
+    
+    measure("Without pool:", file, objectCount, new LdIriPool(1));
+    measure("With pool:   ", file, objectCount, new LdIriPool());
+    
+    file.delete();
+  }
+  
+  private static void measure(String label, File file, int objectCount, LdIriPool pool) throws Exception {
+    LdContextReaderImpl contextReader = new LdContextReaderImpl(new InMemoryLdContextManager());
+    contextReader.setIriPool(pool);
+    LdParserImpl parser = new LdParserImpl(contextReader);
+    parser.setIriPool(pool);
+    
+    long before = usedMemory();
+    long start = System.nanoTime();
+    LdNode node = parser.parse(file.toPath());
+    long elapsed = System.nanoTime() - start;
+    long after = usedMemory();
+    
+    long retained = after - before;
+    System.out.println(label + " " + retained/(1024*1024) + " MB retained, " + 
+        retained/objectCount + " bytes/object, parsed in " + elapsed/1000000 + " ms");
+    
+    // Keep the nodes reachable until the measurement is complete.
+    if (node == null) {
+      throw new IllegalStateException();
+    }
+  }
+  
+  private static void writeDocument(File file, int objectCount) throws Exception {
+    Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+    try {
+      writer.write("{\"@context\": {");
+      writer.write("\"ex\": \"http://example.com/vocab#\", ");
+      writer.write("\"xsd\": \"http://www.w3.org/2001/XMLSchema#\", ");
+      writer.write("\"name\": \"ex:name\"}, ");
+      writer.write("\"ex:item\": [");
+      for (int i=0; i<objectCount; i++) {
+        if (i>0) {
+          writer.write(", ");
+        }
+        writer.write("{\"@id\": \"http://example.com/item/" + i + "\", ");
+        writer.write("\"@type\": \"ex:Item\", ");
+        writer.write("\"name\": \"item" + i + "\", ");
+        writer.write("\"ex:size\": {\"@value\": " + i + ", \"@type\": \"xsd:integer\"}, ");
+        writer.write("\"ex:note\": {\"@value\": \"note\", \"@language\": \"en\"}}");
+      }
+      writer.write("]}");
+    } finally {
+      writer.close();
+    }
+  }
+  
+  private static long usedMemory() throws InterruptedException {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i=0; i<4; i++) {
+      System.gc();
+      Thread.sleep(100);
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+}
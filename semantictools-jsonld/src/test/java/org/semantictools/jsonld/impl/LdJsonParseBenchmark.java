@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright 2012 Pearson Education
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package org.semantictools.jsonld.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonParser;
+import org.semantictools.jsonld.LdContext;
+import org.semantictools.jsonld.io.LdJsonFactory;
+import org.semantictools.jsonld.io.impl.LdContextReaderImpl;
+
+/**
+ * A simple benchmark that measures the throughput of parsing a small JSON-LD document.
+ * It compares a JsonFactory created for each document with the shared factory from 
+ * LdJsonFactory, and then measures the LdTreeReader, which uses the shared factory.
+ * Run it from the semantictools-jsonld directory with the test classpath:
+ * <pre>
+ *   java -cp ... org.semantictools.jsonld.impl.LdJsonParseBenchmark [iterations]
+ * </pre>
+ * 
+ * @author Greg McFall
+ *
+ */
+public class LdJsonParseBenchmark {
+  
+  private static final String CONTEXT_URI = "http://purl.org/pearson/core/v1/ctx/outcomes/GradebookItemEvent";
+  private static final String DOCUMENT = "GradebookItemEventSample.json";
+
+  public static void main(String[] args) throws Exception {
+    int iterations = (args.length>0) ? Integer.parseInt(args[0]) : 200000;
+    
+    InMemoryLdContextManager contextManager = new InMemoryLdContextManager();
+    LdContextReaderImpl contextParser = new LdContextReaderImpl(contextManager);
+    InputStream contextStream = LdJsonParseBenchmark.class.getClassLoader().getResourceAsStream("gdx/GradebookItemEventContext.json");
+    LdContext context = contextParser.parseExternalContext(CONTEXT_URI, contextStream);
+    context.close();
+    contextManager.add(context);
+    
+    byte[] document = load(DOCUMENT);
+    LdTreeReader reader = new LdTreeReader(contextParser);
+    
+    System.out.println("Document size:  " + document.length + " bytes");
+    for (int round=0; round<2; round++) {
+      // Warm up, then measure.
+      scan(document, false, iterations/10);
+      long start = System.nanoTime();
+      scan(document, false, iterations);
+      report("New factory:   ", System.nanoTime() - start, iterations);
+      
+      scan(document, true, iterations/10);
+      start = System.nanoTime();
+      scan(document, true, iterations);
+      report("Shared factory:", System.nanoTime() - start, iterations);
+      
+      read(reader, document, iterations/10);
+      start = System.nanoTime();
+      read(reader, document, iterations);
+      report("LdTreeReader:  ", System.nanoTime() - start, iterations);
+    }
+  }
+  
+  private static void report(String label, long elapsed, int iterations) {
+    System.out.println(label + " " + Math.round((double) elapsed / iterations) + " nanoseconds/document, " +
+        Math.round(iterations * 1e9 / elapsed) + " documents/second");
+  }
+
+  /**
+   * Read every token in the document, in the manner of LdParserImpl.
+   */
+  private static void scan(byte[] document, boolean shared, int iterations) throws Exception {
+    for (int i=0; i<iterations; i++) {
+      JsonFactory factory = null;
+      if (shared) {
+        factory = LdJsonFactory.getJsonFactory();
+      } else {
+        factory = new JsonFactory();
+        factory.enable(JsonParser.Feature.ALLOW_COMMENTS);
+      }
+      JsonParser parser = factory.createJsonParser(new ByteArrayInputStream(document));
+      try {
+        while (parser.nextToken() != null) {
+          parser.getCurrentName();
+        }
+      } finally {
+        parser.close();
+      }
+    }
+  }
+  
+  private static void read(LdTreeReader reader, byte[] document, int iterations) throws Exception {
+    for (int i=0; i<iterations; i++) {
+      reader.parse(new ByteArrayInputStream(document));
+    }
+  }
+  
+  private static byte[] load(String resource) throws Exception {
+    InputStream input = LdJsonParseBenchmark.class.getClassLoader().getResourceAsStream(resource);
+    try {
+      ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+      byte[] chunk = new byte[4096];
+      int count = 0;
+      while ( (count=input.read(chunk)) > 0) {
+        buffer.write(chunk, 0, count);
+      }
+      return buffer.toByteArray();
+    } finally {
+      input.close();
+    }
+  }
+
+}
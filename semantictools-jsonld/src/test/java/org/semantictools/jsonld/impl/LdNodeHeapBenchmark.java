@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright 2012 Pearson Education
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package org.semantictools.jsonld.impl;
+
+import java.io.ByteArrayInputStream;
+
+import org.semantictools.jsonld.LdNode;
+import org.semantictools.jsonld.io.impl.LdContextReaderImpl;
+
+/**
+ * A simple benchmark that estimates the heap retained by the node model of a large
+ * JSON-LD document.  It generates a document with many similar objects, parses it
+ * with the LdTreeReader, and reports the growth of the used heap while the parsed 
+ * nodes are reachable.  Run it from the semantictools-jsonld directory with the test
+ * classpath and a fixed heap size, for instance:
+ * <pre>
+ *   java -Xms512m -Xmx512m -cp ... org.semantictools.jsonld.impl.LdNodeHeapBenchmark [objectCount]
+ * </pre>
+ * 
+ * @author Greg McFall
+ *
+ */
+public class LdNodeHeapBenchmark {
+
+  public static void main(String[] args) throws Exception {
+    int objectCount = (args.length>0) ? Integer.parseInt(args[0]) : 50000;
+    
+    byte[] document = createDocument(objectCount);
+    LdTreeReader reader = new LdTreeReader(new LdContextReaderImpl(new InMemoryLdContextManager()));
+    
+    // Warm up, so that classes and the shared JSON factory are loaded before measuring.
+    reader.parse(new ByteArrayInputStream(createDocument(100)));
+    
+    long before = usedMemory();
+    LdNode node = reader.parse(new ByteArrayInputStream(document));
+    long after = usedMemory();
+    
+    long retained = after - before;
+    int nodeCount = objectCount * 6;
+    System.out.println("Document size:  " + document.length + " bytes, " + objectCount + " objects");
+    System.out.println("Retained heap:  " + retained/1024 + " KB, " + retained/nodeCount + " bytes/node");
+    
+    // Keep the nodes reachable until the measurement is complete.
+    if (node == null) {
+      throw new IllegalStateException();
+    }
+  }
+  
+  /**
+   * Returns a document with a context, and an array of objects that each hold a
+   * string, a long, a double, a boolean and a typed literal.
+   */
+  private static byte[] createDocument(int objectCount) throws Exception {
+    StringBuilder builder = new StringBuilder();
+    builder.append("{\"@context\": {");
+    builder.append("\"ex\": \"http://example.com/vocab#\", ");
+    builder.append("\"xsd\": \"http://www.w3.org/2001/XMLSchema#\", ");
+    builder.append("\"name\": \"ex:name\", \"count\": \"ex:count\", \"score\": \"ex:score\", ");
+    builder.append("\"active\": \"ex:active\", ");
+    builder.append("\"created\": {\"@id\": \"ex:created\", \"@type\": \"xsd:dateTime\"}}, ");
+    builder.append("\"ex:item\": [");
+    for (int i=0; i<objectCount; i++) {
+      if (i>0) {
+        builder.append(", ");
+      }
+      builder.append("{\"name\": \"item").append(i).append("\", ");
+      builder.append("\"count\": ").append(i).append(", ");
+      builder.append("\"score\": ").append(i).append(".5, ");
+      builder.append("\"active\": ").append(i%2==0).append(", ");
+      builder.append("\"created\": \"2012-04-11T12:38:59-04:00\"}");
+    }
+    builder.append("]}");
+    return builder.toString().getBytes("UTF-8");
+  }
+  
+  private static long usedMemory() throws InterruptedException {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i=0; i<4; i++) {
+      System.gc();
+      Thread.sleep(100);
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+}
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright 2012 Pearson Education
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package org.semantictools.jsonld.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.Test;
+import org.semantictools.jsonld.FileUtil;
+import org.semantictools.jsonld.LdAsset;
+import org.semantictools.jsonld.LdContext;
+import org.semantictools.jsonld.LdTerm;
+import org.semantictools.jsonld.io.impl.LdContextReaderImpl;
+
+public class LdOntologyCacheTest {
+
+  private String contextURI = "http://purl.org/pearson/core/v1/ctx/outcomes/GradebookItemEvent";
+  private String namespaceURI = "http://purl.org/pearson/core/v1/vocab/outcomes#";
+  private File source = new File("src/test/resources/gdx");
+  private File root = new File("target/LdOntologyCacheTest");
+
+  @Test
+  public void testGetModel() throws Exception {
+    LdAssetRepository repository = createRepository();
+    LdAsset asset = repository.findAsset(namespaceURI);
+    
+    LdOntologyCache cache = new LdOntologyCache();
+    assertTrue(cache.getModel(asset) == cache.getModel(asset));
+    assertEquals(1, cache.getMissCount());
+    assertEquals(1, cache.getHitCount());
+    
+    // A change in content causes the namespace to be parsed again.
+    asset.setContent(asset.loadContent() + "\n");
+    cache.getModel(asset);
+    assertEquals(2, cache.getMissCount());
+    assertEquals(2, cache.size());
+  }
+  
+  @Test
+  public void testEnhance() throws Exception {
+    LdAssetRepository repository = createRepository();
+    
+    LdContextEnhancerImpl enhancer = new LdContextEnhancerImpl(repository);
+    LdContextReaderImpl reader = new LdContextReaderImpl(null);
+    LdContextManagerImpl manager = new LdContextManagerImpl(repository, reader, enhancer);
+    reader.setManager(manager);
+    manager.setContextCache(null);
+    
+    LdContext first = manager.findEnhancedContext(contextURI);
+    LdOntologyCache cache = enhancer.getOntologyCache();
+    long parseCount = cache.getMissCount();
+    assertTrue(parseCount > 0);
+    assertEquals(0, cache.getHitCount());
+    
+    // The second enhancement does not parse any namespace.
+    LdContext second = manager.findEnhancedContext(contextURI);
+    assertTrue(first != second);
+    assertEquals(parseCount, cache.getMissCount());
+    assertEquals(parseCount, cache.getHitCount());
+    
+    for (LdTerm expected : first.listTerms()) {
+      LdTerm actual = second.getTerm(expected.getShortName());
+      assertEquals(expected.getTypeIRI(), actual.getTypeIRI());
+      if (expected.getRdfClass() != null) {
+        assertEquals(
+          String.valueOf(expected.getRdfClass().listRestrictions()), 
+          String.valueOf(actual.getRdfClass().listRestrictions()));
+      }
+    }
+  }
+  
+  private LdAssetRepository createRepository() throws Exception {
+    FileUtil.delete(root);
+    LdAssetRepository repository = new LdAssetRepository(root);
+    repository.scan(source);
+    return repository;
+  }
+
+}
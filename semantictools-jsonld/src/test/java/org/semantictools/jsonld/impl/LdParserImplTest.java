@@ -17,9 +17,16 @@ package org.semantictools.jsonld.impl;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.Iterator;
 
 import org.junit.Before;
@@ -82,6 +89,97 @@ public class LdParserImplTest {
     verifyBody(sequence.next());
   }
 
+  @Test
+  public void testMappedFile() throws Exception {
+    Path file = Paths.get("src/test/resources", jsonDocument);
+    
+    Iterator<LdField> sequence = parser.parse(file).asObject().fields();
+    verifyMetadata(sequence.next());
+    verifyBody(sequence.next());
+    
+    // A streaming parser closes the channel once the document has been read.
+    parser.setStreaming(true);
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+    sequence = parser.parse(channel).asObject().fields();
+    verifyMetadata(sequence.next());
+    verifyBody(sequence.next());
+    assertTrue(!sequence.hasNext());
+    assertTrue(!channel.isOpen());
+  }
+  
+  @Test
+  public void testMappedFileFailure() throws Exception {
+    Path file = Files.createTempFile("LdParserImplTest", ".json");
+    try {
+      Files.write(file, "{\"@context\": {\"bad\": 5}}".getBytes("UTF-8"));
+      
+      // The channel is closed even though the parser never hands it to a node.
+      for (int round=0; round<2; round++) {
+        parser.setStreaming(round==1);
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+          parser.parse(channel);
+          fail("Expected an LdParseException");
+        } catch (LdParseException expected) {
+        }
+        assertTrue(!channel.isOpen());
+      }
+    } finally {
+      Files.delete(file);
+    }
+  }
+  
+  @Test
+  public void testByteBuffer() throws Exception {
+    ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(Paths.get("src/test/resources", jsonDocument)));
+    
+    Iterator<LdField> sequence = parser.parse(buffer).asObject().fields();
+    verifyMetadata(sequence.next());
+    verifyBody(sequence.next());
+    assertEquals(0, buffer.position());
+  }
+
+  @Test
+  public void testStreaming() throws Exception {
+    String text =
+        "{\"@context\" : \"http://purl.org/pearson/core/v1/ctx/outcomes/GradebookItemEvent\", " +
+        "\"metadata\" : {\"version\" : {\"@value\" : \"1.0\", \"@language\" : \"en\"}, \"msgId\" : \"x\"}, " +
+        "\"body\" : {\"assignment\" : {\"@id\" : \"http://mathxl.com/assignments/94722\"}, " +
+        "\"taxon\" : [\"a\", [\"b\", \"c\"], {\"@id\" : \"d\"}]}}";
+    
+    parser.setStreaming(true);
+    LdNode node = parser.parse(new ByteArrayInputStream(text.getBytes("UTF-8")));
+    Iterator<LdField> sequence = node.asObject().fields();
+    
+    LdField metadata = sequence.next();
+    assertEquals("metadata", metadata.getLocalName());
+    Iterator<LdField> metadataFields = metadata.getValue().asObject().fields();
+    LdField version = metadataFields.next();
+    assertEquals("1.0", version.getValue().asLiteral().getStringValue());
+    assertEquals("en", version.getValue().asLiteral().getLanguage());
+    assertStringField(metadataFields.next(), "msgId", "x");
+    assertTrue(!metadataFields.hasNext());
+    
+    assertTrue(sequence.hasNext());
+    LdField body = sequence.next();
+    Iterator<LdField> bodyFields = body.getValue().asObject().fields();
+    LdField assignment = bodyFields.next();
+    assertTrue(!assignment.getValue().asObject().fields().hasNext());
+    
+    LdField taxon = bodyFields.next();
+    Iterator<LdNode> elements = taxon.getValue().asContainer().iterator();
+    assertEquals("a", elements.next().asObject().getRawId());
+    Iterator<LdNode> nested = elements.next().asContainer().iterator();
+    assertEquals("b", nested.next().asObject().getRawId());
+    assertEquals("c", nested.next().asObject().getRawId());
+    assertTrue(!nested.hasNext());
+    assertEquals("d", elements.next().asObject().getRawId());
+    assertTrue(!elements.hasNext());
+    
+    assertTrue(!bodyFields.hasNext());
+    assertTrue(!sequence.hasNext());
+  }
+
   private void verifyBody(LdField field) {
     assertEquals("body", field.getLocalName());
     Iterator<LdField> fieldSequence = field.getValue().asObject().fields();
@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Copyright 2012 Pearson Education
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package org.semantictools.jsonld.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.semantictools.jsonld.LdContext;
+import org.semantictools.jsonld.LdNode;
+import org.semantictools.jsonld.LdQuad;
+import org.semantictools.jsonld.LdQuadCallback;
+import org.semantictools.jsonld.io.LdParseException;
+import org.semantictools.jsonld.io.impl.LdContextReaderImpl;
+
+public class LdQuadParserImplTest {
+
+  private String jsonDocument = "GradebookItemEventSample.json";
+  private String eventType = "http://purl.org/pearson/core/v1/vocab/outcomes#GradebookItemEvent";
+  private String metadataProperty = "http://purl.org/pearson/core/v1/vocab/message#metadata";
+  private String assignment = "http://mathxl.com/assignments/94722";
+  private LdQuadParserImpl parser;
+  
+  @Before
+  public void setUp() throws Exception {
+    
+    String contextURI = "http://purl.org/pearson/core/v1/ctx/outcomes/GradebookItemEvent";
+    InputStream contextStream = getClass().getClassLoader().getResourceAsStream("gdx/GradebookItemEventContext.json");
+
+    InMemoryLdContextManager contextManager = new InMemoryLdContextManager();
+    LdContextReaderImpl contextParser = new LdContextReaderImpl(contextManager);
+    LdContext context = contextParser.parseExternalContext(contextURI, contextStream);
+    contextManager.add(context);
+    
+    parser = new LdQuadParserImpl(contextParser);
+  }
+  
+  @Test
+  public void test() throws Exception {
+    InputStream input = getClass().getClassLoader().getResourceAsStream(jsonDocument);
+    QuadList list = new QuadList();
+    long count = parser.parse(input, list);
+    
+    assertEquals(list.size(), count);
+    
+    LdQuad first = list.get(0);
+    assertTrue(first.getSubject().isBlankNode());
+    assertEquals(LdQuadParserImpl.RDF_TYPE, first.getPredicate().asIRI().getValue());
+    assertEquals(eventType, first.getObject().asIRI().getValue());
+    
+    LdQuad metadata = list.get(1);
+    assertEquals(first.getSubject().asBlankNode().getIdentifier(), metadata.getSubject().asBlankNode().getIdentifier());
+    assertEquals(metadataProperty, metadata.getPredicate().asIRI().getValue());
+    
+    LdQuad version = list.get(2);
+    assertEquals(
+        metadata.getObject().asBlankNode().getIdentifier(), version.getSubject().asBlankNode().getIdentifier());
+    assertEquals("1.0", version.getObject().asLiteral().getStringValue());
+    
+    List<String> taxonList = new ArrayList<String>();
+    for (LdQuad quad : list) {
+      LdNode subject = quad.getSubject();
+      if (subject.isIRI() && assignment.equals(subject.asIRI().getValue())) {
+        taxonList.add(quad.getObject().asIRI().getValue());
+      }
+    }
+    assertEquals(2, taxonList.size());
+    assertEquals("http://purl.org/ASN/resources/S114362E", taxonList.get(0));
+  }
+  
+  @Test
+  public void testExtendedValue() throws Exception {
+    String text = 
+        "{\"@id\" : \"http://example.com/a\", " +
+        "\"http://example.com/label\" : {\"@value\" : \"foo\", \"@language\" : \"en\"}, " +
+        "\"http://example.com/count\" : [1, null, 2]}";
+    
+    QuadList list = new QuadList();
+    parser.parse(new ByteArrayInputStream(text.getBytes("UTF-8")), list);
+    
+    assertEquals(3, list.size());
+    assertEquals("http://example.com/a", list.get(0).getSubject().asIRI().getValue());
+    assertEquals("foo", list.get(0).getObject().asLiteral().getStringValue());
+    assertEquals("en", list.get(0).getObject().asLiteral().getLanguage());
+    assertEquals(Long.valueOf(2), list.get(2).getObject().asLiteral().getLongValue());
+  }
+  
+  @Test
+  public void testBlankNodes() throws Exception {
+    String text = 
+        "{\"@id\" : \"_:b1\", " +
+        "\"http://example.com/child\" : {\"http://example.com/label\" : \"anonymous\"}, " +
+        "\"http://example.com/sibling\" : {\"@id\" : \"_:b1\"}, " +
+        "\"http://example.com/label\" : \"labeled\"}";
+    
+    QuadList list = new QuadList();
+    parser.parse(new ByteArrayInputStream(text.getBytes("UTF-8")), list);
+    
+    assertEquals(4, list.size());
+    String labeled = list.get(0).getSubject().asBlankNode().getIdentifier();
+    String anonymous = list.get(0).getObject().asBlankNode().getIdentifier();
+    assertTrue(!labeled.equals(anonymous));
+    assertEquals(anonymous, list.get(1).getSubject().asBlankNode().getIdentifier());
+    
+    // Every occurrence of a document label denotes the same node.
+    assertEquals(labeled, list.get(2).getObject().asBlankNode().getIdentifier());
+    assertEquals(labeled, list.get(3).getSubject().asBlankNode().getIdentifier());
+  }
+  
+  @Test
+  public void testLateId() throws Exception {
+    String text = "{\"http://example.com/label\" : \"foo\", \"@id\" : \"http://example.com/a\"}";
+    try {
+      parser.parse(new ByteArrayInputStream(text.getBytes("UTF-8")), new QuadList());
+      assertTrue(false);
+    } catch (LdParseException expected) {
+      assertTrue(expected.getMessage().startsWith("The @id property must appear"));
+    }
+  }
+  
+  @SuppressWarnings("serial")
+  static class QuadList extends ArrayList<LdQuad> implements LdQuadCallback {
+    @Override
+    public void quad(LdQuad quad) {
+      add(quad);
+    }
+  }
+
+}
@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright 2012 Pearson Education
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package org.semantictools.jsonld.impl;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.semantictools.jsonld.LdContext;
+import org.semantictools.jsonld.LdTerm;
+import org.semantictools.jsonld.io.impl.LdContextReaderImpl;
+
+/**
+ * A simple benchmark that measures the cost of term lookup and IRI expansion
+ * in the enhanced GradebookItemEvent context.  The lookups are performed through
+ * a nested context, as they are for an object that declares its own local context.
+ * It also measures the cost per document of the way LdTreeReader handles a nested
+ * context: the shared context is copied, re-parented, and then used for a few lookups.
+ * Run it from the semantictools-jsonld directory with the test classpath:
+ * <pre>
+ *   java -cp ... org.semantictools.jsonld.impl.LdTermResolutionBenchmark [iterations]
+ * </pre>
+ * 
+ * @author Greg McFall
+ *
+ */
+public class LdTermResolutionBenchmark {
+  
+  private static final String CONTEXT_URI = "http://purl.org/pearson/core/v1/ctx/outcomes/GradebookItemEvent";
+
+  public static void main(String[] args) throws Exception {
+    int iterations = (args.length>0) ? Integer.parseInt(args[0]) : 20000;
+    
+    InMemoryVocabularyManager manager = new InMemoryVocabularyManager();
+    manager.scan(new File("src/test/resources"));
+    
+    InMemoryLdContextManager contextManager = new InMemoryLdContextManager();
+    LdContextReaderImpl contextParser = new LdContextReaderImpl(contextManager);
+    InputStream contextStream = LdTermResolutionBenchmark.class.getClassLoader().getResourceAsStream("gdx/GradebookItemEventContext.json");
+    LdContext context = contextParser.parseExternalContext(CONTEXT_URI, contextStream);
+    context.close();
+    contextManager.add(context);
+    new LdContextEnhancerImpl(manager).enhance(context);
+    
+    LdContext local = new LdContext(context);
+    LdTerm localTerm = new LdTerm();
+    localTerm.setShortName("localName");
+    localTerm.setRawIRI("po:localName");
+    local.add(localTerm);
+    local.close();
+    
+    // Look up every term by its short name, its raw IRI and its expanded IRI.
+    List<String> keyList = new ArrayList<String>();
+    for (LdTerm term : context.listTerms()) {
+      keyList.add(term.getShortName());
+      keyList.add(term.getRawIRI());
+      if (term.getIRI() != null) {
+        keyList.add(term.getIRI());
+      }
+    }
+    String[] keys = keyList.toArray(new String[keyList.size()]);
+    
+    // Warm up, then measure.
+    run(local, keys, iterations/10);
+    long start = System.nanoTime();
+    int found = run(local, keys, iterations);
+    long elapsed = System.nanoTime() - start;
+    
+    long lookups = (long) iterations * keys.length;
+    System.out.println("Keys:                " + keys.length);
+    System.out.println("Resolved per pass:   " + found/iterations);
+    System.out.println("Nanoseconds/lookup:  " + Math.round((double) elapsed / lookups));
+    
+    int documents = iterations*10;
+    reparent(local, context, keys, documents/10);
+    start = System.nanoTime();
+    found = reparent(local, context, keys, documents);
+    elapsed = System.nanoTime() - start;
+    System.out.println("Re-parented copies:  " + documents);
+    System.out.println("Nanoseconds/copy:    " + Math.round((double) elapsed / documents));
+  }
+  
+  /**
+   * Simulates the parsing of the given number of documents, each of which holds an object
+   * with a nested context.  Every document re-parents a fresh copy of the nested context, 
+   * and resolves a few keys through it.
+   */
+  private static int reparent(LdContext nested, LdContext parent, String[] keys, int documents) {
+    int found = 0;
+    for (int i=0; i<documents; i++) {
+      LdContext copy = nested.copy();
+      copy.setParentContext(parent);
+      for (int j=0; j<8; j++) {
+        String key = keys[(i+j) % keys.length];
+        if (copy.getTerm(key) != null && copy.expand(key) != null) {
+          found++;
+        }
+      }
+    }
+    return found;
+  }
+
+  private static int run(LdContext context, String[] keys, int iterations) {
+    int found = 0;
+    for (int i=0; i<iterations; i++) {
+      for (String key : keys) {
+        if (context.getTerm(key) != null && context.expand(key) != null) {
+          found++;
+        }
+      }
+    }
+    return found;
+  }
+
+}
@@ -16,7 +16,10 @@
 package org.semantictools.jsonld.impl;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
@@ -30,6 +33,7 @@ import org.semantictools.jsonld.LdField;
 import org.semantictools.jsonld.LdNode;
 import org.semantictools.jsonld.LdObject;
 import org.semantictools.jsonld.io.LdParseException;
+import org.semantictools.jsonld.io.LdUncheckedParseException;
 import org.semantictools.jsonld.io.impl.LdContextReaderImpl;
 
 public class LdTreeReaderTest {
@@ -71,6 +75,103 @@ public class LdTreeReaderTest {
     verifyBody(sequence.next());
   }
 
+  @Test
+  public void testLazy() throws Exception {
+    parser.setLazy(true);
+    InputStream input = getClass().getClassLoader().getResourceAsStream(jsonDocument);
+    
+    LdObject object = parser.parse(input).asObject();
+    assertTrue(object instanceof LazyLdObject);
+    assertTrue(!((LazyLdObject) object).isMaterialized());
+    
+    LdField metadata = object.getField("http://purl.org/pearson/core/v1/vocab/message#metadata");
+    assertTrue(((LazyLdObject) object).isMaterialized());
+    assertTrue(!((LazyLdObject) metadata.getValue()).isMaterialized());
+    verifyMetadata(metadata);
+    
+    Iterator<LdField> sequence = object.fields();
+    assertSame(metadata, sequence.next());
+    verifyBody(sequence.next());
+  }
+  
+  @Test
+  public void testLazyFailure() throws Exception {
+    parser.setLazy(true);
+    String text = 
+        "{\"@context\": {\"ex\": \"http://example.com/vocab#\"}," +
+        " \"ex:child\": {\"@context\": {\"bad\": 5}, \"ex:name\": \"child\"}}";
+    
+    LazyLdObject object = (LazyLdObject) parser.parse(new ByteArrayInputStream(text.getBytes("UTF-8"))).asObject();
+    for (int round=0; round<2; round++) {
+      try {
+        object.fields();
+        fail("Expected an LdUncheckedParseException");
+      } catch (LdUncheckedParseException expected) {
+        assertTrue(expected.getCause() != null);
+      }
+      // The JSON tree is retained, so every access reports the same failure.
+      assertTrue(!object.isMaterialized());
+    }
+  }
+  
+  @Test
+  public void testGetField() throws Exception {
+    StringBuilder text = new StringBuilder("{\"@context\": {\"ex\": \"http://example.com/vocab#\"}");
+    int count = FieldList.INDEX_THRESHOLD + 2;
+    for (int i=0; i<count; i++) {
+      text.append(", \"ex:p").append(i).append("\": ").append(i);
+    }
+    text.append("}");
+    
+    for (int round=0; round<2; round++) {
+      parser.setLazy(round==1);
+      LdObject object = parser.parse(new ByteArrayInputStream(text.toString().getBytes("UTF-8"))).asObject();
+      for (int i=count-1; i>=0; i--) {
+        LdField field = object.getField("http://example.com/vocab#p" + i);
+        assertEquals(Long.valueOf(i), field.getValue().asLiteral().getLongValue());
+      }
+      assertNull(object.getField("http://example.com/vocab#missing"));
+    }
+  }
+
+  @Test
+  public void testSharedPropertyNames() throws Exception {
+    String text = 
+        "{\"@context\": {\"ex\": \"http://example.com/vocab#\", \"name\": \"ex:name\"}," +
+        " \"ex:item\": [" +
+        "   {\"name\": \"first\", \"ex:size\": {\"@value\": 3, \"@type\": \"ex:Size\"}}," +
+        "   {\"name\": \"second\", \"ex:size\": {\"@value\": 4, \"@type\": \"ex:Size\"}}" +
+        " ]}";
+    
+    LdObject root = parser.parse(new ByteArrayInputStream(text.getBytes("UTF-8"))).asObject();
+    Iterator<LdNode> items = root.fields().next().getValue().asContainer().iterator();
+    
+    Iterator<LdField> first = items.next().asObject().fields();
+    Iterator<LdField> second = items.next().asObject().fields();
+    
+    LdField firstName = first.next();
+    LdField secondName = second.next();
+    assertEquals("http://example.com/vocab#name", firstName.getPropertyURI());
+    assertSame(firstName.getPropertyURI(), secondName.getPropertyURI());
+    assertSame(firstName.getLocalName(), secondName.getLocalName());
+    
+    LdField firstSize = first.next();
+    LdField secondSize = second.next();
+    assertEquals("size", firstSize.getLocalName());
+    assertSame(firstSize.getLocalName(), secondSize.getLocalName());
+    assertSame(firstSize.getValue().asLiteral().getType(), secondSize.getValue().asLiteral().getType());
+    assertEquals(Long.valueOf(3), firstSize.getValue().asLiteral().getLongValue());
+    assertEquals(Long.valueOf(4), secondSize.getValue().asLiteral().getLongValue());
+    
+    // The names are interned in the shared LdIriPool, so another document 
+    // refers to the same instances.
+    LdObject other = parser.parse(new ByteArrayInputStream(text.getBytes("UTF-8"))).asObject();
+    LdObject item = other.fields().next().getValue().asContainer().iterator().next().asObject();
+    LdField otherName = item.fields().next();
+    assertSame(firstName.getPropertyURI(), otherName.getPropertyURI());
+    assertSame(item.getContext().getTerm("name").getIRI(), otherName.getPropertyURI());
+  }
+
   private void verifyBody(LdField field) {
     assertEquals("body", field.getLocalName());
     Iterator<LdField> fieldSequence = field.getValue().asObject().fields();
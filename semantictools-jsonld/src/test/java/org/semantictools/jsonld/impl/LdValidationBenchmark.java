@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright 2012 Pearson Education
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package org.semantictools.jsonld.impl;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.Iterator;
+
+import org.semantictools.jsonld.LdContext;
+import org.semantictools.jsonld.LdField;
+import org.semantictools.jsonld.LdNode;
+import org.semantictools.jsonld.io.impl.LdContextReaderImpl;
+
+/**
+ * A simple benchmark that measures the cost of validating a parsed JSON-LD document.
+ * Run it from the semantictools-jsonld directory with the test classpath:
+ * <pre>
+ *   java -cp ... org.semantictools.jsonld.impl.LdValidationBenchmark [iterations]
+ * </pre>
+ * 
+ * @author Greg McFall
+ *
+ */
+public class LdValidationBenchmark {
+  
+  private static final String CONTEXT_URI = "http://purl.org/pearson/core/v1/ctx/outcomes/GradebookItemEvent";
+  private static final String DOCUMENT = "GradebookItemEventInvalid.json";
+
+  public static void main(String[] args) throws Exception {
+    int iterations = (args.length>0) ? Integer.parseInt(args[0]) : 200000;
+    
+    InMemoryVocabularyManager manager = new InMemoryVocabularyManager();
+    manager.scan(new File("src/test/resources"));
+    
+    InMemoryLdContextManager contextManager = new InMemoryLdContextManager();
+    LdContextReaderImpl contextParser = new LdContextReaderImpl(contextManager);
+    InputStream contextStream = LdValidationBenchmark.class.getClassLoader().getResourceAsStream("gdx/GradebookItemEventContext.json");
+    LdContext context = contextParser.parseExternalContext(CONTEXT_URI, contextStream);
+    context.close();
+    contextManager.add(context);
+    new LdContextEnhancerImpl(manager).enhance(context);
+    
+    InputStream input = LdValidationBenchmark.class.getClassLoader().getResourceAsStream(DOCUMENT);
+    LdNode node = new LdTreeReader(contextParser).parse(input);
+    int objectCount = countObjects(node);
+    
+    LdValidationServiceImpl validator = new LdValidationServiceImpl();
+    
+    // Warm up, then measure.
+    run(validator, node, iterations/10);
+    long start = System.nanoTime();
+    run(validator, node, iterations);
+    long elapsed = System.nanoTime() - start;
+    
+    double perDocument = (double) elapsed / iterations;
+    System.out.println("Objects per document:  " + objectCount);
+    System.out.println("Nanoseconds/document:  " + Math.round(perDocument));
+    System.out.println("Nanoseconds/object:    " + Math.round(perDocument/objectCount));
+  }
+
+  private static void run(LdValidationServiceImpl validator, LdNode node, int iterations) {
+    for (int i=0; i<iterations; i++) {
+      validator.validate(node);
+    }
+  }
+
+  private static int countObjects(LdNode node) {
+    int count = 0;
+    if (node.isObject()) {
+      count++;
+      Iterator<LdField> sequence = node.asObject().fields();
+      if (sequence != null) {
+        while (sequence.hasNext()) {
+          count += countObjects(sequence.next().getValue());
+        }
+      }
+    } else if (node.isContainer()) {
+      Iterator<LdNode> sequence = node.asContainer().iterator();
+      while (sequence.hasNext()) {
+        count += countObjects(sequence.next());
+      }
+    }
+    return count;
+  }
+
+}
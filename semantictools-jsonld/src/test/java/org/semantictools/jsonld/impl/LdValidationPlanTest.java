@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright 2012 Pearson Education
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package org.semantictools.jsonld.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.InputStream;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.semantictools.jsonld.LdContext;
+import org.semantictools.jsonld.LdValidationResult;
+import org.semantictools.jsonld.impl.LdValidationPlan.ClassPlan;
+import org.semantictools.jsonld.impl.LdValidationPlan.TermPlan;
+import org.semantictools.jsonld.io.impl.LdContextReaderImpl;
+
+public class LdValidationPlanTest {
+
+  private String contextURI = "http://purl.org/pearson/core/v1/ctx/outcomes/GradebookItemEvent";
+  private String eventType = "http://purl.org/pearson/core/v1/vocab/outcomes#GradebookItemEvent";
+  private String metadataProperty = "http://purl.org/pearson/core/v1/vocab/message#metadata";
+  
+  private LdContext context;
+  private LdValidationServiceImpl validator;
+  
+  @Before
+  public void setUp() throws Exception {
+    InputStream contextStream = getClass().getClassLoader().getResourceAsStream("gdx/GradebookItemEventContext.json");
+    
+    InMemoryVocabularyManager manager = new InMemoryVocabularyManager();
+    manager.scan(new File("src/test/resources"));
+    
+    InMemoryLdContextManager contextManager = new InMemoryLdContextManager();
+    LdContextReaderImpl contextParser = new LdContextReaderImpl(contextManager);
+    context = contextParser.parseExternalContext(contextURI, contextStream);
+    context.close();
+    new LdContextEnhancerImpl(manager).enhance(context);
+    
+    validator = new LdValidationServiceImpl();
+  }
+  
+  @Test
+  public void testCache() {
+    LdValidationPlan plan = validator.getValidationPlan(context);
+    assertSame(plan, validator.getValidationPlan(context));
+    assertTrue(plan != validator.getValidationPlan(new LdContext()));
+    
+    assertSame(plan.getClassPlan(context, eventType), plan.getClassPlan(context, eventType));
+    assertSame(plan.getTermPlan(context, "metadata"), plan.getTermPlan(context, "metadata"));
+  }
+  
+  @Test
+  public void testCopies() {
+    LdValidationPlan plan = validator.getValidationPlan(context);
+    
+    // A parser re-parents a copy of the shared context for each document.
+    LdContext parent = new LdContext();
+    LdContext first = context.copy();
+    first.setParentContext(parent);
+    LdContext second = context.copy();
+    second.setParentContext(parent.copy());
+    
+    LdValidationPlan copyPlan = validator.getValidationPlan(first);
+    assertTrue(copyPlan != plan);
+    assertSame(copyPlan, validator.getValidationPlan(second));
+    assertSame(plan, validator.getValidationPlan(context.copy()));
+    
+    // A copy that inherits from a different parent may resolve terms differently.
+    LdContext other = context.copy();
+    other.setParentContext(new LdContext());
+    assertTrue(copyPlan != validator.getValidationPlan(other));
+  }
+  
+  @Test
+  public void testClassPlan() {
+    LdValidationPlan plan = validator.getValidationPlan(context);
+    
+    ClassPlan event = plan.getClassPlan(context, eventType);
+    assertTrue(event != null);
+    assertEquals(eventType, event.getRdfClass().getURI());
+    assertTrue(event.getSlot(metadataProperty) >= 0);
+    assertEquals(-1, event.getSlot("http://example.com/undefined"));
+    
+    assertNull(plan.getClassPlan(context, "http://example.com/Undefined"));
+    assertNull(plan.getClassPlan(context, null));
+  }
+  
+  @Test
+  public void testTermPlan() {
+    LdValidationPlan plan = validator.getValidationPlan(context);
+    
+    TermPlan metadata = plan.getTermPlan(context, "metadata");
+    assertEquals(metadataProperty, metadata.getTerm().getIRI());
+    assertTrue(plan.isMemberOf(context, eventType, metadata));
+    
+    TermPlan undefined = plan.getTermPlan(context, "undefinedTerm");
+    assertNull(undefined.getTerm());
+    assertEquals(LdValidationResult.ERROR, undefined.literalResult);
+  }
+
+}
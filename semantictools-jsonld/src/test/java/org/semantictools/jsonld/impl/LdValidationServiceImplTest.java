@@ -22,6 +22,9 @@ import static org.junit.Assert.fail;
 import java.io.File;
 import java.io.InputStream;
 import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -43,6 +46,7 @@ public class LdValidationServiceImplTest {
   
   private LdValidationServiceImpl validator;
   private LdParser parser;
+  private LdParser streamingParser;
   
   @Before
   public void setUp() throws Exception {
@@ -66,6 +70,7 @@ public class LdValidationServiceImplTest {
     
     
     parser = new LdTreeReader(contextParser);
+    streamingParser = new LdParserImpl(contextParser, true);
     validator = new LdValidationServiceImpl();
   }
 
@@ -110,6 +115,37 @@ public class LdValidationServiceImplTest {
     assertEquals(0, report.listMessages().size());
   }
   
+  /**
+   * Verify that validating a document in a single pass with a streaming parser
+   * produces the same messages as validating the fully parsed tree.
+   */
+  @Test
+  public void testStreaming() throws Exception {
+
+    InputStream documentStream = getClass().getClassLoader().getResourceAsStream(gradebookItemEventInvalid);
+    LdValidationReport expected = validator.validate(parser.parse(documentStream));
+    
+    documentStream = getClass().getClassLoader().getResourceAsStream(gradebookItemEventInvalid);
+    LdValidationReport report = null;
+    try {
+      report = validator.validate(streamingParser.parse(documentStream));
+    } finally {
+      documentStream.close();
+    }
+    
+    validateReport(report);
+    assertEquals(listMessages(expected), listMessages(report));
+  }
+  
+  private List<String> listMessages(LdValidationReport report) {
+    List<String> list = new ArrayList<String>();
+    for (LdValidationMessage message : report.listMessages()) {
+      list.add(message.toString());
+    }
+    Collections.sort(list);
+    return list;
+  }
+  
   public static void validateReport(LdValidationReport report) {
 
     assertMessage(report, "ERROR   metadata.msgId Expected minCardinality=1, but found cardinality=0");
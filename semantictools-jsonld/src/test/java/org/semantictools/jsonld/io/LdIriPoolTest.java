@@ -0,0 +1,54 @@
+/*******************************************************************************
+ * Copyright 2012 Pearson Education
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package org.semantictools.jsonld.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class LdIriPoolTest {
+
+  @Test
+  public void testIntern() {
+    LdIriPool pool = new LdIriPool();
+    String first = new String("http://example.com/vocab#name");
+    String second = new String("http://example.com/vocab#name");
+    
+    assertSame(first, pool.intern(first));
+    assertSame(first, pool.intern(second));
+    assertNull(pool.intern(null));
+    assertEquals(1, pool.size());
+  }
+
+  @Test
+  public void testMaxSize() {
+    LdIriPool pool = new LdIriPool(2);
+    pool.intern("a");
+    pool.intern("b");
+    assertEquals(2, pool.size());
+    
+    // The pool is full, so it is cleared before the next string is added.
+    String c = new String("c");
+    assertSame(c, pool.intern(c));
+    assertEquals(1, pool.size());
+    
+    pool.clear();
+    assertEquals(0, pool.size());
+  }
+
+}
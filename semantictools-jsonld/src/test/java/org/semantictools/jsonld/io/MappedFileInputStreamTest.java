@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * Copyright 2012 Pearson Education
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package org.semantictools.jsonld.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.Test;
+
+public class MappedFileInputStreamTest {
+  
+  private Path file = Paths.get("src/test/resources/GradebookItemEventSample.json");
+
+  @Test
+  public void testWindows() throws Exception {
+    byte[] expected = Files.readAllBytes(file);
+    
+    // Use a window size that does not divide the file size, so that reads 
+    // straddle the boundaries between windows.
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+    InputStream input = new MappedFileInputStream(channel, 100);
+    assertEquals(expected.length, input.available());
+    
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    buffer.write(input.read());
+    assertEquals(149, input.skip(149));
+    byte[] chunk = new byte[64];
+    int count = 0;
+    while ( (count=input.read(chunk, 0, chunk.length)) > 0) {
+      buffer.write(chunk, 0, count);
+    }
+    assertEquals(-1, input.read());
+    input.close();
+    assertTrue(!channel.isOpen());
+    
+    byte[] actual = buffer.toByteArray();
+    assertEquals(expected.length - 149, actual.length);
+    assertEquals(expected[0], actual[0]);
+    for (int i=1; i<actual.length; i++) {
+      assertEquals(expected[i+149], actual[i]);
+    }
+  }
+  
+  @Test
+  public void testByteBuffer() throws Exception {
+    byte[] expected = Files.readAllBytes(file);
+    InputStream input = new ByteBufferInputStream(ByteBuffer.wrap(expected));
+    
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    byte[] chunk = new byte[100];
+    int count = 0;
+    while ( (count=input.read(chunk, 0, chunk.length)) > 0) {
+      buffer.write(chunk, 0, count);
+    }
+    assertArrayEquals(expected, buffer.toByteArray());
+  }
+
+}
@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright 2012 Pearson Education
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package org.semantictools.jsonld.io.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.codehaus.jackson.node.TextNode;
+import org.junit.Test;
+import org.semantictools.jsonld.LdContext;
+import org.semantictools.jsonld.LdContextEnhancer;
+import org.semantictools.jsonld.LdDatatype;
+import org.semantictools.jsonld.LdTerm;
+import org.semantictools.jsonld.impl.LdContextEnhanceException;
+import org.semantictools.jsonld.impl.NetworkContextManager;
+
+public class EnhancedLdContextReaderTest {
+  
+  private static final String CONTEXT_URI = "http://example.com/ctx/EnhancedLdContextReaderTest";
+
+  /**
+   * A thread that needs the enhanced rendition of a shared context while another thread 
+   * is enhancing it must wait until the enhancement is complete.  The enhanced copy is
+   * cached, and the plain context in the cache of the manager is not modified.
+   */
+  @Test
+  public void testConcurrentEnhancement() throws Exception {
+    LdContext context = new LdContext();
+    context.setContextURI(CONTEXT_URI);
+    context.add(term("name", "http://example.com/ns#name"));
+    context.add(term("size", "http://example.com/ns#size"));
+    
+    final NetworkContextManager manager = new NetworkContextManager(null);
+    manager.getContextCache().put(CONTEXT_URI, false, context);
+    
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch proceed = new CountDownLatch(1);
+    final AtomicInteger calls = new AtomicInteger();
+    
+    final LdContextEnhancer enhancer = new LdContextEnhancer() {
+      @Override
+      public void enhance(LdContext context) throws LdContextEnhanceException {
+        calls.incrementAndGet();
+        List<LdTerm> list = context.getTermList();
+        list.get(0).setDatatype(new LdDatatype());
+        started.countDown();
+        try {
+          proceed.await();
+        } catch (InterruptedException e) {
+          throw new LdContextEnhanceException(e);
+        }
+        list.get(1).setDatatype(new LdDatatype());
+      }
+    };
+    
+    Callable<LdContext> task = new Callable<LdContext>() {
+      @Override
+      public LdContext call() throws Exception {
+        LdContextReaderImpl plain = new LdContextReaderImpl(manager);
+        EnhancedLdContextReader reader = new EnhancedLdContextReader(manager, enhancer, plain);
+        return reader.parseContext(TextNode.valueOf(CONTEXT_URI));
+      }
+    };
+    
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<LdContext> first = executor.submit(task);
+      assertEquals(true, started.await(10, TimeUnit.SECONDS));
+      
+      Future<LdContext> second = executor.submit(task);
+      Thread.sleep(200);
+      assertFalse(second.isDone());
+      
+      proceed.countDown();
+      
+      LdContext result = second.get(10, TimeUnit.SECONDS);
+      assertNotSame(context, result);
+      assertSame(result, first.get(10, TimeUnit.SECONDS));
+      assertSame(result, manager.findEnhancedContext(CONTEXT_URI));
+      assertNotNull(result.getTermList().get(1).getDatatype());
+      assertNull(context.getTermList().get(0).getDatatype());
+      assertNull(context.getTermList().get(1).getDatatype());
+      assertEquals(1, calls.get());
+    } finally {
+      executor.shutdown();
+    }
+  }
+  
+  private LdTerm term(String shortName, String rawIRI) {
+    LdTerm term = new LdTerm();
+    term.setShortName(shortName);
+    term.setRawIRI(rawIRI);
+    return term;
+  }
+
+}
@@ -27,6 +27,8 @@ import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugin.logging.Log;
+import org.semantictools.context.renderer.LayoutAlgorithm;
+import org.semantictools.graphics.ImageFormat;
 import org.semantictools.publish.DocumentationGenerator;
 
 /**
@@ -115,6 +117,52 @@ public class DocumentationPlugin extends AbstractMojo {
    */
   private boolean generate;
   
+  /**
+   * A flag which controls whether only the artifacts whose sources have changed since
+   * the previous build should be regenerated.  A change to an ontology, schema, or global 
+   * properties file still causes everything to be regenerated.  This value is false by
+   * default.
+   * 
+   * @parameter expression="false"
+   */
+  private boolean incremental;
+  
+  /**
+   * The number of threads used to produce the documentation for the media types.
+   * Each media type is documented by an independent task, and the output is the same
+   * as when the media types are documented one at a time.  This value is 1 by default.
+   * 
+   * @parameter expression="1"
+   */
+  private int documentationThreadCount;
+  
+  /**
+   * The number of worker threads used to paint and encode the diagrams while the HTML
+   * is generated.  Diagrams whose content has not changed since the previous build are
+   * not painted again.  A value of zero means that diagrams are written synchronously.
+   * This value is 1 by default.
+   * 
+   * @parameter expression="1"
+   */
+  private int diagramThreadCount;
+  
+  /**
+   * The format of the diagrams, either "png" or "svg".  SVG diagrams are much faster to
+   * produce, smaller to upload, and remain crisp at any zoom level.  This value is "png" by default.
+   * 
+   * @parameter expression="png"
+   */
+  private String diagramFormat;
+  
+  /**
+   * The algorithm used to place the nodes of the media type diagrams, either "grid" or "tidy".
+   * The "tidy" algorithm runs in linear time, and spaces small subtrees evenly between 
+   * larger ones.  This value is "grid" by default.
+   * 
+   * @parameter expression="grid"
+   */
+  private String diagramLayout;
+  
   public void execute() throws MojoExecutionException, MojoFailureException {
 
     if ("yyyy-MM-dd".equals(version)) {
@@ -132,6 +180,23 @@ public class DocumentationPlugin extends AbstractMojo {
     generator.setUploadEndpoint(publishEndpoint);
     generator.setVersion(version);
     generator.setGenerate(generate);
+    generator.setIncremental(incremental);
+    generator.setDocumentationThreadCount(documentationThreadCount);
+    generator.setDiagramThreadCount(diagramThreadCount);
+    if (diagramFormat != null) {
+      try {
+        generator.setDiagramFormat(ImageFormat.valueOf(diagramFormat.toUpperCase()));
+      } catch (IllegalArgumentException e) {
+        throw new MojoExecutionException("Unsupported diagram format: " + diagramFormat);
+      }
+    }
+    if (diagramLayout != null) {
+      try {
+        generator.setDiagramLayout(LayoutAlgorithm.valueOf(diagramLayout.toUpperCase()));
+      } catch (IllegalArgumentException e) {
+        throw new MojoExecutionException("Unsupported diagram layout: " + diagramLayout);
+      }
+    }
     generator.setIndexFileName(indexFileName);
     
     